@@ -0,0 +1,65 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.benchmarks.repository;
+
+import com.googlecode.jbp.common.repository.IIdentifiable;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+
+/**
+ * Entity stored by the repository benchmarks.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+@Entity
+public class BenchmarkEntity implements IIdentifiable<Long> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    private String name;
+
+    private long amount;
+
+    public BenchmarkEntity() {
+    }
+
+    public BenchmarkEntity(final String nameParam, final long amountParam) {
+        name = nameParam;
+        amount = amountParam;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public void setAmount(final long amountParam) {
+        amount = amountParam;
+    }
+}
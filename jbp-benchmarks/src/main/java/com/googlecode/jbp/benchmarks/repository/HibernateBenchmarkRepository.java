@@ -0,0 +1,37 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.benchmarks.repository;
+
+import com.googlecode.jbp.hibernate.AbstractHibernateRepository;
+import com.googlecode.jbp.hibernate.GenericHibernateRepository;
+import org.hibernate.SessionFactory;
+
+/**
+ * Hibernate repository of the benchmark entities.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class HibernateBenchmarkRepository extends AbstractHibernateRepository<Long, BenchmarkEntity, BenchmarkEntity> {
+
+    public HibernateBenchmarkRepository(final SessionFactory sessionFactoryParam) {
+        super(sessionFactoryParam, new GenericHibernateRepository(sessionFactoryParam));
+    }
+
+    @Override
+    protected Class<BenchmarkEntity> getPersistentClass() {
+        return BenchmarkEntity.class;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.benchmarks.repository;
+
+import com.googlecode.jbp.common.repository.BatchReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the repository operations, each in a transaction of its own.
+ * <p>
+ * Every operation is measured in throughput mode and in sample time mode,
+ * which reports the latency percentiles.  Each benchmark runs in a fork of
+ * its own, with a dataset of its own: {@code create} lets the dataset grow,
+ * and {@code deleteAll} regenerates it before each call, outside the
+ * measurement.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    /**
+     * The amount of entities updated or deleted by one call.
+     */
+    public static final int BATCH_SIZE = 50;
+
+    @Benchmark
+    public BenchmarkEntity create(final RepositoryState stateParam) {
+        final BenchmarkEntity entity = new BenchmarkEntity("created", 1L);
+        return stateParam.execute(repository -> repository.create(entity));
+    }
+
+    @Benchmark
+    public BenchmarkEntity retrieveById(final RepositoryState stateParam) {
+        final Long id = stateParam.randomId();
+        return stateParam.execute(repository -> repository.retrieveById(id));
+    }
+
+    @Benchmark
+    public boolean exists(final RepositoryState stateParam) {
+        final Long id = stateParam.randomId();
+        return stateParam.execute(repository -> repository.exists(id));
+    }
+
+    @Benchmark
+    public Object updateCollection(final RepositoryState stateParam, final DetachedBatch batchParam) {
+        for (final BenchmarkEntity current : batchParam.entities) {
+            current.setAmount(current.getAmount() + 1L);
+        }
+        return stateParam.execute(repository -> {
+            repository.update(batchParam.entities);
+            return null;
+        });
+    }
+
+    @Benchmark
+    public BatchReport deleteCollection(final RepositoryState stateParam, final CreatedBatch batchParam) {
+        return stateParam.execute(repository -> repository.delete(batchParam.entities, BATCH_SIZE));
+    }
+
+    @Benchmark
+    public int deleteAll(final RepositoryState stateParam, final RefilledDataset datasetParam) {
+        return stateParam.execute(repository -> repository.deleteAll());
+    }
+
+    /**
+     * Entities of the dataset, retrieved before each iteration and detached.
+     */
+    @State(Scope.Thread)
+    public static class DetachedBatch {
+        private final List<BenchmarkEntity> entities = new ArrayList<BenchmarkEntity>();
+
+        @Setup(Level.Iteration)
+        public void setUp(final RepositoryState stateParam) {
+            final Collection<Long> ids = new ArrayList<Long>();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                ids.add(stateParam.randomId());
+            }
+            entities.clear();
+            entities.addAll(stateParam.execute(repository -> repository.retrieveByIds(ids)));
+        }
+    }
+
+    /**
+     * Entities created before each call, to be deleted by it.
+     */
+    @State(Scope.Thread)
+    public static class CreatedBatch {
+        private List<BenchmarkEntity> entities;
+
+        @Setup(Level.Invocation)
+        public void setUp(final RepositoryState stateParam) {
+            entities = RepositoryState.newEntities(BATCH_SIZE);
+            stateParam.execute(repository -> repository.create(entities));
+        }
+    }
+
+    /**
+     * Dataset generated again before each call, as the previous call deleted
+     * it.
+     */
+    @State(Scope.Thread)
+    public static class RefilledDataset {
+        private boolean filled = true;
+
+        @Setup(Level.Invocation)
+        public void setUp(final RepositoryState stateParam) {
+            if (!filled) {
+                stateParam.fill();
+            }
+            filled = false;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.benchmarks.repository;
+
+import com.googlecode.jbp.common.repository.IRepository;
+import com.googlecode.jbp.common.repository.IRepositoryScope;
+import com.googlecode.jbp.hibernate.HibernateRepositoryScope;
+import com.googlecode.jbp.jpa.JpaRepositoryScope;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Repository of the benchmark entities, backed by an in-memory H2 database
+ * filled with a generated dataset.
+ * <p>
+ * The implementation is either {@code hibernate}, the generic Hibernate
+ * repository working with the current session, or {@code jpa}, the generic
+ * JPA repository working with Hibernate as persistence provider.  Both are
+ * benchmarked by default; {@code -p implementation=jpa} selects one.  The
+ * size of the dataset is set with {@code -p datasetSize=100000}.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+@State(Scope.Benchmark)
+public class RepositoryState {
+
+    /**
+     * The amount of entities created per transaction while the dataset is
+     * generated.
+     */
+    private static final int GENERATION_CHUNK_SIZE = 1000;
+
+    @Param({"hibernate", "jpa"})
+    public String implementation;
+
+    @Param({"10000"})
+    public int datasetSize;
+
+    private SessionFactory sessionFactory;
+    private EntityManagerFactory entityManagerFactory;
+    private IRepositoryScope<Long, BenchmarkEntity> scope;
+    private final List<Long> ids = new ArrayList<Long>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Properties properties = databaseProperties();
+        if ("hibernate".equals(implementation)) {
+            sessionFactory = new Configuration()
+                    .addAnnotatedClass(BenchmarkEntity.class)
+                    .addProperties(properties)
+                    .setProperty("hibernate.current_session_context_class", "thread")
+                    .buildSessionFactory();
+            scope = new HibernateRepositoryScope<Long, BenchmarkEntity>(sessionFactory,
+                    new HibernateBenchmarkRepository(sessionFactory));
+        } else if ("jpa".equals(implementation)) {
+            entityManagerFactory = Persistence.createEntityManagerFactory("jbp-benchmarks", properties);
+            scope = new JpaRepositoryScope<Long, BenchmarkEntity>(entityManagerFactory, JpaBenchmarkRepository::new);
+        } else {
+            throw new IllegalArgumentException("Unknown implementation: " + implementation + ".");
+        }
+        fill();
+    }
+
+    private static Properties databaseProperties() {
+        final Properties properties = new Properties();
+        properties.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+        properties.setProperty("hibernate.connection.url", "jdbc:h2:mem:jbp;DB_CLOSE_DELAY=-1");
+        properties.setProperty("hibernate.connection.username", "sa");
+        properties.setProperty("hibernate.connection.password", "");
+        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.setProperty("hibernate.hbm2ddl.auto", "create");
+        properties.setProperty("hibernate.jdbc.batch_size", "50");
+        return properties;
+    }
+
+    /**
+     * Creates the entities of the dataset, after the existing ones.
+     */
+    public void fill() {
+        ids.clear();
+        for (int i = 0; i < datasetSize; i += GENERATION_CHUNK_SIZE) {
+            final List<BenchmarkEntity> chunk = newEntities(Math.min(GENERATION_CHUNK_SIZE, datasetSize - i));
+            execute(repository -> repository.create(chunk));
+            for (final BenchmarkEntity current : chunk) {
+                ids.add(current.getId());
+            }
+        }
+    }
+
+    /**
+     * Returns new entities, which are not persisted yet.
+     *
+     * @param countParam The amount of entities.
+     * @return The entities.
+     */
+    public static List<BenchmarkEntity> newEntities(final int countParam) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final List<BenchmarkEntity> entities = new ArrayList<BenchmarkEntity>(countParam);
+        for (int i = 0; i < countParam; i++) {
+            entities.add(new BenchmarkEntity("entity-" + random.nextInt(), random.nextLong()));
+        }
+        return entities;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+    }
+
+    /**
+     * Runs the specified work in a transaction of its own.
+     *
+     * @param workParam The work.
+     * @return The result of the work.
+     */
+    public <R> R execute(final Function<IRepository<Long, BenchmarkEntity>, R> workParam) {
+        return scope.execute(workParam);
+    }
+
+    /**
+     * Returns the identifier of an entity of the dataset, chosen at random.
+     *
+     * @return The identifier.
+     */
+    public Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.benchmarks.repository;
+
+import com.googlecode.jbp.common.repository.Page;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@code retrieveAll(Page)} with pages at the start, in the
+ * middle and at the end of the dataset, which shows the cost of skipping
+ * rows with an offset.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RetrieveAllBenchmark {
+
+    /**
+     * The maximum amount of entities of a page.
+     */
+    public static final int PAGE_SIZE = 50;
+
+    /**
+     * The position of the page in the dataset, in percent.
+     */
+    @Param({"0", "50", "99"})
+    public int offsetPercent;
+
+    private Page page;
+
+    @Setup
+    public void setUp(final RepositoryState stateParam) {
+        final int offset = (int) ((long) Math.max(0, stateParam.datasetSize - PAGE_SIZE) * offsetPercent / 100L);
+        page = Page.newPage().firstResult(offset).maxResults(PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<BenchmarkEntity> retrieveAllPage(final RepositoryState stateParam) {
+        return stateParam.execute(repository -> repository.retrieveAll(page));
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.benchmarks.requirements;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings shared by the benchmarks of the requirements.
+ * <p>
+ * Each method of a requirements interface is measured twice per overload:
+ * the pass path, where the check holds, and the fail path, where it throws.
+ * The overloads taking an array of messages are called without messages, as
+ * most callers do.  The values checked are fields set up once, so that the
+ * JIT cannot fold the checks away.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public abstract class AbstractRequirementsBenchmark {
+
+    /**
+     * The message passed to the overloads taking one message.
+     */
+    protected static final String MESSAGE = "The benchmarked value is invalid.";
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.benchmarks.requirements;
+
+import java.util.Calendar;
+import java.util.Date;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Benchmarks of the {@link com.googlecode.jbp.common.requirements.IDateTimeRequirements}
+ * methods of {@code PARAM_REQ}, each on its pass and fail path.
+ * <p>
+ * The calendar checks compare the calendar to a {@code Date}, which
+ * {@code Calendar.before} and {@code Calendar.after} always answer with
+ * {@code false}: they never fail, so only their pass path is measured.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+@SuppressWarnings("deprecation")
+public class DateTimeRequirementsBenchmark extends AbstractRequirementsBenchmark {
+
+    private Date past;
+    private Date future;
+    private Calendar pastCalendar;
+    private Calendar futureCalendar;
+
+    @Setup
+    public void setUp() {
+        past = new Date(0L);
+        future = new Date(Long.MAX_VALUE / 2L);
+        pastCalendar = Calendar.getInstance();
+        pastCalendar.setTime(past);
+        futureCalendar = Calendar.getInstance();
+        futureCalendar.setTime(future);
+    }
+
+    @Benchmark
+    public Object requireFutureInstantPass() {
+        return PARAM_REQ.DateTime.requireFutureInstant(future);
+    }
+
+    @Benchmark
+    public Object requireFutureInstantWithMessagePass() {
+        return PARAM_REQ.DateTime.requireFutureInstant(future, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireFutureInstantFail() {
+        try {
+            return PARAM_REQ.DateTime.requireFutureInstant(past);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireFutureInstantWithMessageFail() {
+        try {
+            return PARAM_REQ.DateTime.requireFutureInstant(past, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireFutureInstantCalendarPass() {
+        return PARAM_REQ.DateTime.requireFutureInstant(futureCalendar);
+    }
+
+    @Benchmark
+    public Object requireFutureInstantWithMessageCalendarPass() {
+        return PARAM_REQ.DateTime.requireFutureInstant(futureCalendar, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requirePastInstantPass() {
+        return PARAM_REQ.DateTime.requirePastInstant(past);
+    }
+
+    @Benchmark
+    public Object requirePastInstantWithMessagePass() {
+        return PARAM_REQ.DateTime.requirePastInstant(past, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requirePastInstantFail() {
+        try {
+            return PARAM_REQ.DateTime.requirePastInstant(future);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requirePastInstantWithMessageFail() {
+        try {
+            return PARAM_REQ.DateTime.requirePastInstant(future, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requirePastInstantCalendarPass() {
+        return PARAM_REQ.DateTime.requirePastInstant(pastCalendar);
+    }
+
+    @Benchmark
+    public Object requirePastInstantWithMessageCalendarPass() {
+        return PARAM_REQ.DateTime.requirePastInstant(pastCalendar, MESSAGE);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.benchmarks.requirements;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Benchmarks of the {@link com.googlecode.jbp.common.requirements.ILogicRequirements}
+ * methods of {@code PARAM_REQ}, each on its pass and fail path.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class LogicRequirementsBenchmark extends AbstractRequirementsBenchmark {
+
+    private boolean yes;
+    private boolean no;
+
+    @Setup
+    public void setUp() {
+        yes = true;
+        no = false;
+    }
+
+    @Benchmark
+    public Object requireConjunctionPass() {
+        return PARAM_REQ.Logic.requireConjunction(yes, yes, yes);
+    }
+
+    @Benchmark
+    public Object requireConjunctionWithMessagePass() {
+        return PARAM_REQ.Logic.requireConjunction(MESSAGE, yes, yes, yes);
+    }
+
+    @Benchmark
+    public Object requireConjunctionFail() {
+        try {
+            return PARAM_REQ.Logic.requireConjunction(yes, no, yes);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireConjunctionWithMessageFail() {
+        try {
+            return PARAM_REQ.Logic.requireConjunction(MESSAGE, yes, no, yes);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireDisjunctionPass() {
+        return PARAM_REQ.Logic.requireDisjunction(no, no, yes);
+    }
+
+    @Benchmark
+    public Object requireDisjunctionWithMessagePass() {
+        return PARAM_REQ.Logic.requireDisjunction(MESSAGE, no, no, yes);
+    }
+
+    @Benchmark
+    public Object requireDisjunctionFail() {
+        try {
+            return PARAM_REQ.Logic.requireDisjunction(no, no, no);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireDisjunctionWithMessageFail() {
+        try {
+            return PARAM_REQ.Logic.requireDisjunction(MESSAGE, no, no, no);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireExclusiveDisjunctionPass() {
+        return PARAM_REQ.Logic.requireExclusiveDisjunction(yes, no);
+    }
+
+    @Benchmark
+    public Object requireExclusiveDisjunctionWithMessagePass() {
+        return PARAM_REQ.Logic.requireExclusiveDisjunction(yes, no, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireExclusiveDisjunctionFail() {
+        try {
+            return PARAM_REQ.Logic.requireExclusiveDisjunction(yes, yes);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireExclusiveDisjunctionWithMessageFail() {
+        try {
+            return PARAM_REQ.Logic.requireExclusiveDisjunction(yes, yes, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireFalsePass() {
+        return PARAM_REQ.Logic.requireFalse(no);
+    }
+
+    @Benchmark
+    public Object requireFalseWithMessagePass() {
+        return PARAM_REQ.Logic.requireFalse(no, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireFalseFail() {
+        try {
+            return PARAM_REQ.Logic.requireFalse(yes);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireFalseWithMessageFail() {
+        try {
+            return PARAM_REQ.Logic.requireFalse(yes, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireTruePass() {
+        return PARAM_REQ.Logic.requireTrue(yes);
+    }
+
+    @Benchmark
+    public Object requireTrueWithMessagePass() {
+        return PARAM_REQ.Logic.requireTrue(yes, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireTrueFail() {
+        try {
+            return PARAM_REQ.Logic.requireTrue(no);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireTrueWithMessageFail() {
+        try {
+            return PARAM_REQ.Logic.requireTrue(no, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+}
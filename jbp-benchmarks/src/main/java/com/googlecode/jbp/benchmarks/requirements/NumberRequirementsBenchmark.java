@@ -0,0 +1,293 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.benchmarks.requirements;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Benchmarks of the {@link com.googlecode.jbp.common.requirements.INumberRequirements}
+ * methods of {@code PARAM_REQ}, each on its pass and fail path.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class NumberRequirementsBenchmark extends AbstractRequirementsBenchmark {
+
+    private Integer positive;
+    private Integer negative;
+    private Integer zero;
+
+    @Setup
+    public void setUp() {
+        positive = 1;
+        negative = -1;
+        zero = 0;
+    }
+
+    @Benchmark
+    public Object requireNotStrictlyNegativePass() {
+        return PARAM_REQ.Number.requireNotStrictlyNegative(positive);
+    }
+
+    @Benchmark
+    public Object requireNotStrictlyNegativeWithMessagePass() {
+        return PARAM_REQ.Number.requireNotStrictlyNegative(positive, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireNotStrictlyNegativeFail() {
+        try {
+            return PARAM_REQ.Number.requireNotStrictlyNegative(negative);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotStrictlyNegativeWithMessageFail() {
+        try {
+            return PARAM_REQ.Number.requireNotStrictlyNegative(negative, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireStrictlyNegativePass() {
+        return PARAM_REQ.Number.requireStrictlyNegative(negative);
+    }
+
+    @Benchmark
+    public Object requireStrictlyNegativeWithMessagePass() {
+        return PARAM_REQ.Number.requireStrictlyNegative(negative, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireStrictlyNegativeFail() {
+        try {
+            return PARAM_REQ.Number.requireStrictlyNegative(positive);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireStrictlyNegativeWithMessageFail() {
+        try {
+            return PARAM_REQ.Number.requireStrictlyNegative(positive, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNegativePass() {
+        return PARAM_REQ.Number.requireNegative(negative);
+    }
+
+    @Benchmark
+    public Object requireNegativeWithMessagePass() {
+        return PARAM_REQ.Number.requireNegative(negative, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireNegativeFail() {
+        try {
+            return PARAM_REQ.Number.requireNegative(positive);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNegativeWithMessageFail() {
+        try {
+            return PARAM_REQ.Number.requireNegative(positive, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotNegativePass() {
+        return PARAM_REQ.Number.requireNotNegative(positive);
+    }
+
+    @Benchmark
+    public Object requireNotNegativeWithMessagePass() {
+        return PARAM_REQ.Number.requireNotNegative(positive, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireNotNegativeFail() {
+        try {
+            return PARAM_REQ.Number.requireNotNegative(zero);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotNegativeWithMessageFail() {
+        try {
+            return PARAM_REQ.Number.requireNotNegative(zero, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotStrictlyPositivePass() {
+        return PARAM_REQ.Number.requireNotStrictlyPositive(negative);
+    }
+
+    @Benchmark
+    public Object requireNotStrictlyPositiveWithMessagePass() {
+        return PARAM_REQ.Number.requireNotStrictlyPositive(negative, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireNotStrictlyPositiveFail() {
+        try {
+            return PARAM_REQ.Number.requireNotStrictlyPositive(positive);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotStrictlyPositiveWithMessageFail() {
+        try {
+            return PARAM_REQ.Number.requireNotStrictlyPositive(positive, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireStrictlyPositivePass() {
+        return PARAM_REQ.Number.requireStrictlyPositive(positive);
+    }
+
+    @Benchmark
+    public Object requireStrictlyPositiveWithMessagePass() {
+        return PARAM_REQ.Number.requireStrictlyPositive(positive, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireStrictlyPositiveFail() {
+        try {
+            return PARAM_REQ.Number.requireStrictlyPositive(zero);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireStrictlyPositiveWithMessageFail() {
+        try {
+            return PARAM_REQ.Number.requireStrictlyPositive(zero, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requirePositivePass() {
+        return PARAM_REQ.Number.requirePositive(positive);
+    }
+
+    @Benchmark
+    public Object requirePositiveWithMessagePass() {
+        return PARAM_REQ.Number.requirePositive(positive, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requirePositiveFail() {
+        try {
+            return PARAM_REQ.Number.requirePositive(negative);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requirePositiveWithMessageFail() {
+        try {
+            return PARAM_REQ.Number.requirePositive(negative, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotPositivePass() {
+        return PARAM_REQ.Number.requireNotPositive(negative);
+    }
+
+    @Benchmark
+    public Object requireNotPositiveWithMessagePass() {
+        return PARAM_REQ.Number.requireNotPositive(negative, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireNotPositiveFail() {
+        try {
+            return PARAM_REQ.Number.requireNotPositive(zero);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotPositiveWithMessageFail() {
+        try {
+            return PARAM_REQ.Number.requireNotPositive(zero, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotZeroPass() {
+        return PARAM_REQ.Number.requireNotZero(positive);
+    }
+
+    @Benchmark
+    public Object requireNotZeroWithMessagePass() {
+        return PARAM_REQ.Number.requireNotZero(positive, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireNotZeroFail() {
+        try {
+            return PARAM_REQ.Number.requireNotZero(zero);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotZeroWithMessageFail() {
+        try {
+            return PARAM_REQ.Number.requireNotZero(zero, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+}
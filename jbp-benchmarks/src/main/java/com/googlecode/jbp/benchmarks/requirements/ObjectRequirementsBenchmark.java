@@ -0,0 +1,250 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.benchmarks.requirements;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Benchmarks of the {@link com.googlecode.jbp.common.requirements.IObjectRequirements}
+ * methods of {@code PARAM_REQ}, each on its pass and fail path.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class ObjectRequirementsBenchmark extends AbstractRequirementsBenchmark {
+
+    private Object value;
+    private Object otherValue;
+    private Object nullValue;
+    private List<Object> values;
+    private List<Object> mixedValues;
+    private List<Object> emptyValues;
+    private List<Object> someNullValues;
+    private List<Object> nullValues;
+
+    @Setup
+    public void setUp() {
+        value = "value";
+        otherValue = 1;
+        nullValue = null;
+        values = Arrays.<Object>asList("a", "b", "c");
+        mixedValues = Arrays.<Object>asList("a", 1, "c");
+        emptyValues = Collections.emptyList();
+        someNullValues = Arrays.<Object>asList(null, "a");
+        nullValues = Arrays.<Object>asList(null, null);
+    }
+
+    @Benchmark
+    public Object requireAllInstanceOfPass() {
+        return PARAM_REQ.Object.requireAllInstanceOf(values, String.class);
+    }
+
+    @Benchmark
+    public Object requireAllInstanceOfWithMessagePass() {
+        return PARAM_REQ.Object.requireAllInstanceOf(values, String.class, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireAllInstanceOfFail() {
+        try {
+            return PARAM_REQ.Object.requireAllInstanceOf(mixedValues, String.class);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireAllInstanceOfWithMessageFail() {
+        try {
+            return PARAM_REQ.Object.requireAllInstanceOf(mixedValues, String.class, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireInstanceOfPass() {
+        return PARAM_REQ.Object.requireInstanceOf(value, String.class);
+    }
+
+    @Benchmark
+    public Object requireInstanceOfWithMessagePass() {
+        return PARAM_REQ.Object.requireInstanceOf(value, String.class, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireInstanceOfFail() {
+        try {
+            return PARAM_REQ.Object.requireInstanceOf(otherValue, String.class);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireInstanceOfWithMessageFail() {
+        try {
+            return PARAM_REQ.Object.requireInstanceOf(otherValue, String.class, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotAllSimultaneouslyNullPass() {
+        return PARAM_REQ.Object.requireNotAllSimultaneouslyNull(nullValue, value);
+    }
+
+    @Benchmark
+    public Object requireNotAllSimultaneouslyNullWithMessagePass() {
+        return PARAM_REQ.Object.requireNotAllSimultaneouslyNull(MESSAGE, nullValue, value);
+    }
+
+    @Benchmark
+    public Object requireNotAllSimultaneouslyNullFail() {
+        try {
+            return PARAM_REQ.Object.requireNotAllSimultaneouslyNull(nullValue, nullValue);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotAllSimultaneouslyNullWithMessageFail() {
+        try {
+            return PARAM_REQ.Object.requireNotAllSimultaneouslyNull(MESSAGE, nullValue, nullValue);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotAllSimultaneouslyNullCollectionPass() {
+        return PARAM_REQ.Object.requireNotAllSimultaneouslyNull(someNullValues);
+    }
+
+    @Benchmark
+    public Object requireNotAllSimultaneouslyNullWithMessageCollectionPass() {
+        return PARAM_REQ.Object.requireNotAllSimultaneouslyNull(someNullValues, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireNotAllSimultaneouslyNullCollectionFail() {
+        try {
+            return PARAM_REQ.Object.requireNotAllSimultaneouslyNull(nullValues);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotAllSimultaneouslyNullWithMessageCollectionFail() {
+        try {
+            return PARAM_REQ.Object.requireNotAllSimultaneouslyNull(nullValues, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotEmptyPass() {
+        return PARAM_REQ.Object.requireNotEmpty(values);
+    }
+
+    @Benchmark
+    public Object requireNotEmptyWithMessagePass() {
+        return PARAM_REQ.Object.requireNotEmpty(values, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireNotEmptyFail() {
+        try {
+            return PARAM_REQ.Object.requireNotEmpty(emptyValues);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotEmptyWithMessageFail() {
+        try {
+            return PARAM_REQ.Object.requireNotEmpty(emptyValues, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotNullPass() {
+        return PARAM_REQ.Object.requireNotNull(value);
+    }
+
+    @Benchmark
+    public Object requireNotNullWithMessagePass() {
+        return PARAM_REQ.Object.requireNotNull(value, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireNotNullFail() {
+        try {
+            return PARAM_REQ.Object.requireNotNull(nullValue);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotNullWithMessageFail() {
+        try {
+            return PARAM_REQ.Object.requireNotNull(nullValue, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNullPass() {
+        return PARAM_REQ.Object.requireNull(nullValue);
+    }
+
+    @Benchmark
+    public Object requireNullWithMessagePass() {
+        return PARAM_REQ.Object.requireNull(nullValue, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireNullFail() {
+        try {
+            return PARAM_REQ.Object.requireNull(value);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNullWithMessageFail() {
+        try {
+            return PARAM_REQ.Object.requireNull(value, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.benchmarks.requirements;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Benchmarks of the {@link com.googlecode.jbp.common.requirements.IStringRequirements}
+ * methods of {@code PARAM_REQ}, each on its pass and fail path.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class StringRequirementsBenchmark extends AbstractRequirementsBenchmark {
+
+    private String value;
+    private String blank;
+
+    @Setup
+    public void setUp() {
+        value = "value";
+        blank = "   ";
+    }
+
+    @Benchmark
+    public Object requireNotBlankPass() {
+        return PARAM_REQ.String.requireNotBlank(value);
+    }
+
+    @Benchmark
+    public Object requireNotBlankWithMessagePass() {
+        return PARAM_REQ.String.requireNotBlank(value, MESSAGE);
+    }
+
+    @Benchmark
+    public Object requireNotBlankFail() {
+        try {
+            return PARAM_REQ.String.requireNotBlank(blank);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object requireNotBlankWithMessageFail() {
+        try {
+            return PARAM_REQ.String.requireNotBlank(blank, MESSAGE);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Generic repository decorator which runs every operation through
+ * {@link #intercept(Class, Page, String, Supplier)}.  Extended by decorators
+ * which observe all operations the same way, e.g. to measure them.
+ * <p>
+ * Operations are named after the methods of {@link IGenericRepository}:
+ * overloads share the same name.  The entity class of an operation is the
+ * persistent class passed to it, or else the class of the passed entity, or
+ * of the first of the passed entities.  The iterators of {@code iterateAll}
+ * are intercepted while they are opened only, not while they are read.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public abstract class AbstractInterceptingGenericRepository implements IGenericRepository {
+
+    private final IGenericRepository delegate;
+
+    /**
+     * Constructor.
+     *
+     * @param delegateParam The decorated repository.  Must not be {@code null}.
+     */
+    protected AbstractInterceptingGenericRepository(final IGenericRepository delegateParam) {
+        PARAM_REQ.Object.requireNotNull(delegateParam);
+        delegate = delegateParam;
+    }
+
+    protected final IGenericRepository getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Runs the specified operation of the decorated repository.
+     *
+     * @param entityClassParam The class of the entities of the operation, or
+     *                         {@code null} if it concerns no particular
+     *                         class, like {@code flush()} or operations on
+     *                         an empty collection.
+     * @param pageParam        The page the operation retrieves, or
+     *                         {@code null} if it retrieves no page.
+     * @param operationParam   The name of the operation.
+     * @param workParam        The call to the decorated repository.
+     * @return The result of the call, {@code null} if it returns nothing.
+     */
+    protected abstract <R> R intercept(final Class<?> entityClassParam, final Page pageParam,
+                                       final String operationParam, final Supplier<R> workParam);
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> DomainModel create(final DomainModel entity) {
+        return intercept(entityClass(entity), null, "create", () -> getDelegate().create(entity));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> BatchReport create(final Collection<DomainModel> entities) {
+        return intercept(entityClass(entities), null, "create", () -> getDelegate().create(entities));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> BatchReport create(final Collection<DomainModel> entities, final int batchSizeParam) {
+        return intercept(entityClass(entities), null, "create", () -> getDelegate().create(entities, batchSizeParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void delete(final Collection<DomainModel> entities) {
+        intercept(entityClass(entities), null, "delete", () -> {
+            getDelegate().delete(entities);
+            return null;
+        });
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> BatchReport delete(final Collection<DomainModel> entities, final int batchSizeParam) {
+        return intercept(entityClass(entities), null, "delete", () -> getDelegate().delete(entities, batchSizeParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void delete(final DomainModel entity) {
+        intercept(entityClass(entity), null, "delete", () -> {
+            getDelegate().delete(entity);
+            return null;
+        });
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void delete(final ID id, final Class<DomainModel> persistentClassParam) {
+        intercept(persistentClassParam, null, "delete", () -> {
+            getDelegate().delete(id, persistentClassParam);
+            return null;
+        });
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteAll(final Class<DomainModel> persistentClassParam) {
+        return intercept(persistentClassParam, null, "deleteAll", () -> getDelegate().deleteAll(persistentClassParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteAll(final Class<DomainModel> persistentClassParam, final DeleteMode modeParam) {
+        return intercept(persistentClassParam, null, "deleteAll", () -> getDelegate().deleteAll(persistentClassParam, modeParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteAll(final Class<DomainModel> persistentClassParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        return intercept(persistentClassParam, null, "deleteAll", () -> getDelegate().deleteAll(persistentClassParam, modeParam, chunkSizeParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteWhere(final Class<DomainModel> persistentClassParam, final String conditionParam, final Map<String, ?> parametersParam) {
+        return intercept(persistentClassParam, null, "deleteWhere", () -> getDelegate().deleteWhere(persistentClassParam, conditionParam, parametersParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteWhere(final Class<DomainModel> persistentClassParam, final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam) {
+        return intercept(persistentClassParam, null, "deleteWhere", () -> getDelegate().deleteWhere(persistentClassParam, conditionParam, parametersParam, modeParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteWhere(final Class<DomainModel> persistentClassParam, final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        return intercept(persistentClassParam, null, "deleteWhere", () -> getDelegate().deleteWhere(persistentClassParam, conditionParam, parametersParam, modeParam, chunkSizeParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> boolean exists(final DomainModel entity) {
+        return intercept(entityClass(entity), null, "exists", () -> getDelegate().exists(entity));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> boolean exists(final ID id, final Class<DomainModel> persistentClassParam) {
+        return intercept(persistentClassParam, null, "exists", () -> getDelegate().exists(id, persistentClassParam));
+    }
+
+    public void flush() {
+        intercept(null, null, "flush", () -> {
+            getDelegate().flush();
+            return null;
+        });
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ICloseableIterator<DomainModel> iterateAll(final Class<DomainModel> persistentClassParam) {
+        return intercept(persistentClassParam, null, "iterateAll", () -> getDelegate().iterateAll(persistentClassParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ICloseableIterator<DomainModel> iterateAll(final Class<DomainModel> persistentClassParam, final int fetchSizeParam) {
+        return intercept(persistentClassParam, null, "iterateAll", () -> getDelegate().iterateAll(persistentClassParam, fetchSizeParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ICloseableIterator<DomainModel> iterateAll(final Class<DomainModel> persistentClassParam, final int fetchSizeParam, final QueryOptions optionsParam) {
+        return intercept(persistentClassParam, null, "iterateAll", () -> getDelegate().iterateAll(persistentClassParam, fetchSizeParam, optionsParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam) {
+        return intercept(persistentClassParam, null, "retrieveAll", () -> getDelegate().retrieveAll(persistentClassParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam, final QueryOptions optionsParam) {
+        return intercept(persistentClassParam, null, "retrieveAll", () -> getDelegate().retrieveAll(persistentClassParam, optionsParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam, final Page pageParam) {
+        return intercept(persistentClassParam, pageParam, "retrieveAll", () -> getDelegate().retrieveAll(persistentClassParam, pageParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam, final Page pageParam, final QueryOptions optionsParam) {
+        return intercept(persistentClassParam, pageParam, "retrieveAll", () -> getDelegate().retrieveAll(persistentClassParam, pageParam, optionsParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> retrievePage(final Class<DomainModel> persistentClassParam, final Page pageParam) {
+        return intercept(persistentClassParam, pageParam, "retrievePage", () -> getDelegate().retrievePage(persistentClassParam, pageParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> retrievePage(final Class<DomainModel> persistentClassParam, final Page pageParam, final CountMode countModeParam) {
+        return intercept(persistentClassParam, pageParam, "retrievePage", () -> getDelegate().retrievePage(persistentClassParam, pageParam, countModeParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> retrievePage(final Class<DomainModel> persistentClassParam, final Page pageParam, final CountMode countModeParam, final QueryOptions optionsParam) {
+        return intercept(persistentClassParam, pageParam, "retrievePage", () -> getDelegate().retrievePage(persistentClassParam, pageParam, countModeParam, optionsParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Slice<ID, DomainModel> retrieveSlice(final Class<DomainModel> persistentClassParam, final Page pageParam) {
+        return intercept(persistentClassParam, pageParam, "retrieveSlice", () -> getDelegate().retrieveSlice(persistentClassParam, pageParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Slice<ID, DomainModel> retrieveSlice(final Class<DomainModel> persistentClassParam, final Page pageParam, final QueryOptions optionsParam) {
+        return intercept(persistentClassParam, pageParam, "retrieveSlice", () -> getDelegate().retrieveSlice(persistentClassParam, pageParam, optionsParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam) {
+        return intercept(persistentClassParam, null, "retrieveProjection", () -> getDelegate().retrieveProjection(persistentClassParam, projectionParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam, final QueryOptions optionsParam) {
+        return intercept(persistentClassParam, null, "retrieveProjection", () -> getDelegate().retrieveProjection(persistentClassParam, projectionParam, optionsParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam, final Page pageParam) {
+        return intercept(persistentClassParam, pageParam, "retrieveProjection", () -> getDelegate().retrieveProjection(persistentClassParam, projectionParam, pageParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam, final Page pageParam, final QueryOptions optionsParam) {
+        return intercept(persistentClassParam, pageParam, "retrieveProjection", () -> getDelegate().retrieveProjection(persistentClassParam, projectionParam, pageParam, optionsParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> DomainModel retrieveById(final Class<DomainModel> persistentClassParam, final ID id) {
+        return intercept(persistentClassParam, null, "retrieveById", () -> getDelegate().retrieveById(persistentClassParam, id));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> DomainModel retrieveById(final Class<DomainModel> persistentClassParam, final ID id, final QueryOptions optionsParam) {
+        return intercept(persistentClassParam, null, "retrieveById", () -> getDelegate().retrieveById(persistentClassParam, id, optionsParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids) {
+        return intercept(persistentClassParam, null, "retrieveByIds", () -> getDelegate().retrieveByIds(persistentClassParam, ids));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids) {
+        return intercept(persistentClassParam, null, "retrieveMapByIds", () -> getDelegate().retrieveMapByIds(persistentClassParam, ids));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids, final int chunkSizeParam) {
+        return intercept(persistentClassParam, null, "retrieveMapByIds", () -> getDelegate().retrieveMapByIds(persistentClassParam, ids, chunkSizeParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids, final QueryOptions optionsParam) {
+        return intercept(persistentClassParam, null, "retrieveMapByIds", () -> getDelegate().retrieveMapByIds(persistentClassParam, ids, optionsParam));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void update(final Collection<DomainModel> entities) {
+        intercept(entityClass(entities), null, "update", () -> {
+            getDelegate().update(entities);
+            return null;
+        });
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void update(final DomainModel entity) {
+        intercept(entityClass(entity), null, "update", () -> {
+            getDelegate().update(entity);
+            return null;
+        });
+    }
+
+    private static Class<?> entityClass(final Object entityParam) {
+        return entityParam == null ? null : entityParam.getClass();
+    }
+
+    private static Class<?> entityClass(final Collection<?> entitiesParam) {
+        if (entitiesParam == null) {
+            return null;
+        }
+        final Iterator<?> iterator = entitiesParam.iterator();
+        return iterator.hasNext() ? entityClass(iterator.next()) : null;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Repository decorator which runs every operation through
+ * {@link #intercept(String, Supplier)}.  Extended by decorators which observe
+ * all operations the same way, e.g. to measure them.
+ * <p>
+ * Operations are named after the methods of {@link IRepository}: overloads
+ * share the same name.  The iterators of {@code iterateAll} are intercepted
+ * while they are opened only, not while they are read.
+ * </p>
+ *
+ * @param <ID>          The class of the entity's identifier.
+ * @param <DomainModel> The class of the entity's domain model.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public abstract class AbstractInterceptingRepository<ID extends Serializable, DomainModel extends IIdentifiable<ID>>
+        extends AbstractRepositoryDecorator<ID, DomainModel> {
+
+    /**
+     * Constructor.
+     *
+     * @param delegateParam The decorated repository.  Must not be {@code null}.
+     */
+    protected AbstractInterceptingRepository(final IRepository<ID, DomainModel> delegateParam) {
+        super(delegateParam);
+    }
+
+    /**
+     * Runs the specified operation of the decorated repository.
+     *
+     * @param operationParam The name of the operation.
+     * @param workParam      The call to the decorated repository.
+     * @return The result of the call, {@code null} if it returns nothing.
+     */
+    protected abstract <R> R intercept(final String operationParam, final Supplier<R> workParam);
+
+    public DomainModel create(final DomainModel entity) {
+        return intercept("create", () -> getDelegate().create(entity));
+    }
+
+    public BatchReport create(final Collection<DomainModel> entities) {
+        return intercept("create", () -> getDelegate().create(entities));
+    }
+
+    public BatchReport create(final Collection<DomainModel> entities, final int batchSizeParam) {
+        return intercept("create", () -> getDelegate().create(entities, batchSizeParam));
+    }
+
+    public List<DomainModel> retrieveAll() {
+        return intercept("retrieveAll", () -> getDelegate().retrieveAll());
+    }
+
+    public List<DomainModel> retrieveAll(final QueryOptions optionsParam) {
+        return intercept("retrieveAll", () -> getDelegate().retrieveAll(optionsParam));
+    }
+
+    public ICloseableIterator<DomainModel> iterateAll() {
+        return intercept("iterateAll", () -> getDelegate().iterateAll());
+    }
+
+    public ICloseableIterator<DomainModel> iterateAll(final int fetchSizeParam) {
+        return intercept("iterateAll", () -> getDelegate().iterateAll(fetchSizeParam));
+    }
+
+    public ICloseableIterator<DomainModel> iterateAll(final int fetchSizeParam, final QueryOptions optionsParam) {
+        return intercept("iterateAll", () -> getDelegate().iterateAll(fetchSizeParam, optionsParam));
+    }
+
+    public DomainModel retrieveById(final ID id) {
+        return intercept("retrieveById", () -> getDelegate().retrieveById(id));
+    }
+
+    public DomainModel retrieveById(final ID id, final QueryOptions optionsParam) {
+        return intercept("retrieveById", () -> getDelegate().retrieveById(id, optionsParam));
+    }
+
+    public List<DomainModel> retrieveByIds(final Collection<ID> ids) {
+        return intercept("retrieveByIds", () -> getDelegate().retrieveByIds(ids));
+    }
+
+    public Map<ID, DomainModel> retrieveMapByIds(final Collection<ID> ids) {
+        return intercept("retrieveMapByIds", () -> getDelegate().retrieveMapByIds(ids));
+    }
+
+    public Map<ID, DomainModel> retrieveMapByIds(final Collection<ID> ids, final QueryOptions optionsParam) {
+        return intercept("retrieveMapByIds", () -> getDelegate().retrieveMapByIds(ids, optionsParam));
+    }
+
+    public List<DomainModel> retrieveAll(final Page pageParam) {
+        return intercept("retrieveAll", () -> getDelegate().retrieveAll(pageParam));
+    }
+
+    public List<DomainModel> retrieveAll(final Page pageParam, final QueryOptions optionsParam) {
+        return intercept("retrieveAll", () -> getDelegate().retrieveAll(pageParam, optionsParam));
+    }
+
+    public ResultHolder<ID, DomainModel> retrievePage(final Page pageParam) {
+        return intercept("retrievePage", () -> getDelegate().retrievePage(pageParam));
+    }
+
+    public ResultHolder<ID, DomainModel> retrievePage(final Page pageParam, final CountMode countModeParam) {
+        return intercept("retrievePage", () -> getDelegate().retrievePage(pageParam, countModeParam));
+    }
+
+    public ResultHolder<ID, DomainModel> retrievePage(final Page pageParam, final CountMode countModeParam, final QueryOptions optionsParam) {
+        return intercept("retrievePage", () -> getDelegate().retrievePage(pageParam, countModeParam, optionsParam));
+    }
+
+    public Slice<ID, DomainModel> retrieveSlice(final Page pageParam) {
+        return intercept("retrieveSlice", () -> getDelegate().retrieveSlice(pageParam));
+    }
+
+    public Slice<ID, DomainModel> retrieveSlice(final Page pageParam, final QueryOptions optionsParam) {
+        return intercept("retrieveSlice", () -> getDelegate().retrieveSlice(pageParam, optionsParam));
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam) {
+        return intercept("retrieveProjection", () -> getDelegate().retrieveProjection(projectionParam));
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam, final QueryOptions optionsParam) {
+        return intercept("retrieveProjection", () -> getDelegate().retrieveProjection(projectionParam, optionsParam));
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam, final Page pageParam) {
+        return intercept("retrieveProjection", () -> getDelegate().retrieveProjection(projectionParam, pageParam));
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam, final Page pageParam, final QueryOptions optionsParam) {
+        return intercept("retrieveProjection", () -> getDelegate().retrieveProjection(projectionParam, pageParam, optionsParam));
+    }
+
+    public boolean exists(final DomainModel entity) {
+        return intercept("exists", () -> getDelegate().exists(entity));
+    }
+
+    public boolean exists(final ID id) {
+        return intercept("exists", () -> getDelegate().exists(id));
+    }
+
+    public void update(final DomainModel t) {
+        intercept("update", () -> {
+            getDelegate().update(t);
+            return null;
+        });
+    }
+
+    public void update(final Collection<DomainModel> entities) {
+        intercept("update", () -> {
+            getDelegate().update(entities);
+            return null;
+        });
+    }
+
+    public void delete(final DomainModel t) {
+        intercept("delete", () -> {
+            getDelegate().delete(t);
+            return null;
+        });
+    }
+
+    public void delete(final ID id) {
+        intercept("delete", () -> {
+            getDelegate().delete(id);
+            return null;
+        });
+    }
+
+    public void delete(final Collection<DomainModel> t) {
+        intercept("delete", () -> {
+            getDelegate().delete(t);
+            return null;
+        });
+    }
+
+    public BatchReport delete(final Collection<DomainModel> entities, final int batchSizeParam) {
+        return intercept("delete", () -> getDelegate().delete(entities, batchSizeParam));
+    }
+
+    public int deleteAll() {
+        return intercept("deleteAll", () -> getDelegate().deleteAll());
+    }
+
+    public int deleteAll(final DeleteMode modeParam) {
+        return intercept("deleteAll", () -> getDelegate().deleteAll(modeParam));
+    }
+
+    public int deleteAll(final DeleteMode modeParam, final int chunkSizeParam) {
+        return intercept("deleteAll", () -> getDelegate().deleteAll(modeParam, chunkSizeParam));
+    }
+
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam) {
+        return intercept("deleteWhere", () -> getDelegate().deleteWhere(conditionParam, parametersParam));
+    }
+
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam) {
+        return intercept("deleteWhere", () -> getDelegate().deleteWhere(conditionParam, parametersParam, modeParam));
+    }
+
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        return intercept("deleteWhere", () -> getDelegate().deleteWhere(conditionParam, parametersParam, modeParam, chunkSizeParam));
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Repository which forwards every operation to another repository.  Extended
+ * by decorators, which override the operations they add behaviour to.
+ *
+ * @param <ID>          The class of the entity's identifier.
+ * @param <DomainModel> The class of the entity's domain model.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public abstract class AbstractRepositoryDecorator<ID extends Serializable, DomainModel extends IIdentifiable<ID>>
+        implements IRepository<ID, DomainModel> {
+
+    private final IRepository<ID, DomainModel> delegate;
+
+    /**
+     * Constructor.
+     *
+     * @param delegateParam The decorated repository.  Must not be {@code null}.
+     */
+    protected AbstractRepositoryDecorator(final IRepository<ID, DomainModel> delegateParam) {
+        super();
+        PARAM_REQ.Object.requireNotNull(delegateParam);
+        delegate = delegateParam;
+    }
+
+    protected final IRepository<ID, DomainModel> getDelegate() {
+        return delegate;
+    }
+
+    public DomainModel create(final DomainModel entity) {
+        return delegate.create(entity);
+    }
+
+    public BatchReport create(final Collection<DomainModel> entities) {
+        return delegate.create(entities);
+    }
+
+    public BatchReport create(final Collection<DomainModel> entities, final int batchSizeParam) {
+        return delegate.create(entities, batchSizeParam);
+    }
+
+    public List<DomainModel> retrieveAll() {
+        return delegate.retrieveAll();
+    }
+
+    public List<DomainModel> retrieveAll(final QueryOptions optionsParam) {
+        return delegate.retrieveAll(optionsParam);
+    }
+
+    public ICloseableIterator<DomainModel> iterateAll() {
+        return delegate.iterateAll();
+    }
+
+    public ICloseableIterator<DomainModel> iterateAll(final int fetchSizeParam) {
+        return delegate.iterateAll(fetchSizeParam);
+    }
+
+    public ICloseableIterator<DomainModel> iterateAll(final int fetchSizeParam, final QueryOptions optionsParam) {
+        return delegate.iterateAll(fetchSizeParam, optionsParam);
+    }
+
+    public DomainModel retrieveById(final ID id) {
+        return delegate.retrieveById(id);
+    }
+
+    public DomainModel retrieveById(final ID id, final QueryOptions optionsParam) {
+        return delegate.retrieveById(id, optionsParam);
+    }
+
+    public List<DomainModel> retrieveByIds(final Collection<ID> ids) {
+        return delegate.retrieveByIds(ids);
+    }
+
+    public Map<ID, DomainModel> retrieveMapByIds(final Collection<ID> ids) {
+        return delegate.retrieveMapByIds(ids);
+    }
+
+    public Map<ID, DomainModel> retrieveMapByIds(final Collection<ID> ids, final QueryOptions optionsParam) {
+        return delegate.retrieveMapByIds(ids, optionsParam);
+    }
+
+    public List<DomainModel> retrieveAll(final Page pageParam) {
+        return delegate.retrieveAll(pageParam);
+    }
+
+    public List<DomainModel> retrieveAll(final Page pageParam, final QueryOptions optionsParam) {
+        return delegate.retrieveAll(pageParam, optionsParam);
+    }
+
+    public ResultHolder<ID, DomainModel> retrievePage(final Page pageParam) {
+        return delegate.retrievePage(pageParam);
+    }
+
+    public ResultHolder<ID, DomainModel> retrievePage(final Page pageParam, final CountMode countModeParam) {
+        return delegate.retrievePage(pageParam, countModeParam);
+    }
+
+    public ResultHolder<ID, DomainModel> retrievePage(final Page pageParam, final CountMode countModeParam, final QueryOptions optionsParam) {
+        return delegate.retrievePage(pageParam, countModeParam, optionsParam);
+    }
+
+    public Slice<ID, DomainModel> retrieveSlice(final Page pageParam) {
+        return delegate.retrieveSlice(pageParam);
+    }
+
+    public Slice<ID, DomainModel> retrieveSlice(final Page pageParam, final QueryOptions optionsParam) {
+        return delegate.retrieveSlice(pageParam, optionsParam);
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam) {
+        return delegate.retrieveProjection(projectionParam);
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam, final QueryOptions optionsParam) {
+        return delegate.retrieveProjection(projectionParam, optionsParam);
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam, final Page pageParam) {
+        return delegate.retrieveProjection(projectionParam, pageParam);
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam, final Page pageParam, final QueryOptions optionsParam) {
+        return delegate.retrieveProjection(projectionParam, pageParam, optionsParam);
+    }
+
+    public boolean exists(final DomainModel entity) {
+        return delegate.exists(entity);
+    }
+
+    public boolean exists(final ID id) {
+        return delegate.exists(id);
+    }
+
+    public void update(final DomainModel t) {
+        delegate.update(t);
+    }
+
+    public void update(final Collection<DomainModel> entities) {
+        delegate.update(entities);
+    }
+
+    public void delete(final DomainModel t) {
+        delegate.delete(t);
+    }
+
+    public void delete(final ID id) {
+        delegate.delete(id);
+    }
+
+    public void delete(final Collection<DomainModel> t) {
+        delegate.delete(t);
+    }
+
+    public BatchReport delete(final Collection<DomainModel> entities, final int batchSizeParam) {
+        return delegate.delete(entities, batchSizeParam);
+    }
+
+    public int deleteAll() {
+        return delegate.deleteAll();
+    }
+
+    public int deleteAll(final DeleteMode modeParam) {
+        return delegate.deleteAll(modeParam);
+    }
+
+    public int deleteAll(final DeleteMode modeParam, final int chunkSizeParam) {
+        return delegate.deleteAll(modeParam, chunkSizeParam);
+    }
+
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam) {
+        return delegate.deleteWhere(conditionParam, parametersParam);
+    }
+
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam) {
+        return delegate.deleteWhere(conditionParam, parametersParam, modeParam);
+    }
+
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        return delegate.deleteWhere(conditionParam, parametersParam, modeParam, chunkSizeParam);
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * {@link IAsyncRepository} which runs every operation as a task of an
+ * executor, in a unit of work of its own opened by an {@link IRepositoryScope}.
+ * <p>
+ * By default, tasks run on the shared executor returned by
+ * {@link #defaultExecutor()}, which starts a virtual thread per task when the
+ * Java runtime supports it.  Tasks mostly wait for the data base, so many of
+ * them may then run concurrently without tying up platform threads; the
+ * amount of concurrent tasks is bounded by the connection pool instead.  On
+ * older runtimes, the default executor is a pool of
+ * {@link #DEFAULT_POOL_SIZE} threads, which should match the size of the
+ * connection pool; a pool sized otherwise is created with
+ * {@link #newBoundedExecutor(int, int)}.
+ * </p>
+ *
+ * @param <ID>          The class of the entity's identifier.
+ * @param <DomainModel> The class of the entity's domain model.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class AsyncRepository<ID extends Serializable, DomainModel extends IIdentifiable<ID>>
+        implements IAsyncRepository<ID, DomainModel> {
+
+    /**
+     * The amount of threads of the default executor on runtimes without
+     * virtual threads: the default maximum size of common connection pools,
+     * such as HikariCP's.  More threads would only wait for a connection.
+     */
+    public static final int DEFAULT_POOL_SIZE = 10;
+
+    /**
+     * The amount of tasks the default executor queues, on runtimes without
+     * virtual threads, before it rejects new ones.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    private final IRepositoryScope<ID, DomainModel> scope;
+    private final Executor executor;
+
+    /**
+     * Constructor.  Tasks run on the {@link #defaultExecutor() default
+     * executor}.
+     *
+     * @param scopeParam The scope opening the unit of work of each task.  Must
+     *                   not be {@code null}.
+     */
+    public AsyncRepository(final IRepositoryScope<ID, DomainModel> scopeParam) {
+        this(scopeParam, defaultExecutor());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param scopeParam    The scope opening the unit of work of each task.
+     *                      Must not be {@code null}.
+     * @param executorParam The executor running the tasks.  Must not be
+     *                      {@code null}.
+     */
+    public AsyncRepository(final IRepositoryScope<ID, DomainModel> scopeParam, final Executor executorParam) {
+        PARAM_REQ.Object.requireNotNull(scopeParam);
+        PARAM_REQ.Object.requireNotNull(executorParam);
+        scope = scopeParam;
+        executor = executorParam;
+    }
+
+    /**
+     * Returns the executor used when none is specified: an executor starting a
+     * virtual thread per task if the Java runtime provides one (Java 21 and
+     * later), else a {@link #newBoundedExecutor(int, int) bounded executor} of
+     * {@link #DEFAULT_POOL_SIZE} threads queuing at most
+     * {@link #DEFAULT_QUEUE_CAPACITY} tasks.
+     *
+     * @return The default executor, shared by all asynchronous repositories.
+     */
+    public static Executor defaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Returns a new executor running tasks on a fixed pool of daemon threads,
+     * which should be as large as the connection pool the tasks use.  Tasks
+     * submitted while every thread is busy are queued, and once the queue is
+     * full, rejected with a {@link java.util.concurrent.RejectedExecutionException}.
+     * They are never run by the submitting thread, whose unit of work a
+     * repository scope could join.
+     *
+     * @param poolSizeParam      The amount of threads.  Must be strictly
+     *                           positive.
+     * @param queueCapacityParam The maximum amount of queued tasks.  Must be
+     *                           strictly positive.
+     * @return The new executor.
+     */
+    public static ExecutorService newBoundedExecutor(final int poolSizeParam, final int queueCapacityParam) {
+        PARAM_REQ.Number.requireStrictlyPositive(poolSizeParam, "The pool size must be strictly positive.");
+        PARAM_REQ.Number.requireStrictlyPositive(queueCapacityParam, "The queue capacity must be strictly positive.");
+        return new ThreadPoolExecutor(poolSizeParam, poolSizeParam, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacityParam), new DaemonThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public <R> CompletableFuture<R> execute(final Function<IRepository<ID, DomainModel>, R> workParam) {
+        PARAM_REQ.Object.requireNotNull(workParam);
+        return CompletableFuture.supplyAsync(() -> scope.execute(workParam), executor);
+    }
+
+    private CompletableFuture<Void> run(final Function<IRepository<ID, DomainModel>, ?> workParam) {
+        return execute(workParam).thenApply(result -> (Void) null);
+    }
+
+    public CompletableFuture<DomainModel> create(final DomainModel entity) {
+        PARAM_REQ.Object.requireNotNull(entity);
+        return execute(repository -> repository.create(entity));
+    }
+
+    public CompletableFuture<BatchReport> create(final Collection<DomainModel> entities) {
+        PARAM_REQ.Object.requireNotNull(entities);
+        return execute(repository -> repository.create(entities));
+    }
+
+    public CompletableFuture<List<DomainModel>> retrieveAll() {
+        return execute(repository -> repository.retrieveAll());
+    }
+
+    public CompletableFuture<List<DomainModel>> retrieveAll(final Page pageParam) {
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        return execute(repository -> repository.retrieveAll(pageParam));
+    }
+
+    public CompletableFuture<ResultHolder<ID, DomainModel>> retrievePage(final Page pageParam,
+                                                                       final CountMode countModeParam) {
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        PARAM_REQ.Object.requireNotNull(countModeParam);
+        return execute(repository -> repository.retrievePage(pageParam, countModeParam));
+    }
+
+    public CompletableFuture<DomainModel> retrieveById(final ID id) {
+        PARAM_REQ.Object.requireNotNull(id);
+        return execute(repository -> repository.retrieveById(id));
+    }
+
+    public CompletableFuture<Map<ID, DomainModel>> retrieveMapByIds(final Collection<ID> ids) {
+        PARAM_REQ.Object.requireNotNull(ids);
+        return execute(repository -> repository.retrieveMapByIds(ids));
+    }
+
+    public CompletableFuture<Boolean> exists(final ID id) {
+        PARAM_REQ.Object.requireNotNull(id);
+        return execute(repository -> repository.exists(id));
+    }
+
+    public CompletableFuture<Void> update(final DomainModel t) {
+        PARAM_REQ.Object.requireNotNull(t);
+        return run(repository -> {
+            repository.update(t);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> update(final Collection<DomainModel> entities) {
+        PARAM_REQ.Object.requireNotNull(entities);
+        return run(repository -> {
+            repository.update(entities);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> delete(final DomainModel t) {
+        PARAM_REQ.Object.requireNotNull(t);
+        return run(repository -> {
+            repository.delete(t);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> delete(final ID id) {
+        PARAM_REQ.Object.requireNotNull(id);
+        return run(repository -> {
+            repository.delete(id);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> delete(final Collection<DomainModel> t) {
+        PARAM_REQ.Object.requireNotNull(t);
+        return run(repository -> {
+            repository.delete(t);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Integer> deleteAll() {
+        return execute(repository -> repository.deleteAll());
+    }
+
+    /**
+     * Holds the default executor, created when first used.
+     */
+    private static final class DefaultExecutorHolder {
+
+        private static final Executor EXECUTOR = createExecutor();
+
+        private DefaultExecutorHolder() {
+            throw new IllegalStateException("This object must not be instanciated.");
+        }
+
+        private static Executor createExecutor() {
+            try {
+                // Looked up by reflection, so the library still runs on runtimes without virtual threads.
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+                return newBoundedExecutor(DEFAULT_POOL_SIZE, DEFAULT_QUEUE_CAPACITY);
+            }
+        }
+    }
+
+    /**
+     * Creates the daemon threads of the bounded executors.
+     */
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        public Thread newThread(final Runnable runnableParam) {
+            final Thread thread = new Thread(runnableParam, "jbp-async-repository-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
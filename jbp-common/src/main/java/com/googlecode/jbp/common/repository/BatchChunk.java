@@ -0,0 +1,55 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * The amount of entities processed in one chunk of a bulk operation, and the
+ * time it took, flush included.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class BatchChunk implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final int count;
+    private final long durationNanos;
+
+    public BatchChunk(final int countParam, final long durationNanosParam) {
+        PARAM_REQ.Number.requireNotStrictlyNegative(countParam, "The amount of entities must be zero or positive.");
+        PARAM_REQ.Number.requireNotStrictlyNegative(durationNanosParam, "The duration must be zero or positive.");
+        count = countParam;
+        durationNanos = durationNanosParam;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("BatchChunk[count=").append(count)
+                .append(",durationNanos=").append(durationNanos)
+                .append("]").toString();
+    }
+}
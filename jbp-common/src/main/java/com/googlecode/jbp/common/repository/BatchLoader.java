@@ -0,0 +1,165 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Loader which groups retrievals by identifier.  Entities are requested with
+ * {@link #load(java.io.Serializable)}, which returns immediately; the first
+ * time one of the requested entities is needed, all requested entities are
+ * retrieved with {@link IRepository#retrieveMapByIds(java.util.Collection)},
+ * in batches of at most the maximum batch size.  Code which retrieves entities
+ * one by one in loops thus issues a few multi-identifier queries instead of one
+ * query per entity.
+ * <p>
+ * A loader is meant to live as long as a request or a unit of work: it keeps
+ * the requested entities, so an identifier requested twice is retrieved once
+ * and the same entity is returned.  Like the session of the decorated
+ * repository, a loader must not be shared between threads.
+ * </p>
+ *
+ * @param <ID>          The class of the entity's identifier.
+ * @param <DomainModel> The class of the entity's domain model.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class BatchLoader<ID extends Serializable, DomainModel extends IIdentifiable<ID>> {
+
+    private final IRepository<ID, DomainModel> repository;
+    private final int maxBatchSize;
+    private final Map<ID, Deferred<DomainModel>> requested = new HashMap<ID, Deferred<DomainModel>>();
+    private Map<ID, Deferred<DomainModel>> pending = new LinkedHashMap<ID, Deferred<DomainModel>>();
+    private int batchCount = 0;
+
+    /**
+     * Constructor.  Batches contain at most
+     * {@link IGenericRepository#DEFAULT_IN_CLAUSE_SIZE} identifiers.
+     *
+     * @param repositoryParam The repository the entities are retrieved with.
+     *                        Must not be {@code null}.
+     */
+    public BatchLoader(final IRepository<ID, DomainModel> repositoryParam) {
+        this(repositoryParam, IGenericRepository.DEFAULT_IN_CLAUSE_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param repositoryParam   The repository the entities are retrieved with.
+     *                          Must not be {@code null}.
+     * @param maxBatchSizeParam The maximum amount of identifiers retrieved at
+     *                          once.  Must be strictly positive.
+     */
+    public BatchLoader(final IRepository<ID, DomainModel> repositoryParam, final int maxBatchSizeParam) {
+        PARAM_REQ.Object.requireNotNull(repositoryParam);
+        PARAM_REQ.Number.requireStrictlyPositive(maxBatchSizeParam);
+        repository = repositoryParam;
+        maxBatchSize = maxBatchSizeParam;
+    }
+
+    /**
+     * Requests the entity with the specified identifier.  Nothing is retrieved
+     * until the entity or another requested entity is needed.
+     *
+     * @param idParam The identifier.  Must not be {@code null}.
+     * @return The requested entity.
+     */
+    public Deferred<DomainModel> load(final ID idParam) {
+        PARAM_REQ.Object.requireNotNull(idParam);
+        Deferred<DomainModel> deferred = requested.get(idParam);
+        if (deferred == null) {
+            deferred = new Deferred<DomainModel>(this);
+            requested.put(idParam, deferred);
+            pending.put(idParam, deferred);
+        }
+        return deferred;
+    }
+
+    /**
+     * Retrieves the entity with the specified identifier, together with all
+     * requested entities.
+     *
+     * @param idParam The identifier.  Must not be {@code null}.
+     * @return The entity, or {@code null} if no entity has the identifier.
+     */
+    public DomainModel retrieveById(final ID idParam) {
+        return load(idParam).get();
+    }
+
+    /**
+     * Retrieves all requested entities which are not retrieved yet.  If a
+     * batch fails, its entities rethrow the exception when they are needed and
+     * are forgotten, so they may be requested again.
+     */
+    public void dispatch() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        final Map<ID, Deferred<DomainModel>> toDispatch = pending;
+        pending = new LinkedHashMap<ID, Deferred<DomainModel>>();
+        final List<ID> ids = new ArrayList<ID>(toDispatch.keySet());
+        for (int from = 0; from < ids.size(); from += maxBatchSize) {
+            final List<ID> batch = ids.subList(from, Math.min(from + maxBatchSize, ids.size()));
+            batchCount++;
+            try {
+                final Map<ID, DomainModel> entities = repository.retrieveMapByIds(batch);
+                for (final ID current : batch) {
+                    toDispatch.get(current).resolve(entities.get(current));
+                }
+            } catch (RuntimeException e) {
+                for (final ID current : batch) {
+                    toDispatch.get(current).fail(e);
+                    requested.remove(current);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets the entity with the specified identifier, so it is retrieved
+     * again the next time it is requested.
+     *
+     * @param idParam The identifier.  Ignored if {@code null}.
+     */
+    public void clear(final ID idParam) {
+        if (idParam != null && !pending.containsKey(idParam)) {
+            requested.remove(idParam);
+        }
+    }
+
+    /**
+     * Forgets all retrieved entities.
+     */
+    public void clearAll() {
+        requested.keySet().retainAll(pending.keySet());
+    }
+
+    /**
+     * Returns the amount of batches retrieved so far.
+     *
+     * @return The amount of batches.
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+}
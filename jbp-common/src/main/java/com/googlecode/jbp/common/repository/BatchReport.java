@@ -0,0 +1,79 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Class used to return the outcome of a bulk operation which processes
+ * entities in chunks.  The timing of each chunk may be used to tune the batch
+ * size.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class BatchReport implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final List<BatchChunk> chunks;
+
+    public BatchReport(final List<BatchChunk> chunksParam) {
+        PARAM_REQ.Object.requireNotNull(chunksParam, "The list of chunks must not be null.");
+        chunks = Collections.unmodifiableList(new ArrayList<BatchChunk>(chunksParam));
+    }
+
+    public List<BatchChunk> getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Returns the total amount of entities processed by the operation.
+     *
+     * @return The sum of the counts of all chunks.
+     */
+    public int getCount() {
+        int count = 0;
+        for (final BatchChunk current : chunks) {
+            count += current.getCount();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the total duration of the operation.
+     *
+     * @return The sum of the durations of all chunks, in nanoseconds.
+     */
+    public long getDurationNanos() {
+        long duration = 0;
+        for (final BatchChunk current : chunks) {
+            duration += current.getDurationNanos();
+        }
+        return duration;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("BatchReport[chunks=").append(chunks.size())
+                .append(",count=").append(getCount())
+                .append(",durationNanos=").append(getDurationNanos())
+                .append("]").toString();
+    }
+}
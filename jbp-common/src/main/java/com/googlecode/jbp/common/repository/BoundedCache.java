@@ -0,0 +1,468 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Cache bounded by the total weight of its entries, with the W-TinyLFU
+ * eviction policy.
+ * <p>
+ * New entries enter a small LRU window (1% of the maximum weight).  Entries
+ * leaving the window become candidates for the main space, a segmented LRU
+ * whose probation segment holds entries read once and whose protected
+ * segment (80% of the main space) holds entries read again.  When the cache
+ * is too heavy, a candidate is only admitted if a {@link FrequencySketch}
+ * estimates that it was accessed more often than the least recently used
+ * entry of the probation segment, which is evicted instead.  One-hit wonders
+ * thus never push frequently read entries out.
+ * </p>
+ * <p>
+ * Entries expire a fixed time after they were written.  A refresh time may be
+ * set, after which one reader at a time is told to reload the entry.
+ * </p>
+ * <p>
+ * Thread safe.  Reads take no lock: entries are looked up in a concurrent
+ * map, and the accesses are recorded in read buffers, striped by thread, which
+ * are replayed on the eviction policy later.  A full buffer drops the accesses
+ * it cannot hold, which only makes the policy less accurate.  Writes, and the
+ * replay of the buffers, hold the lock of the policy, which is never held
+ * while an entry is loaded.
+ * </p>
+ *
+ * @param <K> The class of the keys.
+ * @param <V> The class of the values.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+final class BoundedCache<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int READ_BUFFER_SIZE = 16;
+
+    private final ConcurrentMap<K, Node<K, V>> data = new ConcurrentHashMap<K, Node<K, V>>();
+    private final ArrayBlockingQueue<K>[] readBuffers;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final FrequencySketch sketch = new FrequencySketch();
+    private final Node<K, V> window = new Node<K, V>();
+    private final Node<K, V> probation = new Node<K, V>();
+    private final Node<K, V> protectedSegment = new Node<K, V>();
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final long expireAfterWriteNanos;
+    private final long refreshAfterWriteNanos;
+    private final Ticker ticker;
+    private long windowWeight = 0L;
+    private long probationWeight = 0L;
+    private long protectedWeight = 0L;
+    private volatile long generation = 0L;
+    private long evictionCount = 0L;
+    private long evictionWeight = 0L;
+    private long expirationCount = 0L;
+
+    /**
+     * Constructor.
+     *
+     * @param settingsParam The settings of the cache.  Must not be {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    BoundedCache(final CacheSettings settingsParam) {
+        PARAM_REQ.Object.requireNotNull(settingsParam);
+        maximumWeight = settingsParam.getMaximumWeight();
+        windowMaximum = Math.max(1L, maximumWeight / 100L);
+        protectedMaximum = (maximumWeight - windowMaximum) * 4L / 5L;
+        expireAfterWriteNanos = settingsParam.getExpireAfterWriteNanos();
+        refreshAfterWriteNanos = settingsParam.getRefreshAfterWriteNanos();
+        ticker = settingsParam.getTicker();
+        // A power of two at least as large as the amount of processors.
+        final int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+        readBuffers = new ArrayBlockingQueue[stripes];
+        for (int i = 0; i < stripes; i++) {
+            readBuffers[i] = new ArrayBlockingQueue<K>(READ_BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * Returns the value cached for the specified key, and counts the access.
+     *
+     * @param keyParam The key.
+     * @return The value, or {@code null} if it is not cached or expired.
+     */
+    V get(final K keyParam) {
+        recordRead(keyParam);
+        final Node<K, V> node = data.get(keyParam);
+        if (node == null) {
+            return null;
+        }
+        if (isExpired(node)) {
+            lock.lock();
+            try {
+                if (data.get(keyParam) == node && isExpired(node)) {
+                    remove(node);
+                    expirationCount++;
+                }
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        }
+        return node.value;
+    }
+
+    /**
+     * Checks whether a value is cached for the specified key, without counting
+     * the access.
+     *
+     * @param keyParam The key.
+     * @return {@code true} if a value is cached and not expired.
+     */
+    boolean contains(final K keyParam) {
+        final Node<K, V> node = data.get(keyParam);
+        return node != null && !isExpired(node);
+    }
+
+    /**
+     * Checks whether the value cached for the specified key must be refreshed,
+     * and if so, marks it as being refreshed so other readers keep using it.
+     * The caller must then either {@link #put} the reloaded value or call
+     * {@link #cancelRefresh}.
+     *
+     * @param keyParam The key.
+     * @return {@code true} if the caller must refresh the value.
+     */
+    boolean startRefresh(final K keyParam) {
+        if (refreshAfterWriteNanos == 0L) {
+            return false;
+        }
+        final Node<K, V> node = data.get(keyParam);
+        return node != null && ticker.read() - node.writeTime >= refreshAfterWriteNanos
+                && node.refreshing.compareAndSet(false, true);
+    }
+
+    void cancelRefresh(final K keyParam) {
+        final Node<K, V> node = data.get(keyParam);
+        if (node != null) {
+            node.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Returns the invalidation generation, to be read before loading a value.
+     *
+     * @return The generation.
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Caches the specified value, unless an invalidation happened since the
+     * specified generation was read, in which case the value may be stale.
+     *
+     * @param keyParam        The key.
+     * @param valueParam      The value.  Must not be {@code null}.
+     * @param weightParam     The weight of the value.  Must be zero or positive.
+     * @param generationParam The generation read before loading the value.
+     */
+    void put(final K keyParam, final V valueParam, final int weightParam, final long generationParam) {
+        PARAM_REQ.Object.requireNotNull(keyParam);
+        PARAM_REQ.Object.requireNotNull(valueParam);
+        PARAM_REQ.Number.requireNotStrictlyNegative(weightParam, "The weight must be zero or positive.");
+        lock.lock();
+        try {
+            drainReadBuffers();
+            if (generationParam != generation) {
+                return;
+            }
+            Node<K, V> node = data.get(keyParam);
+            if (weightParam > maximumWeight) {
+                if (node != null) {
+                    remove(node);
+                }
+                return;
+            }
+            if (node == null) {
+                node = new Node<K, V>(keyParam);
+                node.queue = WINDOW;
+                node.weight = weightParam;
+                link(window, node);
+                windowWeight += weightParam;
+                sketch.ensureCapacity(data.size() + 1);
+            } else {
+                addWeight(node.queue, weightParam - node.weight);
+                node.weight = weightParam;
+                onAccess(node);
+            }
+            node.value = valueParam;
+            node.writeTime = ticker.read();
+            node.refreshing.set(false);
+            data.put(keyParam, node);
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void invalidate(final K keyParam) {
+        lock.lock();
+        try {
+            generation++;
+            final Node<K, V> node = data.get(keyParam);
+            if (node != null) {
+                remove(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void invalidateAll() {
+        lock.lock();
+        try {
+            drainReadBuffers();
+            generation++;
+            data.clear();
+            window.prev = window.next = window;
+            probation.prev = probation.next = probation;
+            protectedSegment.prev = protectedSegment.next = protectedSegment;
+            windowWeight = probationWeight = protectedWeight = 0L;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        return data.size();
+    }
+
+    long getWeightedSize() {
+        lock.lock();
+        try {
+            return windowWeight + probationWeight + protectedWeight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getEvictionCount() {
+        lock.lock();
+        try {
+            return evictionCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getEvictionWeight() {
+        lock.lock();
+        try {
+            return evictionWeight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getExpirationCount() {
+        lock.lock();
+        try {
+            return expirationCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a read of the specified key in the buffer of the calling
+     * thread, and replays the buffers once it is full, unless another thread
+     * holds the lock.
+     */
+    private void recordRead(final K keyParam) {
+        final ArrayBlockingQueue<K> buffer = readBuffers[(int) Thread.currentThread().getId() & (readBuffers.length - 1)];
+        if ((!buffer.offer(keyParam) || buffer.remainingCapacity() == 0) && lock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Replays the buffered reads on the policy: counts the access of every key,
+     * and moves the entries still cached.  The lock must be held.
+     */
+    private void drainReadBuffers() {
+        for (final ArrayBlockingQueue<K> current : readBuffers) {
+            K key = current.poll();
+            while (key != null) {
+                sketch.increment(key);
+                final Node<K, V> node = data.get(key);
+                if (node != null) {
+                    onAccess(node);
+                }
+                key = current.poll();
+            }
+        }
+    }
+
+    private boolean isExpired(final Node<K, V> nodeParam) {
+        return expireAfterWriteNanos != 0L && ticker.read() - nodeParam.writeTime >= expireAfterWriteNanos;
+    }
+
+    /**
+     * Moves an accessed entry: to the most recently used end of its segment,
+     * or from probation to the protected segment.
+     */
+    private void onAccess(final Node<K, V> nodeParam) {
+        if (nodeParam.queue == WINDOW) {
+            unlink(nodeParam);
+            link(window, nodeParam);
+        } else if (nodeParam.queue == PROTECTED) {
+            unlink(nodeParam);
+            link(protectedSegment, nodeParam);
+        } else {
+            unlink(nodeParam);
+            probationWeight -= nodeParam.weight;
+            link(protectedSegment, nodeParam);
+            protectedWeight += nodeParam.weight;
+            nodeParam.queue = PROTECTED;
+            // The least recently used protected entries go back to probation.
+            while (protectedWeight > protectedMaximum && protectedSegment.next != nodeParam) {
+                final Node<K, V> demoted = protectedSegment.next;
+                unlink(demoted);
+                protectedWeight -= demoted.weight;
+                link(probation, demoted);
+                probationWeight += demoted.weight;
+                demoted.queue = PROBATION;
+            }
+        }
+    }
+
+    /**
+     * Moves the entries overflowing the window to probation, then evicts
+     * entries until the cache is light enough, letting each candidate compete
+     * with the least recently used entry of probation.
+     */
+    private void evict() {
+        Node<K, V> candidate = null;
+        while (windowWeight > windowMaximum && window.next != window) {
+            final Node<K, V> node = window.next;
+            unlink(node);
+            windowWeight -= node.weight;
+            link(probation, node);
+            probationWeight += node.weight;
+            node.queue = PROBATION;
+            if (candidate == null) {
+                candidate = node;
+            }
+        }
+        while (getWeightedSize() > maximumWeight) {
+            final Node<K, V> victim = probation.next;
+            if (candidate != null && victim != candidate) {
+                if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                    evict(victim);
+                } else {
+                    final Node<K, V> next = candidate.next == probation ? null : candidate.next;
+                    evict(candidate);
+                    candidate = next;
+                }
+            } else if (victim != probation) {
+                if (victim == candidate) {
+                    candidate = candidate.next == probation ? null : candidate.next;
+                }
+                evict(victim);
+            } else if (protectedSegment.next != protectedSegment) {
+                evict(protectedSegment.next);
+            } else {
+                evict(window.next);
+            }
+        }
+    }
+
+    private void evict(final Node<K, V> nodeParam) {
+        remove(nodeParam);
+        evictionCount++;
+        evictionWeight += nodeParam.weight;
+    }
+
+    private void remove(final Node<K, V> nodeParam) {
+        unlink(nodeParam);
+        addWeight(nodeParam.queue, -nodeParam.weight);
+        data.remove(nodeParam.key);
+    }
+
+    private void addWeight(final int queueParam, final long weightParam) {
+        if (queueParam == WINDOW) {
+            windowWeight += weightParam;
+        } else if (queueParam == PROBATION) {
+            probationWeight += weightParam;
+        } else {
+            protectedWeight += weightParam;
+        }
+    }
+
+    /**
+     * Appends the specified node at the most recently used end of the
+     * specified segment.
+     */
+    private static <K, V> void link(final Node<K, V> segmentParam, final Node<K, V> nodeParam) {
+        nodeParam.prev = segmentParam.prev;
+        nodeParam.next = segmentParam;
+        segmentParam.prev.next = nodeParam;
+        segmentParam.prev = nodeParam;
+    }
+
+    private static <K, V> void unlink(final Node<K, V> nodeParam) {
+        nodeParam.prev.next = nodeParam.next;
+        nodeParam.next.prev = nodeParam.prev;
+        nodeParam.prev = null;
+        nodeParam.next = null;
+    }
+
+    /**
+     * Entry of the cache, linked in the list of its segment.  A node without
+     * key is the sentinel of a segment: its next node is the least recently
+     * used entry and its previous node the most recently used one.
+     */
+    private static final class Node<K, V> {
+        private final K key;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile V value;
+        private volatile long writeTime;
+        private int weight;
+        private int queue;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+
+        private Node() {
+            key = null;
+            prev = this;
+            next = this;
+        }
+
+        private Node(final K keyParam) {
+            key = keyParam;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Settings of a {@link CachingRepository}.  Instances are created with
+ * {@link #newSettings()} and set with chained calls, e.g.:
+ * <p>
+ * {@code CacheSettings.newSettings().maximumWeight(10000).expireAfterWrite(10, TimeUnit.MINUTES);}
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class CacheSettings {
+
+    /**
+     * The default maximum weight, i.e. the default maximum amount of entities
+     * when entities are not weighed.
+     */
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 10000L;
+
+    /**
+     * Returns a new {@code CacheSettings} instance, with the default maximum
+     * weight, without expiration nor refresh, and whose hits share the cached
+     * entities.
+     *
+     * @return Returns the new instance.
+     */
+    public static CacheSettings newSettings() {
+        return new CacheSettings();
+    }
+
+    private long maximumWeight = DEFAULT_MAXIMUM_WEIGHT;
+
+    private long expireAfterWriteNanos = 0L;
+
+    private long refreshAfterWriteNanos = 0L;
+
+    private boolean copyOnRead = false;
+
+    private Ticker ticker = Ticker.SYSTEM;
+
+    private CacheSettings() {
+    }
+
+    /**
+     * Sets the maximum total weight of the cached entities.
+     *
+     * @param maximumWeightParam The maximum weight.  Must be strictly positive.
+     * @return These settings.
+     */
+    public CacheSettings maximumWeight(final long maximumWeightParam) {
+        PARAM_REQ.Number.requireStrictlyPositive(maximumWeightParam, "The maximum weight must be strictly positive.");
+        maximumWeight = maximumWeightParam;
+        return this;
+    }
+
+    /**
+     * Sets the time after which a cached entity expires, counted from the
+     * moment it was loaded.
+     *
+     * @param durationParam The duration.  Must be strictly positive.
+     * @param unitParam     The unit of the duration.  Must not be {@code null}.
+     * @return These settings.
+     */
+    public CacheSettings expireAfterWrite(final long durationParam, final TimeUnit unitParam) {
+        PARAM_REQ.Number.requireStrictlyPositive(durationParam, "The duration must be strictly positive.");
+        PARAM_REQ.Object.requireNotNull(unitParam);
+        expireAfterWriteNanos = unitParam.toNanos(durationParam);
+        return this;
+    }
+
+    /**
+     * Sets the time after which a cached entity is reloaded when it is read,
+     * counted from the moment it was loaded.  Set shorter than the expiration
+     * time, frequently read entities are reloaded before they expire, so their
+     * readers never wait for them to be loaded again.
+     *
+     * @param durationParam The duration.  Must be strictly positive.
+     * @param unitParam     The unit of the duration.  Must not be {@code null}.
+     * @return These settings.
+     */
+    public CacheSettings refreshAfterWrite(final long durationParam, final TimeUnit unitParam) {
+        PARAM_REQ.Number.requireStrictlyPositive(durationParam, "The duration must be strictly positive.");
+        PARAM_REQ.Object.requireNotNull(unitParam);
+        refreshAfterWriteNanos = unitParam.toNanos(durationParam);
+        return this;
+    }
+
+    /**
+     * Makes every hit return a new copy of the cached entity, so callers may
+     * change the entities they retrieve.  Without it, hits share the cached
+     * entity, which callers must treat as read-only.
+     *
+     * @return These settings.
+     */
+    public CacheSettings copyOnRead() {
+        copyOnRead = true;
+        return this;
+    }
+
+    CacheSettings ticker(final Ticker tickerParam) {
+        PARAM_REQ.Object.requireNotNull(tickerParam);
+        ticker = tickerParam;
+        return this;
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Returns the expiration time.
+     *
+     * @return The expiration time in nanoseconds, or 0 if entities do not
+     *         expire.
+     */
+    public long getExpireAfterWriteNanos() {
+        return expireAfterWriteNanos;
+    }
+
+    /**
+     * Returns the refresh time.
+     *
+     * @return The refresh time in nanoseconds, or 0 if entities are not
+     *         refreshed.
+     */
+    public long getRefreshAfterWriteNanos() {
+        return refreshAfterWriteNanos;
+    }
+
+    /**
+     * Tells whether every hit returns a new copy of the cached entity.
+     *
+     * @return {@code true} if hits return copies, {@code false} if they share
+     *         the cached entity.
+     */
+    public boolean isCopyOnRead() {
+        return copyOnRead;
+    }
+
+    Ticker getTicker() {
+        return ticker;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheSettings[maximumWeight=" + maximumWeight + ",expireAfterWriteNanos=" + expireAfterWriteNanos
+                + ",refreshAfterWriteNanos=" + refreshAfterWriteNanos + ",copyOnRead=" + copyOnRead + "]";
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the statistics of a {@link CachingRepository}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class CacheStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long evictionWeight;
+    private final long expirationCount;
+    private final long refreshCount;
+
+    /**
+     * Constructor.
+     *
+     * @param hitCountParam        The amount of lookups which found a cached
+     *                             entity.
+     * @param missCountParam       The amount of lookups which had to load the
+     *                             entity.
+     * @param evictionCountParam   The amount of entities evicted to respect the
+     *                             maximum weight.
+     * @param evictionWeightParam  The total weight of the evicted entities.
+     * @param expirationCountParam The amount of entities which expired.
+     * @param refreshCountParam    The amount of entities reloaded before they
+     *                             expired.
+     */
+    public CacheStats(final long hitCountParam, final long missCountParam, final long evictionCountParam,
+                      final long evictionWeightParam, final long expirationCountParam, final long refreshCountParam) {
+        hitCount = hitCountParam;
+        missCount = missCountParam;
+        evictionCount = evictionCountParam;
+        evictionWeight = evictionWeightParam;
+        expirationCount = expirationCountParam;
+        refreshCount = refreshCountParam;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * Returns the ratio of lookups which found a cached entity.
+     *
+     * @return The hit rate, or 1 if there was no lookup.
+     */
+    public double getHitRate() {
+        final long requestCount = getRequestCount();
+        return requestCount == 0L ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getEvictionWeight() {
+        return evictionWeight;
+    }
+
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    public long getRefreshCount() {
+        return refreshCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats[hitCount=" + hitCount + ",missCount=" + missCount + ",evictionCount=" + evictionCount
+                + ",evictionWeight=" + evictionWeight + ",expirationCount=" + expirationCount
+                + ",refreshCount=" + refreshCount + "]";
+    }
+}
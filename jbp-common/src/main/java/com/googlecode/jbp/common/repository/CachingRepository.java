@@ -0,0 +1,518 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Repository decorator which caches the entities retrieved by identifier.
+ * <p>
+ * The cache is bounded by the total weight of its entities and evicts them
+ * with the W-TinyLFU policy, which keeps frequently read entities rather than
+ * recently read ones.  Entities may expire a fixed time after they were
+ * loaded, and may be refreshed before: the first reader of an entity older
+ * than the refresh time starts reloading it in the background, in a unit of
+ * work of its own opened by an {@link IRepositoryScope}, and every reader
+ * keeps getting the cached entity until the reloaded one replaces it.
+ * </p>
+ * <p>
+ * The cache keeps a copy of every loaded entity, made by an
+ * {@link IEntityCopier}, so cached entities are detached and not shared with
+ * the session which loaded them.  The caller whose retrieval loads an entity
+ * receives the instance of its own session.  Hits share the cached entity,
+ * which callers must treat as read-only, unless the settings ask for
+ * {@link CacheSettings#copyOnRead() a copy on every hit}.
+ * </p>
+ * <p>
+ * Entities are invalidated when they are updated or deleted through this
+ * repository, and the whole cache when entities are deleted in bulk: once
+ * when the call returns, and again when the transaction of the calling thread
+ * completes, through {@link ITransactionHooks}.  The second invalidation
+ * removes the entities which other threads reloaded between the call and the
+ * commit, while the data base still returned the old rows.  Without hooks
+ * bound to the transactions, such a stale entity stays cached until it
+ * expires.  Changes made by other means are only seen once the entities
+ * expire, so the decorator suits entities which are read far more often than
+ * they are written.
+ * </p>
+ *
+ * @param <ID>          The class of the entity's identifier.
+ * @param <DomainModel> The class of the entity's domain model.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class CachingRepository<ID extends Serializable, DomainModel extends IIdentifiable<ID>>
+        extends AbstractRepositoryDecorator<ID, DomainModel> {
+
+    private static final transient Logger LOGGER = LoggerFactory.getLogger(CachingRepository.class);
+
+    private final BoundedCache<ID, DomainModel> cache;
+    private final IWeigher<? super DomainModel> weigher;
+    private final IEntityCopier<DomainModel> copier;
+    private final boolean copyOnRead;
+    private final ITransactionHooks transactionHooks;
+    private final IRepositoryScope<ID, DomainModel> refreshScope;
+    private final Executor refreshExecutor;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong refreshCount = new AtomicLong();
+
+    /**
+     * Constructor.  Every entity weighs 1, so the maximum weight is the
+     * maximum amount of cached entities.  Entities are copied by
+     * serialization, are not refreshed, and are invalidated only when writes
+     * return, so an entity reloaded before a write is committed stays stale
+     * until it expires.
+     *
+     * @param delegateParam The decorated repository.  Must not be {@code null}.
+     * @param settingsParam The settings of the cache.  Must not be {@code null}.
+     */
+    public CachingRepository(final IRepository<ID, DomainModel> delegateParam, final CacheSettings settingsParam) {
+        this(delegateParam, settingsParam, new IWeigher<DomainModel>() {
+            public int weigh(final DomainModel entityParam) {
+                return 1;
+            }
+        });
+    }
+
+    /**
+     * Constructor.  Entities are copied by serialization, are not refreshed,
+     * and are invalidated only when writes return, so an entity reloaded
+     * before a write is committed stays stale until it expires.
+     *
+     * @param delegateParam The decorated repository.  Must not be {@code null}.
+     * @param settingsParam The settings of the cache.  Must not be {@code null}.
+     * @param weigherParam  The weigher of the cached entities.  Must not be
+     *                      {@code null}.
+     */
+    public CachingRepository(final IRepository<ID, DomainModel> delegateParam, final CacheSettings settingsParam,
+                             final IWeigher<? super DomainModel> weigherParam) {
+        this(delegateParam, settingsParam, weigherParam, new SerializingEntityCopier<DomainModel>(),
+                ITransactionHooks.IMMEDIATE);
+    }
+
+    /**
+     * Constructor.  Entities are not refreshed, so the settings must not set a
+     * refresh time.
+     *
+     * @param delegateParam         The decorated repository.  Must not be
+     *                              {@code null}.
+     * @param settingsParam         The settings of the cache.  Must not be
+     *                              {@code null}.
+     * @param weigherParam          The weigher of the cached entities.  Must
+     *                              not be {@code null}.
+     * @param copierParam           The copier of the cached entities.  Must not
+     *                              be {@code null}.
+     * @param transactionHooksParam The hooks which invalidate written entities
+     *                              again once the transaction of the writing
+     *                              thread completes.  Must not be
+     *                              {@code null}.
+     */
+    public CachingRepository(final IRepository<ID, DomainModel> delegateParam, final CacheSettings settingsParam,
+                             final IWeigher<? super DomainModel> weigherParam,
+                             final IEntityCopier<DomainModel> copierParam,
+                             final ITransactionHooks transactionHooksParam) {
+        this(delegateParam, settingsParam, weigherParam, copierParam, transactionHooksParam, null, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param delegateParam         The decorated repository.  Must not be
+     *                              {@code null}.
+     * @param settingsParam         The settings of the cache.  Must not be
+     *                              {@code null}.
+     * @param weigherParam          The weigher of the cached entities.  Must
+     *                              not be {@code null}.
+     * @param copierParam           The copier of the cached entities.  Must not
+     *                              be {@code null}.
+     * @param transactionHooksParam The hooks which invalidate written entities
+     *                              again once the transaction of the writing
+     *                              thread completes.  Must not be
+     *                              {@code null}.
+     * @param refreshScopeParam     The scope opening the unit of work of each
+     *                              refresh.  Must not be {@code null} if the
+     *                              settings set a refresh time.
+     * @param refreshExecutorParam  The executor running the refreshes.  Must
+     *                              not be {@code null} if a refresh scope is
+     *                              specified.
+     */
+    public CachingRepository(final IRepository<ID, DomainModel> delegateParam, final CacheSettings settingsParam,
+                             final IWeigher<? super DomainModel> weigherParam,
+                             final IEntityCopier<DomainModel> copierParam,
+                             final ITransactionHooks transactionHooksParam,
+                             final IRepositoryScope<ID, DomainModel> refreshScopeParam,
+                             final Executor refreshExecutorParam) {
+        super(delegateParam);
+        PARAM_REQ.Object.requireNotNull(settingsParam);
+        PARAM_REQ.Object.requireNotNull(weigherParam);
+        PARAM_REQ.Object.requireNotNull(copierParam);
+        PARAM_REQ.Object.requireNotNull(transactionHooksParam);
+        PARAM_REQ.Logic.requireTrue(settingsParam.getRefreshAfterWriteNanos() == 0L
+                || settingsParam.getExpireAfterWriteNanos() == 0L
+                || settingsParam.getRefreshAfterWriteNanos() < settingsParam.getExpireAfterWriteNanos(),
+                "The refresh time must be shorter than the expiration time.");
+        PARAM_REQ.Logic.requireTrue(settingsParam.getRefreshAfterWriteNanos() == 0L || refreshScopeParam != null,
+                "A refresh time requires a refresh scope.");
+        PARAM_REQ.Logic.requireTrue(refreshScopeParam == null || refreshExecutorParam != null,
+                "A refresh scope requires a refresh executor.");
+        cache = new BoundedCache<ID, DomainModel>(settingsParam);
+        weigher = weigherParam;
+        copier = copierParam;
+        copyOnRead = settingsParam.isCopyOnRead();
+        transactionHooks = transactionHooksParam;
+        refreshScope = refreshScopeParam;
+        refreshExecutor = refreshExecutorParam;
+    }
+
+    @Override
+    public DomainModel retrieveById(final ID id) {
+        PARAM_REQ.Object.requireNotNull(id);
+        final DomainModel cached = cache.get(id);
+        if (cached != null) {
+            hitCount.incrementAndGet();
+            if (cache.startRefresh(id)) {
+                refresh(Collections.singletonList(id));
+            }
+            return read(cached);
+        }
+        missCount.incrementAndGet();
+        final long generation = cache.getGeneration();
+        final DomainModel loaded = getDelegate().retrieveById(id);
+        if (loaded != null) {
+            cache.put(id, copier.copy(loaded), weigher.weigh(loaded), generation);
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the specified cached entity, or a copy of it if hits return
+     * copies.
+     */
+    private DomainModel read(final DomainModel cachedParam) {
+        return copyOnRead ? copier.copy(cachedParam) : cachedParam;
+    }
+
+    /**
+     * Starts reloading the specified entities, whose refresh time has passed,
+     * in the background.  Readers keep getting the cached entities until the
+     * reloaded ones replace them.  A failed refresh is logged, and the next
+     * reader tries again.
+     */
+    private void refresh(final List<ID> idsParam) {
+        final long generation = cache.getGeneration();
+        try {
+            refreshExecutor.execute(() -> {
+                final Map<ID, DomainModel> loaded;
+                try {
+                    loaded = refreshScope.execute(repository -> repository.retrieveMapByIds(idsParam));
+                } catch (RuntimeException e) {
+                    LOGGER.warn("The refresh of the entities with identifiers " + idsParam + " failed.", e);
+                    cancelRefresh(idsParam);
+                    return;
+                }
+                refreshCount.addAndGet(idsParam.size());
+                for (final ID current : idsParam) {
+                    final DomainModel entity = loaded.get(current);
+                    if (entity == null) {
+                        cache.invalidate(current);
+                    } else {
+                        // Loaded in a unit of work of its own: the entity is already detached.
+                        cache.put(current, entity, weigher.weigh(entity), generation);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            cancelRefresh(idsParam);
+        }
+    }
+
+    private void cancelRefresh(final List<ID> idsParam) {
+        for (final ID current : idsParam) {
+            cache.cancelRefresh(current);
+        }
+    }
+
+    @Override
+    public List<DomainModel> retrieveByIds(final Collection<ID> ids) {
+        return new ArrayList<DomainModel>(retrieveMapByIds(ids).values());
+    }
+
+    /**
+     * Returns the cached entities, and retrieves the others with one call to
+     * the decorated repository.  The cached entities to refresh are reloaded
+     * together, in the background.
+     */
+    @Override
+    public Map<ID, DomainModel> retrieveMapByIds(final Collection<ID> ids) {
+        PARAM_REQ.Object.requireNotNull(ids);
+        final Map<ID, DomainModel> found = new HashMap<ID, DomainModel>();
+        final List<ID> toLoad = new ArrayList<ID>();
+        final List<ID> toRefresh = new ArrayList<ID>();
+        for (final ID current : new LinkedHashSet<ID>(ids)) {
+            PARAM_REQ.Object.requireNotNull(current, "The identifiers must not be null.");
+            final DomainModel cached = cache.get(current);
+            if (cached == null) {
+                missCount.incrementAndGet();
+                toLoad.add(current);
+            } else {
+                hitCount.incrementAndGet();
+                if (cache.startRefresh(current)) {
+                    toRefresh.add(current);
+                }
+                found.put(current, read(cached));
+            }
+        }
+        if (!toRefresh.isEmpty()) {
+            refresh(toRefresh);
+        }
+        if (!toLoad.isEmpty()) {
+            final long generation = cache.getGeneration();
+            final Map<ID, DomainModel> loaded = getDelegate().retrieveMapByIds(toLoad);
+            for (final Map.Entry<ID, DomainModel> current : loaded.entrySet()) {
+                cache.put(current.getKey(), copier.copy(current.getValue()), weigher.weigh(current.getValue()),
+                        generation);
+            }
+            found.putAll(loaded);
+        }
+        final Map<ID, DomainModel> result = new LinkedHashMap<ID, DomainModel>();
+        for (final ID current : ids) {
+            final DomainModel entity = found.get(current);
+            if (entity != null) {
+                result.put(current, entity);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean exists(final DomainModel entity) {
+        PARAM_REQ.Object.requireNotNull(entity);
+        return (entity.getId() != null && cache.contains(entity.getId())) || getDelegate().exists(entity);
+    }
+
+    @Override
+    public boolean exists(final ID id) {
+        PARAM_REQ.Object.requireNotNull(id);
+        return cache.contains(id) || getDelegate().exists(id);
+    }
+
+    @Override
+    public void update(final DomainModel t) {
+        PARAM_REQ.Object.requireNotNull(t);
+        try {
+            getDelegate().update(t);
+        } finally {
+            evict(t.getId());
+        }
+    }
+
+    @Override
+    public void update(final Collection<DomainModel> entities) {
+        PARAM_REQ.Object.requireNotNull(entities);
+        try {
+            getDelegate().update(entities);
+        } finally {
+            evictEntities(entities);
+        }
+    }
+
+    @Override
+    public void delete(final DomainModel t) {
+        PARAM_REQ.Object.requireNotNull(t);
+        try {
+            getDelegate().delete(t);
+        } finally {
+            evict(t.getId());
+        }
+    }
+
+    @Override
+    public void delete(final ID id) {
+        PARAM_REQ.Object.requireNotNull(id);
+        try {
+            getDelegate().delete(id);
+        } finally {
+            evict(id);
+        }
+    }
+
+    @Override
+    public void delete(final Collection<DomainModel> t) {
+        PARAM_REQ.Object.requireNotNull(t);
+        try {
+            getDelegate().delete(t);
+        } finally {
+            evictEntities(t);
+        }
+    }
+
+    @Override
+    public BatchReport delete(final Collection<DomainModel> entities, final int batchSizeParam) {
+        PARAM_REQ.Object.requireNotNull(entities);
+        try {
+            return getDelegate().delete(entities, batchSizeParam);
+        } finally {
+            evictEntities(entities);
+        }
+    }
+
+    @Override
+    public int deleteAll() {
+        try {
+            return getDelegate().deleteAll();
+        } finally {
+            evictAll();
+        }
+    }
+
+    @Override
+    public int deleteAll(final DeleteMode modeParam) {
+        try {
+            return getDelegate().deleteAll(modeParam);
+        } finally {
+            evictAll();
+        }
+    }
+
+    @Override
+    public int deleteAll(final DeleteMode modeParam, final int chunkSizeParam) {
+        try {
+            return getDelegate().deleteAll(modeParam, chunkSizeParam);
+        } finally {
+            evictAll();
+        }
+    }
+
+    @Override
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam) {
+        try {
+            return getDelegate().deleteWhere(conditionParam, parametersParam);
+        } finally {
+            evictAll();
+        }
+    }
+
+    @Override
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam) {
+        try {
+            return getDelegate().deleteWhere(conditionParam, parametersParam, modeParam);
+        } finally {
+            evictAll();
+        }
+    }
+
+    @Override
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        try {
+            return getDelegate().deleteWhere(conditionParam, parametersParam, modeParam, chunkSizeParam);
+        } finally {
+            evictAll();
+        }
+    }
+
+    /**
+     * Removes the entity with the specified identifier from the cache.
+     *
+     * @param idParam The identifier.  Ignored if {@code null}.
+     */
+    public void invalidate(final ID idParam) {
+        if (idParam != null) {
+            cache.invalidate(idParam);
+        }
+    }
+
+    /**
+     * Invalidates the written entity with the specified identifier, now and
+     * once the transaction completes.
+     */
+    private void evict(final ID idParam) {
+        invalidate(idParam);
+        transactionHooks.afterCompletion(() -> invalidate(idParam));
+    }
+
+    private void evictEntities(final Collection<DomainModel> entitiesParam) {
+        final List<ID> ids = new ArrayList<ID>(entitiesParam.size());
+        for (final DomainModel current : entitiesParam) {
+            if (current != null && current.getId() != null) {
+                ids.add(current.getId());
+            }
+        }
+        for (final ID current : ids) {
+            invalidate(current);
+        }
+        transactionHooks.afterCompletion(() -> {
+            for (final ID current : ids) {
+                invalidate(current);
+            }
+        });
+    }
+
+    private void evictAll() {
+        invalidateAll();
+        transactionHooks.afterCompletion(this::invalidateAll);
+    }
+
+    /**
+     * Removes every entity from the cache.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the amount of cached entities.
+     *
+     * @return The amount of cached entities.
+     */
+    public int getSize() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the total weight of the cached entities.
+     *
+     * @return The total weight.
+     */
+    public long getWeightedSize() {
+        return cache.getWeightedSize();
+    }
+
+    /**
+     * Returns a snapshot of the statistics of the cache.
+     *
+     * @return The statistics.
+     */
+    public CacheStats getStats() {
+        return new CacheStats(hitCount.get(), missCount.get(), cache.getEvictionCount(), cache.getEvictionWeight(),
+                cache.getExpirationCount(), refreshCount.get());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Statements executed by one call to a {@link StatementCountingRepository}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class CallStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final String operation;
+    private final StatementStatistics statistics;
+    private final Map<String, Long> suspectedShapes;
+
+    /**
+     * Constructor.
+     *
+     * @param operationParam      The name of the operation called.  Must not be
+     *                            {@code null}.
+     * @param statisticsParam     The statements executed during the call.  Must
+     *                            not be {@code null}.
+     * @param nPlusOneLimitParam  The amount of executions of one shape from
+     *                            which the shape is suspected of being an N+1
+     *                            select.  Must be strictly positive.
+     */
+    public CallStatistics(final String operationParam, final StatementStatistics statisticsParam,
+                          final int nPlusOneLimitParam) {
+        PARAM_REQ.Object.requireNotNull(operationParam);
+        PARAM_REQ.Object.requireNotNull(statisticsParam);
+        PARAM_REQ.Number.requireStrictlyPositive(nPlusOneLimitParam, "The N+1 limit must be strictly positive.");
+        operation = operationParam;
+        statistics = statisticsParam;
+        final Map<String, Long> suspected = new LinkedHashMap<String, Long>();
+        for (final Map.Entry<String, Long> current : statisticsParam.getExecutionsByShape().entrySet()) {
+            if (current.getValue() >= nPlusOneLimitParam) {
+                suspected.put(current.getKey(), current.getValue());
+            }
+        }
+        suspectedShapes = Collections.unmodifiableMap(suspected);
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public StatementStatistics getStatistics() {
+        return statistics;
+    }
+
+    public long getStatementCount() {
+        return statistics.getStatementCount();
+    }
+
+    /**
+     * Returns the shapes executed so many times during the call that they are
+     * likely N+1 selects.
+     *
+     * @return The amount of executions by suspected shape.
+     */
+    public Map<String, Long> getSuspectedShapes() {
+        return suspectedShapes;
+    }
+
+    public boolean isLikelyNPlusOne() {
+        return !suspectedShapes.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "CallStatistics[operation=" + operation + ",statistics=" + statistics
+                + ",suspectedShapes=" + suspectedShapes + "]";
+    }
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Repository decorator which coalesces concurrent retrievals of the same
+ * entity.  The first thread retrieving an identifier loads the entity, and the
+ * threads retrieving the same identifier meanwhile wait for that load and
+ * receive a copy of its result, instead of each querying the data base.
+ * <p>
+ * A decorator wraps the repository of a single class, so loads are keyed by
+ * identifier.  By default, the first thread loads the entity itself, from the
+ * decorated repository, so the load runs in its own session and transaction:
+ * it sees the pending changes of its session, and costs no thread hop.  The
+ * waiting threads receive copies, made by an {@link IEntityCopier}, so the
+ * instance of the first thread's session is never shared; a copy reflects the
+ * state the first thread's transaction saw, including its own uncommitted
+ * changes to the entity.
+ * </p>
+ * <p>
+ * Alternatively, loads may run in units of work of their own, opened by an
+ * {@link IRepositoryScope} as tasks of an executor, so they only see committed
+ * rows.  The first thread then receives the detached instance of the load,
+ * and the waiting threads copies of it.  This mode is only chosen by
+ * specifying the scope: a load then never sees the pending changes of the
+ * retrieving thread, and blocks on the rows its transaction locked.
+ * </p>
+ * <p>
+ * A load which fails fails for every waiting thread.  Updating or deleting an
+ * entity through this repository detaches it from its load in progress, so
+ * later retrievals do not receive an entity read before the change.
+ * </p>
+ *
+ * @param <ID>          The class of the entity's identifier.
+ * @param <DomainModel> The class of the entity's domain model.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class CoalescingRepository<ID extends Serializable, DomainModel extends IIdentifiable<ID>>
+        extends AbstractRepositoryDecorator<ID, DomainModel> {
+
+    /**
+     * The default time a thread waits for an entity loaded by another thread,
+     * in milliseconds.
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30000L;
+
+    private final ConcurrentMap<ID, FutureTask<DomainModel>> loads = new ConcurrentHashMap<ID, FutureTask<DomainModel>>();
+    private final IRepositoryScope<ID, DomainModel> loadScope;
+    private final Executor executor;
+    private final IEntityCopier<DomainModel> copier;
+    private final long timeoutNanos;
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * Constructor.  The first retrieving thread loads the entity from the
+     * decorated repository, the waiting threads receive copies made by
+     * serialization, and wait at most {@link #DEFAULT_TIMEOUT_MILLIS}.
+     *
+     * @param delegateParam The decorated repository.  Must not be
+     *                      {@code null}.
+     */
+    public CoalescingRepository(final IRepository<ID, DomainModel> delegateParam) {
+        this(delegateParam, new SerializingEntityCopier<DomainModel>(), DEFAULT_TIMEOUT_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructor.  The first retrieving thread loads the entity from the
+     * decorated repository.
+     *
+     * @param delegateParam The decorated repository.  Must not be
+     *                      {@code null}.
+     * @param copierParam   The copier of the entities handed to the waiting
+     *                      threads.  Must not be {@code null}.
+     * @param timeoutParam  The maximum time a thread waits for a load.  Must
+     *                      be strictly positive.
+     * @param unitParam     The unit of the timeout.  Must not be
+     *                      {@code null}.
+     */
+    public CoalescingRepository(final IRepository<ID, DomainModel> delegateParam,
+                                final IEntityCopier<DomainModel> copierParam, final long timeoutParam,
+                                final TimeUnit unitParam) {
+        this(delegateParam, null, null, copierParam, timeoutParam, unitParam);
+    }
+
+    /**
+     * Constructor.  Loads run in units of work of their own, on the
+     * {@link AsyncRepository#defaultExecutor() default executor} of the
+     * asynchronous repositories, and threads wait at most
+     * {@link #DEFAULT_TIMEOUT_MILLIS} for them.  Without virtual threads, that
+     * executor is bounded, and a retrieval whose load it rejects fails with a
+     * {@link java.util.concurrent.RejectedExecutionException}.
+     *
+     * @param delegateParam  The decorated repository.  Must not be
+     *                       {@code null}.
+     * @param loadScopeParam The scope opening the unit of work of each load.
+     *                       Must not be {@code null}.
+     */
+    public CoalescingRepository(final IRepository<ID, DomainModel> delegateParam,
+                                final IRepositoryScope<ID, DomainModel> loadScopeParam) {
+        this(delegateParam, loadScopeParam, DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructor.  Loads run in units of work of their own, on the
+     * {@link AsyncRepository#defaultExecutor() default executor} of the
+     * asynchronous repositories.
+     *
+     * @param delegateParam  The decorated repository.  Must not be
+     *                       {@code null}.
+     * @param loadScopeParam The scope opening the unit of work of each load.
+     *                       Must not be {@code null}.
+     * @param timeoutParam   The maximum time a thread waits for a load.  Must
+     *                       be strictly positive.
+     * @param unitParam      The unit of the timeout.  Must not be
+     *                       {@code null}.
+     */
+    public CoalescingRepository(final IRepository<ID, DomainModel> delegateParam,
+                                final IRepositoryScope<ID, DomainModel> loadScopeParam, final long timeoutParam,
+                                final TimeUnit unitParam) {
+        this(delegateParam, loadScopeParam, AsyncRepository.defaultExecutor(), timeoutParam, unitParam);
+    }
+
+    /**
+     * Constructor.  Loads run in units of work of their own, and the waiting
+     * threads receive copies made by serialization.
+     *
+     * @param delegateParam  The decorated repository.  Must not be
+     *                       {@code null}.
+     * @param loadScopeParam The scope opening the unit of work of each load.
+     *                       Must not be {@code null}.
+     * @param executorParam  The executor running the loads.  If the scope
+     *                       joins the unit of work already active on the
+     *                       thread, as {@code HibernateRepositoryScope} does,
+     *                       it must not run them on the calling thread.  Must
+     *                       not be {@code null}.
+     * @param timeoutParam   The maximum time a thread waits for a load.  Must
+     *                       be strictly positive.
+     * @param unitParam      The unit of the timeout.  Must not be
+     *                       {@code null}.
+     */
+    public CoalescingRepository(final IRepository<ID, DomainModel> delegateParam,
+                                final IRepositoryScope<ID, DomainModel> loadScopeParam, final Executor executorParam,
+                                final long timeoutParam, final TimeUnit unitParam) {
+        this(delegateParam, loadScopeParam, executorParam, new SerializingEntityCopier<DomainModel>(), timeoutParam,
+                unitParam);
+        PARAM_REQ.Object.requireNotNull(loadScopeParam);
+        PARAM_REQ.Object.requireNotNull(executorParam);
+    }
+
+    private CoalescingRepository(final IRepository<ID, DomainModel> delegateParam,
+                                 final IRepositoryScope<ID, DomainModel> loadScopeParam,
+                                 final Executor executorParam, final IEntityCopier<DomainModel> copierParam,
+                                 final long timeoutParam, final TimeUnit unitParam) {
+        super(delegateParam);
+        PARAM_REQ.Object.requireNotNull(copierParam);
+        PARAM_REQ.Number.requireStrictlyPositive(timeoutParam);
+        PARAM_REQ.Object.requireNotNull(unitParam);
+        loadScope = loadScopeParam;
+        executor = executorParam;
+        copier = copierParam;
+        timeoutNanos = unitParam.toNanos(timeoutParam);
+    }
+
+    /**
+     * Retrieves an entity using its identifier.  If another thread is already
+     * retrieving it, waits for its result instead.
+     *
+     * @param id The identifier.  Must not be {@code null}.
+     * @return The entity with the given identifier: the one loaded by the
+     *         calling thread, or a copy of the one another thread loaded.
+     * @throws LoadTimeoutException If the entity is not loaded in time.
+     */
+    @Override
+    public DomainModel retrieveById(final ID id) {
+        PARAM_REQ.Object.requireNotNull(id);
+        final FutureTask<DomainModel> load = new Load(id, new Callable<DomainModel>() {
+            public DomainModel call() {
+                return loadScope == null ? getDelegate().retrieveById(id)
+                        : loadScope.execute(repository -> repository.retrieveById(id));
+            }
+        });
+        final FutureTask<DomainModel> pending = loads.putIfAbsent(id, load);
+        if (pending != null) {
+            coalescedCount.incrementAndGet();
+            final DomainModel shared = awaitResult(id, pending);
+            return shared == null ? null : copier.copy(shared);
+        }
+        loadCount.incrementAndGet();
+        if (loadScope == null) {
+            load.run();
+        } else {
+            try {
+                executor.execute(load);
+            } catch (RuntimeException e) {
+                loads.remove(id, load);
+                throw e;
+            }
+        }
+        return awaitResult(id, load);
+    }
+
+    private DomainModel awaitResult(final ID idParam, final FutureTask<DomainModel> loadParam) {
+        try {
+            return loadParam.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new LoadTimeoutException("The entity with identifier " + idParam + " was not loaded within "
+                    + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the entity with identifier " + idParam
+                    + ".", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public void update(final DomainModel t) {
+        try {
+            getDelegate().update(t);
+        } finally {
+            forget(t);
+        }
+    }
+
+    @Override
+    public void update(final Collection<DomainModel> entities) {
+        try {
+            getDelegate().update(entities);
+        } finally {
+            forgetEntities(entities);
+        }
+    }
+
+    @Override
+    public void delete(final DomainModel t) {
+        try {
+            getDelegate().delete(t);
+        } finally {
+            forget(t);
+        }
+    }
+
+    @Override
+    public void delete(final ID id) {
+        try {
+            getDelegate().delete(id);
+        } finally {
+            if (id != null) {
+                loads.remove(id);
+            }
+        }
+    }
+
+    @Override
+    public void delete(final Collection<DomainModel> t) {
+        try {
+            getDelegate().delete(t);
+        } finally {
+            forgetEntities(t);
+        }
+    }
+
+    @Override
+    public BatchReport delete(final Collection<DomainModel> entities, final int batchSizeParam) {
+        try {
+            return getDelegate().delete(entities, batchSizeParam);
+        } finally {
+            forgetEntities(entities);
+        }
+    }
+
+    @Override
+    public int deleteAll() {
+        try {
+            return getDelegate().deleteAll();
+        } finally {
+            loads.clear();
+        }
+    }
+
+    @Override
+    public int deleteAll(final DeleteMode modeParam) {
+        try {
+            return getDelegate().deleteAll(modeParam);
+        } finally {
+            loads.clear();
+        }
+    }
+
+    @Override
+    public int deleteAll(final DeleteMode modeParam, final int chunkSizeParam) {
+        try {
+            return getDelegate().deleteAll(modeParam, chunkSizeParam);
+        } finally {
+            loads.clear();
+        }
+    }
+
+    @Override
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam) {
+        try {
+            return getDelegate().deleteWhere(conditionParam, parametersParam);
+        } finally {
+            loads.clear();
+        }
+    }
+
+    @Override
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam) {
+        try {
+            return getDelegate().deleteWhere(conditionParam, parametersParam, modeParam);
+        } finally {
+            loads.clear();
+        }
+    }
+
+    @Override
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        try {
+            return getDelegate().deleteWhere(conditionParam, parametersParam, modeParam, chunkSizeParam);
+        } finally {
+            loads.clear();
+        }
+    }
+
+    private void forget(final DomainModel entityParam) {
+        if (entityParam != null && entityParam.getId() != null) {
+            loads.remove(entityParam.getId());
+        }
+    }
+
+    private void forgetEntities(final Collection<DomainModel> entitiesParam) {
+        if (entitiesParam != null) {
+            for (final DomainModel current : entitiesParam) {
+                forget(current);
+            }
+        }
+    }
+
+    /**
+     * Load of an entity, which stops being the load in progress of its
+     * identifier before its result is handed to the waiting threads.
+     */
+    private final class Load extends FutureTask<DomainModel> {
+
+        private final ID id;
+
+        private Load(final ID idParam, final Callable<DomainModel> callableParam) {
+            super(callableParam);
+            id = idParam;
+        }
+
+        @Override
+        protected void set(final DomainModel entityParam) {
+            loads.remove(id, this);
+            super.set(entityParam);
+        }
+
+        @Override
+        protected void setException(final Throwable throwableParam) {
+            loads.remove(id, this);
+            super.setException(throwableParam);
+        }
+    }
+
+    /**
+     * Returns the amount of entities loaded from the decorated repository.
+     *
+     * @return The amount of loads.
+     */
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    /**
+     * Returns the amount of retrievals which received the result of another
+     * thread's load.
+     *
+     * @return The amount of coalesced retrievals.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Returns the amount of loads in progress.
+     *
+     * @return The amount of loads in progress.
+     */
+    public int getLoadsInProgress() {
+        return loads.size();
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+/**
+ * The ways a repository may determine the total amount of results of a page.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public enum CountMode {
+    /**
+     * A count query is run with every page.
+     */
+    EXACT,
+    /**
+     * The count is queried once per entity class, then cached until an entity
+     * of that class is created or deleted through the repository.  Writes made
+     * by other means are not seen.
+     */
+    CACHED,
+    /**
+     * No count query is run.  The page is retrieved with one more result than
+     * requested, and the amount of results is estimated as the rows before
+     * the page (unknown in keyset mode, thus not counted), plus the rows of
+     * the page, plus one if there are more.  This lower bound is enough to
+     * tell whether there is a next page.
+     */
+    ESTIMATED
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Publisher of the entities read with a cursor.  Each subscriber gets a cursor
+ * of its own, opened at its first request and closed when all entities are
+ * published, when the subscription is cancelled or when reading fails.
+ * Entities are only read as the subscriber requests them, and the cursor
+ * fetches at most the fetch size rows at once and detaches the entities it
+ * moved past, so a slow subscriber does not make entities pile up in memory.
+ * <p>
+ * Entities are published on the thread calling
+ * {@link java.util.concurrent.Flow.Subscription#request(long)}, as the cursor
+ * belongs to the session or entity manager of the unit of work it was opened
+ * in.  The subscriber must request entities while that unit of work is open.
+ * </p>
+ *
+ * @param <T> The class of the published entities.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class CursorPublisher<T> implements Flow.Publisher<T> {
+
+    private final IntFunction<ICloseableIterator<T>> cursorFactory;
+    private final int fetchSize;
+
+    /**
+     * Constructor.
+     *
+     * @param cursorFactoryParam Opens a cursor fetching the specified amount of
+     *                           rows at once.  Must not be {@code null}.
+     * @param fetchSizeParam     The amount of rows fetched at once.  Must be
+     *                           strictly positive.
+     */
+    public CursorPublisher(final IntFunction<ICloseableIterator<T>> cursorFactoryParam, final int fetchSizeParam) {
+        PARAM_REQ.Object.requireNotNull(cursorFactoryParam);
+        PARAM_REQ.Number.requireStrictlyPositive(fetchSizeParam);
+        cursorFactory = cursorFactoryParam;
+        fetchSize = fetchSizeParam;
+    }
+
+    /**
+     * Creates a publisher of all persisted entities of the specified class.
+     *
+     * @param repositoryParam      The repository.  Must not be {@code null}.
+     * @param persistentClassParam The class of the entities.  Must not be
+     *                             {@code null}.
+     * @param fetchSizeParam       The amount of rows fetched at once.  Must be
+     *                             strictly positive.
+     * @return The publisher.
+     */
+    public static <ID extends Serializable, DomainModel extends IIdentifiable<ID>> CursorPublisher<DomainModel> publishAll(
+            final IGenericRepository repositoryParam, final Class<DomainModel> persistentClassParam,
+            final int fetchSizeParam) {
+        PARAM_REQ.Object.requireNotNull(repositoryParam);
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        return new CursorPublisher<DomainModel>(
+                fetchSize -> repositoryParam.<ID, DomainModel>iterateAll(persistentClassParam, fetchSize),
+                fetchSizeParam);
+    }
+
+    /**
+     * Creates a publisher of all persisted entities of a repository.
+     *
+     * @param repositoryParam The repository.  Must not be {@code null}.
+     * @param fetchSizeParam  The amount of rows fetched at once.  Must be
+     *                        strictly positive.
+     * @return The publisher.
+     */
+    public static <ID extends Serializable, DomainModel extends IIdentifiable<ID>> CursorPublisher<DomainModel> publishAll(
+            final IRepository<ID, DomainModel> repositoryParam, final int fetchSizeParam) {
+        PARAM_REQ.Object.requireNotNull(repositoryParam);
+        return new CursorPublisher<DomainModel>(repositoryParam::iterateAll, fetchSizeParam);
+    }
+
+    public void subscribe(final Flow.Subscriber<? super T> subscriberParam) {
+        PARAM_REQ.Object.requireNotNull(subscriberParam);
+        subscriberParam.onSubscribe(new CursorSubscription(subscriberParam));
+    }
+
+    /**
+     * Subscription publishing the entities of one cursor.  Requests and
+     * cancellations are processed by a single drain loop, so the cursor is
+     * never used by two threads at once.
+     */
+    private final class CursorSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger drains = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        private volatile Throwable invalidRequest;
+        private ICloseableIterator<T> cursor;
+        private boolean done = false;
+
+        private CursorSubscription(final Flow.Subscriber<? super T> subscriberParam) {
+            subscriber = subscriberParam;
+        }
+
+        public void request(final long n) {
+            if (n <= 0L) {
+                invalidRequest = new IllegalArgumentException("The amount of requested entities must be strictly positive: " + n);
+            } else {
+                long current;
+                long next;
+                do {
+                    current = demand.get();
+                    next = current + n < 0L ? Long.MAX_VALUE : current + n;
+                } while (!demand.compareAndSet(current, next));
+            }
+            drain();
+        }
+
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (drains.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (!done) {
+                    publish();
+                }
+                missed = drains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void publish() {
+            if (cancelled) {
+                close();
+                return;
+            }
+            if (invalidRequest != null) {
+                close();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+            try {
+                if (cursor == null) {
+                    cursor = cursorFactory.apply(fetchSize);
+                }
+                while (demand.get() > 0L && !cancelled) {
+                    if (!cursor.hasNext()) {
+                        close();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    final T entity = cursor.next();
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    subscriber.onNext(entity);
+                }
+                if (cancelled) {
+                    close();
+                }
+            } catch (RuntimeException e) {
+                close();
+                subscriber.onError(e);
+            }
+        }
+
+        private void close() {
+            done = true;
+            if (cursor != null) {
+                try {
+                    cursor.close();
+                } finally {
+                    cursor = null;
+                }
+            }
+        }
+    }
+}
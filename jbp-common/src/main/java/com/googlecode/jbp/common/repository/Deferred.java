@@ -0,0 +1,73 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+/**
+ * Entity requested from a {@link BatchLoader}, which is retrieved together with
+ * the other entities requested from the loader.
+ *
+ * @param <T> The class of the entity.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class Deferred<T> {
+
+    private final BatchLoader<?, ?> loader;
+    private boolean resolved = false;
+    private T value;
+    private RuntimeException failure;
+
+    Deferred(final BatchLoader<?, ?> loaderParam) {
+        loader = loaderParam;
+    }
+
+    /**
+     * Returns the entity.  If it is not retrieved yet, all entities requested
+     * from the loader are retrieved first.
+     *
+     * @return The entity, or {@code null} if no entity has the requested
+     *         identifier.
+     * @throws RuntimeException The exception thrown while retrieving the
+     *                          entity, if any.
+     */
+    public T get() {
+        if (!resolved) {
+            loader.dispatch();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return value;
+    }
+
+    /**
+     * Checks if the entity was retrieved, or its retrieval failed.
+     *
+     * @return {@code true} if the entity was retrieved, {@code false} else.
+     */
+    public boolean isResolved() {
+        return resolved;
+    }
+
+    void resolve(final T valueParam) {
+        value = valueParam;
+        resolved = true;
+    }
+
+    void fail(final RuntimeException failureParam) {
+        failure = failureParam;
+        resolved = true;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+/**
+ * The ways a repository may delete all entities matching a condition.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public enum DeleteMode {
+    /**
+     * A single set-based {@code DELETE} statement.  Cascades and entity
+     * listeners are not applied, and entities already loaded in the
+     * persistence context are not removed from it.
+     */
+    BULK,
+    /**
+     * The matching entities are loaded in chunks ordered by identifier and
+     * removed one by one, so cascades and entity listeners are applied.  The
+     * persistence context is flushed after each chunk, which removes the
+     * deleted entities from it; the other entities stay managed.
+     */
+    CASCADING
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Caches the amount of entities per entity class, for {@link CountMode#CACHED}.
+ * Writing an entity invalidates the counts of its class, of its superclasses
+ * and of its subclasses.
+ * <p>
+ * A count is only stored if no invalidation happened since the caller read the
+ * generation, before running its count query.  A count computed concurrently
+ * with a write is thus never cached.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class EntityCountCache {
+
+    private final ConcurrentMap<Class<?>, Integer> counts = new ConcurrentHashMap<Class<?>, Integer>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Returns the cached count of the specified class.
+     *
+     * @param persistentClassParam The entity class.
+     * @return The count, or {@code null} if it is not cached.
+     */
+    public Integer get(final Class<?> persistentClassParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        return counts.get(persistentClassParam);
+    }
+
+    /**
+     * Returns the current generation, to be read before running a count query.
+     *
+     * @return The current generation.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Caches the count of the specified class, unless an invalidation happened
+     * since the specified generation.
+     *
+     * @param persistentClassParam The entity class.
+     * @param countParam           The count.
+     * @param generationParam      The generation read before counting.
+     */
+    public void put(final Class<?> persistentClassParam, final int countParam, final long generationParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        counts.put(persistentClassParam, countParam);
+        if (generation.get() != generationParam) {
+            counts.remove(persistentClassParam);
+        }
+    }
+
+    /**
+     * Invalidates the counts which an entity of the specified class is part of.
+     *
+     * @param writtenClassParam The class of the written entity.
+     */
+    public void invalidate(final Class<?> writtenClassParam) {
+        PARAM_REQ.Object.requireNotNull(writtenClassParam);
+        generation.incrementAndGet();
+        for (final Iterator<Class<?>> it = counts.keySet().iterator(); it.hasNext();) {
+            final Class<?> current = it.next();
+            if (current.isAssignableFrom(writtenClassParam) || writtenClassParam.isAssignableFrom(current)) {
+                it.remove();
+            }
+        }
+    }
+}
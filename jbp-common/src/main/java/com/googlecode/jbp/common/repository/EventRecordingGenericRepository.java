@@ -0,0 +1,59 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.util.function.Supplier;
+
+/**
+ * Generic repository decorator which emits a {@link RepositoryOperationEvent}
+ * for each operation, including the operations which throw an exception.
+ * <p>
+ * The events carry the class of the decorated repository.  The flushes,
+ * batch chunks and cache lookups are emitted by the generic repositories
+ * themselves, as {@link RepositoryFlushEvent},
+ * {@link RepositoryBatchChunkEvent} and {@link RepositoryCacheLookupEvent}.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class EventRecordingGenericRepository extends AbstractInterceptingGenericRepository {
+
+    /**
+     * Constructor.
+     *
+     * @param delegateParam The decorated repository.  Must not be {@code null}.
+     */
+    public EventRecordingGenericRepository(final IGenericRepository delegateParam) {
+        super(delegateParam);
+    }
+
+    @Override
+    protected <R> R intercept(final Class<?> entityClassParam, final Page pageParam, final String operationParam,
+                              final Supplier<R> workParam) {
+        final RepositoryOperationEvent event = RepositoryOperationEvent.start();
+        final R result;
+        try {
+            result = workParam.get();
+        } catch (final RuntimeException e) {
+            event.recordFailure(getDelegate().getClass(), entityClassParam, operationParam, e);
+            throw e;
+        } catch (final Error e) {
+            event.recordFailure(getDelegate().getClass(), entityClassParam, operationParam, e);
+            throw e;
+        }
+        return event.record(getDelegate().getClass(), entityClassParam, operationParam, result);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * This class tells which associations of the retrieved entities a repository
+ * loads together with them, so that navigating the associations afterwards
+ * does not issue one select per entity.
+ * <p>
+ * Associations are named with their path from the retrieved entity, e.g.
+ * {@code customer} or {@code customer.address}.  Each association is either:
+ * </p>
+ * <ul>
+ * <li>joined: fetched by an outer join in the query which retrieves the
+ * entities, or</li>
+ * <li>batched: fetched by one more query per association, which joins it for
+ * the identifiers of the retrieved entities, in chunks of
+ * {@link IGenericRepository#DEFAULT_IN_CLAUSE_SIZE}.</li>
+ * </ul>
+ * <p>
+ * Joining a collection multiplies the rows of its owner, so collections are
+ * batched instead of joined when the results are paged, and only the first
+ * collection of the plan is joined otherwise: the others are batched.
+ * </p>
+ * <p>Plans are immutable: {@code join} and {@code batch} return a copy, so
+ * a plan may be kept in a constant and shared between threads.
+ * A FetchPlan instance may be instantiated like this:
+ * {@code FetchPlan.newPlan().join("customer").batch("lines");}
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class FetchPlan implements Serializable {
+
+    /**
+     * serialVersionUID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    private static final FetchPlan EMPTY_PLAN = new FetchPlan(Collections.<String>emptyList(), Collections.<String>emptyList());
+
+    /**
+     * Returns a {@code FetchPlan} instance, which fetches no association.
+     *
+     * @return Returns the instance.
+     */
+    public static FetchPlan newPlan() {
+        return EMPTY_PLAN;
+    }
+
+    private final List<String> joinPaths;
+
+    private final List<String> batchPaths;
+
+    private FetchPlan(final List<String> joinPathsParam, final List<String> batchPathsParam) {
+        joinPaths = joinPathsParam;
+        batchPaths = batchPathsParam;
+    }
+
+    /**
+     * Returns a copy of this plan which also fetches the specified
+     * associations by joins.  An association which was to be batched is
+     * joined instead.
+     *
+     * @param pathsParam The paths of the associations.  Must not be blank.
+     * @return The new plan.
+     */
+    public FetchPlan join(final String... pathsParam) {
+        final List<String> newJoinPaths = new ArrayList<String>(joinPaths);
+        final List<String> newBatchPaths = new ArrayList<String>(batchPaths);
+        add(pathsParam, newJoinPaths, newBatchPaths);
+        return new FetchPlan(newJoinPaths, newBatchPaths);
+    }
+
+    /**
+     * Returns a copy of this plan which also fetches the specified
+     * associations by batches.  An association which was to be joined is
+     * batched instead.
+     *
+     * @param pathsParam The paths of the associations.  Must not be blank.
+     * @return The new plan.
+     */
+    public FetchPlan batch(final String... pathsParam) {
+        final List<String> newJoinPaths = new ArrayList<String>(joinPaths);
+        final List<String> newBatchPaths = new ArrayList<String>(batchPaths);
+        add(pathsParam, newBatchPaths, newJoinPaths);
+        return new FetchPlan(newJoinPaths, newBatchPaths);
+    }
+
+    private static void add(final String[] pathsParam, final List<String> toParam, final List<String> fromParam) {
+        PARAM_REQ.Object.requireNotNull(pathsParam);
+        for (final String current : pathsParam) {
+            PARAM_REQ.String.requireNotBlank(current, "The path of an association must not be blank.");
+        }
+        for (final String current : pathsParam) {
+            fromParam.remove(current);
+            if (!toParam.contains(current)) {
+                toParam.add(current);
+            }
+        }
+    }
+
+    /**
+     * Returns the paths of the associations fetched by joins.
+     *
+     * @return The paths, in the order they were added.
+     */
+    public List<String> getJoinPaths() {
+        return Collections.unmodifiableList(joinPaths);
+    }
+
+    /**
+     * Returns the paths of the associations fetched by batches.
+     *
+     * @return The paths, in the order they were added.
+     */
+    public List<String> getBatchPaths() {
+        return Collections.unmodifiableList(batchPaths);
+    }
+
+    /**
+     * Tells whether this plan fetches no association.
+     *
+     * @return {@code true} if no association is fetched.
+     */
+    public boolean isEmpty() {
+        return joinPaths.isEmpty() && batchPaths.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "FetchPlan[join=" + joinPaths + ",batch=" + batchPaths + "]";
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+/**
+ * The ways a repository may flush pending changes before running a query.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public enum FlushPolicy {
+    /**
+     * The session is flushed before every query, so every pending change is
+     * seen.  The whole persistence context is dirty-checked with each query.
+     */
+    ALWAYS,
+    /**
+     * The session is flushed only if it holds pending changes to the tables
+     * of the queried class or its subclasses; otherwise the query runs without
+     * flushing.  Where the persistence provider cannot tell, the query runs in
+     * its automatic flush mode.
+     */
+    AUTO,
+    /**
+     * The session is not flushed before queries: pending changes are not seen
+     * until the session is flushed by other means.
+     */
+    NEVER
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+/**
+ * Count-Min sketch estimating how often keys were accessed, used by
+ * {@link BoundedCache} to decide which of two entries is worth keeping.
+ * <p>
+ * Each key is counted in four 4-bit counters, packed sixteen per
+ * {@code long}, and its frequency is the smallest of them.  When the amount
+ * of increments reaches ten times the width of the table, every counter is
+ * halved, so the frequencies of keys which are no longer accessed decay.
+ * </p>
+ * <p>
+ * Not thread safe.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+final class FrequencySketch {
+
+    private static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAXIMUM_FREQUENCY = 15;
+    private static final int MAXIMUM_WIDTH = 1 << 24;
+
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int size;
+
+    FrequencySketch() {
+        ensureCapacity(16);
+    }
+
+    /**
+     * Widens the table if it is too narrow for the specified amount of keys.
+     * The counts are lost when the table is widened.
+     *
+     * @param capacityParam The amount of keys to count.
+     */
+    void ensureCapacity(final long capacityParam) {
+        final int width = (int) Math.min(MAXIMUM_WIDTH, Math.max(16L, capacityParam));
+        if (table != null && table.length >= width) {
+            return;
+        }
+        table = new long[Integer.highestOneBit(width - 1) << 1];
+        tableMask = table.length - 1;
+        sampleSize = 10 * table.length;
+        size = 0;
+    }
+
+    /**
+     * Returns the estimated amount of accesses to the specified key.
+     *
+     * @param keyParam The key.
+     * @return The frequency, between 0 and 15.
+     */
+    int frequency(final Object keyParam) {
+        final int hash = spread(keyParam.hashCode());
+        final int start = (hash & 3) << 2;
+        int frequency = MAXIMUM_FREQUENCY;
+        for (int i = 0; i < 4; i++) {
+            final int count = (int) ((table[indexOf(hash, i)] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Counts an access to the specified key.
+     *
+     * @param keyParam The key.
+     */
+    void increment(final Object keyParam) {
+        final int hash = spread(keyParam.hashCode());
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(final int indexParam, final int counterParam) {
+        final int offset = counterParam << 2;
+        final long mask = 0xfL << offset;
+        if ((table[indexParam] & mask) != mask) {
+            table[indexParam] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Halves every counter.
+     */
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (odd >>> 2);
+    }
+
+    private int indexOf(final int hashParam, final int depthParam) {
+        long hash = (hashParam + SEED[depthParam]) * SEED[depthParam];
+        hash += hash >>> 32;
+        return ((int) hash) & tableMask;
+    }
+
+    private static int spread(final int hashParam) {
+        int x = ((hashParam >>> 16) ^ hashParam) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
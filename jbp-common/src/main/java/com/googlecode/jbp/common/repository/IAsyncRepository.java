@@ -0,0 +1,118 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Asynchronous counterpart of {@link IRepository}.  Every operation runs as a
+ * task in its own unit of work and returns immediately; the returned future
+ * completes with the result of the operation, or exceptionally with the
+ * exception it threw.  Independent operations thus run concurrently.  The
+ * returned entities are detached.
+ *
+ * @param <ID>          The class of the entity's identifier.
+ * @param <DomainModel> The class of the entity's domain model.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ * @see IRepositoryScope
+ */
+public interface IAsyncRepository<ID extends Serializable, DomainModel extends IIdentifiable<ID>> {
+
+    /**
+     * Runs the specified work in one unit of work, so several operations may
+     * share a transaction.
+     *
+     * @param workParam The work.  Must not be {@code null}.
+     * @param <R>       The class of the result of the work.
+     * @return Returns the future result of the work.
+     */
+    <R> CompletableFuture<R> execute(Function<IRepository<ID, DomainModel>, R> workParam);
+
+    /**
+     * @see IRepository#create(IIdentifiable)
+     */
+    CompletableFuture<DomainModel> create(DomainModel entity);
+
+    /**
+     * @see IRepository#create(java.util.Collection)
+     */
+    CompletableFuture<BatchReport> create(Collection<DomainModel> entities);
+
+    /**
+     * @see IRepository#retrieveAll()
+     */
+    CompletableFuture<List<DomainModel>> retrieveAll();
+
+    /**
+     * @see IRepository#retrieveAll(Page)
+     */
+    CompletableFuture<List<DomainModel>> retrieveAll(Page pageParam);
+
+    /**
+     * @see IRepository#retrievePage(Page, CountMode)
+     */
+    CompletableFuture<ResultHolder<ID, DomainModel>> retrievePage(Page pageParam, CountMode countModeParam);
+
+    /**
+     * @see IRepository#retrieveById(java.io.Serializable)
+     */
+    CompletableFuture<DomainModel> retrieveById(ID id);
+
+    /**
+     * @see IRepository#retrieveMapByIds(java.util.Collection)
+     */
+    CompletableFuture<Map<ID, DomainModel>> retrieveMapByIds(Collection<ID> ids);
+
+    /**
+     * @see IRepository#exists(java.io.Serializable)
+     */
+    CompletableFuture<Boolean> exists(ID id);
+
+    /**
+     * @see IRepository#update(IIdentifiable)
+     */
+    CompletableFuture<Void> update(DomainModel t);
+
+    /**
+     * @see IRepository#update(java.util.Collection)
+     */
+    CompletableFuture<Void> update(Collection<DomainModel> entities);
+
+    /**
+     * @see IRepository#delete(IIdentifiable)
+     */
+    CompletableFuture<Void> delete(DomainModel t);
+
+    /**
+     * @see IRepository#delete(java.io.Serializable)
+     */
+    CompletableFuture<Void> delete(ID id);
+
+    /**
+     * @see IRepository#delete(java.util.Collection)
+     */
+    CompletableFuture<Void> delete(Collection<DomainModel> t);
+
+    /**
+     * @see IRepository#deleteAll()
+     */
+    CompletableFuture<Integer> deleteAll();
+}
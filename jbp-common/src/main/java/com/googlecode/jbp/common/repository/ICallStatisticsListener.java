@@ -0,0 +1,33 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+/**
+ * Listener notified of the statements executed by each call to a
+ * {@link StatementCountingRepository}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public interface ICallStatisticsListener {
+
+    /**
+     * Called after each repository call, on the calling thread, whether the
+     * call succeeded or not.
+     *
+     * @param callStatisticsParam The statements executed by the call.
+     */
+    void onCall(CallStatistics callStatisticsParam);
+}
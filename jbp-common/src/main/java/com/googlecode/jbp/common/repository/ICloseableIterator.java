@@ -0,0 +1,38 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * An iterator over results that are read from the data base while iterating,
+ * instead of being loaded all at once.  The iterator holds data base resources,
+ * such as a cursor, and must always be closed, even if it was not iterated
+ * until its end.  It is closed automatically once its last element has been
+ * returned.
+ *
+ * @param <T> The type of the iterated elements.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public interface ICloseableIterator<T> extends Iterator<T>, Closeable {
+
+    /**
+     * Releases the data base resources held by this iterator.  Calling this
+     * method more than once has no effect.
+     */
+    void close();
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+/**
+ * Copies entities, so that a cached entity is never shared with the session
+ * which loaded it, nor, when hits return copies, by several callers.
+ *
+ * @param <T> The class of the copied entities.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public interface IEntityCopier<T> {
+
+    /**
+     * Returns a copy of the specified entity, which shares no mutable state
+     * with it.
+     *
+     * @param entityParam The entity.  Never {@code null}.
+     * @return The copy.
+     */
+    T copy(T entityParam);
+}
@@ -18,20 +18,60 @@ package com.googlecode.jbp.common.repository;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Yannick LOTH   - yannick AT littlej.biz -
  */
 public interface IGenericRepository {
+
+    /**
+     * The default amount of rows fetched from the data base at once by iterators.
+     */
+    int DEFAULT_FETCH_SIZE = 100;
+
+    /**
+     * The default amount of entities processed per chunk by bulk operations.
+     */
+    int DEFAULT_BATCH_SIZE = 50;
+
+    /**
+     * The default maximum amount of identifiers in the {@code IN} clause of
+     * one query.
+     */
+    int DEFAULT_IN_CLAUSE_SIZE = 500;
+
+    /**
+     * The alias of the entity in the conditions passed to the repository, e.g.
+     * {@code e.name = :name}.
+     */
+    String ENTITY_ALIAS = "e";
+
     <ID extends Serializable, DomainModel extends IIdentifiable<ID>> DomainModel create(DomainModel entity);
 
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> BatchReport create(Collection<DomainModel> entities);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> BatchReport create(Collection<DomainModel> entities, int batchSizeParam);
+
     <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void delete(Collection<DomainModel> entities);
 
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> BatchReport delete(Collection<DomainModel> entities, int batchSizeParam);
+
     <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void delete(DomainModel entity);
 
     <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void delete(ID id, Class<DomainModel> persistentClassParam);
 
-    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void deleteAll(Class<DomainModel> persistentClassParam);
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteAll(Class<DomainModel> persistentClassParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteAll(Class<DomainModel> persistentClassParam, DeleteMode modeParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteAll(Class<DomainModel> persistentClassParam, DeleteMode modeParam, int chunkSizeParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteWhere(Class<DomainModel> persistentClassParam, String conditionParam, Map<String, ?> parametersParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteWhere(Class<DomainModel> persistentClassParam, String conditionParam, Map<String, ?> parametersParam, DeleteMode modeParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteWhere(Class<DomainModel> persistentClassParam, String conditionParam, Map<String, ?> parametersParam, DeleteMode modeParam, int chunkSizeParam);
 
     <ID extends Serializable, DomainModel extends IIdentifiable<ID>> boolean exists(DomainModel entity);
 
@@ -39,12 +79,50 @@ public interface IGenericRepository {
 
     void flush();
 
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ICloseableIterator<DomainModel> iterateAll(Class<DomainModel> persistentClassParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ICloseableIterator<DomainModel> iterateAll(Class<DomainModel> persistentClassParam, int fetchSizeParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ICloseableIterator<DomainModel> iterateAll(Class<DomainModel> persistentClassParam, int fetchSizeParam, QueryOptions optionsParam);
+
     <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(Class<DomainModel> persistentClassParam);
 
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(Class<DomainModel> persistentClassParam, QueryOptions optionsParam);
+
     <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(Class<DomainModel> persistentClassParam, Page pageParam);
 
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(Class<DomainModel> persistentClassParam, Page pageParam, QueryOptions optionsParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> retrievePage(Class<DomainModel> persistentClassParam, Page pageParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> retrievePage(Class<DomainModel> persistentClassParam, Page pageParam, CountMode countModeParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> retrievePage(Class<DomainModel> persistentClassParam, Page pageParam, CountMode countModeParam, QueryOptions optionsParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Slice<ID, DomainModel> retrieveSlice(Class<DomainModel> persistentClassParam, Page pageParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Slice<ID, DomainModel> retrieveSlice(Class<DomainModel> persistentClassParam, Page pageParam, QueryOptions optionsParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(Class<DomainModel> persistentClassParam, Projection<R> projectionParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(Class<DomainModel> persistentClassParam, Projection<R> projectionParam, QueryOptions optionsParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(Class<DomainModel> persistentClassParam, Projection<R> projectionParam, Page pageParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(Class<DomainModel> persistentClassParam, Projection<R> projectionParam, Page pageParam, QueryOptions optionsParam);
+
     <ID extends Serializable, DomainModel extends IIdentifiable<ID>> DomainModel retrieveById(Class<DomainModel> persistentClassParam, ID id);
 
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> DomainModel retrieveById(Class<DomainModel> persistentClassParam, ID id, QueryOptions optionsParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveByIds(Class<DomainModel> persistentClassParam, Collection<ID> ids);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(Class<DomainModel> persistentClassParam, Collection<ID> ids);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(Class<DomainModel> persistentClassParam, Collection<ID> ids, int chunkSizeParam);
+
+    <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(Class<DomainModel> persistentClassParam, Collection<ID> ids, QueryOptions optionsParam);
+
     <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void update(Collection<DomainModel> entities);
 
     <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void update(DomainModel entity);
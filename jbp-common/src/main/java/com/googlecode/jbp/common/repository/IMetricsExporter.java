@@ -0,0 +1,42 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+/**
+ * Exports the metrics of a {@link RepositoryMetrics} to a monitoring system.
+ * <p>
+ * Exporters read the metrics when the monitoring system asks for them, by
+ * {@link RepositoryMetrics#snapshot()}, so that recording them stays cheap.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public interface IMetricsExporter {
+
+    /**
+     * Starts exporting metrics.  Called when the exporter is added to the
+     * metrics.
+     *
+     * @param metricsParam The exported metrics.
+     */
+    void start(RepositoryMetrics metricsParam);
+
+    /**
+     * Stops exporting metrics.  Called when the exporter is removed from the
+     * metrics.
+     */
+    void stop();
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+/**
+ * Looks up the changes a persistence context holds and has not flushed yet,
+ * for a persistence provider.  Implementations are discovered with
+ * {@link java.util.ServiceLoader}, so a repository which only knows the
+ * standard API of the persistence context, e.g. JPA, can still avoid
+ * needless flushes.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public interface IPendingChangesLookup {
+
+    /**
+     * Tells whether the specified persistence context holds pending changes
+     * to the tables of the specified entity class or its subclasses.
+     *
+     * @param persistenceContextParam The persistence context of the provider,
+     *                                e.g. the delegate of an entity manager.
+     *                                Never {@code null}.
+     * @param persistentClassParam    The queried class.  Never {@code null}.
+     * @return {@code true} or {@code false}, or {@code null} if the
+     *         persistence context does not belong to the provider.
+     */
+    Boolean exist(Object persistenceContextParam, Class<?> persistentClassParam);
+}
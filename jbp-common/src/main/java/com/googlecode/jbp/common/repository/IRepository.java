@@ -18,6 +18,7 @@ package com.googlecode.jbp.common.repository;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface with common data access methods.
@@ -38,6 +39,34 @@ public interface IRepository<ID extends Serializable, DomainModel extends IIdent
      */
     DomainModel create(DomainModel entity);
 
+    /**
+     * Persists the given entities in chunks.  After each chunk, the
+     * persistence context is flushed and the entities of the chunk are
+     * detached, so it does not grow with the amount of entities and the
+     * inserts of a chunk may be grouped in JDBC batches (if the persistence
+     * provider is configured for it).  The other entities of the persistence
+     * context stay managed.
+     *
+     * @param entities The entities that must be persisted.  Must not be
+     *                 {@code null}.
+     * @return Returns the amount of persisted entities and the timing of each
+     *         chunk.
+     */
+    BatchReport create(Collection<DomainModel> entities);
+
+    /**
+     * Persists the given entities in chunks of the specified size.
+     *
+     * @param entities       The entities that must be persisted.  Must not be
+     *                       {@code null}.
+     * @param batchSizeParam The amount of entities per chunk.  Must be strictly
+     *                       positive.
+     * @return Returns the amount of persisted entities and the timing of each
+     *         chunk.
+     * @see #create(java.util.Collection)
+     */
+    BatchReport create(Collection<DomainModel> entities, int batchSizeParam);
+
     /**
      * Retrieves all persisted entities.
      *
@@ -46,6 +75,54 @@ public interface IRepository<ID extends Serializable, DomainModel extends IIdent
      */
     List<DomainModel> retrieveAll();
 
+    /**
+     * Retrieves all persisted entities with the specified options: the flush
+     * policy and read mode of the options replace the repository's, and the
+     * associations of their fetch plan are loaded together with the entities.
+     *
+     * @param optionsParam The options of this call.  Must not be
+     *                     {@code null}.
+     * @return Returns a {@code java.util.List} with all persisted entities.
+     */
+    List<DomainModel> retrieveAll(final QueryOptions optionsParam);
+
+    /**
+     * Iterates over all persisted entities without loading them all at once.
+     * Entities are read from the data base in chunks while iterating and are
+     * detached from the persistence context once the iterator has moved past
+     * them, so memory consumption does not depend on the amount of entities.
+     * Changes made to an entity are thus lost if they are not flushed before
+     * moving to the next one.  The returned iterator must be closed.
+     *
+     * @return Returns an iterator over all persisted entities.
+     */
+    ICloseableIterator<DomainModel> iterateAll();
+
+    /**
+     * Iterates over all persisted entities without loading them all at once.
+     *
+     * @param fetchSizeParam The amount of rows fetched from the data base at
+     *                       once.  Must be strictly positive.
+     * @return Returns an iterator over all persisted entities.
+     * @see #iterateAll()
+     */
+    ICloseableIterator<DomainModel> iterateAll(final int fetchSizeParam);
+
+    /**
+     * Iterates over all persisted entities without loading them all at once,
+     * with the specified options.  The associations of the fetch plan are
+     * loaded with each chunk; an implementation which cannot load collections
+     * while streaming rejects a plan which contains some.
+     *
+     * @param fetchSizeParam The amount of rows fetched from the data base at
+     *                       once.  Must be strictly positive.
+     * @param optionsParam   The options of this call.  Must not be
+     *                       {@code null}.
+     * @return Returns an iterator over all persisted entities.
+     * @see #iterateAll()
+     */
+    ICloseableIterator<DomainModel> iterateAll(final int fetchSizeParam, final QueryOptions optionsParam);
+
     /**
      * Retrieves an entity using its identifier.
      *
@@ -54,6 +131,61 @@ public interface IRepository<ID extends Serializable, DomainModel extends IIdent
      */
     DomainModel retrieveById(ID id);
 
+    /**
+     * Retrieves an entity using its identifier, loaded in the read mode of the
+     * specified options, together with the associations of their fetch plan.
+     * Loading by identifier does not flush, whatever the flush policy.  If the
+     * entity is already in the persistence context, that instance is returned
+     * in the mode it was loaded in: a {@link ReadMode#READ_ONLY} call may then
+     * return a modifiable entity.
+     *
+     * @param id           The identifier.
+     * @param optionsParam The options of this call.  Must not be
+     *                     {@code null}.
+     * @return The entity with the given identifier.
+     */
+    DomainModel retrieveById(ID id, QueryOptions optionsParam);
+
+    /**
+     * Retrieves the entities with the specified identifiers.  Entities already
+     * in the persistence context are not queried again; the other ones are
+     * retrieved with {@code IN} queries of at most
+     * {@link IGenericRepository#DEFAULT_IN_CLAUSE_SIZE} identifiers.
+     *
+     * @param ids The identifiers.  Must not be {@code null}, nor contain
+     *            {@code null}.
+     * @return Returns the entities, in the order of the identifiers.  Unknown
+     *         identifiers are skipped and duplicate ones are returned once.
+     */
+    List<DomainModel> retrieveByIds(Collection<ID> ids);
+
+    /**
+     * Retrieves the entities with the specified identifiers.
+     *
+     * @param ids The identifiers.  Must not be {@code null}, nor contain
+     *            {@code null}.
+     * @return Returns the entities by identifier, in the order of the
+     *         identifiers.  Unknown identifiers are not mapped.
+     * @see #retrieveByIds(java.util.Collection)
+     */
+    Map<ID, DomainModel> retrieveMapByIds(Collection<ID> ids);
+
+    /**
+     * Retrieves the entities with the specified identifiers, loaded in the
+     * read mode of the specified options, together with the associations of
+     * their fetch plan.  As {@link #retrieveById(java.io.Serializable, QueryOptions)},
+     * it does not flush and returns the entities already in the persistence
+     * context in their own mode.
+     *
+     * @param ids          The identifiers.  Must not be {@code null}, nor
+     *                     contain {@code null}.
+     * @param optionsParam The options of this call.  Must not be
+     *                     {@code null}.
+     * @return Returns the entities by identifier, in the order of the
+     *         identifiers.  Unknown identifiers are not mapped.
+     */
+    Map<ID, DomainModel> retrieveMapByIds(Collection<ID> ids, QueryOptions optionsParam);
+
     /**
      * Retrieves persisted entities from the specified page.
      *
@@ -62,6 +194,141 @@ public interface IRepository<ID extends Serializable, DomainModel extends IIdent
      */
     List<DomainModel> retrieveAll(final Page pageParam);
 
+    /**
+     * Retrieves persisted entities from the specified page with the specified
+     * options.  Collections of the fetch plan are batched instead of joined,
+     * as joining them would break the paging.
+     *
+     * @param pageParam    The page.  Must not be {@code null}.
+     * @param optionsParam The options of this call.  Must not be
+     *                     {@code null}.
+     * @return Returns a {@code java.util.List} with persisted entities
+     *         from the specified page.
+     * @see #retrieveAll(QueryOptions)
+     */
+    List<DomainModel> retrieveAll(final Page pageParam, final QueryOptions optionsParam);
+
+    /**
+     * Retrieves persisted entities from the specified page, together with the
+     * total amount of persisted entities.  The count is exact.
+     *
+     * @param pageParam The page.  Must not be {@code null}.
+     * @return Returns the entities of the page and the total amount of
+     *         entities.
+     */
+    ResultHolder<ID, DomainModel> retrievePage(final Page pageParam);
+
+    /**
+     * Retrieves persisted entities from the specified page, together with the
+     * total amount of persisted entities, counted in the specified mode.
+     *
+     * @param pageParam      The page.  Must not be {@code null}.
+     * @param countModeParam The way the entities are counted.  Must not be
+     *                       {@code null}.
+     * @return Returns the entities of the page and the total amount of
+     *         entities.
+     */
+    ResultHolder<ID, DomainModel> retrievePage(final Page pageParam, final CountMode countModeParam);
+
+    /**
+     * Retrieves persisted entities from the specified page with the specified
+     * options, together with the total amount of persisted entities, counted
+     * in the specified mode.  The flush policy applies to the count too.
+     * Collections of the fetch plan are batched instead of joined.
+     *
+     * @param pageParam      The page.  Must not be {@code null}.
+     * @param countModeParam The way the entities are counted.  Must not be
+     *                       {@code null}.
+     * @param optionsParam   The options of this call.  Must not be
+     *                       {@code null}.
+     * @return Returns the entities of the page and the total amount of
+     *         entities.
+     */
+    ResultHolder<ID, DomainModel> retrievePage(final Page pageParam, final CountMode countModeParam, final QueryOptions optionsParam);
+
+    /**
+     * Retrieves persisted entities from the specified page, together with the
+     * page that follows.  With a keyset page, walking through all entities by
+     * passing back the next page costs the same for every page.
+     *
+     * @param pageParam The page.  Must not be {@code null}.  Its maximum amount
+     *                  of results must be strictly positive.
+     * @return Returns the entities of the page and the page that follows.
+     */
+    Slice<ID, DomainModel> retrieveSlice(final Page pageParam);
+
+    /**
+     * Retrieves persisted entities from the specified page with the specified
+     * options, together with the page that follows.  Collections of the fetch
+     * plan are batched instead of joined.
+     *
+     * @param pageParam    The page.  Must not be {@code null}.  Its maximum
+     *                     amount of results must be strictly positive.
+     * @param optionsParam The options of this call.  Must not be
+     *                     {@code null}.
+     * @return Returns the entities of the page and the page that follows.
+     * @see #retrieveSlice(Page)
+     */
+    Slice<ID, DomainModel> retrieveSlice(final Page pageParam, final QueryOptions optionsParam);
+
+    /**
+     * Retrieves the values of some attributes of all persisted entities,
+     * without loading the entities.  Only the columns of the attributes are
+     * selected and nothing is added to the persistence context.
+     *
+     * @param projectionParam The attributes and the type of the rows.  Must not
+     *                        be {@code null}.
+     * @param <R>             The class of the rows.
+     * @return Returns a row per entity.
+     */
+    <R> List<R> retrieveProjection(final Projection<R> projectionParam);
+
+    /**
+     * Retrieves the values of some attributes of all persisted entities with
+     * the specified options.  As no entity is loaded, only the flush policy of
+     * the options applies.
+     *
+     * @param projectionParam The attributes and the type of the rows.  Must not
+     *                        be {@code null}.
+     * @param optionsParam    The options of this call.  Must not be
+     *                        {@code null}.
+     * @param <R>             The class of the rows.
+     * @return Returns a row per entity.
+     * @see #retrieveProjection(Projection)
+     */
+    <R> List<R> retrieveProjection(final Projection<R> projectionParam, final QueryOptions optionsParam);
+
+    /**
+     * Retrieves the values of some attributes of the persisted entities from
+     * the specified page, without loading the entities.
+     *
+     * @param projectionParam The attributes and the type of the rows.  Must not
+     *                        be {@code null}.
+     * @param pageParam       The page.  Must not be {@code null}.  In keyset
+     *                        mode, the key property does not need to be
+     *                        projected.
+     * @param <R>             The class of the rows.
+     * @return Returns a row per entity of the page.
+     * @see #retrieveProjection(Projection)
+     */
+    <R> List<R> retrieveProjection(final Projection<R> projectionParam, final Page pageParam);
+
+    /**
+     * Retrieves the values of some attributes of the persisted entities from
+     * the specified page with the specified options.  As no entity is loaded,
+     * only the flush policy of the options applies.
+     *
+     * @param projectionParam The attributes and the type of the rows.  Must not
+     *                        be {@code null}.
+     * @param pageParam       The page.  Must not be {@code null}.
+     * @param optionsParam    The options of this call.  Must not be
+     *                        {@code null}.
+     * @param <R>             The class of the rows.
+     * @return Returns a row per entity of the page.
+     * @see #retrieveProjection(Projection, Page)
+     */
+    <R> List<R> retrieveProjection(final Projection<R> projectionParam, final Page pageParam, final QueryOptions optionsParam);
+
     /**
      * Checks for the existence of the specified entity.
      *
@@ -110,15 +377,105 @@ public interface IRepository<ID extends Serializable, DomainModel extends IIdent
     void delete(ID id);
 
     /**
-     * Deletes the specified entities.
+     * Deletes the specified entities.  The deletions are flushed in chunks of
+     * {@link IGenericRepository#DEFAULT_BATCH_SIZE} entities.
      *
      * @param t A {@code java.util.Collection} with all entities which
      *          must be deleted.
+     * @see #delete(java.util.Collection, int)
      */
     void delete(Collection<DomainModel> t);
 
     /**
-     * Deletes all persisted entities.
+     * Deletes the specified entities in chunks.  Detached entities are not
+     * merged: the instance already associated with the persistence context, or
+     * else the entity itself or a reference to its identifier, is removed.  The
+     * removals are flushed once per chunk, so the deletes of a chunk may be
+     * grouped in JDBC batches (if the persistence provider is configured for
+     * it).
+     *
+     * @param entities       The entities which must be deleted.  Must not be
+     *                       {@code null}.
+     * @param batchSizeParam The amount of entities per chunk.  Must be strictly
+     *                       positive.
+     * @return Returns the amount of deleted entities and the timing of each
+     *         chunk.
+     */
+    BatchReport delete(Collection<DomainModel> entities, int batchSizeParam);
+
+    /**
+     * Deletes all persisted entities with a single set-based statement.
+     * Cascades are not applied.
+     *
+     * @return Returns the amount of deleted entities.
+     * @see DeleteMode#BULK
+     */
+    int deleteAll();
+
+    /**
+     * Deletes all persisted entities in the specified mode.  Cascading
+     * deletes load {@link IGenericRepository#DEFAULT_BATCH_SIZE} entities per
+     * chunk.
+     *
+     * @param modeParam The delete mode.  Must not be {@code null}.
+     * @return Returns the amount of deleted entities.
+     * @see #deleteAll(DeleteMode, int)
+     */
+    int deleteAll(DeleteMode modeParam);
+
+    /**
+     * Deletes all persisted entities in the specified mode.
+     *
+     * @param modeParam      The delete mode.  Must not be {@code null}.
+     * @param chunkSizeParam The amount of entities loaded and removed per
+     *                       chunk by a {@link DeleteMode#CASCADING} delete.
+     *                       Ignored by a bulk delete.  Must be strictly
+     *                       positive.
+     * @return Returns the amount of deleted entities.
+     */
+    int deleteAll(DeleteMode modeParam, int chunkSizeParam);
+
+    /**
+     * Deletes all persisted entities which match the specified condition with
+     * a single set-based statement.  Cascades are not applied.
+     *
+     * @param conditionParam  The condition, in the query language of the
+     *                        implementation (HQL or JPQL).  The entity is aliased
+     *                        {@link IGenericRepository#ENTITY_ALIAS}, e.g.
+     *                        {@code e.status = :status}.  Must not be blank.
+     * @param parametersParam The values of the named parameters of the
+     *                        condition.  Must not be {@code null}.
+     * @return Returns the amount of deleted entities.
+     */
+    int deleteWhere(String conditionParam, Map<String, ?> parametersParam);
+
+    /**
+     * Deletes all persisted entities which match the specified condition in the
+     * specified mode.  Cascading deletes load
+     * {@link IGenericRepository#DEFAULT_BATCH_SIZE} entities per chunk.
+     *
+     * @param conditionParam  The condition.  Must not be blank.
+     * @param parametersParam The values of the named parameters of the
+     *                        condition.  Must not be {@code null}.
+     * @param modeParam       The delete mode.  Must not be {@code null}.
+     * @return Returns the amount of deleted entities.
+     * @see #deleteWhere(String, java.util.Map)
+     */
+    int deleteWhere(String conditionParam, Map<String, ?> parametersParam, DeleteMode modeParam);
+
+    /**
+     * Deletes all persisted entities which match the specified condition in the
+     * specified mode.
+     *
+     * @param conditionParam  The condition.  Must not be blank.
+     * @param parametersParam The values of the named parameters of the
+     *                        condition.  Must not be {@code null}.
+     * @param modeParam       The delete mode.  Must not be {@code null}.
+     * @param chunkSizeParam  The amount of entities loaded and removed per
+     *                        chunk by a {@link DeleteMode#CASCADING} delete.
+     *                        Ignored by a bulk delete.  Must be strictly
+     *                        positive.
+     * @return Returns the amount of deleted entities.
      */
-    void deleteAll();
+    int deleteWhere(String conditionParam, Map<String, ?> parametersParam, DeleteMode modeParam, int chunkSizeParam);
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.function.Function;
+
+/**
+ * Runs work with a repository bound to its own unit of work: a session or
+ * entity manager opened for the work, and a transaction committed when the
+ * work completes or rolled back when it fails.  Units of work run by
+ * different threads are independent, so they may run concurrently.
+ *
+ * @param <ID>          The class of the entity's identifier.
+ * @param <DomainModel> The class of the entity's domain model.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public interface IRepositoryScope<ID extends Serializable, DomainModel extends IIdentifiable<ID>> {
+
+    /**
+     * Runs the specified work in a new unit of work.  The entities it returns
+     * are detached once the unit of work is over.
+     *
+     * @param workParam The work.  Must not be {@code null}.
+     * @param <R>       The class of the result of the work.
+     * @return Returns the result of the work.
+     */
+    <R> R execute(Function<IRepository<ID, DomainModel>, R> workParam);
+}
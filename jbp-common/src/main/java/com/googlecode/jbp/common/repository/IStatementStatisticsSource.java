@@ -0,0 +1,33 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+/**
+ * Source of the statistics of the statements a persistence provider executed,
+ * e.g. the statistics of a Hibernate session factory.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public interface IStatementStatisticsSource {
+
+    /**
+     * Returns the statistics of all statements executed so far.  Repository
+     * calls are measured by the difference between two snapshots.
+     *
+     * @return The current statistics.
+     */
+    StatementStatistics snapshot();
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+/**
+ * Runs actions once the transaction of the current thread is over, e.g. to
+ * invalidate cached entities after the changes of the transaction are
+ * visible to other transactions.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public interface ITransactionHooks {
+
+    /**
+     * Hooks which run actions immediately, for repositories whose writes are
+     * visible as soon as they return.
+     */
+    ITransactionHooks IMMEDIATE = new ITransactionHooks() {
+        public void afterCompletion(final Runnable actionParam) {
+            actionParam.run();
+        }
+    };
+
+    /**
+     * Runs the specified action once the transaction of the current thread is
+     * committed or rolled back, or immediately if no transaction is active.
+     *
+     * @param actionParam The action.  Must not be {@code null}.
+     */
+    void afterCompletion(Runnable actionParam);
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+/**
+ * Computes the weight of a cached entity, i.e. the part of the cache's
+ * capacity the entity uses.
+ *
+ * @param <T> The class of the weighed entities.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public interface IWeigher<T> {
+
+    /**
+     * Returns the weight of the specified entity.
+     *
+     * @param entityParam The entity.  Never {@code null}.
+     * @return The weight of the entity.  Must be zero or positive.
+     */
+    int weigh(T entityParam);
+}
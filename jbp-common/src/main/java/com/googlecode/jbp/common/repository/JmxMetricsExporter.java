@@ -0,0 +1,225 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.InvalidAttributeValueException;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Exporter which registers the metrics as an MBean named
+ * {@code com.googlecode.jbp:type=RepositoryMetrics,name=<name of the metrics>}.
+ * <p>
+ * The MBean has one read-only attribute per operation and statistic, named
+ * {@code <entity>.<operation>.<statistic>}, where the statistics are the
+ * amounts of calls, errors and rows, and the mean, 50th, 90th, 99th, 99.9th
+ * percentile and maximum latencies, in microseconds.  Operations appear as
+ * they are first called.  The writable {@code Enabled} attribute enables or
+ * disables the metrics, and the {@code reset} operation forgets them.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class JmxMetricsExporter implements IMetricsExporter {
+
+    private static final String ENABLED = "Enabled";
+    private static final String RESET = "reset";
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private final MBeanServer server;
+    private ObjectName objectName;
+
+    /**
+     * Constructor.  The MBean is registered in the platform MBean server.
+     */
+    public JmxMetricsExporter() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param serverParam The MBean server to register the MBean in.  Must not
+     *                    be {@code null}.
+     */
+    public JmxMetricsExporter(final MBeanServer serverParam) {
+        PARAM_REQ.Object.requireNotNull(serverParam);
+        server = serverParam;
+    }
+
+    /**
+     * Returns the name of the registered MBean.
+     *
+     * @return The name, or {@code null} if the exporter is not started.
+     */
+    public synchronized ObjectName getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException If the MBean cannot be registered, e.g.
+     *                               because metrics of the same name are
+     *                               already exported.
+     */
+    public synchronized void start(final RepositoryMetrics metricsParam) {
+        if (objectName != null) {
+            throw new IllegalStateException("The exporter is already started.");
+        }
+        try {
+            final ObjectName name = new ObjectName("com.googlecode.jbp:type=RepositoryMetrics,name="
+                    + ObjectName.quote(metricsParam.getName()));
+            server.registerMBean(new MetricsMBean(metricsParam), name);
+            objectName = name;
+        } catch (final JMException e) {
+            throw new IllegalStateException("The metrics MBean cannot be registered.", e);
+        }
+    }
+
+    public synchronized void stop() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            server.unregisterMBean(objectName);
+        } catch (final JMException e) {
+            throw new IllegalStateException("The metrics MBean cannot be unregistered.", e);
+        } finally {
+            objectName = null;
+        }
+    }
+
+    private static Map<String, Object> attributes(final RepositoryMetrics metricsParam) {
+        final Map<String, Object> attributes = new LinkedHashMap<String, Object>();
+        for (final OperationStats operation : metricsParam.snapshot()) {
+            final String prefix = operation.getEntityName() + '.' + operation.getOperation() + '.';
+            final LatencySnapshot latency = operation.getLatency();
+            attributes.put(prefix + "calls", operation.getCallCount());
+            attributes.put(prefix + "errors", operation.getErrorCount());
+            attributes.put(prefix + "rows", operation.getRowCount());
+            attributes.put(prefix + "meanMicros", latency.getMeanNanos() / NANOS_PER_MICRO);
+            attributes.put(prefix + "p50Micros", latency.getValueAtPercentile(50.0) / NANOS_PER_MICRO);
+            attributes.put(prefix + "p90Micros", latency.getValueAtPercentile(90.0) / NANOS_PER_MICRO);
+            attributes.put(prefix + "p99Micros", latency.getValueAtPercentile(99.0) / NANOS_PER_MICRO);
+            attributes.put(prefix + "p999Micros", latency.getValueAtPercentile(99.9) / NANOS_PER_MICRO);
+            attributes.put(prefix + "maxMicros", latency.getMaxNanos() / NANOS_PER_MICRO);
+        }
+        return attributes;
+    }
+
+    /**
+     * The MBean, whose attributes are computed from a snapshot of the metrics
+     * at each request.
+     */
+    private static final class MetricsMBean implements DynamicMBean {
+
+        private final RepositoryMetrics metrics;
+
+        private MetricsMBean(final RepositoryMetrics metricsParam) {
+            metrics = metricsParam;
+        }
+
+        public Object getAttribute(final String attributeParam) throws AttributeNotFoundException {
+            if (ENABLED.equals(attributeParam)) {
+                return metrics.isEnabled();
+            }
+            final Object value = attributes(metrics).get(attributeParam);
+            if (value == null) {
+                throw new AttributeNotFoundException(attributeParam);
+            }
+            return value;
+        }
+
+        public void setAttribute(final Attribute attributeParam)
+                throws AttributeNotFoundException, InvalidAttributeValueException {
+            if (!ENABLED.equals(attributeParam.getName())) {
+                throw new AttributeNotFoundException(attributeParam.getName() + " is not writable.");
+            }
+            if (!(attributeParam.getValue() instanceof Boolean)) {
+                throw new InvalidAttributeValueException(ENABLED + " must be a boolean.");
+            }
+            metrics.setEnabled((Boolean) attributeParam.getValue());
+        }
+
+        public AttributeList getAttributes(final String[] attributesParam) {
+            final Map<String, Object> attributes = attributes(metrics);
+            final AttributeList list = new AttributeList();
+            for (final String name : attributesParam) {
+                if (ENABLED.equals(name)) {
+                    list.add(new Attribute(name, metrics.isEnabled()));
+                } else if (attributes.containsKey(name)) {
+                    list.add(new Attribute(name, attributes.get(name)));
+                }
+            }
+            return list;
+        }
+
+        public AttributeList setAttributes(final AttributeList attributesParam) {
+            final AttributeList set = new AttributeList();
+            for (final Attribute attribute : attributesParam.asList()) {
+                try {
+                    setAttribute(attribute);
+                    set.add(attribute);
+                } catch (final JMException e) {
+                    // Not set attributes are left out of the returned list.
+                }
+            }
+            return set;
+        }
+
+        public Object invoke(final String actionParam, final Object[] paramsParam, final String[] signatureParam)
+                throws ReflectionException {
+            if (!RESET.equals(actionParam)) {
+                throw new ReflectionException(new NoSuchMethodException(actionParam));
+            }
+            metrics.reset();
+            return null;
+        }
+
+        public MBeanInfo getMBeanInfo() {
+            final List<MBeanAttributeInfo> infos = new ArrayList<MBeanAttributeInfo>();
+            infos.add(new MBeanAttributeInfo(ENABLED, "boolean", "Whether the metrics are recorded.",
+                    true, true, true));
+            for (final Map.Entry<String, Object> attribute : attributes(metrics).entrySet()) {
+                infos.add(new MBeanAttributeInfo(attribute.getKey(), attribute.getValue().getClass().getName(),
+                        attribute.getKey(), true, false, false));
+            }
+            final MBeanOperationInfo reset = new MBeanOperationInfo(RESET, "Forgets the recorded metrics.",
+                    new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+            return new MBeanInfo(JmxMetricsExporter.class.getName(), "Metrics of the repository operations.",
+                    infos.toArray(new MBeanAttributeInfo[infos.size()]), null,
+                    new MBeanOperationInfo[]{reset}, null);
+        }
+    }
+}
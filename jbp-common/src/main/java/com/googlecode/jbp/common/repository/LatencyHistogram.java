@@ -0,0 +1,133 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations, in nanoseconds.
+ * <p>
+ * As in HdrHistogram, values are counted in buckets whose width grows with
+ * the magnitude of the values: every power of two is split into
+ * {@value #SUB_BUCKET_COUNT} buckets of the same width, so a recorded value
+ * is known within 1/{@value #SUB_BUCKET_COUNT} of its magnitude.  Values up
+ * to {@value #SUB_BUCKET_COUNT} are counted exactly, and values from
+ * 2<sup>{@value #MAX_EXPONENT}</sup> nanoseconds (about ten hours) in a
+ * single overflow bucket.  Recording a value increments one counter, and never
+ * blocks nor allocates.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The amount of buckets each power of two is split into.
+     */
+    public static final int SUB_BUCKET_COUNT = 64;
+
+    /**
+     * The exponent of the power of two from which values are counted in the
+     * overflow bucket.
+     */
+    public static final int MAX_EXPONENT = 45;
+
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKET_COUNT);
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanosParam The duration, in nanoseconds.  Negative durations,
+     *                   which a non-monotonic clock may yield, are recorded
+     *                   as 0.
+     */
+    public void record(final long nanosParam) {
+        final long nanos = Math.max(0L, nanosParam);
+        counts.incrementAndGet(bucketIndex(nanos));
+        totalCount.increment();
+        totalNanos.add(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Forgets the recorded durations.  Durations recorded concurrently may be
+     * partially forgotten.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0L);
+        }
+        totalCount.reset();
+        totalNanos.reset();
+        maxNanos.set(0L);
+    }
+
+    /**
+     * Copies the recorded durations.  Durations recorded concurrently may be
+     * missing from the copy, which is nonetheless consistent: its count is
+     * the sum of its buckets.
+     *
+     * @return The copy.
+     */
+    public LatencySnapshot snapshot() {
+        final long[] copy = new long[BUCKET_COUNT];
+        long count = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new LatencySnapshot(copy, count, totalNanos.sum(), maxNanos.get());
+    }
+
+    static int bucketIndex(final long nanosParam) {
+        if (nanosParam < SUB_BUCKET_COUNT) {
+            return (int) nanosParam;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(nanosParam);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        final int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKET_COUNT + (int) (nanosParam >>> shift) - SUB_BUCKET_COUNT;
+    }
+
+    /**
+     * Returns the highest value counted in a bucket.
+     */
+    static long highestValue(final int bucketIndexParam) {
+        if (bucketIndexParam < SUB_BUCKET_COUNT) {
+            return bucketIndexParam;
+        }
+        final int shift = bucketIndexParam / SUB_BUCKET_COUNT - 1;
+        final long subBucket = bucketIndexParam % SUB_BUCKET_COUNT;
+        return ((SUB_BUCKET_COUNT + subBucket + 1L) << shift) - 1L;
+    }
+}
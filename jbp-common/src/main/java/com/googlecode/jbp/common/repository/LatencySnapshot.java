@@ -0,0 +1,106 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Snapshot of a {@link LatencyHistogram}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class LatencySnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final long[] counts;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    LatencySnapshot(final long[] countsParam, final long countParam, final long totalNanosParam,
+                    final long maxNanosParam) {
+        counts = countsParam;
+        count = countParam;
+        totalNanos = totalNanosParam;
+        maxNanos = maxNanosParam;
+    }
+
+    /**
+     * Returns the amount of recorded durations.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the sum of the recorded durations, in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Returns the exact longest recorded duration, in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Returns the mean recorded duration.
+     *
+     * @return The mean, in nanoseconds, or 0 if no duration was recorded.
+     */
+    public double getMeanNanos() {
+        return count == 0L ? 0.0 : (double) totalNanos / count;
+    }
+
+    /**
+     * Returns the duration which the given percentage of the recorded
+     * durations do not exceed.
+     *
+     * @param percentileParam The percentage.  Must be between 0 and 100.
+     * @return The highest duration of the bucket of the percentile, capped
+     *         by the longest recorded duration, or the longest recorded
+     *         duration if the percentile is in the overflow bucket, in
+     *         nanoseconds, or 0 if no duration was recorded.
+     */
+    public long getValueAtPercentile(final double percentileParam) {
+        PARAM_REQ.Logic.requireTrue(percentileParam >= 0.0 && percentileParam <= 100.0,
+                "The percentile must be between 0 and 100.");
+        if (count == 0L) {
+            return 0L;
+        }
+        final long target = Math.max(1L, (long) Math.ceil(percentileParam / 100.0 * count));
+        long cumulated = 0L;
+        for (int i = 0; i < counts.length - 1; i++) {
+            cumulated += counts[i];
+            if (cumulated >= target) {
+                return Math.min(LatencyHistogram.highestValue(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySnapshot[count=" + count + ",meanNanos=" + (long) getMeanNanos()
+                + ",p50Nanos=" + getValueAtPercentile(50.0) + ",p99Nanos=" + getValueAtPercentile(99.0)
+                + ",maxNanos=" + maxNanos + "]";
+    }
+}
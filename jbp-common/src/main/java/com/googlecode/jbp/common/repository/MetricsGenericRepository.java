@@ -0,0 +1,60 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.util.function.Supplier;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Generic repository decorator which records the latency, calls, errors and
+ * rows of each operation in a {@link RepositoryMetrics}, under the simple
+ * name of the entity class of the operation.
+ * <p>
+ * Rows are counted as by {@link MetricsRepository}.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class MetricsGenericRepository extends AbstractInterceptingGenericRepository {
+
+    private final RepositoryMetrics metrics;
+
+    /**
+     * Constructor.
+     *
+     * @param delegateParam The decorated repository.  Must not be {@code null}.
+     * @param metricsParam  The metrics.  Must not be {@code null}.
+     */
+    public MetricsGenericRepository(final IGenericRepository delegateParam, final RepositoryMetrics metricsParam) {
+        super(delegateParam);
+        PARAM_REQ.Object.requireNotNull(metricsParam);
+        metrics = metricsParam;
+    }
+
+    public RepositoryMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    protected <R> R intercept(final Class<?> entityClassParam, final Page pageParam, final String operationParam,
+                              final Supplier<R> workParam) {
+        if (!metrics.isEnabled()) {
+            return workParam.get();
+        }
+        return metrics.record(RepositoryMetrics.entityName(entityClassParam), operationParam, workParam);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.function.Supplier;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Repository decorator which records the latency, calls, errors and rows of
+ * each operation in a {@link RepositoryMetrics}.
+ * <p>
+ * Rows are the entities a call returns or affects: the size of the returned
+ * list, map, page or slice, the count of a batch or bulk delete, and 1 for a
+ * single created or retrieved entity.  Failed calls count as calls and
+ * errors, and their latency is recorded too.
+ * </p>
+ *
+ * @param <ID>          The class of the entity's identifier.
+ * @param <DomainModel> The class of the entity's domain model.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class MetricsRepository<ID extends Serializable, DomainModel extends IIdentifiable<ID>>
+        extends AbstractInterceptingRepository<ID, DomainModel> {
+
+    private final RepositoryMetrics metrics;
+    private final String entityName;
+
+    /**
+     * Constructor.
+     *
+     * @param delegateParam    The decorated repository.  Must not be
+     *                         {@code null}.
+     * @param entityClassParam The class of the entities, whose simple name
+     *                         the metrics are recorded under.  Must not be
+     *                         {@code null}.
+     * @param metricsParam     The metrics.  Must not be {@code null}.
+     */
+    public MetricsRepository(final IRepository<ID, DomainModel> delegateParam,
+                             final Class<DomainModel> entityClassParam, final RepositoryMetrics metricsParam) {
+        super(delegateParam);
+        PARAM_REQ.Object.requireNotNull(entityClassParam);
+        PARAM_REQ.Object.requireNotNull(metricsParam);
+        metrics = metricsParam;
+        entityName = RepositoryMetrics.entityName(entityClassParam);
+    }
+
+    public RepositoryMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    protected <R> R intercept(final String operationParam, final Supplier<R> workParam) {
+        if (!metrics.isEnabled()) {
+            return workParam.get();
+        }
+        return metrics.record(entityName, operationParam, workParam);
+    }
+}
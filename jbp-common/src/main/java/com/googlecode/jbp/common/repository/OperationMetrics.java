@@ -0,0 +1,64 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and counters of one operation on one entity class.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+final class OperationMetrics {
+
+    private final String entityName;
+    private final String operation;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder callCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder rowCount = new LongAdder();
+
+    OperationMetrics(final String entityNameParam, final String operationParam) {
+        entityName = entityNameParam;
+        operation = operationParam;
+    }
+
+    void recordSuccess(final long nanosParam, final long rowsParam) {
+        latency.record(nanosParam);
+        callCount.increment();
+        if (rowsParam > 0L) {
+            rowCount.add(rowsParam);
+        }
+    }
+
+    void recordError(final long nanosParam) {
+        latency.record(nanosParam);
+        callCount.increment();
+        errorCount.increment();
+    }
+
+    void reset() {
+        latency.reset();
+        callCount.reset();
+        errorCount.reset();
+        rowCount.reset();
+    }
+
+    OperationStats snapshot() {
+        return new OperationStats(entityName, operation, callCount.sum(), errorCount.sum(), rowCount.sum(),
+                latency.snapshot());
+    }
+}
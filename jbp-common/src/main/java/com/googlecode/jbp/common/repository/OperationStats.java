@@ -0,0 +1,88 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the metrics of one operation on one entity class, recorded by
+ * a {@link RepositoryMetrics}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class OperationStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final String entityName;
+    private final String operation;
+    private final long callCount;
+    private final long errorCount;
+    private final long rowCount;
+    private final LatencySnapshot latency;
+
+    /**
+     * Constructor.
+     *
+     * @param entityNameParam The simple name of the entity class, or
+     *                        {@value RepositoryMetrics#ANY_ENTITY} for the
+     *                        operations on no particular entity class.
+     * @param operationParam  The name of the repository method.
+     * @param callCountParam  The amount of calls, failed ones included.
+     * @param errorCountParam The amount of calls which threw an exception.
+     * @param rowCountParam   The amount of entities or rows the successful
+     *                        calls returned or affected.
+     * @param latencyParam    The durations of the calls.
+     */
+    public OperationStats(final String entityNameParam, final String operationParam, final long callCountParam,
+                          final long errorCountParam, final long rowCountParam, final LatencySnapshot latencyParam) {
+        entityName = entityNameParam;
+        operation = operationParam;
+        callCount = callCountParam;
+        errorCount = errorCountParam;
+        rowCount = rowCountParam;
+        latency = latencyParam;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getCallCount() {
+        return callCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public LatencySnapshot getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return "OperationStats[entityName=" + entityName + ",operation=" + operation + ",callCount=" + callCount
+                + ",errorCount=" + errorCount + ",rowCount=" + rowCount + ",latency=" + latency + "]";
+    }
+}
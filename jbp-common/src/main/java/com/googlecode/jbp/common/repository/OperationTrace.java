@@ -0,0 +1,135 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statements and flushes of the repository operation running on the current
+ * thread, collected while a {@link SlowOperationLoggingRepository} traces the
+ * operation.
+ * <p>
+ * Repositories report their flushes with {@link #recordFlush(long)}, and
+ * persistence provider hooks the SQL they execute with
+ * {@link #recordStatement(String)}, e.g. the {@code SqlCapturingInterceptor}
+ * of Hibernate.  Both do nothing when no operation is traced on the current
+ * thread, at the cost of a thread local lookup.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class OperationTrace {
+
+    /**
+     * The trace of the current thread, {@code null} while no operation is
+     * traced, so that threads which only flush allocate nothing.
+     */
+    private static final ThreadLocal<OperationTrace> TRACES = new ThreadLocal<OperationTrace>();
+
+    private final List<String> statements = new ArrayList<String>();
+    private final int maximumStatements;
+    private int statementCount;
+    private int flushCount;
+    private long flushNanos;
+
+    private OperationTrace(final int maximumStatementsParam) {
+        maximumStatements = maximumStatementsParam;
+    }
+
+    /**
+     * Returns whether an operation is traced on the current thread.
+     *
+     * @return {@code true} if statements and flushes are collected.
+     */
+    public static boolean isActive() {
+        return TRACES.get() != null;
+    }
+
+    /**
+     * Records a statement executed by the traced operation.
+     *
+     * @param sqlParam The SQL of the statement.
+     */
+    public static void recordStatement(final String sqlParam) {
+        final OperationTrace trace = TRACES.get();
+        if (trace != null) {
+            trace.statementCount++;
+            if (trace.statements.size() < trace.maximumStatements) {
+                trace.statements.add(sqlParam);
+            }
+        }
+    }
+
+    /**
+     * Records a flush of the traced operation.
+     *
+     * @param nanosParam The duration of the flush, in nanoseconds.
+     */
+    public static void recordFlush(final long nanosParam) {
+        final OperationTrace trace = TRACES.get();
+        if (trace != null) {
+            trace.flushCount++;
+            trace.flushNanos += nanosParam;
+        }
+    }
+
+    /**
+     * Starts tracing an operation on the current thread, unless an operation
+     * is already traced, e.g. by a decorator of the decorated repository.
+     *
+     * @param maximumStatementsParam The maximum amount of statements kept.
+     * @return The trace, or {@code null} if an operation is already traced.
+     */
+    static OperationTrace begin(final int maximumStatementsParam) {
+        if (TRACES.get() != null) {
+            return null;
+        }
+        final OperationTrace trace = new OperationTrace(maximumStatementsParam);
+        TRACES.set(trace);
+        return trace;
+    }
+
+    /**
+     * Stops tracing, and forgets the collected statements, so that pooled
+     * threads do not keep them.  The counts stay readable.
+     */
+    void end() {
+        TRACES.remove();
+        statements.clear();
+    }
+
+    /**
+     * Returns the kept statements, at most the maximum amount passed to
+     * {@link #begin(int)}.
+     */
+    List<String> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    int getStatementCount() {
+        return statementCount;
+    }
+
+    int getFlushCount() {
+        return flushCount;
+    }
+
+    long getFlushNanos() {
+        return flushNanos;
+    }
+}
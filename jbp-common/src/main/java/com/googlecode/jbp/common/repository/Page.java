@@ -33,6 +33,20 @@ import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
  * <p>A Page instance may be instantiated like this:
  * {@code Page.newPage().begin(30).length(10);}
  * </p>
+ * <p>
+ * A page may also be in keyset (seek) mode.  Instead of skipping a number of
+ * rows, the repository then only returns rows whose key is strictly greater
+ * than the key of the last row of the previous page, ordered by that key.  As
+ * the database can seek directly in the index of the key, the cost of a page
+ * does not grow with its depth.  The key is the entity's identifier unless a
+ * key property is specified; in that case the identifier is used as tie
+ * breaker, so the key property does not need to be unique.  In keyset mode,
+ * the index of the first result is ignored.
+ * </p>
+ * <p>A keyset Page may be instantiated like this:
+ * {@code Page.newPage().keyset().after(lastId).maxResults(10);} or
+ * {@code Page.newPage().keyset("name").after(lastName, lastId).maxResults(10);}
+ * </p>
  *
  * @author Yannick LOTH   - yannick AT littlej.biz -
  */
@@ -56,9 +70,117 @@ public final class Page implements Serializable {
 
     private int maxResults;
 
+    private boolean keyset = false;
+
+    private String keyProperty;
+
+    private Serializable afterKey;
+
+    private Serializable afterId;
+
+    private Serializable untilKey;
+
     private Page() {
     }
 
+    /**
+     * Switches this page to keyset mode, using the entity's identifier as key.
+     *
+     * @return This page.
+     */
+    public final Page keyset() {
+        keyset = true;
+        keyProperty = null;
+        return this;
+    }
+
+    /**
+     * Switches this page to keyset mode, using the specified property as key
+     * and the entity's identifier as tie breaker.
+     *
+     * @param keyPropertyParam The name of the key property.  Must not be blank.
+     * @return This page.
+     */
+    public final Page keyset(final String keyPropertyParam) {
+        PARAM_REQ.String.requireNotBlank(keyPropertyParam, "The name of the key property must not be blank.");
+        keyset = true;
+        keyProperty = keyPropertyParam;
+        return this;
+    }
+
+    /**
+     * Sets the key of the last row of the previous page.  Switches this page to
+     * keyset mode if it was not yet.
+     *
+     * @param afterKeyParam The key after which the page begins.  Must not be
+     *                      {@code null}.
+     * @return This page.
+     */
+    public final Page after(final Serializable afterKeyParam) {
+        return after(afterKeyParam, null);
+    }
+
+    /**
+     * Sets the key and the identifier of the last row of the previous page.
+     * Switches this page to keyset mode if it was not yet.
+     *
+     * @param afterKeyParam The key after which the page begins.  Must not be
+     *                      {@code null}.
+     * @param afterIdParam  The identifier of the last row of the previous page,
+     *                      used as tie breaker when a key property is set.  May be
+     *                      {@code null} if the key property is unique.
+     * @return This page.
+     */
+    public final Page after(final Serializable afterKeyParam, final Serializable afterIdParam) {
+        PARAM_REQ.Object.requireNotNull(afterKeyParam, "The key after which the page begins must not be null.");
+        keyset = true;
+        afterKey = afterKeyParam;
+        afterId = afterIdParam;
+        return this;
+    }
+
+    /**
+     * Restricts the page to the rows whose key is lower than or equal to the
+     * specified key.  Combined with {@link #after(java.io.Serializable)}, this
+     * bounds the key range a keyset walk reads.  Switches this page to keyset
+     * mode if it was not yet.
+     *
+     * @param untilKeyParam The greatest key of the page.  Must not be
+     *                      {@code null}.
+     * @return This page.
+     */
+    public final Page until(final Serializable untilKeyParam) {
+        PARAM_REQ.Object.requireNotNull(untilKeyParam, "The key until which the page runs must not be null.");
+        keyset = true;
+        untilKey = untilKeyParam;
+        return this;
+    }
+
+    /**
+     * Returns the page that follows this one.  This is the continuation token of
+     * a keyset walk: in keyset mode, the returned page begins after the specified
+     * key and identifier; else it begins after the last row of this page.
+     *
+     * @param lastKeyParam The key of the last row of this page.  Ignored if this
+     *                     page is not in keyset mode.
+     * @param lastIdParam  The identifier of the last row of this page.  Ignored if
+     *                     this page is not in keyset mode.
+     * @return A new page.
+     */
+    public final Page next(final Serializable lastKeyParam, final Serializable lastIdParam) {
+        final Page next = newPage();
+        next.maxResults = maxResults;
+        if (keyset) {
+            next.keyset = true;
+            next.keyProperty = keyProperty;
+            next.untilKey = untilKey;
+            next.after(lastKeyParam, keyProperty == null ? null : lastIdParam);
+        } else {
+            next.firstResult = firstResult + maxResults;
+        }
+        return next;
+    }
+
     public final Page firstResult(final int firstResultParam) {
         PARAM_REQ.Number.requireNotStrictlyNegative(firstResultParam, "The index of the first result to fetch must be 0 or positive.");
         firstResult = firstResultParam;
@@ -78,6 +200,38 @@ public final class Page implements Serializable {
         return maxResults;
     }
 
+    public final boolean isKeyset() {
+        return keyset;
+    }
+
+    /**
+     * Returns the name of the key property, or {@code null} if the key is the
+     * entity's identifier.
+     *
+     * @return The name of the key property.
+     */
+    public final String getKeyProperty() {
+        return keyProperty;
+    }
+
+    public final Serializable getAfterKey() {
+        return afterKey;
+    }
+
+    public final Serializable getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * Returns the greatest key of the page, or {@code null} if the page is not
+     * bounded.
+     *
+     * @return The greatest key.
+     */
+    public final Serializable getUntilKey() {
+        return untilKey;
+    }
+
     @Override
     public final int hashCode() {
         return Objects.hashCode(this);
@@ -91,8 +245,14 @@ public final class Page implements Serializable {
 
     @Override
     public final String toString() {
-        return new StringBuilder("Page[firstResult=").append(Objects.toString(firstResult))
-                .append(",maxResults=").append(Objects.toString(maxResults))
-                .append("]").toString();
+        final StringBuilder builder = new StringBuilder("Page[firstResult=").append(Objects.toString(firstResult))
+                .append(",maxResults=").append(Objects.toString(maxResults));
+        if (keyset) {
+            builder.append(",keyProperty=").append(Objects.toString(keyProperty))
+                    .append(",afterKey=").append(Objects.toString(afterKey))
+                    .append(",afterId=").append(Objects.toString(afterId))
+                    .append(",untilKey=").append(Objects.toString(untilKey));
+        }
+        return builder.append("]").toString();
     }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * The key range of one partition of a {@link PartitionedScan}, the amount of
+ * entities read in it and the time it took, consumer included.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class PartitionReport implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final int index;
+    private final Serializable afterKey;
+    private final Serializable untilKey;
+    private final long count;
+    private final long durationNanos;
+
+    public PartitionReport(final int indexParam, final Serializable afterKeyParam, final Serializable untilKeyParam,
+                           final long countParam, final long durationNanosParam) {
+        PARAM_REQ.Number.requireNotStrictlyNegative(indexParam, "The index must be zero or positive.");
+        PARAM_REQ.Number.requireNotStrictlyNegative(countParam, "The amount of entities must be zero or positive.");
+        PARAM_REQ.Number.requireNotStrictlyNegative(durationNanosParam, "The duration must be zero or positive.");
+        index = indexParam;
+        afterKey = afterKeyParam;
+        untilKey = untilKeyParam;
+        count = countParam;
+        durationNanos = durationNanosParam;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the key after which the partition begins, or {@code null} for the
+     * first partition.
+     *
+     * @return The lower bound of the partition, excluded.
+     */
+    public Serializable getAfterKey() {
+        return afterKey;
+    }
+
+    /**
+     * Returns the greatest key of the partition, or {@code null} for the last
+     * partition.
+     *
+     * @return The upper bound of the partition, included.
+     */
+    public Serializable getUntilKey() {
+        return untilKey;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Returns the amount of entities read per second in this partition.
+     *
+     * @return The throughput, or 0 if the partition took no measurable time.
+     */
+    public double getThroughput() {
+        return durationNanos == 0L ? 0D : count * (double) TimeUnit.SECONDS.toNanos(1L) / durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("PartitionReport[index=").append(index)
+                .append(",afterKey=").append(afterKey)
+                .append(",untilKey=").append(untilKey)
+                .append(",count=").append(count)
+                .append(",durationNanos=").append(durationNanos)
+                .append("]").toString();
+    }
+}
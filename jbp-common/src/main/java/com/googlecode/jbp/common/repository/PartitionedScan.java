@@ -0,0 +1,234 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Scan of all persisted entities, split in key ranges read concurrently.  Each
+ * partition is walked in keyset slices, every slice in a unit of work of its
+ * own, so partitions use different sessions and connections and memory does
+ * not grow with the size of a partition.  The entities of a partition reach
+ * the consumer in ascending order of the partition key; entities of different
+ * partitions reach it concurrently, so the consumer must be thread safe.
+ * <p>
+ * The partitions are delimited by boundaries: with boundaries {@code b1 < b2},
+ * the partitions are the keys up to {@code b1}, the keys after {@code b1} up
+ * to {@code b2}, and the keys after {@code b2}.  A scan may be instantiated
+ * like this:
+ * {@code PartitionedScan.newScan(scope).range(1L, maxId, 8).fetchSize(500).run(consumer);}
+ * </p>
+ *
+ * @param <ID>          The class of the entity's identifier.
+ * @param <DomainModel> The class of the entity's domain model.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class PartitionedScan<ID extends Serializable, DomainModel extends IIdentifiable<ID>> {
+
+    private final IRepositoryScope<ID, DomainModel> scope;
+    private String keyProperty;
+    private List<Serializable> boundaries = Collections.emptyList();
+    private int fetchSize = IGenericRepository.DEFAULT_FETCH_SIZE;
+    private Executor executor = AsyncRepository.defaultExecutor();
+
+    private PartitionedScan(final IRepositoryScope<ID, DomainModel> scopeParam) {
+        PARAM_REQ.Object.requireNotNull(scopeParam);
+        scope = scopeParam;
+    }
+
+    /**
+     * Returns a new scan, which reads all entities in one partition until
+     * boundaries are set.
+     *
+     * @param scopeParam The scope opening the unit of work of each slice.  Must
+     *                   not be {@code null}.
+     * @return Returns the new scan.
+     */
+    public static <ID extends Serializable, DomainModel extends IIdentifiable<ID>> PartitionedScan<ID, DomainModel> newScan(
+            final IRepositoryScope<ID, DomainModel> scopeParam) {
+        return new PartitionedScan<ID, DomainModel>(scopeParam);
+    }
+
+    /**
+     * Partitions the entities by the specified property instead of their
+     * identifier.  Within a partition, entities are then read in the order of
+     * that property, the identifier breaking ties.
+     *
+     * @param keyPropertyParam The name of the partition key property.  Must not
+     *                         be blank.
+     * @return This scan.
+     */
+    public PartitionedScan<ID, DomainModel> keyProperty(final String keyPropertyParam) {
+        PARAM_REQ.String.requireNotBlank(keyPropertyParam, "The name of the key property must not be blank.");
+        keyProperty = keyPropertyParam;
+        return this;
+    }
+
+    /**
+     * Sets the boundaries between the partitions.
+     *
+     * @param boundariesParam The boundaries, in ascending order, of the class of
+     *                        the partition key.  Must not be {@code null}, nor
+     *                        contain {@code null}.
+     * @return This scan.
+     */
+    public PartitionedScan<ID, DomainModel> boundaries(final List<? extends Serializable> boundariesParam) {
+        PARAM_REQ.Object.requireNotNull(boundariesParam);
+        for (final Serializable current : boundariesParam) {
+            PARAM_REQ.Object.requireNotNull(current, "A boundary must not be null.");
+        }
+        boundaries = new ArrayList<Serializable>(boundariesParam);
+        return this;
+    }
+
+    /**
+     * Splits the range between the specified {@code long} keys in partitions of
+     * equal width.  Keys outside the range are read by the first and the last
+     * partition.
+     *
+     * @param minParam            The lowest expected key.
+     * @param maxParam            The greatest expected key.  Must not be lower
+     *                            than the lowest one.
+     * @param partitionCountParam The amount of partitions.  Must be strictly
+     *                            positive.
+     * @return This scan.
+     */
+    public PartitionedScan<ID, DomainModel> range(final long minParam, final long maxParam, final int partitionCountParam) {
+        PARAM_REQ.Logic.requireTrue(minParam <= maxParam, "The lowest key must not be greater than the greatest one.");
+        PARAM_REQ.Number.requireStrictlyPositive(partitionCountParam);
+        final List<Long> rangeBoundaries = new ArrayList<Long>();
+        final double width = ((double) maxParam - minParam + 1D) / partitionCountParam;
+        for (int i = 1; i < partitionCountParam; i++) {
+            final long boundary = minParam - 1L + (long) Math.floor(width * i);
+            if (rangeBoundaries.isEmpty() || boundary > rangeBoundaries.get(rangeBoundaries.size() - 1)) {
+                rangeBoundaries.add(boundary);
+            }
+        }
+        return boundaries(rangeBoundaries);
+    }
+
+    /**
+     * Sets the amount of entities read per slice.  Defaults to
+     * {@link IGenericRepository#DEFAULT_FETCH_SIZE}.
+     *
+     * @param fetchSizeParam The amount of entities per slice.  Must be strictly
+     *                       positive.
+     * @return This scan.
+     */
+    public PartitionedScan<ID, DomainModel> fetchSize(final int fetchSizeParam) {
+        PARAM_REQ.Number.requireStrictlyPositive(fetchSizeParam);
+        fetchSize = fetchSizeParam;
+        return this;
+    }
+
+    /**
+     * Sets the executor reading the partitions.  Defaults to
+     * {@link AsyncRepository#defaultExecutor()}.
+     *
+     * @param executorParam The executor.  Must not be {@code null}.
+     * @return This scan.
+     */
+    public PartitionedScan<ID, DomainModel> executor(final Executor executorParam) {
+        PARAM_REQ.Object.requireNotNull(executorParam);
+        executor = executorParam;
+        return this;
+    }
+
+    /**
+     * Reads all entities and passes them to the specified consumer.  The
+     * consumer runs in the unit of work of the slice, so it may navigate lazy
+     * associations.  If a partition fails, the other ones stop after their
+     * current slice, and the exception is rethrown once they have.
+     *
+     * @param consumerParam The consumer of the entities.  Must not be
+     *                      {@code null}.  Must be thread safe.
+     * @return Returns the amount of entities read and the timing of each
+     *         partition.
+     */
+    public ScanReport run(final Consumer<? super DomainModel> consumerParam) {
+        PARAM_REQ.Object.requireNotNull(consumerParam);
+        final long start = System.nanoTime();
+        final AtomicBoolean stopped = new AtomicBoolean(false);
+        final List<CompletableFuture<PartitionReport>> partitions = new ArrayList<CompletableFuture<PartitionReport>>();
+        for (int i = 0; i <= boundaries.size(); i++) {
+            final int index = i;
+            final Serializable afterKey = i == 0 ? null : boundaries.get(i - 1);
+            final Serializable untilKey = i == boundaries.size() ? null : boundaries.get(i);
+            partitions.add(CompletableFuture.supplyAsync(
+                    () -> scanPartition(index, afterKey, untilKey, consumerParam, stopped), executor));
+        }
+        final List<PartitionReport> reports = new ArrayList<PartitionReport>();
+        RuntimeException failure = null;
+        for (final CompletableFuture<PartitionReport> current : partitions) {
+            try {
+                reports.add(current.join());
+            } catch (CompletionException e) {
+                stopped.set(true);
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return new ScanReport(reports, System.nanoTime() - start);
+    }
+
+    private PartitionReport scanPartition(final int indexParam, final Serializable afterKeyParam,
+                                          final Serializable untilKeyParam,
+                                          final Consumer<? super DomainModel> consumerParam,
+                                          final AtomicBoolean stoppedParam) {
+        final long start = System.nanoTime();
+        long count = 0L;
+        Page page = keyProperty == null ? Page.newPage().keyset() : Page.newPage().keyset(keyProperty);
+        page.maxResults(fetchSize);
+        if (afterKeyParam != null) {
+            page.after(afterKeyParam);
+        }
+        if (untilKeyParam != null) {
+            page.until(untilKeyParam);
+        }
+        try {
+            while (page != null && !stoppedParam.get()) {
+                final Page current = page;
+                final Slice<ID, DomainModel> slice = scope.execute(repository -> {
+                    final Slice<ID, DomainModel> result = repository.retrieveSlice(current);
+                    for (final DomainModel entity : result.getResults()) {
+                        consumerParam.accept(entity);
+                    }
+                    return result;
+                });
+                count += slice.getResults().size();
+                page = slice.hasNext() ? slice.getNextPage() : null;
+            }
+        } catch (RuntimeException e) {
+            stoppedParam.set(true);
+            throw e;
+        }
+        return new PartitionReport(indexParam, afterKeyParam, untilKeyParam, count, System.nanoTime() - start);
+    }
+}
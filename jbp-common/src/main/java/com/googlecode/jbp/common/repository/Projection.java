@@ -0,0 +1,189 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import com.googlecode.jbp.common.constants.CompilerWarnings;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * The attributes a projection query selects, and the type of its rows.  A
+ * projection query only selects the columns of these attributes, and returns
+ * values instead of entities: nothing is registered in the persistence
+ * context, nor snapshotted for dirty checking.
+ * <p>
+ * Rows are either arrays of the attribute values, in the order of the
+ * attributes, or instances of a type built with its constructor taking the
+ * attribute values in that order (a DTO or a record):
+ * {@code Projection.attributes("id", "name")} or
+ * {@code Projection.of(ItemRow.class, "id", "name")}.  Attributes of embedded
+ * components are named with their path, e.g. {@code address.city}.
+ * </p>
+ *
+ * @param <R> The class of the rows.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class Projection<R> {
+
+    private final Class<R> resultType;
+    private final List<String> attributes;
+    private final List<Constructor<R>> constructors;
+    private volatile Constructor<R> constructor;
+
+    private Projection(final Class<R> resultTypeParam, final String... attributesParam) {
+        PARAM_REQ.Object.requireNotNull(attributesParam);
+        PARAM_REQ.Logic.requireTrue(attributesParam.length > 0, "A projection requires at least one attribute.");
+        for (final String current : attributesParam) {
+            PARAM_REQ.String.requireNotBlank(current, "The name of an attribute must not be blank.");
+        }
+        resultType = resultTypeParam;
+        attributes = Collections.unmodifiableList(new ArrayList<String>(Arrays.asList(attributesParam)));
+        constructors = new ArrayList<Constructor<R>>();
+    }
+
+    /**
+     * Returns a projection whose rows are arrays of the values of the specified
+     * attributes.
+     *
+     * @param attributesParam The names of the attributes.  Must not be empty.
+     * @return Returns the projection.
+     */
+    public static Projection<Object[]> attributes(final String... attributesParam) {
+        return new Projection<Object[]>(Object[].class, attributesParam);
+    }
+
+    /**
+     * Returns a projection whose rows are instances of the specified type.
+     *
+     * @param resultTypeParam The type of the rows, with a public constructor
+     *                        taking the values of the attributes.  Must not be
+     *                        {@code null}.
+     * @param attributesParam The names of the attributes.  Must not be empty.
+     * @return Returns the projection.
+     */
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    public static <R> Projection<R> of(final Class<R> resultTypeParam, final String... attributesParam) {
+        PARAM_REQ.Object.requireNotNull(resultTypeParam);
+        final Projection<R> projection = new Projection<R>(resultTypeParam, attributesParam);
+        for (final Constructor<?> current : resultTypeParam.getConstructors()) {
+            if (current.getParameterTypes().length == attributesParam.length) {
+                projection.constructors.add((Constructor<R>) current);
+            }
+        }
+        PARAM_REQ.Logic.requireTrue(!projection.constructors.isEmpty(), "The type " + resultTypeParam.getName()
+                + " has no public constructor with " + attributesParam.length + " parameters.");
+        return projection;
+    }
+
+    public Class<R> getResultType() {
+        return resultType;
+    }
+
+    public List<String> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Converts a row of attribute values into a row of this projection.
+     *
+     * @param valuesParam The values of the attributes, in their order.
+     * @return Returns the row.
+     */
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    public R toResult(final Object[] valuesParam) {
+        PARAM_REQ.Object.requireNotNull(valuesParam);
+        if (constructors.isEmpty()) {
+            return (R) valuesParam;
+        }
+        Constructor<R> current = constructor;
+        if (current == null || !accepts(current, valuesParam)) {
+            current = findConstructor(valuesParam);
+            constructor = current;
+        }
+        try {
+            return current.newInstance(valuesParam);
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException("Could not instantiate " + resultType.getName() + ".", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Could not instantiate " + resultType.getName() + ".", e.getCause());
+        }
+    }
+
+    private Constructor<R> findConstructor(final Object[] valuesParam) {
+        for (final Constructor<R> current : constructors) {
+            if (accepts(current, valuesParam)) {
+                return current;
+            }
+        }
+        throw new IllegalStateException("No constructor of " + resultType.getName() + " accepts the values "
+                + Arrays.toString(valuesParam) + ".");
+    }
+
+    private static boolean accepts(final Constructor<?> constructorParam, final Object[] valuesParam) {
+        final Class<?>[] types = constructorParam.getParameterTypes();
+        if (types.length != valuesParam.length) {
+            return false;
+        }
+        for (int i = 0; i < types.length; i++) {
+            if (valuesParam[i] == null ? types[i].isPrimitive() : !box(types[i]).isInstance(valuesParam[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Class<?> box(final Class<?> typeParam) {
+        if (!typeParam.isPrimitive()) {
+            return typeParam;
+        }
+        if (typeParam == int.class) {
+            return Integer.class;
+        }
+        if (typeParam == long.class) {
+            return Long.class;
+        }
+        if (typeParam == boolean.class) {
+            return Boolean.class;
+        }
+        if (typeParam == double.class) {
+            return Double.class;
+        }
+        if (typeParam == float.class) {
+            return Float.class;
+        }
+        if (typeParam == short.class) {
+            return Short.class;
+        }
+        if (typeParam == byte.class) {
+            return Byte.class;
+        }
+        return Character.class;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("Projection[resultType=").append(resultType.getName())
+                .append(",attributes=").append(attributes)
+                .append("]").toString();
+    }
+}
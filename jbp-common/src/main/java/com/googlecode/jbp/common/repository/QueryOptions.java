@@ -0,0 +1,135 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * This class holds the settings of a single repository call which differ
+ * from the settings of the repository: the {@link FlushPolicy} applied
+ * before the query, the {@link ReadMode} the entities are loaded in, and the
+ * {@link FetchPlan} of the associations loaded with them.  The settings which
+ * are not set are the repository's, and the fetch plan is empty by default.
+ * <p>Instances are immutable: each setter returns a copy with the setting
+ * changed, so options may be kept in constants and shared between threads.
+ * A QueryOptions instance may be instantiated like this:
+ * {@code QueryOptions.newOptions().readMode(ReadMode.READ_ONLY).fetchPlan(FetchPlan.newPlan().join("customer"));}
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class QueryOptions implements Serializable {
+
+    /**
+     * serialVersionUID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    private static final QueryOptions DEFAULT_OPTIONS = new QueryOptions(null, null, FetchPlan.newPlan());
+
+    /**
+     * Returns a {@code QueryOptions} instance with the settings of the
+     * repository.
+     *
+     * @return Returns the instance.
+     */
+    public static QueryOptions newOptions() {
+        return DEFAULT_OPTIONS;
+    }
+
+    private final FlushPolicy flushPolicy;
+
+    private final ReadMode readMode;
+
+    private final FetchPlan fetchPlan;
+
+    private QueryOptions(final FlushPolicy flushPolicyParam, final ReadMode readModeParam, final FetchPlan fetchPlanParam) {
+        flushPolicy = flushPolicyParam;
+        readMode = readModeParam;
+        fetchPlan = fetchPlanParam;
+    }
+
+    /**
+     * Returns a copy of these options with the specified flush policy.
+     *
+     * @param flushPolicyParam The flush policy.  Must not be {@code null}.
+     * @return The new options.
+     */
+    public QueryOptions flushPolicy(final FlushPolicy flushPolicyParam) {
+        PARAM_REQ.Object.requireNotNull(flushPolicyParam);
+        return new QueryOptions(flushPolicyParam, readMode, fetchPlan);
+    }
+
+    /**
+     * Returns a copy of these options with the specified read mode.
+     *
+     * @param readModeParam The read mode.  Must not be {@code null}.
+     * @return The new options.
+     */
+    public QueryOptions readMode(final ReadMode readModeParam) {
+        PARAM_REQ.Object.requireNotNull(readModeParam);
+        return new QueryOptions(flushPolicy, readModeParam, fetchPlan);
+    }
+
+    /**
+     * Returns a copy of these options with the specified fetch plan.
+     *
+     * @param fetchPlanParam The fetch plan.  Must not be {@code null}.
+     * @return The new options.
+     */
+    public QueryOptions fetchPlan(final FetchPlan fetchPlanParam) {
+        PARAM_REQ.Object.requireNotNull(fetchPlanParam);
+        return new QueryOptions(flushPolicy, readMode, fetchPlanParam);
+    }
+
+    /**
+     * Returns the flush policy of the call.
+     *
+     * @param defaultParam The flush policy of the repository.
+     * @return The flush policy of the call, or the specified one if none was
+     *         set.
+     */
+    public FlushPolicy getFlushPolicy(final FlushPolicy defaultParam) {
+        return flushPolicy == null ? defaultParam : flushPolicy;
+    }
+
+    /**
+     * Returns the read mode of the call.
+     *
+     * @param defaultParam The read mode of the repository.
+     * @return The read mode of the call, or the specified one if none was
+     *         set.
+     */
+    public ReadMode getReadMode(final ReadMode defaultParam) {
+        return readMode == null ? defaultParam : readMode;
+    }
+
+    /**
+     * Returns the fetch plan of the call.
+     *
+     * @return The fetch plan of the call, empty if none was set.
+     */
+    public FetchPlan getFetchPlan() {
+        return fetchPlan;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryOptions[flushPolicy=" + flushPolicy + ",readMode=" + readMode + ",fetchPlan=" + fetchPlan + "]";
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+/**
+ * The ways a repository may load entities into the persistence context.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public enum ReadMode {
+    /**
+     * Entities are loaded modifiable, unless the session or entity manager
+     * loads all entities read-only.  The persistence context keeps a snapshot
+     * of each entity, against which it is dirty-checked at every flush.
+     */
+    READ_WRITE,
+    /**
+     * Entities are loaded read-only: the persistence context keeps no snapshot
+     * of them and does not dirty-check them, so changes made to them are not
+     * saved.  Entities already in the persistence context keep their mode.
+     */
+    READ_ONLY
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a chunk of a bulk operation of a generic
+ * repository of jbp: the entities written, then flushed, at once by a batch
+ * create or delete, or by a chunked delete.  Recorded under the name
+ * {@value #NAME}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+@Name(RepositoryBatchChunkEvent.NAME)
+@Label("Repository Batch Chunk")
+@Category({"jbp", "Repository"})
+@Description("A chunk of entities written and flushed at once by a bulk repository operation.")
+@StackTrace(false)
+public final class RepositoryBatchChunkEvent extends Event {
+
+    /**
+     * The name of the event in the recording settings.
+     */
+    public static final String NAME = "com.googlecode.jbp.RepositoryBatchChunk";
+
+    @Label("Repository")
+    private Class<?> repository;
+
+    @Label("Entity Class")
+    private Class<?> entityClass;
+
+    @Label("Operation")
+    @Description("The name of the repository method.")
+    private String operation;
+
+    @Label("Rows")
+    @Description("The amount of entities in the chunk.")
+    private long rows;
+
+    /**
+     * Creates an event and starts timing it.
+     *
+     * @return The event.
+     */
+    public static RepositoryBatchChunkEvent start() {
+        final RepositoryBatchChunkEvent event = new RepositoryBatchChunkEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Stops timing the event, and commits it if it is recorded.
+     *
+     * @param repositoryParam  The class of the repository.
+     * @param entityClassParam The class of the entities, or {@code null} if
+     *                         they have no common class.
+     * @param operationParam   The name of the operation.
+     * @param rowsParam        The amount of entities in the chunk.
+     */
+    public void record(final Class<?> repositoryParam, final Class<?> entityClassParam, final String operationParam,
+                       final long rowsParam) {
+        if (shouldCommit()) {
+            repository = repositoryParam;
+            entityClass = entityClassParam;
+            operation = operationParam;
+            rows = rowsParam;
+            commit();
+        }
+    }
+}
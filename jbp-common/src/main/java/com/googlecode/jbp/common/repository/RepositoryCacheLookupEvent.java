@@ -0,0 +1,110 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a cache lookup by a generic repository of jbp:
+ * in the persistence context ({@value #SESSION}), in the second-level cache
+ * ({@value #SECOND_LEVEL}) or in the cached entity counts ({@value #COUNT}).
+ * <p>
+ * As there may be one lookup per retrieved identifier, the event is
+ * disabled unless the recording settings enable {@value #NAME}.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+@Name(RepositoryCacheLookupEvent.NAME)
+@Label("Repository Cache Lookup")
+@Category({"jbp", "Repository"})
+@Description("A lookup of an entity or count by a repository before querying the data base.")
+@Enabled(false)
+@StackTrace(false)
+public final class RepositoryCacheLookupEvent extends Event {
+
+    /**
+     * The name of the event in the recording settings.
+     */
+    public static final String NAME = "com.googlecode.jbp.RepositoryCacheLookup";
+
+    /**
+     * The cache of the entities associated with the session or entity
+     * manager.
+     */
+    public static final String SESSION = "session";
+
+    /**
+     * The second-level cache of the session factory or entity manager
+     * factory.
+     */
+    public static final String SECOND_LEVEL = "second-level";
+
+    /**
+     * The cache of the entity counts of {@link CountMode#CACHED}.
+     */
+    public static final String COUNT = "count";
+
+    @Label("Repository")
+    private Class<?> repository;
+
+    @Label("Entity Class")
+    private Class<?> entityClass;
+
+    @Label("Cache")
+    private String cache;
+
+    @Label("Hit")
+    private boolean hit;
+
+    /**
+     * Creates an event and starts timing it.
+     *
+     * @return The event.
+     */
+    public static RepositoryCacheLookupEvent start() {
+        final RepositoryCacheLookupEvent event = new RepositoryCacheLookupEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Stops timing the event, and commits it if it is recorded.
+     *
+     * @param repositoryParam  The class of the repository.
+     * @param entityClassParam The class of the looked up entity.
+     * @param cacheParam       The looked up cache, e.g. {@link #SESSION}.
+     * @param hitParam         Whether the cache held the entity or count.
+     * @return {@code hitParam}.
+     */
+    public boolean record(final Class<?> repositoryParam, final Class<?> entityClassParam, final String cacheParam,
+                          final boolean hitParam) {
+        if (shouldCommit()) {
+            repository = repositoryParam;
+            entityClass = entityClassParam;
+            cache = cacheParam;
+            hit = hitParam;
+            commit();
+        }
+        return hitParam;
+    }
+}
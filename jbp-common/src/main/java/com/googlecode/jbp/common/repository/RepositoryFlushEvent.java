@@ -0,0 +1,67 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of a flush of the pending changes by a generic
+ * repository of jbp, explicit or before a query.  Recorded under the name
+ * {@value #NAME}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+@Name(RepositoryFlushEvent.NAME)
+@Label("Repository Flush")
+@Category({"jbp", "Repository"})
+@Description("A flush of the session or entity manager by a repository.")
+public final class RepositoryFlushEvent extends Event {
+
+    /**
+     * The name of the event in the recording settings.
+     */
+    public static final String NAME = "com.googlecode.jbp.RepositoryFlush";
+
+    @Label("Repository")
+    private Class<?> repository;
+
+    /**
+     * Creates an event and starts timing it.
+     *
+     * @return The event.
+     */
+    public static RepositoryFlushEvent start() {
+        final RepositoryFlushEvent event = new RepositoryFlushEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Stops timing the event, and commits it if it is recorded.
+     *
+     * @param repositoryParam The class of the repository.
+     */
+    public void record(final Class<?> repositoryParam) {
+        if (shouldCommit()) {
+            repository = repositoryParam;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Registry of the latency histograms and counters of repository operations,
+ * recorded by {@link MetricsRepository} and {@link MetricsGenericRepository}
+ * decorators, for each operation and entity class.
+ * <p>
+ * One registry is meant to be shared by all the decorators of an
+ * application, and exported by {@link IMetricsExporter}s, e.g. a
+ * {@link JmxMetricsExporter} or a {@link TextMetricsExporter}.  While
+ * disabled, the decorators only read a volatile flag before delegating.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class RepositoryMetrics {
+
+    /**
+     * The entity name of the operations on no particular entity class, like
+     * {@code flush()} or operations on an empty collection.
+     */
+    public static final String ANY_ENTITY = "*";
+
+    private static final Comparator<OperationStats> STATS_ORDER = new Comparator<OperationStats>() {
+        public int compare(final OperationStats firstParam, final OperationStats secondParam) {
+            final int byEntity = firstParam.getEntityName().compareTo(secondParam.getEntityName());
+            return byEntity != 0 ? byEntity : firstParam.getOperation().compareTo(secondParam.getOperation());
+        }
+    };
+
+    private final String name;
+    private final Ticker ticker;
+    private final ConcurrentMap<String, ConcurrentMap<String, OperationMetrics>> entities
+            = new ConcurrentHashMap<String, ConcurrentMap<String, OperationMetrics>>();
+    private final List<IMetricsExporter> exporters = new CopyOnWriteArrayList<IMetricsExporter>();
+    private volatile boolean enabled = true;
+
+    /**
+     * Constructor.  The metrics are enabled.
+     *
+     * @param nameParam The name of the metrics, which exporters use to tell
+     *                  several registries apart.  Must not be blank.
+     */
+    public RepositoryMetrics(final String nameParam) {
+        this(nameParam, Ticker.SYSTEM);
+    }
+
+    RepositoryMetrics(final String nameParam, final Ticker tickerParam) {
+        PARAM_REQ.String.requireNotBlank(nameParam);
+        name = nameParam;
+        ticker = tickerParam;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the recording of metrics.  The metrics recorded so
+     * far are kept.
+     *
+     * @param enabledParam {@code true} to record metrics.
+     */
+    public void setEnabled(final boolean enabledParam) {
+        enabled = enabledParam;
+    }
+
+    /**
+     * Registers and starts an exporter.
+     *
+     * @param exporterParam The exporter.  Must not be {@code null}.
+     */
+    public void addExporter(final IMetricsExporter exporterParam) {
+        PARAM_REQ.Object.requireNotNull(exporterParam);
+        exporterParam.start(this);
+        exporters.add(exporterParam);
+    }
+
+    /**
+     * Stops and unregisters an exporter.
+     *
+     * @param exporterParam The exporter.
+     */
+    public void removeExporter(final IMetricsExporter exporterParam) {
+        if (exporters.remove(exporterParam)) {
+            exporterParam.stop();
+        }
+    }
+
+    /**
+     * Returns the metrics of all the operations called so far, sorted by
+     * entity name, then by operation.
+     *
+     * @return The metrics.
+     */
+    public List<OperationStats> snapshot() {
+        final List<OperationStats> stats = new ArrayList<OperationStats>();
+        for (final ConcurrentMap<String, OperationMetrics> operations : entities.values()) {
+            for (final OperationMetrics current : operations.values()) {
+                stats.add(current.snapshot());
+            }
+        }
+        Collections.sort(stats, STATS_ORDER);
+        return stats;
+    }
+
+    /**
+     * Forgets the metrics recorded so far.
+     */
+    public void reset() {
+        for (final ConcurrentMap<String, OperationMetrics> operations : entities.values()) {
+            for (final OperationMetrics current : operations.values()) {
+                current.reset();
+            }
+        }
+    }
+
+    OperationMetrics getOperation(final String entityNameParam, final String operationParam) {
+        ConcurrentMap<String, OperationMetrics> operations = entities.get(entityNameParam);
+        if (operations == null) {
+            final ConcurrentMap<String, OperationMetrics> created = new ConcurrentHashMap<String, OperationMetrics>();
+            final ConcurrentMap<String, OperationMetrics> raced = entities.putIfAbsent(entityNameParam, created);
+            operations = raced != null ? raced : created;
+        }
+        final OperationMetrics existing = operations.get(operationParam);
+        if (existing != null) {
+            return existing;
+        }
+        final OperationMetrics created = new OperationMetrics(entityNameParam, operationParam);
+        final OperationMetrics raced = operations.putIfAbsent(operationParam, created);
+        return raced != null ? raced : created;
+    }
+
+    static String entityName(final Class<?> classParam) {
+        return classParam == null ? ANY_ENTITY : classParam.getSimpleName();
+    }
+
+    /**
+     * Returns the amount of entities or rows a call returned or affected.
+     */
+    static long rowCount(final Object resultParam) {
+        if (resultParam instanceof Collection) {
+            return ((Collection<?>) resultParam).size();
+        } else if (resultParam instanceof Map) {
+            return ((Map<?, ?>) resultParam).size();
+        } else if (resultParam instanceof ResultHolder) {
+            return ((ResultHolder<?, ?>) resultParam).getResults().size();
+        } else if (resultParam instanceof Slice) {
+            return ((Slice<?, ?>) resultParam).getResults().size();
+        } else if (resultParam instanceof BatchReport) {
+            return ((BatchReport) resultParam).getCount();
+        } else if (resultParam instanceof Integer) {
+            return (Integer) resultParam;
+        } else if (resultParam instanceof IIdentifiable) {
+            return 1L;
+        }
+        return 0L;
+    }
+
+    /**
+     * Times a call and records it in the metrics of its operation.
+     */
+    <R> R record(final String entityNameParam, final String operationParam, final Supplier<R> workParam) {
+        final OperationMetrics metrics = getOperation(entityNameParam, operationParam);
+        final long start = ticker.read();
+        final R result;
+        try {
+            result = workParam.get();
+        } catch (final RuntimeException e) {
+            metrics.recordError(ticker.read() - start);
+            throw e;
+        } catch (final Error e) {
+            metrics.recordError(ticker.read() - start);
+            throw e;
+        }
+        metrics.recordSuccess(ticker.read() - start, rowCount(result));
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of a repository operation, emitted by
+ * {@link EventRecordingGenericRepository}.
+ * <p>
+ * Like all the repository events, it is enabled, disabled or given a
+ * duration threshold by the settings of the recording, under the name
+ * {@value #NAME}.  While it is not recorded, emitting it costs little more
+ * than a check of whether it is enabled.  Operations which throw an
+ * exception are recorded with the class of the exception as failure.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+@Name(RepositoryOperationEvent.NAME)
+@Label("Repository Operation")
+@Category({"jbp", "Repository"})
+@Description("A call of a repository method.")
+public final class RepositoryOperationEvent extends Event {
+
+    /**
+     * The name of the event in the recording settings.
+     */
+    public static final String NAME = "com.googlecode.jbp.RepositoryOperation";
+
+    @Label("Repository")
+    private Class<?> repository;
+
+    @Label("Entity Class")
+    private Class<?> entityClass;
+
+    @Label("Operation")
+    @Description("The name of the repository method.")
+    private String operation;
+
+    @Label("Rows")
+    @Description("The amount of entities or rows the operation returned or affected.")
+    private long rows;
+
+    @Label("Failure")
+    @Description("The class of the exception the operation threw, if any.")
+    private String failure;
+
+    /**
+     * Creates an event and starts timing it.
+     *
+     * @return The event.
+     */
+    public static RepositoryOperationEvent start() {
+        final RepositoryOperationEvent event = new RepositoryOperationEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Stops timing the event, and commits it if it is recorded.
+     *
+     * @param repositoryParam  The class of the repository.
+     * @param entityClassParam The entity class of the operation, or
+     *                         {@code null} if there is none.
+     * @param operationParam   The name of the operation.
+     * @param resultParam      The result of the operation, from which the
+     *                         amount of rows is read, as by
+     *                         {@link MetricsRepository}.
+     * @return The result of the operation.
+     */
+    public <T> T record(final Class<?> repositoryParam, final Class<?> entityClassParam, final String operationParam,
+                        final T resultParam) {
+        if (shouldCommit()) {
+            repository = repositoryParam;
+            entityClass = entityClassParam;
+            operation = operationParam;
+            rows = RepositoryMetrics.rowCount(resultParam);
+            commit();
+        }
+        return resultParam;
+    }
+
+    /**
+     * Stops timing the event of an operation which threw an exception, and
+     * commits it if it is recorded.
+     *
+     * @param repositoryParam  The class of the repository.
+     * @param entityClassParam The entity class of the operation, or
+     *                         {@code null} if there is none.
+     * @param operationParam   The name of the operation.
+     * @param failureParam     The exception the operation threw.
+     */
+    public void recordFailure(final Class<?> repositoryParam, final Class<?> entityClassParam,
+                              final String operationParam, final Throwable failureParam) {
+        if (shouldCommit()) {
+            repository = repositoryParam;
+            entityClass = entityClassParam;
+            operation = operationParam;
+            failure = failureParam.getClass().getName();
+            commit();
+        }
+    }
+}
@@ -34,12 +34,27 @@ public final class ResultHolder<ID extends Serializable, T extends IIdentifiable
     private static final long serialVersionUID = 1L;
     private final List<T> results;
     private final int resultQuantity;
+    private final boolean exact;
 
     public ResultHolder(final List<T> resultsParam, final int resultQuantityParam) {
+        this(resultsParam, resultQuantityParam, true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param resultsParam        The results.  Must not be {@code null}.
+     * @param resultQuantityParam The total number of results.  Must be zero or
+     *                            positive.
+     * @param exactParam          {@code false} if the total number of results is
+     *                            an estimate.
+     */
+    public ResultHolder(final List<T> resultsParam, final int resultQuantityParam, final boolean exactParam) {
         PARAM_REQ.Object.requireNotNull(resultsParam, "The list of results must not be null.");
         PARAM_REQ.Number.requireNotStrictlyNegative(resultQuantityParam, "The quantity of results must be zero or positive.");
         results = Collections.unmodifiableList(resultsParam);
         resultQuantity = resultQuantityParam;
+        exact = exactParam;
     }
 
     public List<T> getResults() {
@@ -49,4 +64,14 @@ public final class ResultHolder<ID extends Serializable, T extends IIdentifiable
     public int getResultQuantity() {
         return resultQuantity;
     }
+
+    /**
+     * Tells whether the total number of results is exact or an estimate.
+     *
+     * @return {@code true} if the total number of results is exact.
+     * @see CountMode#ESTIMATED
+     */
+    public boolean isExact() {
+        return exact;
+    }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Class used to return the outcome of a {@link PartitionedScan}: the report
+ * of each partition and the elapsed time of the whole scan.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class ScanReport implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final List<PartitionReport> partitions;
+    private final long durationNanos;
+
+    public ScanReport(final List<PartitionReport> partitionsParam, final long durationNanosParam) {
+        PARAM_REQ.Object.requireNotNull(partitionsParam, "The list of partitions must not be null.");
+        PARAM_REQ.Number.requireNotStrictlyNegative(durationNanosParam, "The duration must be zero or positive.");
+        partitions = Collections.unmodifiableList(new ArrayList<PartitionReport>(partitionsParam));
+        durationNanos = durationNanosParam;
+    }
+
+    public List<PartitionReport> getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Returns the total amount of entities read by the scan.
+     *
+     * @return The sum of the counts of all partitions.
+     */
+    public long getCount() {
+        long count = 0;
+        for (final PartitionReport current : partitions) {
+            count += current.getCount();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the elapsed time of the scan.  As partitions are read
+     * concurrently, it is shorter than the sum of their durations.
+     *
+     * @return The elapsed time, in nanoseconds.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Returns the amount of entities read per second by the whole scan.
+     *
+     * @return The throughput, or 0 if the scan took no measurable time.
+     */
+    public double getThroughput() {
+        return durationNanos == 0L ? 0D : getCount() * (double) TimeUnit.SECONDS.toNanos(1L) / durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("ScanReport[partitions=").append(partitions.size())
+                .append(",count=").append(getCount())
+                .append(",durationNanos=").append(durationNanos)
+                .append("]").toString();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import com.googlecode.jbp.common.constants.CompilerWarnings;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * Copier which serializes an entity and deserializes the copy, so the whole
+ * graph of the entity is copied.  Lazy associations which are not
+ * initialized stay uninitialized in the copy, which is detached from any
+ * session.
+ *
+ * @param <T> The class of the copied entities.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class SerializingEntityCopier<T extends Serializable> implements IEntityCopier<T> {
+
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    public T copy(final T entityParam) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final ObjectOutputStream output = new ObjectOutputStream(bytes);
+            output.writeObject(entityParam);
+            output.close();
+            final ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+            try {
+                return (T) input.readObject();
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("The entity " + entityParam + " could not be serialized.", e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("The entity " + entityParam + " could not be deserialized.", e);
+        }
+    }
+}
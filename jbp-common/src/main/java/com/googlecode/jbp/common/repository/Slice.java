@@ -0,0 +1,68 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Class used to return one page of results together with the page that
+ * follows it.  The next page is the continuation token of a walk through all
+ * results: passing it back to the repository returns the following results.
+ *
+ * @param <ID> The type of the entity's identifier.
+ * @param <T>  The type of the entity that is searched for.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class Slice<ID extends Serializable, T extends IIdentifiable<ID>> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final List<T> results;
+    private final Page nextPage;
+
+    /**
+     * Constructor.
+     *
+     * @param resultsParam  The results of the page.  Must not be {@code null}.
+     * @param nextPageParam The page that follows, or {@code null} if there are
+     *                      no more results.
+     */
+    public Slice(final List<T> resultsParam, final Page nextPageParam) {
+        PARAM_REQ.Object.requireNotNull(resultsParam, "The list of results must not be null.");
+        results = Collections.unmodifiableList(resultsParam);
+        nextPage = nextPageParam;
+    }
+
+    public List<T> getResults() {
+        return results;
+    }
+
+    /**
+     * Returns the page that follows this slice.
+     *
+     * @return The next page, or {@code null} if there are no more results.
+     */
+    public Page getNextPage() {
+        return nextPage;
+    }
+
+    public boolean hasNext() {
+        return nextPage != null;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Generic repository decorator which logs the operations slower than their
+ * threshold, with their entity class, page, amount of rows, flushes and the
+ * statements they executed.
+ * <p>
+ * Flushes are reported by the generic repositories of jbp, and statements by
+ * a persistence provider hook such as the {@code SqlCapturingInterceptor} of
+ * Hibernate, through {@link OperationTrace}.  Without such a hook, the
+ * statements are not logged.
+ * </p>
+ * <p>
+ * So that logging cannot slow the application down when many operations are
+ * slow, only a sample of the slow operations is logged, at most at the
+ * maximum log rate.  The others are counted, and their amount is logged with
+ * the next logged operation.  Slow operations are logged as warnings of the
+ * logger of this class.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class SlowOperationLoggingRepository extends AbstractInterceptingGenericRepository {
+
+    private static final transient Logger LOGGER = LoggerFactory.getLogger(SlowOperationLoggingRepository.class);
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    private final long defaultThresholdNanos;
+    private final Map<String, Long> thresholdNanos;
+    private final long logIntervalNanos;
+    private final double sampleRate;
+    private final int maximumStatements;
+    private final Ticker ticker;
+    private final AtomicLong nextLogNanos;
+    private final LongAdder slowCount = new LongAdder();
+    private final LongAdder loggedCount = new LongAdder();
+    private final AtomicLong unloggedCount = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param delegateParam The decorated repository.  Must not be {@code null}.
+     * @param settingsParam The thresholds, log rate and sampling.  Read once,
+     *                      later changes are ignored.  Must not be
+     *                      {@code null}.
+     */
+    public SlowOperationLoggingRepository(final IGenericRepository delegateParam,
+                                          final SlowOperationSettings settingsParam) {
+        super(delegateParam);
+        PARAM_REQ.Object.requireNotNull(settingsParam);
+        defaultThresholdNanos = settingsParam.getDefaultThresholdNanos();
+        thresholdNanos = new HashMap<String, Long>(settingsParam.getThresholdNanos());
+        logIntervalNanos = TimeUnit.SECONDS.toNanos(1L) / settingsParam.getMaximumLogRate();
+        sampleRate = settingsParam.getSampleRate();
+        maximumStatements = settingsParam.getMaximumStatements();
+        ticker = settingsParam.getTicker();
+        nextLogNanos = new AtomicLong(ticker.read());
+    }
+
+    /**
+     * Returns the amount of slow operations, logged or not.
+     */
+    public long getSlowCount() {
+        return slowCount.sum();
+    }
+
+    /**
+     * Returns the amount of logged slow operations.
+     */
+    public long getLoggedCount() {
+        return loggedCount.sum();
+    }
+
+    @Override
+    protected <R> R intercept(final Class<?> entityClassParam, final Page pageParam, final String operationParam,
+                              final Supplier<R> workParam) {
+        final OperationTrace trace = OperationTrace.begin(maximumStatements);
+        if (trace == null) {
+            return workParam.get();
+        }
+        final long start = ticker.read();
+        R result = null;
+        RuntimeException failure = null;
+        try {
+            result = workParam.get();
+            return result;
+        } catch (final RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            final long elapsed = ticker.read() - start;
+            try {
+                if (elapsed > threshold(operationParam)) {
+                    slowCount.increment();
+                    if (shouldLog()) {
+                        loggedCount.increment();
+                        LOGGER.warn(describe(entityClassParam, pageParam, operationParam, elapsed, result, failure,
+                                trace, unloggedCount.getAndSet(0L)));
+                    } else {
+                        unloggedCount.incrementAndGet();
+                    }
+                }
+            } finally {
+                trace.end();
+            }
+        }
+    }
+
+    private long threshold(final String operationParam) {
+        if (thresholdNanos.isEmpty()) {
+            return defaultThresholdNanos;
+        }
+        final Long threshold = thresholdNanos.get(operationParam);
+        return threshold == null ? defaultThresholdNanos : threshold;
+    }
+
+    /**
+     * Decides whether a slow operation is logged: it must be sampled, then
+     * get a permit of the log rate.
+     */
+    private boolean shouldLog() {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        final long now = ticker.read();
+        final long next = nextLogNanos.get();
+        return now - next >= 0L && nextLogNanos.compareAndSet(next, now + logIntervalNanos);
+    }
+
+    static String describe(final Class<?> entityClassParam, final Page pageParam, final String operationParam,
+                           final long elapsedParam, final Object resultParam, final RuntimeException failureParam,
+                           final OperationTrace traceParam, final long unloggedParam) {
+        final String entityName = entityClassParam == null ? RepositoryMetrics.ANY_ENTITY : entityClassParam.getName();
+        final StringBuilder builder = new StringBuilder("Slow repository operation ").append(operationParam)
+                .append(" on ").append(entityName).append(": ").append(millis(elapsedParam)).append(" ms");
+        if (pageParam != null) {
+            builder.append(", ").append(pageParam);
+        }
+        if (failureParam == null) {
+            builder.append(", ").append(RepositoryMetrics.rowCount(resultParam)).append(" rows");
+        } else {
+            builder.append(", failed with ").append(failureParam.getClass().getName());
+        }
+        builder.append(", ").append(traceParam.getFlushCount()).append(" flushes in ")
+                .append(millis(traceParam.getFlushNanos())).append(" ms, ")
+                .append(traceParam.getStatementCount()).append(" statements");
+        if (unloggedParam > 0L) {
+            builder.append(", ").append(unloggedParam).append(" slow operations not logged since the last one");
+        }
+        builder.append('.');
+        for (final String current : traceParam.getStatements()) {
+            builder.append("\n    ").append(current);
+        }
+        final int omitted = traceParam.getStatementCount() - traceParam.getStatements().size();
+        if (omitted > 0) {
+            builder.append("\n    ... ").append(omitted).append(" more");
+        }
+        return builder.toString();
+    }
+
+    private static String millis(final long nanosParam) {
+        return String.format(Locale.ROOT, "%.3f", (double) nanosParam / NANOS_PER_MILLI);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Settings of a {@link SlowOperationLoggingRepository}.  Instances are
+ * created with {@link #newSettings()} and set with chained calls, e.g.:
+ * <p>
+ * {@code SlowOperationSettings.newSettings().threshold("retrieveById", 20, TimeUnit.MILLISECONDS);}
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class SlowOperationSettings {
+
+    /**
+     * The default threshold, in milliseconds, above which an operation is
+     * slow.
+     */
+    public static final long DEFAULT_THRESHOLD_MILLIS = 500L;
+
+    /**
+     * The default maximum amount of slow operations logged per second.
+     */
+    public static final int DEFAULT_MAXIMUM_LOG_RATE = 10;
+
+    /**
+     * The default maximum amount of statements logged per slow operation.
+     */
+    public static final int DEFAULT_MAXIMUM_STATEMENTS = 20;
+
+    /**
+     * Returns a new {@code SlowOperationSettings} instance, with the default
+     * threshold, log rate and amount of statements, and logging every slow
+     * operation the log rate allows.
+     *
+     * @return Returns the new instance.
+     */
+    public static SlowOperationSettings newSettings() {
+        return new SlowOperationSettings();
+    }
+
+    private long defaultThresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_THRESHOLD_MILLIS);
+
+    private final Map<String, Long> thresholdNanos = new HashMap<String, Long>();
+
+    private int maximumLogRate = DEFAULT_MAXIMUM_LOG_RATE;
+
+    private double sampleRate = 1.0;
+
+    private int maximumStatements = DEFAULT_MAXIMUM_STATEMENTS;
+
+    private Ticker ticker = Ticker.SYSTEM;
+
+    private SlowOperationSettings() {
+    }
+
+    /**
+     * Sets the duration above which the operations without a threshold of
+     * their own are slow.
+     *
+     * @param durationParam The duration.  Must not be negative.
+     * @param unitParam     The unit of the duration.  Must not be {@code null}.
+     * @return These settings.
+     */
+    public SlowOperationSettings threshold(final long durationParam, final TimeUnit unitParam) {
+        PARAM_REQ.Number.requirePositive(durationParam, "The duration must not be negative.");
+        PARAM_REQ.Object.requireNotNull(unitParam);
+        defaultThresholdNanos = unitParam.toNanos(durationParam);
+        return this;
+    }
+
+    /**
+     * Sets the duration above which an operation is slow.
+     *
+     * @param operationParam The name of the operation, i.e. of the method of
+     *                       {@link IGenericRepository}, e.g.
+     *                       {@code retrievePage}.  Must not be blank.
+     * @param durationParam  The duration.  Must not be negative.
+     * @param unitParam      The unit of the duration.  Must not be
+     *                       {@code null}.
+     * @return These settings.
+     */
+    public SlowOperationSettings threshold(final String operationParam, final long durationParam,
+                                           final TimeUnit unitParam) {
+        PARAM_REQ.String.requireNotBlank(operationParam);
+        PARAM_REQ.Number.requirePositive(durationParam, "The duration must not be negative.");
+        PARAM_REQ.Object.requireNotNull(unitParam);
+        thresholdNanos.put(operationParam, unitParam.toNanos(durationParam));
+        return this;
+    }
+
+    /**
+     * Sets the maximum amount of slow operations logged per second.  The
+     * slow operations above the rate are counted, but not logged.
+     *
+     * @param maximumLogRateParam The rate.  Must be strictly positive.
+     * @return These settings.
+     */
+    public SlowOperationSettings maximumLogRate(final int maximumLogRateParam) {
+        PARAM_REQ.Number.requireStrictlyPositive(maximumLogRateParam, "The log rate must be strictly positive.");
+        maximumLogRate = maximumLogRateParam;
+        return this;
+    }
+
+    /**
+     * Sets the ratio of slow operations which are logged, before the log
+     * rate applies.
+     *
+     * @param sampleRateParam The ratio.  Must be strictly positive, and at
+     *                        most 1.
+     * @return These settings.
+     */
+    public SlowOperationSettings sampleRate(final double sampleRateParam) {
+        PARAM_REQ.Logic.requireTrue(sampleRateParam > 0.0 && sampleRateParam <= 1.0,
+                "The sample rate must be strictly positive, and at most 1.");
+        sampleRate = sampleRateParam;
+        return this;
+    }
+
+    /**
+     * Sets the maximum amount of statements captured and logged per slow
+     * operation.  The statements after it are counted only.
+     *
+     * @param maximumStatementsParam The amount.  Must not be negative.
+     * @return These settings.
+     */
+    public SlowOperationSettings maximumStatements(final int maximumStatementsParam) {
+        PARAM_REQ.Number.requirePositive(maximumStatementsParam, "The amount of statements must not be negative.");
+        maximumStatements = maximumStatementsParam;
+        return this;
+    }
+
+    SlowOperationSettings ticker(final Ticker tickerParam) {
+        PARAM_REQ.Object.requireNotNull(tickerParam);
+        ticker = tickerParam;
+        return this;
+    }
+
+    public long getDefaultThresholdNanos() {
+        return defaultThresholdNanos;
+    }
+
+    /**
+     * Returns the thresholds of the operations which have their own.
+     *
+     * @return The thresholds in nanoseconds, by operation name.
+     */
+    public Map<String, Long> getThresholdNanos() {
+        return Collections.unmodifiableMap(thresholdNanos);
+    }
+
+    /**
+     * Returns the threshold of an operation.
+     *
+     * @param operationParam The name of the operation.
+     * @return The threshold in nanoseconds.
+     */
+    public long getThresholdNanos(final String operationParam) {
+        final Long threshold = thresholdNanos.get(operationParam);
+        return threshold == null ? defaultThresholdNanos : threshold;
+    }
+
+    public int getMaximumLogRate() {
+        return maximumLogRate;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getMaximumStatements() {
+        return maximumStatements;
+    }
+
+    Ticker getTicker() {
+        return ticker;
+    }
+
+    @Override
+    public String toString() {
+        return "SlowOperationSettings[defaultThresholdNanos=" + defaultThresholdNanos + ",thresholdNanos="
+                + thresholdNanos + ",maximumLogRate=" + maximumLogRate + ",sampleRate=" + sampleRate
+                + ",maximumStatements=" + maximumStatements + "]";
+    }
+}
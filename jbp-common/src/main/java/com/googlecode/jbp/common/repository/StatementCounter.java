@@ -0,0 +1,70 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Counts the statements of repository calls with a statistics source, and
+ * notifies listeners of the statistics of each call.  Shared by the
+ * statement counting decorators of the typed and generic repositories.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+final class StatementCounter {
+
+    private final IStatementStatisticsSource source;
+    private final int nPlusOneLimit;
+    private final List<ICallStatisticsListener> listeners = new CopyOnWriteArrayList<ICallStatisticsListener>();
+    private final ThreadLocal<CallStatistics> lastCall = new ThreadLocal<CallStatistics>();
+
+    StatementCounter(final IStatementStatisticsSource sourceParam, final int nPlusOneLimitParam) {
+        PARAM_REQ.Object.requireNotNull(sourceParam);
+        PARAM_REQ.Number.requireStrictlyPositive(nPlusOneLimitParam, "The N+1 limit must be strictly positive.");
+        source = sourceParam;
+        nPlusOneLimit = nPlusOneLimitParam;
+    }
+
+    void addListener(final ICallStatisticsListener listenerParam) {
+        PARAM_REQ.Object.requireNotNull(listenerParam);
+        listeners.add(listenerParam);
+    }
+
+    void removeListener(final ICallStatisticsListener listenerParam) {
+        listeners.remove(listenerParam);
+    }
+
+    CallStatistics getLastCall() {
+        return lastCall.get();
+    }
+
+    <R> R count(final String operationParam, final Supplier<R> workParam) {
+        final StatementStatistics before = source.snapshot();
+        try {
+            return workParam.get();
+        } finally {
+            final CallStatistics call = new CallStatistics(operationParam, source.snapshot().minus(before), nPlusOneLimit);
+            lastCall.set(call);
+            for (final ICallStatisticsListener current : listeners) {
+                current.onCall(call);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.util.function.Supplier;
+
+/**
+ * Generic repository decorator which counts the statements, loaded entities
+ * and initialized collections of each call, and flags the calls which
+ * execute one statement shape many times as likely N+1 selects, e.g. around
+ * a {@code GenericHibernateRepository} or a {@code GenericJpaRepository}.
+ * <p>
+ * Calls are measured as by {@link StatementCountingRepository}, so the
+ * decorator is meant for tests and for diagnosis too.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class StatementCountingGenericRepository extends AbstractInterceptingGenericRepository {
+
+    private final StatementCounter counter;
+
+    /**
+     * Constructor.  Shapes executed
+     * {@link StatementCountingRepository#DEFAULT_N_PLUS_ONE_LIMIT} times by
+     * one call are suspected N+1 selects.
+     *
+     * @param delegateParam The decorated repository.  Must not be {@code null}.
+     * @param sourceParam   The statistics source.  Must not be {@code null}.
+     */
+    public StatementCountingGenericRepository(final IGenericRepository delegateParam,
+                                              final IStatementStatisticsSource sourceParam) {
+        this(delegateParam, sourceParam, StatementCountingRepository.DEFAULT_N_PLUS_ONE_LIMIT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param delegateParam      The decorated repository.  Must not be
+     *                           {@code null}.
+     * @param sourceParam        The statistics source.  Must not be
+     *                           {@code null}.
+     * @param nPlusOneLimitParam The amount of executions of one shape during
+     *                           one call from which the shape is suspected of
+     *                           being an N+1 select.  Must be strictly
+     *                           positive.
+     */
+    public StatementCountingGenericRepository(final IGenericRepository delegateParam,
+                                              final IStatementStatisticsSource sourceParam,
+                                              final int nPlusOneLimitParam) {
+        super(delegateParam);
+        counter = new StatementCounter(sourceParam, nPlusOneLimitParam);
+    }
+
+    /**
+     * Registers a listener notified of the statistics of each call.
+     *
+     * @param listenerParam The listener.  Must not be {@code null}.
+     */
+    public void addListener(final ICallStatisticsListener listenerParam) {
+        counter.addListener(listenerParam);
+    }
+
+    public void removeListener(final ICallStatisticsListener listenerParam) {
+        counter.removeListener(listenerParam);
+    }
+
+    /**
+     * Returns the statistics of the last call of the current thread.
+     *
+     * @return The statistics, or {@code null} if the current thread made no
+     *         call yet.
+     */
+    public CallStatistics getLastCall() {
+        return counter.getLastCall();
+    }
+
+    @Override
+    protected <R> R intercept(final Class<?> entityClassParam, final Page pageParam, final String operationParam,
+                              final Supplier<R> workParam) {
+        return counter.count(operationParam, workParam);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Listener which records the statistics of repository calls, so that tests
+ * can cap the statements the calls execute:
+ * <pre>
+ * final StatementRecorder recorder = new StatementRecorder();
+ * repository.addListener(recorder);
+ * repository.retrieveAll(QueryOptions.newOptions().fetchPlan(FetchPlan.newPlan().join("customer")));
+ * recorder.assertStatementCountAtMost(1).assertNoLikelyNPlusOne();
+ * </pre>
+ * The assertions throw {@code AssertionError}s, which every test framework
+ * reports as failures.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class StatementRecorder implements ICallStatisticsListener {
+
+    private final List<CallStatistics> calls = new ArrayList<CallStatistics>();
+
+    public synchronized void onCall(final CallStatistics callStatisticsParam) {
+        PARAM_REQ.Object.requireNotNull(callStatisticsParam);
+        calls.add(callStatisticsParam);
+    }
+
+    /**
+     * Returns the recorded calls.
+     *
+     * @return The calls, in the order they ended.
+     */
+    public synchronized List<CallStatistics> getCalls() {
+        return new ArrayList<CallStatistics>(calls);
+    }
+
+    /**
+     * Returns the amount of statements of all recorded calls.
+     *
+     * @return The total amount of statements.
+     */
+    public synchronized long getStatementCount() {
+        long count = 0L;
+        for (final CallStatistics current : calls) {
+            count += current.getStatementCount();
+        }
+        return count;
+    }
+
+    /**
+     * Forgets the recorded calls.
+     *
+     * @return This recorder.
+     */
+    public synchronized StatementRecorder reset() {
+        calls.clear();
+        return this;
+    }
+
+    /**
+     * Asserts that the recorded calls executed at most the specified amount
+     * of statements altogether.
+     *
+     * @param maxParam The maximum amount of statements.
+     * @return This recorder.
+     * @throws AssertionError If more statements were executed.
+     */
+    public synchronized StatementRecorder assertStatementCountAtMost(final long maxParam) {
+        final long count = getStatementCount();
+        if (count > maxParam) {
+            throw new AssertionError("Expected at most " + maxParam + " statements, but " + count
+                    + " were executed by " + calls + ".");
+        }
+        return this;
+    }
+
+    /**
+     * Asserts that each recorded call executed at most the specified amount
+     * of statements.
+     *
+     * @param maxParam The maximum amount of statements of a call.
+     * @return This recorder.
+     * @throws AssertionError If a call executed more statements.
+     */
+    public synchronized StatementRecorder assertStatementCountPerCallAtMost(final long maxParam) {
+        for (final CallStatistics current : calls) {
+            if (current.getStatementCount() > maxParam) {
+                throw new AssertionError("Expected at most " + maxParam + " statements per call, but "
+                        + current.getStatementCount() + " were executed by " + current + ".");
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Asserts that no recorded call is a likely N+1 select.
+     *
+     * @return This recorder.
+     * @throws AssertionError If a call executed a shape too many times.
+     */
+    public synchronized StatementRecorder assertNoLikelyNPlusOne() {
+        for (final CallStatistics current : calls) {
+            if (current.isLikelyNPlusOne()) {
+                throw new AssertionError("Likely N+1 select in " + current.getOperation() + ": "
+                        + current.getSuspectedShapes() + ".");
+            }
+        }
+        return this;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Snapshot of the statements a persistence provider executed, or difference
+ * between two snapshots.
+ * <p>
+ * Besides the totals, the executions are counted by shape: a shape is a
+ * query string, or the fetch of an entity or collection by its own select.
+ * One shape executed many times by a single repository call is the mark of
+ * an N+1 select.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class StatementStatistics implements Serializable {
+
+    /**
+     * The statistics of no statement.
+     */
+    public static final StatementStatistics EMPTY = new StatementStatistics(0L, 0L, 0L, Collections.<String, Long>emptyMap());
+
+    private static final long serialVersionUID = 1L;
+    private final long statementCount;
+    private final long entityLoadCount;
+    private final long collectionLoadCount;
+    private final Map<String, Long> executionsByShape;
+
+    /**
+     * Constructor.
+     *
+     * @param statementCountParam      The amount of statements prepared.
+     * @param entityLoadCountParam     The amount of entities loaded.
+     * @param collectionLoadCountParam The amount of collections initialized.
+     * @param executionsByShapeParam   The amount of executions by shape.  Must
+     *                                 not be {@code null}.
+     */
+    public StatementStatistics(final long statementCountParam, final long entityLoadCountParam,
+                               final long collectionLoadCountParam, final Map<String, Long> executionsByShapeParam) {
+        PARAM_REQ.Object.requireNotNull(executionsByShapeParam);
+        statementCount = statementCountParam;
+        entityLoadCount = entityLoadCountParam;
+        collectionLoadCount = collectionLoadCountParam;
+        executionsByShape = Collections.unmodifiableMap(new LinkedHashMap<String, Long>(executionsByShapeParam));
+    }
+
+    public long getStatementCount() {
+        return statementCount;
+    }
+
+    public long getEntityLoadCount() {
+        return entityLoadCount;
+    }
+
+    public long getCollectionLoadCount() {
+        return collectionLoadCount;
+    }
+
+    public Map<String, Long> getExecutionsByShape() {
+        return executionsByShape;
+    }
+
+    /**
+     * Returns what was executed since the specified snapshot.  Shapes which
+     * were not executed in between are left out.
+     *
+     * @param beforeParam The earlier snapshot.  Must not be {@code null}.
+     * @return The difference.
+     */
+    public StatementStatistics minus(final StatementStatistics beforeParam) {
+        PARAM_REQ.Object.requireNotNull(beforeParam);
+        final Map<String, Long> executions = new LinkedHashMap<String, Long>();
+        for (final Map.Entry<String, Long> current : executionsByShape.entrySet()) {
+            final Long before = beforeParam.executionsByShape.get(current.getKey());
+            final long delta = current.getValue() - (before == null ? 0L : before);
+            if (delta > 0L) {
+                executions.put(current.getKey(), delta);
+            }
+        }
+        return new StatementStatistics(statementCount - beforeParam.statementCount,
+                entityLoadCount - beforeParam.entityLoadCount,
+                collectionLoadCount - beforeParam.collectionLoadCount, executions);
+    }
+
+    @Override
+    public String toString() {
+        return "StatementStatistics[statementCount=" + statementCount + ",entityLoadCount=" + entityLoadCount
+                + ",collectionLoadCount=" + collectionLoadCount + ",executionsByShape=" + executionsByShape + "]";
+    }
+}
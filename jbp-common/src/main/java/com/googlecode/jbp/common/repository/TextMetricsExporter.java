@@ -0,0 +1,161 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Exporter which writes the metrics as plain text, in the exposition format
+ * of Prometheus, e.g. to be served by an HTTP endpoint or written to a log.
+ * <p>
+ * Each operation is exported as a summary of its latency, in seconds, with
+ * the 50th, 90th, 99th and 99.9th percentiles, and as counters of its calls,
+ * errors and rows, labelled with the entity and operation names.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class TextMetricsExporter implements IMetricsExporter {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+    private final String prefix;
+    private volatile RepositoryMetrics metrics;
+
+    /**
+     * Constructor.  The names of the metrics start with
+     * {@code jbp_repository}.
+     */
+    public TextMetricsExporter() {
+        this("jbp_repository");
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param prefixParam The prefix of the names of the metrics.  Must match
+     *                    {@code [a-zA-Z_][a-zA-Z0-9_]*}.
+     */
+    public TextMetricsExporter(final String prefixParam) {
+        PARAM_REQ.Object.requireNotNull(prefixParam);
+        PARAM_REQ.Logic.requireTrue(prefixParam.matches("[a-zA-Z_][a-zA-Z0-9_]*"),
+                "The prefix must be a valid metric name.");
+        prefix = prefixParam;
+    }
+
+    public void start(final RepositoryMetrics metricsParam) {
+        metrics = metricsParam;
+    }
+
+    public void stop() {
+        metrics = null;
+    }
+
+    /**
+     * Writes the current metrics.
+     *
+     * @param outParam Where to write the metrics.  Must not be {@code null}.
+     * @throws IOException          If writing fails.
+     * @throws IllegalStateException If the exporter is not started.
+     */
+    public void write(final Appendable outParam) throws IOException {
+        PARAM_REQ.Object.requireNotNull(outParam);
+        final RepositoryMetrics current = metrics;
+        if (current == null) {
+            throw new IllegalStateException("The exporter is not started.");
+        }
+        final List<OperationStats> stats = current.snapshot();
+        final String metricsName = escape(current.getName());
+        outParam.append("# HELP ").append(prefix).append("_latency_seconds Latency of the repository operations.\n");
+        outParam.append("# TYPE ").append(prefix).append("_latency_seconds summary\n");
+        for (final OperationStats operation : stats) {
+            final String labels = labels(metricsName, operation);
+            final LatencySnapshot latency = operation.getLatency();
+            for (final double quantile : QUANTILES) {
+                outParam.append(prefix).append("_latency_seconds{").append(labels).append(",quantile=\"")
+                        .append(Double.toString(quantile)).append("\"} ")
+                        .append(seconds(latency.getValueAtPercentile(quantile * 100.0))).append('\n');
+            }
+            outParam.append(prefix).append("_latency_seconds_sum{").append(labels).append("} ")
+                    .append(seconds(latency.getTotalNanos())).append('\n');
+            outParam.append(prefix).append("_latency_seconds_count{").append(labels).append("} ")
+                    .append(Long.toString(latency.getCount())).append('\n');
+        }
+        writeSamples(outParam, stats, metricsName, "latency_max_seconds",
+                "Longest latency of the repository operations.", "gauge", operation -> seconds(operation.getLatency().getMaxNanos()));
+        writeSamples(outParam, stats, metricsName, "calls_total", "Calls of the repository operations.", "counter",
+                operation -> Long.toString(operation.getCallCount()));
+        writeSamples(outParam, stats, metricsName, "errors_total", "Failed calls of the repository operations.",
+                "counter", operation -> Long.toString(operation.getErrorCount()));
+        writeSamples(outParam, stats, metricsName, "rows_total",
+                "Entities or rows returned or affected by the repository operations.", "counter",
+                operation -> Long.toString(operation.getRowCount()));
+    }
+
+    /**
+     * Returns the current metrics.
+     *
+     * @return The metrics, as text.
+     * @throws IllegalStateException If the exporter is not started.
+     */
+    public String expose() {
+        final StringBuilder builder = new StringBuilder();
+        try {
+            write(builder);
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+
+    private void writeSamples(final Appendable outParam, final List<OperationStats> statsParam,
+                              final String metricsNameParam, final String nameParam, final String helpParam,
+                              final String typeParam, final Function<OperationStats, String> valueParam)
+            throws IOException {
+        writeHeader(outParam, nameParam, helpParam, typeParam);
+        for (final OperationStats operation : statsParam) {
+            outParam.append(prefix).append('_').append(nameParam).append('{')
+                    .append(labels(metricsNameParam, operation)).append("} ").append(valueParam.apply(operation))
+                    .append('\n');
+        }
+    }
+
+    private void writeHeader(final Appendable outParam, final String nameParam, final String helpParam,
+                             final String typeParam) throws IOException {
+        outParam.append("# HELP ").append(prefix).append('_').append(nameParam).append(' ').append(helpParam)
+                .append('\n');
+        outParam.append("# TYPE ").append(prefix).append('_').append(nameParam).append(' ').append(typeParam)
+                .append('\n');
+    }
+
+    private static String labels(final String metricsNameParam, final OperationStats operationParam) {
+        return "metrics=\"" + metricsNameParam + "\",entity=\"" + escape(operationParam.getEntityName())
+                + "\",operation=\"" + escape(operationParam.getOperation()) + "\"";
+    }
+
+    private static String seconds(final long nanosParam) {
+        return String.format(Locale.ROOT, "%.9f", nanosParam / NANOS_PER_SECOND);
+    }
+
+    private static String escape(final String valueParam) {
+        return valueParam.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
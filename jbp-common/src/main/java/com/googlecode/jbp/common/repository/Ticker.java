@@ -0,0 +1,41 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+/**
+ * Source of the time used by caches to expire and refresh entries, replaced
+ * in tests.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+interface Ticker {
+
+    /**
+     * Reads the system's high resolution time source.
+     */
+    Ticker SYSTEM = new Ticker() {
+        public long read() {
+            return System.nanoTime();
+        }
+    };
+
+    /**
+     * Returns the current time.
+     *
+     * @return The time, in nanoseconds, from an arbitrary origin.
+     */
+    long read();
+}
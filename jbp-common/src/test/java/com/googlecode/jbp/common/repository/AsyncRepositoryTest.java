@@ -0,0 +1,104 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Tests of {@link AsyncRepository}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class AsyncRepositoryTest {
+
+    private InMemoryRepository delegate;
+    private AtomicInteger unitsOfWork;
+    private AsyncRepository<Long, SampleEntity> repository;
+
+    @BeforeMethod
+    public void setUp() {
+        delegate = new InMemoryRepository();
+        delegate.create(new SampleEntity(null, "entity1"));
+        unitsOfWork = new AtomicInteger();
+        repository = new AsyncRepository<Long, SampleEntity>(new IRepositoryScope<Long, SampleEntity>() {
+            public <R> R execute(final Function<IRepository<Long, SampleEntity>, R> workParam) {
+                unitsOfWork.incrementAndGet();
+                return workParam.apply(delegate);
+            }
+        });
+    }
+
+    @Test
+    public void testOperationsRunInTheirOwnUnitOfWork() throws Exception {
+        final CompletableFuture<SampleEntity> created = repository.create(new SampleEntity(null, "entity2"));
+        final CompletableFuture<SampleEntity> retrieved = repository.retrieveById(1L);
+        Assert.assertEquals(retrieved.get(5L, TimeUnit.SECONDS).getName(), "entity1");
+        Assert.assertEquals(created.get(5L, TimeUnit.SECONDS).getId(), Long.valueOf(2L));
+        repository.delete(1L).get(5L, TimeUnit.SECONDS);
+        Assert.assertFalse(repository.exists(1L).get(5L, TimeUnit.SECONDS));
+        Assert.assertEquals(unitsOfWork.get(), 4);
+    }
+
+    @Test
+    public void testFailuresCompleteTheFuture() throws Exception {
+        try {
+            repository.execute(r -> r.retrieveSlice(Page.newPage().maxResults(10))).get(5L, TimeUnit.SECONDS);
+            Assert.fail("The future should have failed.");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof UnsupportedOperationException);
+        }
+    }
+
+    @Test
+    public void testBoundedExecutorRejectsTasksBeyondItsQueue() throws Exception {
+        final ExecutorService executor = AsyncRepository.newBoundedExecutor(1, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            final Runnable blocked = new Runnable() {
+                public void run() {
+                    try {
+                        release.await(5L, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            executor.execute(blocked);
+            executor.execute(blocked);
+            try {
+                executor.execute(blocked);
+                Assert.fail("The task should have been rejected.");
+            } catch (RejectedExecutionException e) {
+                // Expected.
+            }
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        Assert.assertTrue(executor.awaitTermination(5L, TimeUnit.SECONDS));
+    }
+}
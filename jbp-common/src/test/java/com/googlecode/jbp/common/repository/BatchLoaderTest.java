@@ -0,0 +1,77 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests of {@link BatchLoader}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class BatchLoaderTest {
+
+    private InMemoryRepository repository;
+
+    @BeforeMethod
+    public void setUp() {
+        repository = new InMemoryRepository();
+        for (int i = 1; i <= 10; i++) {
+            repository.create(new SampleEntity(null, "entity" + i));
+        }
+    }
+
+    @Test
+    public void testRequestsAreRetrievedTogether() {
+        final BatchLoader<Long, SampleEntity> loader = new BatchLoader<Long, SampleEntity>(repository);
+        final Deferred<SampleEntity> first = loader.load(1L);
+        final Deferred<SampleEntity> unknown = loader.load(1000L);
+        final Deferred<SampleEntity> third = loader.load(3L);
+        Assert.assertSame(loader.load(3L), third);
+        Assert.assertFalse(first.isResolved());
+        Assert.assertEquals(repository.getRetrieveMapByIdsCount(), 0);
+        Assert.assertEquals(third.get().getName(), "entity3");
+        Assert.assertTrue(first.isResolved());
+        Assert.assertEquals(first.get().getName(), "entity1");
+        Assert.assertNull(unknown.get());
+        Assert.assertEquals(repository.getRetrieveMapByIdsCount(), 1);
+        Assert.assertSame(loader.retrieveById(1L), first.get());
+        Assert.assertEquals(repository.getRetrieveMapByIdsCount(), 1);
+    }
+
+    @Test
+    public void testBatchesAreLimited() {
+        final BatchLoader<Long, SampleEntity> loader = new BatchLoader<Long, SampleEntity>(repository, 2);
+        for (long i = 1L; i <= 5L; i++) {
+            loader.load(i);
+        }
+        loader.dispatch();
+        Assert.assertEquals(loader.getBatchCount(), 3);
+        Assert.assertEquals(repository.getRetrieveMapByIdsCount(), 3);
+    }
+
+    @Test
+    public void testClearedEntitiesAreRetrievedAgain() {
+        final BatchLoader<Long, SampleEntity> loader = new BatchLoader<Long, SampleEntity>(repository);
+        loader.retrieveById(1L);
+        repository.replace(new SampleEntity(1L, "changed"));
+        loader.clear(1L);
+        Assert.assertEquals(loader.retrieveById(1L).getName(), "changed");
+        Assert.assertEquals(repository.getRetrieveMapByIdsCount(), 2);
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Tests of {@link CachingRepository}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class CachingRepositoryTest {
+
+    private InMemoryRepository delegate;
+    private FakeTicker ticker;
+
+    @BeforeMethod
+    public void setUp() {
+        delegate = new InMemoryRepository();
+        for (int i = 1; i <= 50; i++) {
+            delegate.create(new SampleEntity(null, "entity" + i));
+        }
+        ticker = new FakeTicker();
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        final CachingRepository<Long, SampleEntity> repository = newRepository(CacheSettings.newSettings());
+        Assert.assertEquals(repository.retrieveById(1L).getName(), "entity1");
+        Assert.assertEquals(repository.retrieveById(1L).getName(), "entity1");
+        Assert.assertNull(repository.retrieveById(1000L));
+        Assert.assertNull(repository.retrieveById(1000L));
+        Assert.assertEquals(delegate.getRetrieveByIdCount(), 3);
+        final CacheStats stats = repository.getStats();
+        Assert.assertEquals(stats.getHitCount(), 1L);
+        Assert.assertEquals(stats.getMissCount(), 3L);
+        Assert.assertEquals(repository.getSize(), 1);
+    }
+
+    @Test
+    public void testWritesInvalidate() {
+        final CachingRepository<Long, SampleEntity> repository = newRepository(CacheSettings.newSettings());
+        repository.retrieveById(1L);
+        repository.update(new SampleEntity(1L, "changed"));
+        Assert.assertEquals(repository.retrieveById(1L).getName(), "changed");
+        repository.delete(1L);
+        Assert.assertNull(repository.retrieveById(1L));
+        repository.retrieveById(2L);
+        repository.retrieveById(3L);
+        repository.deleteAll();
+        Assert.assertEquals(repository.getSize(), 0);
+        Assert.assertNull(repository.retrieveById(2L));
+    }
+
+    @Test
+    public void testHitsShareTheCachedEntity() {
+        final CachingRepository<Long, SampleEntity> repository = newRepository(CacheSettings.newSettings());
+        final SampleEntity loaded = repository.retrieveById(1L);
+        loaded.setName("changed by the loading caller");
+        final SampleEntity first = repository.retrieveById(1L);
+        Assert.assertEquals(first.getName(), "entity1");
+        Assert.assertSame(repository.retrieveMapByIds(Arrays.asList(1L)).get(1L), first);
+        Assert.assertSame(repository.retrieveById(1L), first);
+    }
+
+    @Test
+    public void testHitsReturnCopies() {
+        final CachingRepository<Long, SampleEntity> repository = newRepository(CacheSettings.newSettings().copyOnRead());
+        final SampleEntity loaded = repository.retrieveById(1L);
+        loaded.setName("changed by the loading caller");
+        final SampleEntity first = repository.retrieveById(1L);
+        final SampleEntity second = repository.retrieveMapByIds(Arrays.asList(1L)).get(1L);
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(first.getName(), "entity1");
+        first.setName("changed by a caller");
+        Assert.assertEquals(second.getName(), "entity1");
+        Assert.assertEquals(repository.retrieveById(1L).getName(), "entity1");
+        Assert.assertEquals(delegate.getRetrieveByIdCount(), 1);
+    }
+
+    @Test
+    public void testWritesInvalidateAgainAfterCompletion() {
+        final List<Runnable> pending = new ArrayList<Runnable>();
+        final CachingRepository<Long, SampleEntity> repository = new CachingRepository<Long, SampleEntity>(delegate,
+                CacheSettings.newSettings().ticker(ticker), new IWeigher<SampleEntity>() {
+                    public int weigh(final SampleEntity entityParam) {
+                        return 1;
+                    }
+                }, new SerializingEntityCopier<SampleEntity>(), new ITransactionHooks() {
+                    public void afterCompletion(final Runnable actionParam) {
+                        pending.add(actionParam);
+                    }
+                });
+        repository.retrieveById(1L);
+        repository.delete(1L);
+        // Another thread reloads the row before the deletion is committed.
+        delegate.replace(new SampleEntity(1L, "entity1"));
+        Assert.assertEquals(repository.retrieveById(1L).getName(), "entity1");
+        Assert.assertEquals(pending.size(), 1);
+        delegate.delete(1L);
+        pending.get(0).run();
+        Assert.assertNull(repository.retrieveById(1L));
+    }
+
+    @Test
+    public void testPartialHitsAreLoadedTogether() {
+        final CachingRepository<Long, SampleEntity> repository = newRepository(CacheSettings.newSettings());
+        repository.retrieveById(2L);
+        final Map<Long, SampleEntity> entities = repository.retrieveMapByIds(Arrays.asList(3L, 2L, 1000L, 1L));
+        Assert.assertEquals(entities.keySet().toArray(), new Object[]{3L, 2L, 1L});
+        Assert.assertEquals(delegate.getRetrieveMapByIdsCount(), 1);
+        repository.retrieveMapByIds(Arrays.asList(1L, 2L, 3L));
+        Assert.assertEquals(delegate.getRetrieveMapByIdsCount(), 1);
+    }
+
+    @Test
+    public void testEntitiesHeavierThanTheCacheAreNotCached() {
+        final CachingRepository<Long, SampleEntity> repository = new CachingRepository<Long, SampleEntity>(delegate,
+                CacheSettings.newSettings().maximumWeight(20L), new IWeigher<SampleEntity>() {
+                    public int weigh(final SampleEntity entityParam) {
+                        return entityParam.getName().length();
+                    }
+                });
+        delegate.replace(new SampleEntity(1L, "a name longer than twenty characters"));
+        repository.retrieveById(1L);
+        repository.retrieveById(1L);
+        Assert.assertEquals(delegate.getRetrieveByIdCount(), 2);
+        for (long i = 2L; i <= 10L; i++) {
+            repository.retrieveById(i);
+        }
+        Assert.assertTrue(repository.getWeightedSize() <= 20L);
+        Assert.assertTrue(repository.getStats().getEvictionWeight() > 0L);
+    }
+
+    @Test
+    public void testFrequentEntitiesSurviveAScan() {
+        final CachingRepository<Long, SampleEntity> repository = newRepository(CacheSettings.newSettings().maximumWeight(10L));
+        for (int round = 0; round < 5; round++) {
+            for (long i = 1L; i <= 10L; i++) {
+                repository.retrieveById(i);
+            }
+        }
+        for (long i = 11L; i <= 50L; i++) {
+            repository.retrieveById(i);
+        }
+        final int loadsBefore = delegate.getRetrieveByIdCount();
+        for (long i = 1L; i <= 10L; i++) {
+            repository.retrieveById(i);
+        }
+        Assert.assertTrue(delegate.getRetrieveByIdCount() - loadsBefore <= 2);
+    }
+
+    @Test
+    public void testExpiration() {
+        final CachingRepository<Long, SampleEntity> repository = newRepository(CacheSettings.newSettings()
+                .expireAfterWrite(10L, TimeUnit.SECONDS));
+        repository.retrieveById(1L);
+        ticker.advance(9L, TimeUnit.SECONDS);
+        repository.retrieveById(1L);
+        Assert.assertEquals(delegate.getRetrieveByIdCount(), 1);
+        ticker.advance(2L, TimeUnit.SECONDS);
+        repository.retrieveById(1L);
+        Assert.assertEquals(delegate.getRetrieveByIdCount(), 2);
+        Assert.assertEquals(repository.getStats().getExpirationCount(), 1L);
+    }
+
+    @Test
+    public void testRefreshRunsInTheBackground() {
+        final List<Runnable> refreshes = new ArrayList<Runnable>();
+        final CachingRepository<Long, SampleEntity> repository = new CachingRepository<Long, SampleEntity>(delegate,
+                CacheSettings.newSettings().ticker(ticker).expireAfterWrite(10L, TimeUnit.SECONDS)
+                        .refreshAfterWrite(5L, TimeUnit.SECONDS), new IWeigher<SampleEntity>() {
+                    public int weigh(final SampleEntity entityParam) {
+                        return 1;
+                    }
+                }, new SerializingEntityCopier<SampleEntity>(), ITransactionHooks.IMMEDIATE,
+                new IRepositoryScope<Long, SampleEntity>() {
+                    public <R> R execute(final Function<IRepository<Long, SampleEntity>, R> workParam) {
+                        return workParam.apply(delegate);
+                    }
+                }, new Executor() {
+                    public void execute(final Runnable commandParam) {
+                        refreshes.add(commandParam);
+                    }
+                });
+        repository.retrieveById(1L);
+        delegate.replace(new SampleEntity(1L, "changed"));
+        ticker.advance(6L, TimeUnit.SECONDS);
+        // The stale entity is returned while it is reloaded, and reloaded once.
+        Assert.assertEquals(repository.retrieveById(1L).getName(), "entity1");
+        Assert.assertEquals(repository.retrieveMapByIds(Arrays.asList(1L)).get(1L).getName(), "entity1");
+        Assert.assertEquals(refreshes.size(), 1);
+        refreshes.remove(0).run();
+        Assert.assertEquals(repository.retrieveById(1L).getName(), "changed");
+        ticker.advance(6L, TimeUnit.SECONDS);
+        repository.retrieveById(1L);
+        refreshes.remove(0).run();
+        Assert.assertEquals(delegate.getRetrieveByIdCount(), 1);
+        Assert.assertEquals(delegate.getRetrieveMapByIdsCount(), 2);
+        Assert.assertEquals(repository.getStats().getRefreshCount(), 2L);
+        Assert.assertEquals(repository.getStats().getExpirationCount(), 0L);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testRefreshRequiresAScope() {
+        newRepository(CacheSettings.newSettings().refreshAfterWrite(5L, TimeUnit.SECONDS));
+    }
+
+    private CachingRepository<Long, SampleEntity> newRepository(final CacheSettings settingsParam) {
+        return new CachingRepository<Long, SampleEntity>(delegate, settingsParam.ticker(ticker));
+    }
+
+    private static final class FakeTicker implements Ticker {
+        private long nanos = 0L;
+
+        public long read() {
+            return nanos;
+        }
+
+        void advance(final long durationParam, final TimeUnit unitParam) {
+            nanos += unitParam.toNanos(durationParam);
+        }
+    }
+}
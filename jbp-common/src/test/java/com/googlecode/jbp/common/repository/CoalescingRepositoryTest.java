@@ -0,0 +1,182 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Tests of {@link CoalescingRepository}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class CoalescingRepositoryTest {
+
+    private static final int THREADS = 8;
+    private static final long TIMEOUT_MILLIS = 5000L;
+
+    private InMemoryRepository delegate;
+    private BlockingRepository store;
+    private AtomicInteger unitsOfWork;
+    private AtomicInteger openUnitsOfWork;
+    private IRepositoryScope<Long, SampleEntity> scope;
+
+    @BeforeMethod
+    public void setUp() {
+        delegate = new InMemoryRepository();
+        store = new BlockingRepository();
+        unitsOfWork = new AtomicInteger();
+        openUnitsOfWork = new AtomicInteger();
+        scope = new IRepositoryScope<Long, SampleEntity>() {
+            public <R> R execute(final Function<IRepository<Long, SampleEntity>, R> workParam) {
+                unitsOfWork.incrementAndGet();
+                openUnitsOfWork.incrementAndGet();
+                try {
+                    return workParam.apply(store);
+                } finally {
+                    openUnitsOfWork.decrementAndGet();
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testConcurrentRetrievalsShareOneLoad() throws Exception {
+        assertConcurrentRetrievalsShareOneLoad(new CoalescingRepository<Long, SampleEntity>(store));
+    }
+
+    @Test
+    public void testConcurrentRetrievalsShareOneLoadInItsOwnUnitOfWork() throws Exception {
+        assertConcurrentRetrievalsShareOneLoad(new CoalescingRepository<Long, SampleEntity>(delegate, scope));
+    }
+
+    @Test
+    public void testLoadsRunOnTheCallersRepository() {
+        store.release.countDown();
+        final CoalescingRepository<Long, SampleEntity> repository = new CoalescingRepository<Long, SampleEntity>(
+                store);
+        final SampleEntity entity = repository.retrieveById(1L);
+        Assert.assertEquals(entity.getName(), "entity");
+        Assert.assertSame(entity, store.retrieveById(1L), "The caller must receive the instance of its session.");
+        Assert.assertEquals(unitsOfWork.get(), 0);
+        Assert.assertSame(store.loadingThread, Thread.currentThread());
+    }
+
+    @Test
+    public void testLoadsRunInTheirOwnUnitOfWork() {
+        store.release.countDown();
+        final CoalescingRepository<Long, SampleEntity> repository = new CoalescingRepository<Long, SampleEntity>(
+                delegate, scope);
+        final SampleEntity entity = repository.retrieveById(1L);
+        Assert.assertEquals(entity.getName(), "entity");
+        Assert.assertEquals(delegate.getRetrieveByIdCount(), 0, "The session of the caller must not be used.");
+        Assert.assertEquals(unitsOfWork.get(), 1);
+        Assert.assertEquals(openUnitsOfWork.get(), 0, "The entity must be handed out once detached.");
+        Assert.assertNotSame(store.loadingThread, Thread.currentThread());
+    }
+
+    @Test
+    public void testWaitingTimesOut() throws Exception {
+        final CoalescingRepository<Long, SampleEntity> repository = new CoalescingRepository<Long, SampleEntity>(
+                delegate, scope, 10L, TimeUnit.MILLISECONDS);
+        try {
+            repository.retrieveById(1L);
+            Assert.fail("The wait should have timed out.");
+        } catch (LoadTimeoutException e) {
+            // Expected.
+        } finally {
+            store.release.countDown();
+        }
+    }
+
+    private void assertConcurrentRetrievalsShareOneLoad(final CoalescingRepository<Long, SampleEntity> repositoryParam)
+            throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<SampleEntity>> results = new ArrayList<Future<SampleEntity>>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(new Callable<SampleEntity>() {
+                    public SampleEntity call() {
+                        return repositoryParam.retrieveById(1L);
+                    }
+                }));
+            }
+            Assert.assertTrue(store.loading.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), "The load did not start.");
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+            while (repositoryParam.getCoalescedCount() < THREADS - 1) {
+                Assert.assertTrue(System.nanoTime() - deadline < 0L, "Only " + repositoryParam.getCoalescedCount()
+                        + " retrievals were coalesced.");
+                Thread.sleep(1L);
+            }
+            store.release.countDown();
+            // Every thread receives its own instance.
+            final Set<SampleEntity> instances = Collections.newSetFromMap(new IdentityHashMap<SampleEntity, Boolean>());
+            for (final Future<SampleEntity> current : results) {
+                final SampleEntity entity = current.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                Assert.assertEquals(entity.getName(), "entity");
+                instances.add(entity);
+            }
+            Assert.assertEquals(instances.size(), THREADS);
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(store.getRetrieveByIdCount(), 1);
+        Assert.assertEquals(repositoryParam.getLoadCount(), 1L);
+        Assert.assertEquals(repositoryParam.getLoadsInProgress(), 0);
+        repositoryParam.retrieveById(1L);
+        Assert.assertEquals(store.getRetrieveByIdCount(), 2);
+    }
+
+    /**
+     * Repository whose retrievals by identifier block until released.
+     */
+    private static final class BlockingRepository extends InMemoryRepository {
+        private final CountDownLatch loading = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile Thread loadingThread;
+
+        private BlockingRepository() {
+            create(new SampleEntity(null, "entity"));
+        }
+
+        @Override
+        public SampleEntity retrieveById(final Long id) {
+            loadingThread = Thread.currentThread();
+            loading.countDown();
+            try {
+                release.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.retrieveById(id);
+        }
+    }
+}
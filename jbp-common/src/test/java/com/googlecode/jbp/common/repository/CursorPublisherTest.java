@@ -0,0 +1,122 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+/**
+ * Tests of {@link CursorPublisher}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class CursorPublisherTest {
+
+    private InMemoryRepository repository;
+
+    @BeforeMethod
+    public void setUp() {
+        repository = new InMemoryRepository();
+        for (int i = 1; i <= 5; i++) {
+            repository.create(new SampleEntity(null, "entity" + i));
+        }
+    }
+
+    @Test
+    public void testEntitiesArePublishedOnDemand() {
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        CursorPublisher.publishAll(repository, 2).subscribe(subscriber);
+        Assert.assertTrue(subscriber.received.isEmpty());
+        subscriber.subscription.request(2L);
+        Assert.assertEquals(subscriber.received.size(), 2);
+        subscriber.subscription.request(2L);
+        Assert.assertEquals(subscriber.received.size(), 4);
+        Assert.assertFalse(subscriber.completed);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        Assert.assertEquals(subscriber.received.size(), 5);
+        Assert.assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void testCancellationClosesTheCursor() {
+        final List<Boolean> closed = new ArrayList<Boolean>();
+        final CursorPublisher<SampleEntity> publisher = new CursorPublisher<SampleEntity>(fetchSize -> {
+            final ICloseableIterator<SampleEntity> cursor = repository.iterateAll(fetchSize);
+            return new ICloseableIterator<SampleEntity>() {
+                public boolean hasNext() {
+                    return cursor.hasNext();
+                }
+
+                public SampleEntity next() {
+                    return cursor.next();
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+
+                public void close() {
+                    closed.add(Boolean.TRUE);
+                    cursor.close();
+                }
+            };
+        }, 2);
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(1L);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(1L);
+        Assert.assertEquals(subscriber.received.size(), 1);
+        Assert.assertEquals(closed.size(), 1);
+        Assert.assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testInvalidRequestsFail() {
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        CursorPublisher.publishAll(repository, 2).subscribe(subscriber);
+        subscriber.subscription.request(0L);
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    private static final class RecordingSubscriber implements Flow.Subscriber<SampleEntity> {
+        private final List<SampleEntity> received = new ArrayList<SampleEntity>();
+        private Flow.Subscription subscription;
+        private boolean completed = false;
+        private Throwable error;
+
+        public void onSubscribe(final Flow.Subscription subscriptionParam) {
+            subscription = subscriptionParam;
+        }
+
+        public void onNext(final SampleEntity itemParam) {
+            received.add(itemParam);
+        }
+
+        public void onError(final Throwable throwableParam) {
+            error = throwableParam;
+        }
+
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+/**
+ * Tests of {@link FetchPlan}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class FetchPlanTest {
+
+    @Test
+    public void testEmpty() {
+        Assert.assertTrue(FetchPlan.newPlan().isEmpty());
+        Assert.assertFalse(FetchPlan.newPlan().batch("lines").isEmpty());
+    }
+
+    @Test
+    public void testJoinAndBatch() {
+        final FetchPlan plan = FetchPlan.newPlan().join("customer", "customer.address").batch("lines").join("customer");
+        Assert.assertEquals(plan.getJoinPaths(), Arrays.asList("customer", "customer.address"));
+        Assert.assertEquals(plan.getBatchPaths(), Arrays.asList("lines"));
+    }
+
+    @Test
+    public void testLastModeWins() {
+        final FetchPlan plan = FetchPlan.newPlan().join("lines").batch("lines");
+        Assert.assertTrue(plan.getJoinPaths().isEmpty());
+        Assert.assertEquals(plan.getBatchPaths(), Arrays.asList("lines"));
+    }
+
+    @Test
+    public void testPlansAreImmutable() {
+        final FetchPlan plan = FetchPlan.newPlan().join("customer");
+        Assert.assertEquals(plan.batch("customer").getBatchPaths(), Arrays.asList("customer"));
+        Assert.assertEquals(plan.getJoinPaths(), Arrays.asList("customer"));
+        Assert.assertTrue(plan.getBatchPaths().isEmpty());
+        Assert.assertTrue(FetchPlan.newPlan().isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBlankPath() {
+        FetchPlan.newPlan().join("customer", " ");
+    }
+}
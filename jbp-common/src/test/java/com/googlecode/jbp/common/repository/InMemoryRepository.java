@@ -0,0 +1,267 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Repository keeping entities in memory, which counts the retrievals by
+ * identifier.  Used to test repository decorators.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class InMemoryRepository implements IRepository<Long, SampleEntity> {
+
+    private final SortedMap<Long, SampleEntity> entities = new TreeMap<Long, SampleEntity>();
+    private final AtomicInteger retrieveByIdCount = new AtomicInteger();
+    private final AtomicInteger retrieveMapByIdsCount = new AtomicInteger();
+    private long nextId = 1L;
+
+    public int getRetrieveByIdCount() {
+        return retrieveByIdCount.get();
+    }
+
+    public int getRetrieveMapByIdsCount() {
+        return retrieveMapByIdsCount.get();
+    }
+
+    /**
+     * Changes a stored entity without going through the repository, as another
+     * application would.
+     */
+    public synchronized void replace(final SampleEntity entityParam) {
+        entities.put(entityParam.getId(), entityParam);
+    }
+
+    public synchronized SampleEntity create(final SampleEntity entity) {
+        if (entity.getId() == null) {
+            entity.setId(nextId++);
+        }
+        entities.put(entity.getId(), entity);
+        return entity;
+    }
+
+    public BatchReport create(final Collection<SampleEntity> entitiesParam) {
+        return create(entitiesParam, IGenericRepository.DEFAULT_BATCH_SIZE);
+    }
+
+    public BatchReport create(final Collection<SampleEntity> entitiesParam, final int batchSizeParam) {
+        for (final SampleEntity current : entitiesParam) {
+            create(current);
+        }
+        return new BatchReport(new ArrayList<BatchChunk>());
+    }
+
+    public synchronized List<SampleEntity> retrieveAll() {
+        return new ArrayList<SampleEntity>(entities.values());
+    }
+
+    public List<SampleEntity> retrieveAll(final QueryOptions optionsParam) {
+        return retrieveAll();
+    }
+
+    public ICloseableIterator<SampleEntity> iterateAll() {
+        final Iterator<SampleEntity> iterator = retrieveAll().iterator();
+        return new ICloseableIterator<SampleEntity>() {
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            public SampleEntity next() {
+                return iterator.next();
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            public void close() {
+            }
+        };
+    }
+
+    public ICloseableIterator<SampleEntity> iterateAll(final int fetchSizeParam) {
+        return iterateAll();
+    }
+
+    public ICloseableIterator<SampleEntity> iterateAll(final int fetchSizeParam, final QueryOptions optionsParam) {
+        return iterateAll();
+    }
+
+    public synchronized SampleEntity retrieveById(final Long id) {
+        retrieveByIdCount.incrementAndGet();
+        return entities.get(id);
+    }
+
+    public SampleEntity retrieveById(final Long id, final QueryOptions optionsParam) {
+        return retrieveById(id);
+    }
+
+    public List<SampleEntity> retrieveByIds(final Collection<Long> ids) {
+        return new ArrayList<SampleEntity>(retrieveMapByIds(ids).values());
+    }
+
+    public synchronized Map<Long, SampleEntity> retrieveMapByIds(final Collection<Long> ids) {
+        retrieveMapByIdsCount.incrementAndGet();
+        final Map<Long, SampleEntity> result = new LinkedHashMap<Long, SampleEntity>();
+        for (final Long current : ids) {
+            if (entities.containsKey(current)) {
+                result.put(current, entities.get(current));
+            }
+        }
+        return result;
+    }
+
+    public Map<Long, SampleEntity> retrieveMapByIds(final Collection<Long> ids, final QueryOptions optionsParam) {
+        return retrieveMapByIds(ids);
+    }
+
+    public List<SampleEntity> retrieveAll(final Page pageParam) {
+        final List<SampleEntity> all = retrieveAll();
+        final int from = Math.min(pageParam.getFirstResult(), all.size());
+        final int to = pageParam.getMaxResults() == 0 ? all.size() : Math.min(from + pageParam.getMaxResults(), all.size());
+        return new ArrayList<SampleEntity>(all.subList(from, to));
+    }
+
+    public List<SampleEntity> retrieveAll(final Page pageParam, final QueryOptions optionsParam) {
+        return retrieveAll(pageParam);
+    }
+
+    public ResultHolder<Long, SampleEntity> retrievePage(final Page pageParam) {
+        return retrievePage(pageParam, CountMode.EXACT);
+    }
+
+    public synchronized ResultHolder<Long, SampleEntity> retrievePage(final Page pageParam, final CountMode countModeParam) {
+        return new ResultHolder<Long, SampleEntity>(retrieveAll(pageParam), entities.size());
+    }
+
+    public ResultHolder<Long, SampleEntity> retrievePage(final Page pageParam, final CountMode countModeParam, final QueryOptions optionsParam) {
+        return retrievePage(pageParam, countModeParam);
+    }
+
+    /**
+     * Retrieves a slice; only keyset pages on the identifier are supported.
+     */
+    public synchronized Slice<Long, SampleEntity> retrieveSlice(final Page pageParam) {
+        if (!pageParam.isKeyset() || pageParam.getKeyProperty() != null) {
+            throw new UnsupportedOperationException();
+        }
+        SortedMap<Long, SampleEntity> range = entities;
+        if (pageParam.getAfterKey() != null) {
+            range = range.tailMap((Long) pageParam.getAfterKey() + 1L);
+        }
+        if (pageParam.getUntilKey() != null) {
+            range = range.headMap((Long) pageParam.getUntilKey() + 1L);
+        }
+        final List<SampleEntity> results = new ArrayList<SampleEntity>(range.values());
+        if (results.size() <= pageParam.getMaxResults()) {
+            return new Slice<Long, SampleEntity>(results, null);
+        }
+        final List<SampleEntity> slice = new ArrayList<SampleEntity>(results.subList(0, pageParam.getMaxResults()));
+        return new Slice<Long, SampleEntity>(slice, pageParam.next(slice.get(slice.size() - 1).getId(), null));
+    }
+
+    public Slice<Long, SampleEntity> retrieveSlice(final Page pageParam, final QueryOptions optionsParam) {
+        return retrieveSlice(pageParam);
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam) {
+        throw new UnsupportedOperationException();
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam, final Page pageParam) {
+        throw new UnsupportedOperationException();
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam, final QueryOptions optionsParam) {
+        throw new UnsupportedOperationException();
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam, final Page pageParam, final QueryOptions optionsParam) {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean exists(final SampleEntity entity) {
+        return entity.getId() != null && exists(entity.getId());
+    }
+
+    public synchronized boolean exists(final Long id) {
+        return entities.containsKey(id);
+    }
+
+    public synchronized void update(final SampleEntity t) {
+        entities.put(t.getId(), t);
+    }
+
+    public void update(final Collection<SampleEntity> entitiesParam) {
+        for (final SampleEntity current : entitiesParam) {
+            update(current);
+        }
+    }
+
+    public void delete(final SampleEntity t) {
+        delete(t.getId());
+    }
+
+    public synchronized void delete(final Long id) {
+        entities.remove(id);
+    }
+
+    public void delete(final Collection<SampleEntity> t) {
+        for (final SampleEntity current : t) {
+            delete(current);
+        }
+    }
+
+    public BatchReport delete(final Collection<SampleEntity> entitiesParam, final int batchSizeParam) {
+        delete(entitiesParam);
+        return new BatchReport(new ArrayList<BatchChunk>());
+    }
+
+    public synchronized int deleteAll() {
+        final int count = entities.size();
+        entities.clear();
+        return count;
+    }
+
+    public int deleteAll(final DeleteMode modeParam) {
+        return deleteAll();
+    }
+
+    public int deleteAll(final DeleteMode modeParam, final int chunkSizeParam) {
+        return deleteAll();
+    }
+
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam) {
+        throw new UnsupportedOperationException();
+    }
+
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam) {
+        throw new UnsupportedOperationException();
+    }
+
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests of {@link LatencyHistogram}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsCoverValuesWithoutGaps() {
+        for (long value = 0L; value < 1L << 20; value++) {
+            final int index = LatencyHistogram.bucketIndex(value);
+            Assert.assertTrue(value <= LatencyHistogram.highestValue(index));
+            Assert.assertTrue(index == 0 || value > LatencyHistogram.highestValue(index - 1));
+        }
+    }
+
+    @Test
+    public void testPercentilesAreWithinRelativeError() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1L; value <= 100000L; value++) {
+            histogram.record(value * 1000L);
+        }
+        final LatencySnapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(snapshot.getCount(), 100000L);
+        Assert.assertEquals(snapshot.getMaxNanos(), 100000000L);
+        Assert.assertEquals(snapshot.getMeanNanos(), 50000500.0, 0.001);
+        assertWithinRelativeError(snapshot.getValueAtPercentile(50.0), 50000000L);
+        assertWithinRelativeError(snapshot.getValueAtPercentile(99.0), 99000000L);
+        assertWithinRelativeError(snapshot.getValueAtPercentile(99.9), 99900000L);
+        Assert.assertEquals(snapshot.getValueAtPercentile(100.0), 100000000L);
+    }
+
+    @Test
+    public void testRecordsExtremeValues() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5L);
+        histogram.record(Long.MAX_VALUE);
+        final LatencySnapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(snapshot.getCount(), 2L);
+        Assert.assertEquals(snapshot.getValueAtPercentile(50.0), 0L);
+        Assert.assertEquals(snapshot.getValueAtPercentile(100.0), Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testRecordsValuesAroundOverflowBoundary() {
+        final long boundary = 1L << LatencyHistogram.MAX_EXPONENT;
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(boundary - 1L);
+        histogram.record(boundary);
+        histogram.record(boundary + 5L);
+        histogram.record((boundary << 1) - 1L);
+        Assert.assertEquals(LatencyHistogram.bucketIndex(boundary), LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+        Assert.assertTrue(LatencyHistogram.bucketIndex(boundary - 1L) < LatencyHistogram.bucketIndex(boundary));
+        Assert.assertTrue(boundary - 1L <= LatencyHistogram.highestValue(LatencyHistogram.bucketIndex(boundary - 1L)));
+        final LatencySnapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(snapshot.getCount(), 4L);
+        Assert.assertEquals(snapshot.getValueAtPercentile(100.0), (boundary << 1) - 1L);
+    }
+
+    @Test
+    public void testReset() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000L);
+        histogram.reset();
+        Assert.assertEquals(histogram.getCount(), 0L);
+        Assert.assertEquals(histogram.snapshot().getValueAtPercentile(99.0), 0L);
+    }
+
+    private static void assertWithinRelativeError(final long actualParam, final long expectedParam) {
+        Assert.assertTrue(Math.abs(actualParam - expectedParam) <= expectedParam / LatencyHistogram.SUB_BUCKET_COUNT,
+                actualParam + " is not close to " + expectedParam);
+    }
+}
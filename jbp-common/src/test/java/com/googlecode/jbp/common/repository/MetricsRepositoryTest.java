@@ -0,0 +1,132 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import java.util.List;
+
+/**
+ * Tests of {@link MetricsRepository} and of the metrics exporters.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class MetricsRepositoryTest {
+
+    private RepositoryMetrics metrics;
+    private MetricsRepository<Long, SampleEntity> repository;
+
+    @BeforeMethod
+    public void setUp() {
+        metrics = new RepositoryMetrics("test", new SteppingTicker());
+        repository = new MetricsRepository<Long, SampleEntity>(new FailingRetrieveRepository(), SampleEntity.class,
+                metrics);
+    }
+
+    @Test
+    public void testRecordsCallsRowsAndLatency() {
+        repository.create(new SampleEntity(null, "first"));
+        repository.create(new SampleEntity(null, "second"));
+        repository.retrieveAll();
+        repository.retrieveAll();
+        final List<OperationStats> stats = metrics.snapshot();
+        Assert.assertEquals(stats.size(), 2);
+        final OperationStats create = stats.get(0);
+        Assert.assertEquals(create.getEntityName(), "SampleEntity");
+        Assert.assertEquals(create.getOperation(), "create");
+        Assert.assertEquals(create.getRowCount(), 2L);
+        final OperationStats retrieveAll = stats.get(1);
+        Assert.assertEquals(retrieveAll.getOperation(), "retrieveAll");
+        Assert.assertEquals(retrieveAll.getCallCount(), 2L);
+        Assert.assertEquals(retrieveAll.getErrorCount(), 0L);
+        Assert.assertEquals(retrieveAll.getRowCount(), 4L);
+        Assert.assertEquals(retrieveAll.getLatency().getMaxNanos(), SteppingTicker.STEP);
+        Assert.assertEquals(retrieveAll.getLatency().getValueAtPercentile(50.0), SteppingTicker.STEP);
+    }
+
+    @Test
+    public void testRecordsErrors() {
+        try {
+            repository.retrieveById(1L);
+            Assert.fail();
+        } catch (final IllegalStateException e) {
+            // Expected.
+        }
+        final OperationStats retrieveById = metrics.snapshot().get(0);
+        Assert.assertEquals(retrieveById.getCallCount(), 1L);
+        Assert.assertEquals(retrieveById.getErrorCount(), 1L);
+        Assert.assertEquals(retrieveById.getLatency().getCount(), 1L);
+    }
+
+    @Test
+    public void testRecordsNothingWhileDisabled() {
+        metrics.setEnabled(false);
+        repository.retrieveAll();
+        Assert.assertTrue(metrics.snapshot().isEmpty());
+    }
+
+    @Test
+    public void testTextExporter() {
+        final TextMetricsExporter exporter = new TextMetricsExporter();
+        metrics.addExporter(exporter);
+        repository.retrieveAll();
+        final String text = exporter.expose();
+        final String labels = "{metrics=\"test\",entity=\"SampleEntity\",operation=\"retrieveAll\"";
+        Assert.assertTrue(text.contains("# TYPE jbp_repository_latency_seconds summary\n"), text);
+        Assert.assertTrue(text.contains("jbp_repository_latency_seconds" + labels + ",quantile=\"0.99\"} 0.000001000\n"),
+                text);
+        Assert.assertTrue(text.contains("jbp_repository_calls_total" + labels + "} 1\n"), text);
+        metrics.removeExporter(exporter);
+    }
+
+    @Test
+    public void testJmxExporter() throws Exception {
+        final MBeanServer server = MBeanServerFactory.newMBeanServer();
+        final JmxMetricsExporter exporter = new JmxMetricsExporter(server);
+        metrics.addExporter(exporter);
+        repository.retrieveAll();
+        Assert.assertEquals(server.getAttribute(exporter.getObjectName(), "SampleEntity.retrieveAll.calls"), 1L);
+        Assert.assertEquals(server.getAttribute(exporter.getObjectName(), "SampleEntity.retrieveAll.maxMicros"), 1.0);
+        server.setAttribute(exporter.getObjectName(), new Attribute("Enabled", false));
+        Assert.assertFalse(metrics.isEnabled());
+        server.invoke(exporter.getObjectName(), "reset", new Object[0], new String[0]);
+        Assert.assertEquals(server.getAttribute(exporter.getObjectName(), "SampleEntity.retrieveAll.calls"), 0L);
+        metrics.removeExporter(exporter);
+        Assert.assertEquals(server.queryNames(null, null).size(), 1);
+    }
+
+    private static final class SteppingTicker implements Ticker {
+        static final long STEP = 1000L;
+        private long nanos = 0L;
+
+        public long read() {
+            nanos += STEP;
+            return nanos;
+        }
+    }
+
+    private static final class FailingRetrieveRepository extends InMemoryRepository {
+        @Override
+        public SampleEntity retrieveById(final Long id) {
+            throw new IllegalStateException("Retrieval failure.");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Tests of {@link PartitionedScan}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class PartitionedScanTest {
+
+    private InMemoryRepository repository;
+    private IRepositoryScope<Long, SampleEntity> scope;
+
+    @BeforeMethod
+    public void setUp() {
+        repository = new InMemoryRepository();
+        for (int i = 1; i <= 100; i++) {
+            repository.create(new SampleEntity(null, "entity" + i));
+        }
+        scope = new IRepositoryScope<Long, SampleEntity>() {
+            public <R> R execute(final Function<IRepository<Long, SampleEntity>, R> workParam) {
+                return workParam.apply(repository);
+            }
+        };
+    }
+
+    @Test
+    public void testEveryEntityIsReadOnce() {
+        final Set<Long> ids = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        final ScanReport report = PartitionedScan.newScan(scope).range(1L, 100L, 4).fetchSize(7)
+                .run(entity -> Assert.assertTrue(ids.add(entity.getId())));
+        Assert.assertEquals(ids.size(), 100);
+        Assert.assertEquals(report.getCount(), 100L);
+        final List<PartitionReport> partitions = report.getPartitions();
+        Assert.assertEquals(partitions.size(), 4);
+        for (final PartitionReport current : partitions) {
+            Assert.assertEquals(current.getCount(), 25L);
+        }
+        Assert.assertNull(partitions.get(0).getAfterKey());
+        Assert.assertEquals(partitions.get(0).getUntilKey(), 25L);
+        Assert.assertNull(partitions.get(3).getUntilKey());
+    }
+
+    @Test
+    public void testFailuresAreRethrown() {
+        try {
+            PartitionedScan.newScan(scope).boundaries(Arrays.asList(50L)).run(entity -> {
+                if (entity.getId() == 75L) {
+                    throw new IllegalStateException("boom");
+                }
+            });
+            Assert.fail("The scan should have failed.");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(e.getMessage(), "boom");
+        }
+    }
+}
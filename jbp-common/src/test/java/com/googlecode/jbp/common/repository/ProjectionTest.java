@@ -0,0 +1,68 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests of {@link Projection}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class ProjectionTest {
+
+    @Test
+    public void testAttributes() {
+        final Projection<Object[]> projection = Projection.attributes("id", "name");
+        final Object[] row = new Object[]{1L, "name"};
+        Assert.assertSame(projection.toResult(row), row);
+        Assert.assertEquals(projection.getAttributes().size(), 2);
+    }
+
+    @Test
+    public void testConstructor() {
+        final Projection<Row> projection = Projection.of(Row.class, "name", "amount");
+        Assert.assertEquals(projection.toResult(new Object[]{"name", 3}).amount, 3);
+        Assert.assertEquals(projection.toResult(new Object[]{"name", 3L}).name, "name/long");
+        Assert.assertNull(projection.toResult(new Object[]{null, 3}).name);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMissingConstructor() {
+        Projection.of(Row.class, "id", "name", "amount");
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testIncompatibleValues() {
+        Projection.of(Row.class, "name", "amount").toResult(new Object[]{1L, null});
+    }
+
+    public static final class Row {
+        private final String name;
+        private final long amount;
+
+        public Row(final String nameParam, final int amountParam) {
+            name = nameParam;
+            amount = amountParam;
+        }
+
+        public Row(final String nameParam, final Long amountParam) {
+            name = nameParam + "/long";
+            amount = amountParam;
+        }
+    }
+}
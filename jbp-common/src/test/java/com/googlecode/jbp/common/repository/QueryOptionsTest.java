@@ -0,0 +1,64 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests of {@link QueryOptions}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class QueryOptionsTest {
+
+    @Test
+    public void testDefaultsToTheRepositorySettings() {
+        final QueryOptions options = QueryOptions.newOptions();
+        Assert.assertEquals(options.getFlushPolicy(FlushPolicy.AUTO), FlushPolicy.AUTO);
+        Assert.assertEquals(options.getReadMode(ReadMode.READ_WRITE), ReadMode.READ_WRITE);
+        Assert.assertTrue(options.getFetchPlan().isEmpty());
+    }
+
+    @Test
+    public void testSetSettingsOverrideTheRepository() {
+        final QueryOptions options = QueryOptions.newOptions().flushPolicy(FlushPolicy.NEVER).readMode(ReadMode.READ_ONLY)
+                .fetchPlan(FetchPlan.newPlan().join("customer"));
+        Assert.assertEquals(options.getFlushPolicy(FlushPolicy.ALWAYS), FlushPolicy.NEVER);
+        Assert.assertEquals(options.getReadMode(ReadMode.READ_WRITE), ReadMode.READ_ONLY);
+        Assert.assertFalse(options.getFetchPlan().isEmpty());
+    }
+
+    @Test
+    public void testSettersReturnCopies() {
+        final QueryOptions options = QueryOptions.newOptions();
+        final QueryOptions readOnly = options.readMode(ReadMode.READ_ONLY);
+        Assert.assertNotSame(readOnly, options);
+        Assert.assertEquals(options.getReadMode(ReadMode.READ_WRITE), ReadMode.READ_WRITE);
+        Assert.assertEquals(readOnly.flushPolicy(FlushPolicy.NEVER).getReadMode(ReadMode.READ_WRITE), ReadMode.READ_ONLY);
+        Assert.assertEquals(readOnly.getFlushPolicy(FlushPolicy.ALWAYS), FlushPolicy.ALWAYS);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNullFlushPolicy() {
+        QueryOptions.newOptions().flushPolicy(null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNullFetchPlan() {
+        QueryOptions.newOptions().fetchPlan(null);
+    }
+}
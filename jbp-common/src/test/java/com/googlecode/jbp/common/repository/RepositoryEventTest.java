@@ -0,0 +1,125 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests of the flight recorder events of the repositories.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class RepositoryEventTest {
+
+    @Test
+    public void testRecordReturnsResultWhenNotRecorded() {
+        final List<String> result = Arrays.asList("a", "b");
+        Assert.assertSame(RepositoryOperationEvent.start().record(getClass(), SampleEntity.class, "retrieveAll", result), result);
+        Assert.assertTrue(RepositoryCacheLookupEvent.start().record(getClass(), SampleEntity.class, RepositoryCacheLookupEvent.COUNT, true));
+    }
+
+    @Test
+    public void testEventsAreRecordedUnlessDisabled() throws IOException {
+        final Path file = Files.createTempFile("repository-events", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.start();
+                RepositoryOperationEvent.start().record(getClass(), SampleEntity.class, "retrieveAll", Arrays.asList("a", "b"));
+                RepositoryBatchChunkEvent.start().record(getClass(), SampleEntity.class, "create", 50L);
+                RepositoryFlushEvent.start().record(getClass());
+                RepositoryCacheLookupEvent.start().record(getClass(), SampleEntity.class, RepositoryCacheLookupEvent.SESSION, false);
+                recording.stop();
+                recording.dump(file);
+            }
+            RecordedEvent operation = null;
+            final Set<String> names = new HashSet<String>();
+            for (final RecordedEvent current : RecordingFile.readAllEvents(file)) {
+                names.add(current.getEventType().getName());
+                if (current.getEventType().getName().equals(RepositoryOperationEvent.NAME)) {
+                    operation = current;
+                }
+            }
+            Assert.assertTrue(names.contains(RepositoryBatchChunkEvent.NAME));
+            Assert.assertTrue(names.contains(RepositoryFlushEvent.NAME));
+            Assert.assertFalse(names.contains(RepositoryCacheLookupEvent.NAME), "Cache lookups are disabled by default.");
+            Assert.assertNotNull(operation);
+            Assert.assertEquals(operation.getString("operation"), "retrieveAll");
+            Assert.assertEquals(operation.getLong("rows"), 2L);
+            Assert.assertEquals(operation.getClass("entityClass").getName(), SampleEntity.class.getName());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testDecoratorRecordsOperationsAndFailures() throws IOException {
+        final IGenericRepository repository = new EventRecordingGenericRepository((IGenericRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{IGenericRepository.class}, new InvocationHandler() {
+                    public Object invoke(final Object proxyParam, final Method methodParam, final Object[] argsParam) {
+                        if (methodParam.getName().equals("retrieveById")) {
+                            throw new IllegalStateException("Failed.");
+                        }
+                        return Arrays.asList(new SampleEntity(1L, "a"), new SampleEntity(2L, "b"), new SampleEntity(3L, "c"));
+                    }
+                }));
+        final Path file = Files.createTempFile("repository-events", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable(RepositoryOperationEvent.NAME);
+                recording.start();
+                repository.retrieveAll(SampleEntity.class);
+                try {
+                    repository.retrieveById(SampleEntity.class, 1L);
+                    Assert.fail("The failure must be rethrown.");
+                } catch (final IllegalStateException e) {
+                    // Expected.
+                }
+                recording.stop();
+                recording.dump(file);
+            }
+            final Map<String, RecordedEvent> operations = new HashMap<String, RecordedEvent>();
+            for (final RecordedEvent current : RecordingFile.readAllEvents(file)) {
+                if (current.getEventType().getName().equals(RepositoryOperationEvent.NAME)) {
+                    operations.put(current.getString("operation"), current);
+                }
+            }
+            Assert.assertEquals(operations.keySet(), new HashSet<String>(Arrays.asList("retrieveAll", "retrieveById")));
+            Assert.assertEquals(operations.get("retrieveAll").getLong("rows"), 3L);
+            Assert.assertNull(operations.get("retrieveAll").getString("failure"));
+            Assert.assertEquals(operations.get("retrieveById").getString("failure"), IllegalStateException.class.getName());
+            Assert.assertTrue(operations.get("retrieveById").getClass("repository").getName().contains("Proxy"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
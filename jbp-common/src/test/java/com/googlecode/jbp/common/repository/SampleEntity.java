@@ -0,0 +1,49 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+/**
+ * Entity used by the repository tests.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class SampleEntity implements IIdentifiable<Long> {
+
+    private static final long serialVersionUID = 1L;
+    private Long id;
+    private String name;
+
+    public SampleEntity(final Long idParam, final String nameParam) {
+        id = idParam;
+        name = nameParam;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    void setId(final Long idParam) {
+        id = idParam;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String nameParam) {
+        name = nameParam;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests of {@link SlowOperationLoggingRepository}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class SlowOperationLoggingRepositoryTest {
+
+    private FakeTicker ticker;
+    private IGenericRepository delegate;
+
+    @BeforeMethod
+    public void setUp() {
+        ticker = new FakeTicker();
+        delegate = (IGenericRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{IGenericRepository.class}, new SlowDelegate(ticker));
+    }
+
+    @Test
+    public void testLogsOnlyOperationsOverTheirThreshold() {
+        final SlowOperationLoggingRepository repository = new SlowOperationLoggingRepository(delegate,
+                settings().threshold(10, TimeUnit.MILLISECONDS)
+                        .threshold("retrieveById", 1, TimeUnit.MILLISECONDS));
+        repository.retrieveAll(SampleEntity.class);
+        Assert.assertEquals(repository.getSlowCount(), 0L);
+        repository.retrieveById(SampleEntity.class, 1L);
+        Assert.assertEquals(repository.getSlowCount(), 1L);
+        Assert.assertEquals(repository.getLoggedCount(), 1L);
+    }
+
+    @Test
+    public void testRateLimitsLogging() {
+        final SlowOperationLoggingRepository repository = new SlowOperationLoggingRepository(delegate,
+                settings().threshold(1, TimeUnit.MILLISECONDS).maximumLogRate(1));
+        for (int i = 0; i < 10; i++) {
+            repository.retrieveAll(SampleEntity.class);
+        }
+        Assert.assertEquals(repository.getSlowCount(), 10L);
+        Assert.assertEquals(repository.getLoggedCount(), 1L);
+        ticker.advance(1L, TimeUnit.SECONDS);
+        repository.retrieveAll(SampleEntity.class);
+        Assert.assertEquals(repository.getLoggedCount(), 2L);
+    }
+
+    @Test
+    public void testDescribesTheOperation() {
+        final OperationTrace trace = OperationTrace.begin(1);
+        OperationTrace.recordFlush(TimeUnit.MILLISECONDS.toNanos(2L));
+        OperationTrace.recordStatement("select first");
+        OperationTrace.recordStatement("select second");
+        final String description = SlowOperationLoggingRepository.describe(SampleEntity.class,
+                Page.newPage().firstResult(20).maxResults(10), "retrieveAll", TimeUnit.MILLISECONDS.toNanos(5L),
+                Arrays.asList(new SampleEntity(1L, "first")), null, trace, 3L);
+        trace.end();
+        Assert.assertFalse(OperationTrace.isActive());
+        Assert.assertTrue(trace.getStatements().isEmpty(), "The statements must not outlive the trace.");
+        Assert.assertEquals(description, "Slow repository operation retrieveAll on " + SampleEntity.class.getName()
+                + ": 5.000 ms, Page[firstResult=20,maxResults=10], 1 rows, 1 flushes in 2.000 ms, 2 statements,"
+                + " 3 slow operations not logged since the last one.\n    select first\n    ... 1 more");
+    }
+
+    @Test
+    public void testCapturesStatementsOfTheOutermostOperationOnly() {
+        final SlowOperationLoggingRepository inner = new SlowOperationLoggingRepository(delegate,
+                settings().threshold(0, TimeUnit.MILLISECONDS));
+        final SlowOperationLoggingRepository outer = new SlowOperationLoggingRepository(inner,
+                settings().threshold(0, TimeUnit.MILLISECONDS));
+        outer.retrieveAll(SampleEntity.class);
+        Assert.assertEquals(outer.getSlowCount(), 1L);
+        Assert.assertEquals(inner.getSlowCount(), 0L);
+        Assert.assertFalse(OperationTrace.isActive());
+    }
+
+    private SlowOperationSettings settings() {
+        return SlowOperationSettings.newSettings().ticker(ticker);
+    }
+
+    private static final class FakeTicker implements Ticker {
+        private long nanos = 0L;
+
+        public long read() {
+            return nanos;
+        }
+
+        void advance(final long durationParam, final TimeUnit unitParam) {
+            nanos += unitParam.toNanos(durationParam);
+        }
+    }
+
+    /**
+     * Generic repository whose operations take 5 ms, flush and execute one
+     * statement, and return {@code null}.
+     */
+    private static final class SlowDelegate implements InvocationHandler {
+        private final FakeTicker ticker;
+
+        private SlowDelegate(final FakeTicker tickerParam) {
+            ticker = tickerParam;
+        }
+
+        public Object invoke(final Object proxyParam, final Method methodParam, final Object[] argsParam) {
+            ticker.advance(5L, TimeUnit.MILLISECONDS);
+            OperationTrace.recordFlush(TimeUnit.MILLISECONDS.toNanos(1L));
+            OperationTrace.recordStatement("select * from sample");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.common.repository;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests of {@link StatementCountingRepository} and
+ * {@link StatementCountingGenericRepository}.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class StatementCountingRepositoryTest {
+
+    @Test
+    public void testCountsStatementsOfEachCall() {
+        final CountingSource source = new CountingSource();
+        final StatementCountingRepository<Long, SampleEntity> repository = new StatementCountingRepository<Long, SampleEntity>(
+                new LazyLoadingRepository(source), source, 3);
+        final StatementRecorder recorder = new StatementRecorder();
+        repository.addListener(recorder);
+        repository.create(new SampleEntity(null, "name"));
+        repository.create(new SampleEntity(null, "name"));
+        Assert.assertEquals(repository.getLastCall().getOperation(), "create");
+        Assert.assertEquals(repository.getLastCall().getStatementCount(), 0L);
+        recorder.reset();
+        repository.retrieveAll();
+        final CallStatistics call = repository.getLastCall();
+        Assert.assertEquals(call.getOperation(), "retrieveAll");
+        Assert.assertEquals(call.getStatementCount(), 3L);
+        Assert.assertEquals(call.getStatistics().getEntityLoadCount(), 2L);
+        Assert.assertFalse(call.isLikelyNPlusOne());
+        recorder.assertStatementCountAtMost(3L).assertNoLikelyNPlusOne();
+    }
+
+    @Test(expectedExceptions = AssertionError.class)
+    public void testFlagsLikelyNPlusOne() {
+        final CountingSource source = new CountingSource();
+        final StatementCountingRepository<Long, SampleEntity> repository = new StatementCountingRepository<Long, SampleEntity>(
+                new LazyLoadingRepository(source), source, 3);
+        final StatementRecorder recorder = new StatementRecorder();
+        repository.addListener(recorder);
+        for (int i = 0; i < 3; i++) {
+            repository.create(new SampleEntity(null, "name"));
+        }
+        repository.retrieveAll();
+        Assert.assertEquals(repository.getLastCall().getSuspectedShapes().get("fetch customer"), Long.valueOf(3L));
+        recorder.assertNoLikelyNPlusOne();
+    }
+
+    @Test(expectedExceptions = AssertionError.class)
+    public void testStatementBudget() {
+        final CountingSource source = new CountingSource();
+        final StatementCountingRepository<Long, SampleEntity> repository = new StatementCountingRepository<Long, SampleEntity>(
+                new LazyLoadingRepository(source), source);
+        final StatementRecorder recorder = new StatementRecorder();
+        repository.addListener(recorder);
+        repository.create(new SampleEntity(null, "name"));
+        repository.retrieveAll();
+        repository.retrieveAll();
+        recorder.assertStatementCountPerCallAtMost(2L).assertStatementCountAtMost(3L);
+    }
+
+    @Test
+    public void testCountsStatementsOfEachGenericCall() {
+        final CountingSource source = new CountingSource();
+        final IGenericRepository delegate = (IGenericRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{IGenericRepository.class}, new InvocationHandler() {
+                    public Object invoke(final Object proxyParam, final Method methodParam, final Object[] argsParam) {
+                        for (int i = 0; i < 4; i++) {
+                            source.execute("fetch customer", 0L);
+                        }
+                        return Collections.emptyList();
+                    }
+                });
+        final StatementCountingGenericRepository repository = new StatementCountingGenericRepository(delegate, source, 3);
+        final StatementRecorder recorder = new StatementRecorder();
+        repository.addListener(recorder);
+        repository.retrieveAll(SampleEntity.class);
+        final CallStatistics call = repository.getLastCall();
+        Assert.assertEquals(call.getOperation(), "retrieveAll");
+        Assert.assertEquals(call.getStatementCount(), 4L);
+        Assert.assertTrue(call.isLikelyNPlusOne());
+        recorder.assertStatementCountAtMost(4L);
+    }
+
+    private static final class CountingSource implements IStatementStatisticsSource {
+        private final Map<String, Long> executions = new HashMap<String, Long>();
+        private long statementCount;
+        private long entityLoadCount;
+
+        void execute(final String shapeParam, final long entityLoadCountParam) {
+            final Long count = executions.get(shapeParam);
+            executions.put(shapeParam, count == null ? 1L : count + 1L);
+            statementCount++;
+            entityLoadCount += entityLoadCountParam;
+        }
+
+        public StatementStatistics snapshot() {
+            return new StatementStatistics(statementCount, entityLoadCount, 0L, executions);
+        }
+    }
+
+    /**
+     * Repository which selects the entities, then lazily loads an association
+     * of each of them with its own select.
+     */
+    private static final class LazyLoadingRepository extends InMemoryRepository {
+        private final CountingSource source;
+
+        LazyLoadingRepository(final CountingSource sourceParam) {
+            source = sourceParam;
+        }
+
+        @Override
+        public List<SampleEntity> retrieveAll() {
+            final List<SampleEntity> results = super.retrieveAll();
+            source.execute("select entity", results.size());
+            for (int i = 0; i < results.size(); i++) {
+                source.execute("fetch customer", 0L);
+            }
+            return results;
+        }
+    }
+}
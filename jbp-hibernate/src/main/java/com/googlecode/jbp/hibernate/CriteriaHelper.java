@@ -0,0 +1,321 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.hibernate;
+
+import com.googlecode.jbp.common.constants.CompilerWarnings;
+import com.googlecode.jbp.common.repository.FetchPlan;
+import com.googlecode.jbp.common.repository.IIdentifiable;
+import com.googlecode.jbp.common.repository.Page;
+import com.googlecode.jbp.common.repository.Projection;
+import com.googlecode.jbp.common.repository.ResultHolder;
+import com.googlecode.jbp.common.repository.Slice;
+import org.hibernate.Criteria;
+import org.hibernate.EntityMode;
+import org.hibernate.FetchMode;
+import org.hibernate.Query;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.ProjectionList;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.type.AssociationType;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Paging and querying utilities shared by the Hibernate repositories, whatever
+ * kind of session they work with.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+final class CriteriaHelper {
+
+    private CriteriaHelper() {
+        throw new IllegalStateException("This object must not be instanciated.");
+    }
+
+    /**
+     * Adds the specified paging, keyset or offset, to the specified criteria.
+     *
+     * @param criteriaParam   The criteria whose results must be paged.
+     * @param metadataParam   The metadata of the entities the criteria returns.
+     * @param pageParam       The paging setting.
+     * @return The specified criteria, with paging set.
+     */
+    static Criteria addPage(final Criteria criteriaParam, final ClassMetadata metadataParam, final Page pageParam) {
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        if (pageParam.isKeyset()) {
+            return addKeyset(criteriaParam, metadataParam, pageParam);
+        }
+        return addPaging(criteriaParam, pageParam);
+    }
+
+    /**
+     * Adds the specified keyset paging to the specified criteria: restricts the
+     * results to the rows after the page's key, and until its greatest key if
+     * any, and orders them by key.
+     *
+     * @param criteriaParam The criteria whose results must be paged.
+     * @param metadataParam The metadata of the entities the criteria returns.
+     * @param pageParam     The paging setting.  Must be in keyset mode.
+     * @return The specified criteria, with paging set.
+     */
+    static Criteria addKeyset(final Criteria criteriaParam, final ClassMetadata metadataParam, final Page pageParam) {
+        PARAM_REQ.Object.requireNotNull(criteriaParam);
+        PARAM_REQ.Object.requireNotNull(metadataParam);
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        PARAM_REQ.Logic.requireTrue(pageParam.isKeyset(), "The page must be in keyset mode.");
+        final String idProperty = metadataParam.getIdentifierPropertyName();
+        final String keyProperty = pageParam.getKeyProperty();
+        if (keyProperty == null) {
+            if (pageParam.getAfterKey() != null) {
+                criteriaParam.add(Restrictions.gt(idProperty, pageParam.getAfterKey()));
+            }
+            if (pageParam.getUntilKey() != null) {
+                criteriaParam.add(Restrictions.le(idProperty, pageParam.getUntilKey()));
+            }
+            criteriaParam.addOrder(Order.asc(idProperty));
+        } else {
+            if (pageParam.getAfterKey() != null && pageParam.getAfterId() != null) {
+                criteriaParam.add(Restrictions.or(Restrictions.gt(keyProperty, pageParam.getAfterKey()),
+                        Restrictions.and(Restrictions.eq(keyProperty, pageParam.getAfterKey()),
+                                Restrictions.gt(idProperty, pageParam.getAfterId()))));
+            } else if (pageParam.getAfterKey() != null) {
+                criteriaParam.add(Restrictions.gt(keyProperty, pageParam.getAfterKey()));
+            }
+            if (pageParam.getUntilKey() != null) {
+                criteriaParam.add(Restrictions.le(keyProperty, pageParam.getUntilKey()));
+            }
+            criteriaParam.addOrder(Order.asc(keyProperty)).addOrder(Order.asc(idProperty));
+        }
+        if (pageParam.getMaxResults() > 0) {
+            criteriaParam.setMaxResults(pageParam.getMaxResults());
+        }
+        return criteriaParam;
+    }
+
+    static Criteria addPaging(final Criteria criteriaParam, final Page pageParam) {
+        PARAM_REQ.Object.requireNotNull(criteriaParam);
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        PARAM_REQ.Number.requireNotStrictlyNegative(pageParam.getFirstResult());
+        PARAM_REQ.Number.requireNotStrictlyNegative(pageParam.getMaxResults());
+        criteriaParam.setFirstResult(pageParam.getFirstResult()).setMaxResults(pageParam.getMaxResults());
+        return criteriaParam;
+    }
+
+    /**
+     * Lists the rows of the specified projection: only the attributes of the
+     * projection are selected, and their values are converted to rows.
+     *
+     * @param criteriaParam   The criteria, without projection nor paging.
+     * @param metadataParam   The metadata of the entities the criteria selects.
+     * @param projectionParam The projection.
+     * @param pageParam       The page, or {@code null} to list all rows.
+     * @return The rows.
+     */
+    static <R> List<R> listProjection(final Criteria criteriaParam, final ClassMetadata metadataParam,
+                                      final Projection<R> projectionParam, final Page pageParam) {
+        PARAM_REQ.Object.requireNotNull(criteriaParam);
+        PARAM_REQ.Object.requireNotNull(projectionParam);
+        final ProjectionList properties = Projections.projectionList();
+        for (final String current : projectionParam.getAttributes()) {
+            properties.add(Projections.property(current));
+        }
+        criteriaParam.setProjection(properties);
+        if (pageParam != null) {
+            addPage(criteriaParam, metadataParam, pageParam);
+        }
+        final boolean single = projectionParam.getAttributes().size() == 1;
+        final List<?> rows = criteriaParam.list();
+        final List<R> results = new ArrayList<R>(rows.size());
+        for (final Object current : rows) {
+            // A single property is returned as is, several ones in an array.
+            results.add(projectionParam.toResult(single ? new Object[]{current} : (Object[]) current));
+        }
+        return results;
+    }
+
+    /**
+     * Counts the rows of the specified criteria with a row count projection.
+     *
+     * @param criteriaParam The criteria, without paging.
+     * @return The amount of rows.
+     */
+    static int count(final Criteria criteriaParam) {
+        PARAM_REQ.Object.requireNotNull(criteriaParam);
+        final Number count = (Number) criteriaParam.setProjection(Projections.rowCount()).uniqueResult();
+        return count == null ? 0 : count.intValue();
+    }
+
+    /**
+     * Lists the page of the specified paged criteria with one more row than
+     * requested, and estimates the amount of results from it: the rows before
+     * the page (unknown in keyset mode, thus not counted), plus the rows
+     * retrieved.
+     *
+     * @param criteriaParam The criteria, with the paging of the page set.
+     * @param pageParam     The page.
+     * @return The results of the page, with the estimated amount of results.
+     */
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    static <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> listEstimated(final Criteria criteriaParam, final Page pageParam) {
+        PARAM_REQ.Object.requireNotNull(criteriaParam);
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        final int before = pageParam.isKeyset() ? 0 : pageParam.getFirstResult();
+        if (pageParam.getMaxResults() == 0) {
+            final List<DomainModel> results = criteriaParam.list();
+            return new ResultHolder<ID, DomainModel>(results, before + results.size(), false);
+        }
+        // One more row than requested tells whether there are more results.
+        final List<DomainModel> results = criteriaParam.setMaxResults(pageParam.getMaxResults() + 1).list();
+        return new ResultHolder<ID, DomainModel>(results.size() > pageParam.getMaxResults()
+                ? new ArrayList<DomainModel>(results.subList(0, pageParam.getMaxResults())) : results,
+                before + results.size(), false);
+    }
+
+    /**
+     * Lists the page of the specified paged criteria with one more row than
+     * requested, which tells whether there is a next page.
+     *
+     * @param criteriaParam The criteria, with the paging of the page set.
+     * @param metadataParam The metadata of the entities the criteria returns.
+     * @param pageParam     The page.  Must have a maximum amount of results.
+     * @return The slice.
+     */
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    static <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Slice<ID, DomainModel> listSlice(final Criteria criteriaParam, final ClassMetadata metadataParam, final Page pageParam) {
+        PARAM_REQ.Object.requireNotNull(criteriaParam);
+        PARAM_REQ.Object.requireNotNull(metadataParam);
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        PARAM_REQ.Number.requireStrictlyPositive(pageParam.getMaxResults(), "A slice requires a maximum amount of results.");
+        final List<DomainModel> results = criteriaParam.setMaxResults(pageParam.getMaxResults() + 1).list();
+        if (results.size() <= pageParam.getMaxResults()) {
+            return new Slice<ID, DomainModel>(results, null);
+        }
+        final List<DomainModel> pageResults = new ArrayList<DomainModel>(results.subList(0, pageParam.getMaxResults()));
+        final DomainModel last = pageResults.get(pageResults.size() - 1);
+        final Serializable lastKey = pageParam.getKeyProperty() == null ? last.getId()
+                : (Serializable) metadataParam.getPropertyValue(last, pageParam.getKeyProperty(), EntityMode.POJO);
+        return new Slice<ID, DomainModel>(pageResults, pageParam.next(lastKey, last.getId()));
+    }
+
+    /**
+     * Sets the specified named parameters on the specified query.  Collection
+     * values are set as parameter lists.
+     *
+     * @param queryParam      The query.
+     * @param parametersParam The parameter values, by parameter name.
+     * @return The specified query.
+     */
+    static Query setParameters(final Query queryParam, final Map<String, ?> parametersParam) {
+        PARAM_REQ.Object.requireNotNull(queryParam);
+        PARAM_REQ.Object.requireNotNull(parametersParam);
+        for (final Map.Entry<String, ?> current : parametersParam.entrySet()) {
+            if (current.getValue() instanceof Collection) {
+                queryParam.setParameterList(current.getKey(), (Collection<?>) current.getValue());
+            } else {
+                queryParam.setParameter(current.getKey(), current.getValue());
+            }
+        }
+        return queryParam;
+    }
+
+    /**
+     * Adds the joins of the specified fetch plan to the specified criteria.
+     * At most one collection is joined, the first one of the plan: joining
+     * several would multiply the rows of each root entity by the size of
+     * every collection, and Hibernate cannot fetch several bags at once.
+     * Root entities are made distinct when a collection is joined.
+     *
+     * @param criteriaParam        The criteria.
+     * @param factoryParam         The session factory.
+     * @param metadataParam        The metadata of the entities the criteria
+     *                             returns.
+     * @param fetchPlanParam       The fetch plan.  Must not be {@code null}.
+     * @param joinCollectionsParam Whether collections may be joined, which is
+     *                             not the case if the results are paged.
+     * @return The paths of the associations left to batch: the batched ones,
+     *         and the collections which were not joined.
+     */
+    static List<String> addFetchJoins(final Criteria criteriaParam, final SessionFactoryImplementor factoryParam,
+                                      final ClassMetadata metadataParam, final FetchPlan fetchPlanParam,
+                                      final boolean joinCollectionsParam) {
+        PARAM_REQ.Object.requireNotNull(fetchPlanParam);
+        final List<String> batchPaths = new ArrayList<String>(fetchPlanParam.getBatchPaths());
+        boolean distinct = false;
+        for (final String current : fetchPlanParam.getJoinPaths()) {
+            final boolean collection = isCollectionPath(factoryParam, metadataParam, current);
+            if (collection && (!joinCollectionsParam || distinct)) {
+                batchPaths.add(current);
+            } else {
+                addFetchJoin(criteriaParam, current);
+                distinct |= collection;
+            }
+        }
+        if (distinct) {
+            criteriaParam.setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
+        }
+        return batchPaths;
+    }
+
+    /**
+     * Joins the association with the specified path, and every association
+     * the path goes through, in the specified criteria.
+     *
+     * @param criteriaParam The criteria.
+     * @param pathParam     The path of the association.
+     * @return The specified criteria.
+     */
+    static Criteria addFetchJoin(final Criteria criteriaParam, final String pathParam) {
+        int dot = -1;
+        do {
+            dot = pathParam.indexOf('.', dot + 1);
+            criteriaParam.setFetchMode(dot < 0 ? pathParam : pathParam.substring(0, dot), FetchMode.JOIN);
+        } while (dot >= 0);
+        return criteriaParam;
+    }
+
+    /**
+     * Tells whether the specified association path goes through a collection.
+     *
+     * @param factoryParam  The session factory.
+     * @param metadataParam The metadata of the entities the path starts from.
+     * @param pathParam     The path.  Must name associations only.
+     * @return {@code true} if the path goes through a collection.
+     */
+    static boolean isCollectionPath(final SessionFactoryImplementor factoryParam, final ClassMetadata metadataParam,
+                                    final String pathParam) {
+        ClassMetadata metadata = metadataParam;
+        for (final String current : pathParam.split("\\.")) {
+            PARAM_REQ.Object.requireNotNull(metadata, "The path " + pathParam + " must name associations only.");
+            final Type type = metadata.getPropertyType(current);
+            if (type.isCollectionType()) {
+                return true;
+            }
+            PARAM_REQ.Logic.requireTrue(type.isAssociationType(), "The path " + pathParam + " must name associations only.");
+            metadata = factoryParam.getClassMetadata(((AssociationType) type).getAssociatedEntityName(factoryParam));
+        }
+        return false;
+    }
+}
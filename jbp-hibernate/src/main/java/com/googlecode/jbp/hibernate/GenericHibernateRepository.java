@@ -16,19 +16,60 @@
 package com.googlecode.jbp.hibernate;
 
 import com.googlecode.jbp.common.constants.CompilerWarnings;
+import com.googlecode.jbp.common.repository.BatchChunk;
+import com.googlecode.jbp.common.repository.BatchReport;
+import com.googlecode.jbp.common.repository.CountMode;
+import com.googlecode.jbp.common.repository.DeleteMode;
+import com.googlecode.jbp.common.repository.EntityCountCache;
+import com.googlecode.jbp.common.repository.FetchPlan;
+import com.googlecode.jbp.common.repository.FlushPolicy;
+import com.googlecode.jbp.common.repository.ICloseableIterator;
 import com.googlecode.jbp.common.repository.IGenericRepository;
 import com.googlecode.jbp.common.repository.IIdentifiable;
+import com.googlecode.jbp.common.repository.OperationTrace;
 import com.googlecode.jbp.common.repository.Page;
+import com.googlecode.jbp.common.repository.Projection;
+import com.googlecode.jbp.common.repository.QueryOptions;
+import com.googlecode.jbp.common.repository.ReadMode;
+import com.googlecode.jbp.common.repository.RepositoryBatchChunkEvent;
+import com.googlecode.jbp.common.repository.RepositoryCacheLookupEvent;
+import com.googlecode.jbp.common.repository.RepositoryFlushEvent;
+import com.googlecode.jbp.common.repository.ResultHolder;
+import com.googlecode.jbp.common.repository.Slice;
+import org.hibernate.CacheMode;
 import org.hibernate.Criteria;
+import org.hibernate.EntityMode;
+import org.hibernate.FlushMode;
 import org.hibernate.Hibernate;
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.ActionQueue;
+import org.hibernate.engine.EntityEntry;
+import org.hibernate.engine.EntityKey;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.engine.Status;
+import org.hibernate.event.EventSource;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.persister.entity.EntityPersister;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
 
@@ -43,18 +84,56 @@ public class GenericHibernateRepository implements IGenericRepository {
     private static final transient Logger LOGGER = LoggerFactory
             .getLogger(AbstractHibernateRepository.class);
 
+    private static final String LAST_ID_PARAMETER = "jbpLastId";
+
     private final SessionFactory sessionFactory;
+    private final EntityCountCache countCache = new EntityCountCache();
+    private final FlushPolicy flushPolicy;
+    private final ReadMode readMode;
+    private final AtomicLong avoidedFlushCount = new AtomicLong();
 
     /**
-     * Constructor.
+     * Constructor.  The session is flushed before every query.
      *
      * @param sessionFactoryParam Must not be {@code null}.
      */
 
     public GenericHibernateRepository(final SessionFactory sessionFactoryParam) {
+        this(sessionFactoryParam, FlushPolicy.ALWAYS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param sessionFactoryParam Must not be {@code null}.
+     * @param flushPolicyParam    The way pending changes are flushed before
+     *                            queries, unless a call specifies its own
+     *                            policy.  Must not be {@code null}.
+     */
+    public GenericHibernateRepository(final SessionFactory sessionFactoryParam, final FlushPolicy flushPolicyParam) {
+        this(sessionFactoryParam, flushPolicyParam, ReadMode.READ_WRITE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param sessionFactoryParam Must not be {@code null}.
+     * @param flushPolicyParam    The way pending changes are flushed before
+     *                            queries, unless a call specifies its own
+     *                            policy.  Must not be {@code null}.
+     * @param readModeParam       The mode retrieved entities are loaded in,
+     *                            unless a call specifies its own mode.  Must
+     *                            not be {@code null}.
+     */
+    public GenericHibernateRepository(final SessionFactory sessionFactoryParam, final FlushPolicy flushPolicyParam,
+                                      final ReadMode readModeParam) {
         super();
         PARAM_REQ.Object.requireNotNull(sessionFactoryParam);
+        PARAM_REQ.Object.requireNotNull(flushPolicyParam);
+        PARAM_REQ.Object.requireNotNull(readModeParam);
         sessionFactory = sessionFactoryParam;
+        flushPolicy = flushPolicyParam;
+        readMode = readModeParam;
     }
 
     protected final Session getSession() {
@@ -64,28 +143,150 @@ public class GenericHibernateRepository implements IGenericRepository {
     public final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> DomainModel create(final DomainModel entity) {
         PARAM_REQ.Object.requireNotNull(entity);
         getSession().persist(entity);
+        countCache.invalidate(Hibernate.getClass(entity));
         return entity;
     }
 
+    public final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> BatchReport create(final Collection<DomainModel> entities) {
+        return create(entities, DEFAULT_BATCH_SIZE);
+    }
+
+    public final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> BatchReport create(final Collection<DomainModel> entities, final int batchSizeParam) {
+        PARAM_REQ.Object.requireNotNull(entities);
+        PARAM_REQ.Number.requireStrictlyPositive(batchSizeParam, "The batch size must be strictly positive.");
+        final List<BatchChunk> chunks = new ArrayList<BatchChunk>();
+        final List<DomainModel> chunk = new ArrayList<DomainModel>(batchSizeParam);
+        Class<?> entityClass = null;
+        int count = 0;
+        long start = System.nanoTime();
+        RepositoryBatchChunkEvent chunkEvent = RepositoryBatchChunkEvent.start();
+        for (final DomainModel current : entities) {
+            getSession().persist(current);
+            chunk.add(current);
+            entityClass = Hibernate.getClass(current);
+            countCache.invalidate(entityClass);
+            if (++count == batchSizeParam) {
+                flushSession();
+                evictChunk(chunk);
+                chunks.add(new BatchChunk(count, System.nanoTime() - start));
+                chunkEvent.record(getClass(), entityClass, "create", count);
+                count = 0;
+                start = System.nanoTime();
+                chunkEvent = RepositoryBatchChunkEvent.start();
+            }
+        }
+        if (count > 0) {
+            flushSession();
+            evictChunk(chunk);
+            chunks.add(new BatchChunk(count, System.nanoTime() - start));
+            chunkEvent.record(getClass(), entityClass, "create", count);
+        }
+        return new BatchReport(chunks);
+    }
+
+    /**
+     * Evicts the specified flushed entities, then empties the list.  Only
+     * these entities are released: the other entities of the session stay
+     * managed.
+     *
+     * @param chunkParam The entities of the chunk.
+     */
+    private void evictChunk(final List<?> chunkParam) {
+        for (final Object current : chunkParam) {
+            getSession().evict(current);
+        }
+        chunkParam.clear();
+    }
+
     protected final <ID extends Serializable, DomainModel extends IIdentifiable<ID>, PersistenceModel extends DomainModel> Criteria createCriteria(final Class<PersistenceModel> persistentClassParam) {
         PARAM_REQ.Object.requireNotNull(persistentClassParam);
         return getSession().createCriteria(persistentClassParam);
     }
 
     public final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void delete(final Collection<DomainModel> entities) {
+        delete(entities, DEFAULT_BATCH_SIZE);
+    }
+
+    public final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> BatchReport delete(final Collection<DomainModel> entities, final int batchSizeParam) {
         PARAM_REQ.Object.requireNotNull(entities);
+        PARAM_REQ.Number.requireStrictlyPositive(batchSizeParam, "The batch size must be strictly positive.");
+        final List<BatchChunk> chunks = new ArrayList<BatchChunk>();
+        Class<?> entityClass = null;
+        int count = 0;
+        long start = System.nanoTime();
+        RepositoryBatchChunkEvent chunkEvent = RepositoryBatchChunkEvent.start();
         for (final DomainModel current : entities) {
-            delete(current);
+            getSession().delete(attachForDelete(current));
+            entityClass = Hibernate.getClass(current);
+            countCache.invalidate(entityClass);
+            if (++count == batchSizeParam) {
+                flushSession();
+                chunks.add(new BatchChunk(count, System.nanoTime() - start));
+                chunkEvent.record(getClass(), entityClass, "delete", count);
+                count = 0;
+                start = System.nanoTime();
+                chunkEvent = RepositoryBatchChunkEvent.start();
+            }
+        }
+        if (count > 0) {
+            flushSession();
+            chunks.add(new BatchChunk(count, System.nanoTime() - start));
+            chunkEvent.record(getClass(), entityClass, "delete", count);
         }
+        return new BatchReport(chunks);
+    }
+
+    /**
+     * Returns the instance to pass to {@code Session.delete} to delete the
+     * specified entity without merging it: the entity itself if it is
+     * associated with the session or detached, or the instance with the same
+     * identifier which is already associated with the session.
+     */
+    private Object attachForDelete(final IIdentifiable<?> entityParam) {
+        PARAM_REQ.Object.requireNotNull(entityParam);
+        PARAM_REQ.Object.requireNotNull(entityParam.getId(), "The entity must have an identifier.");
+        if (getSession().contains(entityParam)) {
+            return entityParam;
+        }
+        final Object associated = getFromPersistenceContext(Hibernate.getClass(entityParam), entityParam.getId());
+        return associated == null ? entityParam : associated;
+    }
+
+    /**
+     * Checks whether the specified entity, associated with the session, is
+     * scheduled for deletion or deleted.
+     */
+    private boolean isRemoved(final Object associatedParam) {
+        final EntityEntry entry = ((SessionImplementor) getSession()).getPersistenceContext().getEntry(associatedParam);
+        return entry != null && (entry.getStatus() == Status.DELETED || entry.getStatus() == Status.GONE);
+    }
+
+    /**
+     * Returns the entity with the specified identifier if it is already
+     * associated with the current session.  Never hits the data base.
+     *
+     * @param persistentClassParam The class of the entity.
+     * @param idParam              The identifier of the entity.
+     * @return The associated entity, or {@code null} if there is none.
+     */
+    protected final Object getFromPersistenceContext(final Class<?> persistentClassParam, final Serializable idParam) {
+        PARAM_REQ.Object.requireNotNull(idParam);
+        final SessionImplementor session = (SessionImplementor) getSession();
+        final EntityPersister persister = session.getFactory().getEntityPersister(getClassMetadata(persistentClassParam).getEntityName());
+        final RepositoryCacheLookupEvent lookup = RepositoryCacheLookupEvent.start();
+        final Object entity = session.getPersistenceContext().getEntity(new EntityKey(idParam, persister, EntityMode.POJO));
+        lookup.record(getClass(), persistentClassParam, RepositoryCacheLookupEvent.SESSION, entity != null);
+        return entity;
     }
 
     public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void delete(final DomainModel entity) {
         PARAM_REQ.Object.requireNotNull(entity);
         final DomainModel merged = (DomainModel) getSession().merge(
                 entity);
-        getSession().flush();
+        flushSession();
         getSession().delete(merged);
-        getSession().flush();
+        flushSession();
+        countCache.invalidate(Hibernate.getClass(entity));
     }
 
     public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void delete(final ID id, final Class<DomainModel> persistentClassParam) {
@@ -94,62 +295,565 @@ public class GenericHibernateRepository implements IGenericRepository {
                 persistentClassParam, id);
         if (entity != null) {
             getSession().delete(entity);
+            countCache.invalidate(persistentClassParam);
+        }
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteAll(final Class<DomainModel> persistentClassParam) {
+        return deleteAll(persistentClassParam, DeleteMode.BULK);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteAll(final Class<DomainModel> persistentClassParam, final DeleteMode modeParam) {
+        return deleteAll(persistentClassParam, modeParam, DEFAULT_BATCH_SIZE);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteAll(final Class<DomainModel> persistentClassParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        return delete(persistentClassParam, null, Collections.<String, Object>emptyMap(), modeParam, chunkSizeParam);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteWhere(final Class<DomainModel> persistentClassParam, final String conditionParam, final Map<String, ?> parametersParam) {
+        return deleteWhere(persistentClassParam, conditionParam, parametersParam, DeleteMode.BULK);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteWhere(final Class<DomainModel> persistentClassParam, final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam) {
+        return deleteWhere(persistentClassParam, conditionParam, parametersParam, modeParam, DEFAULT_BATCH_SIZE);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteWhere(final Class<DomainModel> persistentClassParam, final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        PARAM_REQ.String.requireNotBlank(conditionParam, "The condition must not be blank.");
+        return delete(persistentClassParam, conditionParam, parametersParam, modeParam, chunkSizeParam);
+    }
+
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    private <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int delete(final Class<DomainModel> persistentClassParam, final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        PARAM_REQ.Object.requireNotNull(parametersParam);
+        PARAM_REQ.Object.requireNotNull(modeParam);
+        PARAM_REQ.Number.requireStrictlyPositive(chunkSizeParam, "The chunk size must be strictly positive.");
+        final ClassMetadata metadata = getClassMetadata(persistentClassParam);
+        countCache.invalidate(persistentClassParam);
+        final String from = " from " + metadata.getEntityName() + " " + ENTITY_ALIAS;
+        if (modeParam == DeleteMode.BULK) {
+            final Query query = getSession().createQuery("delete" + from
+                    + (conditionParam == null ? "" : " where " + conditionParam));
+            return setParameters(query, parametersParam).executeUpdate();
         }
+        // Chunks are read in identifier order, after the last deleted identifier.
+        final String id = ENTITY_ALIAS + "." + metadata.getIdentifierPropertyName();
+        final String where = conditionParam == null ? " where " : " where (" + conditionParam + ") and ";
+        final String first = "select " + ENTITY_ALIAS + from
+                + (conditionParam == null ? "" : " where " + conditionParam) + " order by " + id;
+        final String next = "select " + ENTITY_ALIAS + from + where + id + " > :" + LAST_ID_PARAMETER + " order by " + id;
+        final String operation = conditionParam == null ? "deleteAll" : "deleteWhere";
+        int count = 0;
+        ID lastId = null;
+        List<DomainModel> chunk;
+        do {
+            final RepositoryBatchChunkEvent chunkEvent = RepositoryBatchChunkEvent.start();
+            final Query query = setParameters(getSession().createQuery(lastId == null ? first : next), parametersParam);
+            if (lastId != null) {
+                query.setParameter(LAST_ID_PARAMETER, lastId);
+            }
+            chunk = query.setMaxResults(chunkSizeParam).list();
+            for (final DomainModel current : chunk) {
+                getSession().delete(current);
+            }
+            flushSession();
+            chunkEvent.record(getClass(), persistentClassParam, operation, chunk.size());
+            count += chunk.size();
+            if (!chunk.isEmpty()) {
+                lastId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == chunkSizeParam);
+        return count;
     }
 
-    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void deleteAll(final Class<DomainModel> persistentClassParam) {
-        delete(retrieveAll(persistentClassParam));
+    /**
+     * Sets the specified named parameters on the specified query.  Collection
+     * values are set as parameter lists.
+     *
+     * @param queryParam      The query.
+     * @param parametersParam The parameter values, by parameter name.
+     * @return The specified query.
+     */
+    protected final Query setParameters(final Query queryParam, final Map<String, ?> parametersParam) {
+        return CriteriaHelper.setParameters(queryParam, parametersParam);
     }
 
     public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> boolean exists(final DomainModel entity) {
         PARAM_REQ.Object.requireNotNull(entity);
-        return getSession().get(entity.getClass(), entity.getId()) != null;
+        return entity.getId() != null && exists(Hibernate.getClass(entity), entity.getId());
     }
 
     public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> boolean exists(final ID id, final Class<DomainModel> persistentClassParam) {
         PARAM_REQ.Object.requireNotNull(id);
-        return getSession().get(persistentClassParam, id) != null;
+        return exists(persistentClassParam, id);
+    }
+
+    /**
+     * Checks for the existence of an entity without loading it: the session is
+     * looked up first, then the second-level cache, and last the data base is
+     * queried for the identifier only.  The second-level cache is skipped once
+     * the session has written cached data, since deletions and bulk
+     * operations only reach the cache when the transaction completes.
+     */
+    private boolean exists(final Class<?> persistentClassParam, final Serializable idParam) {
+        final Object associated = getFromPersistenceContext(persistentClassParam, idParam);
+        if (associated != null) {
+            return !isRemoved(associated);
+        }
+        if (!hasPendingCacheUpdates()) {
+            final RepositoryCacheLookupEvent lookup = RepositoryCacheLookupEvent.start();
+            if (lookup.record(getClass(), persistentClassParam, RepositoryCacheLookupEvent.SECOND_LEVEL,
+                    sessionFactory.getCache().containsEntity(persistentClassParam, idParam))) {
+                return true;
+            }
+        }
+        return getSession().createCriteria(persistentClassParam)
+                .add(Restrictions.idEq(idParam))
+                .setProjection(Projections.id())
+                .setMaxResults(1)
+                .uniqueResult() != null;
+    }
+
+    /**
+     * Tells if the session has queued actions, or flushed actions whose
+     * second-level cache updates wait for the end of the transaction.  Entity
+     * deletions and bulk operations on cached entities are such actions.
+     *
+     * @return {@code true} if the second-level cache may not reflect the
+     *         changes of the session, {@code false} else.
+     */
+    private boolean hasPendingCacheUpdates() {
+        final ActionQueue actions = ((EventSource) getSession()).getActionQueue();
+        return actions.hasAnyQueuedActions() || actions.hasAfterTransactionActions();
     }
 
     public final void flush() {
         LOGGER.trace("Session flush.");
-        getSession().flush();
+        flushSession();
+    }
+
+    /**
+     * Flushes the session, and reports the duration of the flush to the
+     * operation traced on the current thread, if any, and to the flight
+     * recorder.
+     */
+    private void flushSession() {
+        final RepositoryFlushEvent event = RepositoryFlushEvent.start();
+        if (OperationTrace.isActive()) {
+            final long start = System.nanoTime();
+            getSession().flush();
+            OperationTrace.recordFlush(System.nanoTime() - start);
+        } else {
+            getSession().flush();
+        }
+        event.record(getClass());
+    }
+
+    public final FlushPolicy getFlushPolicy() {
+        return flushPolicy;
+    }
+
+    public final ReadMode getReadMode() {
+        return readMode;
+    }
+
+    /**
+     * Returns the amount of flushes this repository skipped before queries:
+     * with {@link FlushPolicy#NEVER}, and with {@link FlushPolicy#AUTO} when
+     * the session held no pending change to the queried tables.
+     *
+     * @return The amount of avoided flushes.
+     */
+    public final long getAvoidedFlushCount() {
+        return avoidedFlushCount.get();
+    }
+
+    /**
+     * Applies the specified flush policy before a query on the specified
+     * class: either flushes the session, or returns the flush mode the query
+     * must run in.  With {@link FlushPolicy#AUTO}, the session is flushed only
+     * if it holds pending changes to the tables of the class or its
+     * subclasses; otherwise the query runs without flushing.
+     *
+     * @param persistentClassParam The queried class.
+     * @param flushPolicyParam     The flush policy.  Must not be {@code null}.
+     * @return The flush mode of the query, or {@code null} if the session was
+     *         flushed.
+     */
+    private FlushMode beforeQuery(final Class<?> persistentClassParam, final FlushPolicy flushPolicyParam) {
+        PARAM_REQ.Object.requireNotNull(flushPolicyParam);
+        if (flushPolicyParam == FlushPolicy.ALWAYS
+                || flushPolicyParam == FlushPolicy.AUTO && PendingChanges.exist(getSession(), persistentClassParam)) {
+            flush();
+            return null;
+        }
+        avoidedFlushCount.incrementAndGet();
+        return FlushMode.MANUAL;
+    }
+
+    /**
+     * Creates a criteria returning entities of the specified class, loaded in
+     * the specified mode.
+     *
+     * @param persistentClassParam The class of the entities.
+     * @param flushModeParam       The flush mode of the query, or {@code null}
+     *                             to keep the session's.
+     * @param readModeParam        The read mode.  Must not be {@code null}.
+     * @return The criteria.
+     */
+    private Criteria createReadCriteria(final Class<?> persistentClassParam, final FlushMode flushModeParam,
+                                        final ReadMode readModeParam) {
+        PARAM_REQ.Object.requireNotNull(readModeParam);
+        final Criteria criteria = getSession().createCriteria(persistentClassParam).setFlushMode(flushModeParam);
+        return readModeParam == ReadMode.READ_ONLY ? criteria.setReadOnly(true) : criteria;
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ICloseableIterator<DomainModel> iterateAll(final Class<DomainModel> persistentClassParam) {
+        return iterateAll(persistentClassParam, DEFAULT_FETCH_SIZE);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ICloseableIterator<DomainModel> iterateAll(final Class<DomainModel> persistentClassParam, final int fetchSizeParam) {
+        return iterateAll(persistentClassParam, fetchSizeParam, QueryOptions.newOptions());
+    }
+
+    /**
+     * Iterates over all entities of the specified class with the specified
+     * options.  As scrolled entities are evicted one by one, the associations
+     * of the fetch plan are joined, and a plan containing collections is
+     * rejected as an illegal argument.
+     */
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ICloseableIterator<DomainModel> iterateAll(final Class<DomainModel> persistentClassParam, final int fetchSizeParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Number.requireStrictlyPositive(fetchSizeParam, "The fetch size must be strictly positive.");
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        final Criteria criteria = createReadCriteria(persistentClassParam, beforeQuery(persistentClassParam, optionsParam.getFlushPolicy(flushPolicy)),
+                optionsParam.getReadMode(readMode));
+        final FetchPlan joins = FetchPlan.newPlan()
+                .join(optionsParam.getFetchPlan().getJoinPaths().toArray(new String[0]))
+                .join(optionsParam.getFetchPlan().getBatchPaths().toArray(new String[0]));
+        PARAM_REQ.Logic.requireTrue(CriteriaHelper.addFetchJoins(criteria, getSessionFactoryImplementor(), getClassMetadata(persistentClassParam),
+                joins, false).isEmpty(), "Collections cannot be fetched while scrolling.");
+        final ScrollableResults results = criteria
+                .setFetchSize(fetchSizeParam)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        return new ScrollableResultsIterator<DomainModel>(getSession(), results);
     }
 
     @SuppressWarnings(CompilerWarnings.UNCHECKED)
     public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam) {
-        getSession().flush();
-        return getSession().createCriteria(persistentClassParam).list();
+        return retrieveAll(persistentClassParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam, final QueryOptions optionsParam) {
+        return fetchAll(persistentClassParam, null, optionsParam);
     }
 
-    @SuppressWarnings(CompilerWarnings.UNCHECKED)
     public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam, final Page pageParam) {
+        return retrieveAll(persistentClassParam, pageParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam, final Page pageParam, final QueryOptions optionsParam) {
         PARAM_REQ.Object.requireNotNull(pageParam);
         PARAM_REQ.Number.requireNotStrictlyNegative(pageParam.getFirstResult());
         PARAM_REQ.Number.requireNotStrictlyNegative(pageParam.getMaxResults());
-        getSession().flush();
-        return addPagingToCriteria(getSession().createCriteria(persistentClassParam), pageParam)
+        return fetchAll(persistentClassParam, pageParam, optionsParam);
+    }
+
+    /**
+     * Retrieves the entities of the specified page, or all entities, with the
+     * specified options: the flush policy and read mode which are not set are
+     * the repository's, and the associations of the fetch plan are loaded with
+     * the entities.
+     */
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    private <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> fetchAll(final Class<DomainModel> persistentClassParam, final Page pageParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        final FlushMode flushMode = beforeQuery(persistentClassParam, optionsParam.getFlushPolicy(flushPolicy));
+        final ReadMode queryReadMode = optionsParam.getReadMode(readMode);
+        final ClassMetadata metadata = getClassMetadata(persistentClassParam);
+        final Criteria criteria = createReadCriteria(persistentClassParam, flushMode, queryReadMode);
+        final List<String> batchPaths = CriteriaHelper.addFetchJoins(criteria, getSessionFactoryImplementor(), metadata,
+                optionsParam.getFetchPlan(), pageParam == null);
+        final List<DomainModel> results = (pageParam == null ? criteria : CriteriaHelper.addPage(criteria, metadata, pageParam))
                 .list();
+        fetchBatchesOf(persistentClassParam, results, batchPaths, queryReadMode);
+        return results;
     }
 
-    protected final Criteria addPagingToCriteria(final Criteria criteriaParam, final Page pageParam) {
-        PARAM_REQ.Object.requireNotNull(criteriaParam);
+    /**
+     * Fetches the specified associations of the specified entities, which are
+     * associated with the session.
+     */
+    private void fetchBatchesOf(final Class<?> persistentClassParam, final List<? extends IIdentifiable<?>> entitiesParam,
+                                final List<String> pathsParam, final ReadMode readModeParam) {
+        if (pathsParam.isEmpty()) {
+            return;
+        }
+        final List<Serializable> ids = new ArrayList<Serializable>(entitiesParam.size());
+        for (final IIdentifiable<?> current : entitiesParam) {
+            ids.add(current.getId());
+        }
+        fetchBatches(persistentClassParam, ids, pathsParam, readModeParam);
+    }
+
+    /**
+     * Fetches the specified associations of the entities with the specified
+     * identifiers, which are associated with the session: for each association
+     * and chunk of identifiers, one query joins the association.
+     *
+     * @param persistentClassParam The class of the entities.
+     * @param idsParam             The identifiers of the entities.
+     * @param pathsParam           The paths of the associations.
+     * @param readModeParam        The read mode of the entities.
+     */
+    private void fetchBatches(final Class<?> persistentClassParam, final List<? extends Serializable> idsParam,
+                              final List<String> pathsParam, final ReadMode readModeParam) {
+        if (idsParam.isEmpty() || pathsParam.isEmpty()) {
+            return;
+        }
+        final String idProperty = getClassMetadata(persistentClassParam).getIdentifierPropertyName();
+        for (final String current : pathsParam) {
+            for (int i = 0; i < idsParam.size(); i += DEFAULT_IN_CLAUSE_SIZE) {
+                CriteriaHelper.addFetchJoin(createReadCriteria(persistentClassParam, FlushMode.MANUAL, readModeParam), current)
+                        .add(Restrictions.in(idProperty, idsParam.subList(i, Math.min(i + DEFAULT_IN_CLAUSE_SIZE, idsParam.size()))))
+                        .list();
+            }
+        }
+    }
+
+    private SessionFactoryImplementor getSessionFactoryImplementor() {
+        return ((SessionImplementor) getSession()).getFactory();
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> retrievePage(final Class<DomainModel> persistentClassParam, final Page pageParam) {
+        return retrievePage(persistentClassParam, pageParam, CountMode.EXACT);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> retrievePage(final Class<DomainModel> persistentClassParam, final Page pageParam, final CountMode countModeParam) {
+        return retrievePage(persistentClassParam, pageParam, countModeParam, QueryOptions.newOptions());
+    }
+
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> retrievePage(final Class<DomainModel> persistentClassParam, final Page pageParam, final CountMode countModeParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
         PARAM_REQ.Object.requireNotNull(pageParam);
+        PARAM_REQ.Object.requireNotNull(countModeParam);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
         PARAM_REQ.Number.requireNotStrictlyNegative(pageParam.getFirstResult());
         PARAM_REQ.Number.requireNotStrictlyNegative(pageParam.getMaxResults());
-        criteriaParam.setFirstResult(pageParam.getFirstResult()).setMaxResults(pageParam.getMaxResults());
-        return criteriaParam;
+        final FlushMode flushMode = beforeQuery(persistentClassParam, optionsParam.getFlushPolicy(flushPolicy));
+        final ReadMode queryReadMode = optionsParam.getReadMode(readMode);
+        final ClassMetadata metadata = getClassMetadata(persistentClassParam);
+        final Criteria criteria = createReadCriteria(persistentClassParam, flushMode, queryReadMode);
+        final List<String> batchPaths = CriteriaHelper.addFetchJoins(criteria, getSessionFactoryImplementor(), metadata,
+                optionsParam.getFetchPlan(), false);
+        final ResultHolder<ID, DomainModel> page;
+        if (countModeParam == CountMode.ESTIMATED) {
+            page = CriteriaHelper.listEstimated(CriteriaHelper.addPage(criteria, metadata, pageParam), pageParam);
+        } else {
+            final int count;
+            if (countModeParam == CountMode.CACHED) {
+                final RepositoryCacheLookupEvent lookup = RepositoryCacheLookupEvent.start();
+                final Integer cached = countCache.get(persistentClassParam);
+                lookup.record(getClass(), persistentClassParam, RepositoryCacheLookupEvent.COUNT, cached != null);
+                if (cached == null) {
+                    final long generation = countCache.getGeneration();
+                    count = CriteriaHelper.count(getSession().createCriteria(persistentClassParam).setFlushMode(flushMode));
+                    countCache.put(persistentClassParam, count, generation);
+                } else {
+                    count = cached;
+                }
+            } else {
+                count = CriteriaHelper.count(getSession().createCriteria(persistentClassParam).setFlushMode(flushMode));
+            }
+            page = new ResultHolder<ID, DomainModel>(CriteriaHelper.addPage(criteria, metadata, pageParam).list(), count);
+        }
+        fetchBatchesOf(persistentClassParam, page.getResults(), batchPaths, queryReadMode);
+        return page;
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam) {
+        return retrieveProjection(persistentClassParam, projectionParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        PARAM_REQ.Object.requireNotNull(projectionParam);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        final FlushMode flushMode = beforeQuery(persistentClassParam, optionsParam.getFlushPolicy(flushPolicy));
+        return CriteriaHelper.listProjection(getSession().createCriteria(persistentClassParam).setFlushMode(flushMode), getClassMetadata(persistentClassParam), projectionParam, null);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam, final Page pageParam) {
+        return retrieveProjection(persistentClassParam, projectionParam, pageParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam, final Page pageParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        PARAM_REQ.Object.requireNotNull(projectionParam);
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        final FlushMode flushMode = beforeQuery(persistentClassParam, optionsParam.getFlushPolicy(flushPolicy));
+        return CriteriaHelper.listProjection(getSession().createCriteria(persistentClassParam).setFlushMode(flushMode), getClassMetadata(persistentClassParam), projectionParam, pageParam);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Slice<ID, DomainModel> retrieveSlice(final Class<DomainModel> persistentClassParam, final Page pageParam) {
+        return retrieveSlice(persistentClassParam, pageParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Slice<ID, DomainModel> retrieveSlice(final Class<DomainModel> persistentClassParam, final Page pageParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        PARAM_REQ.Number.requireStrictlyPositive(pageParam.getMaxResults(), "A slice requires a maximum amount of results.");
+        final FlushMode flushMode = beforeQuery(persistentClassParam, optionsParam.getFlushPolicy(flushPolicy));
+        final ReadMode queryReadMode = optionsParam.getReadMode(readMode);
+        final ClassMetadata metadata = getClassMetadata(persistentClassParam);
+        final Criteria criteria = createReadCriteria(persistentClassParam, flushMode, queryReadMode);
+        final List<String> batchPaths = CriteriaHelper.addFetchJoins(criteria, getSessionFactoryImplementor(), metadata,
+                optionsParam.getFetchPlan(), false);
+        final Slice<ID, DomainModel> slice = CriteriaHelper.listSlice(CriteriaHelper.addPage(criteria, metadata, pageParam), metadata, pageParam);
+        fetchBatchesOf(persistentClassParam, slice.getResults(), batchPaths, queryReadMode);
+        return slice;
+    }
+
+    /**
+     * Adds the specified keyset paging to the specified criteria: restricts the
+     * results to the rows after the page's key and orders them by key.
+     *
+     * @param criteriaParam        The criteria whose results must be paged.
+     * @param persistentClassParam The class of the entities the criteria returns.
+     * @param pageParam            The paging setting.  Must be in keyset mode.
+     * @return The specified criteria, with paging set.
+     */
+    protected final Criteria addKeysetToCriteria(final Criteria criteriaParam, final Class<?> persistentClassParam, final Page pageParam) {
+        return CriteriaHelper.addKeyset(criteriaParam, getClassMetadata(persistentClassParam), pageParam);
+    }
+
+    /**
+     * Returns the Hibernate metadata of the specified entity class.
+     *
+     * @param persistentClassParam The entity class.  Must be mapped.
+     * @return The metadata of the class.
+     */
+    protected final ClassMetadata getClassMetadata(final Class<?> persistentClassParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        final ClassMetadata metadata = sessionFactory.getClassMetadata(persistentClassParam);
+        PARAM_REQ.Object.requireNotNull(metadata, "The class must be a mapped entity class.");
+        return metadata;
+    }
+
+    protected final Criteria addPagingToCriteria(final Criteria criteriaParam, final Page pageParam) {
+        return CriteriaHelper.addPaging(criteriaParam, pageParam);
     }
 
-    @SuppressWarnings(CompilerWarnings.UNCHECKED)
     public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> DomainModel retrieveById(final Class<DomainModel> persistentClassParam, final ID id) {
+        return retrieveById(persistentClassParam, id, QueryOptions.newOptions());
+    }
+
+    /**
+     * Retrieves an entity using its identifier, with the read mode and fetch
+     * plan of the specified options; the flush policy does not apply, as
+     * loading by identifier does not flush.  Without fetch plan, the entity is
+     * loaded from the session, or the second-level cache if any: in read-only
+     * mode, the session's default read-only setting is switched on while the
+     * entity is loaded, then restored.  This setting only applies to entities
+     * the session loads, so an entity which is already associated with the
+     * session is returned modifiable if it was loaded so.  With a fetch plan,
+     * the second-level cache is not looked up.
+     */
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> DomainModel retrieveById(final Class<DomainModel> persistentClassParam, final ID id, final QueryOptions optionsParam) {
         PARAM_REQ.Object.requireNotNull(id);
-        final DomainModel entity = (DomainModel) getSession().get(
-                persistentClassParam, id);
-        if (entity != null) {
-            Hibernate.initialize(entity);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        if (!optionsParam.getFetchPlan().isEmpty()) {
+            return retrieveMapByIds(persistentClassParam, Collections.singleton(id), DEFAULT_IN_CLAUSE_SIZE, optionsParam).get(id);
         }
-        return entity;
+        final Session session = getSession();
+        final boolean defaultReadOnly = session.isDefaultReadOnly();
+        if (optionsParam.getReadMode(readMode) == ReadMode.READ_ONLY) {
+            session.setDefaultReadOnly(true);
+        }
+        try {
+            final DomainModel entity = (DomainModel) session.get(
+                    persistentClassParam, id);
+            if (entity != null) {
+                Hibernate.initialize(entity);
+            }
+            return entity;
+        } finally {
+            session.setDefaultReadOnly(defaultReadOnly);
+        }
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids) {
+        return new ArrayList<DomainModel>(retrieveMapByIds(persistentClassParam, ids).values());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids) {
+        return retrieveMapByIds(persistentClassParam, ids, DEFAULT_IN_CLAUSE_SIZE);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids, final int chunkSizeParam) {
+        return retrieveMapByIds(persistentClassParam, ids, chunkSizeParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids, final QueryOptions optionsParam) {
+        return retrieveMapByIds(persistentClassParam, ids, DEFAULT_IN_CLAUSE_SIZE, optionsParam);
+    }
+
+    /**
+     * Retrieves the entities with the specified identifiers.  The entities
+     * already associated with the session are not queried again, nor switched
+     * to the read mode of the options: all the associations of the fetch plan
+     * are batched for them.  The flush policy does not apply.
+     */
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    private <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids, final int chunkSizeParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(ids);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        final FetchPlan fetchPlan = optionsParam.getFetchPlan();
+        final ReadMode queryReadMode = optionsParam.getReadMode(readMode);
+        PARAM_REQ.Number.requireStrictlyPositive(chunkSizeParam, "The chunk size must be strictly positive.");
+        final Map<ID, DomainModel> found = new HashMap<ID, DomainModel>();
+        final List<ID> missing = new ArrayList<ID>();
+        final List<ID> associatedIds = new ArrayList<ID>();
+        for (final ID current : new LinkedHashSet<ID>(ids)) {
+            PARAM_REQ.Object.requireNotNull(current, "The identifiers must not be null.");
+            final Object associated = getFromPersistenceContext(persistentClassParam, current);
+            if (associated == null) {
+                missing.add(current);
+            } else if (!isRemoved(associated)) {
+                found.put(current, (DomainModel) associated);
+                associatedIds.add(current);
+            }
+        }
+        final ClassMetadata metadata = getClassMetadata(persistentClassParam);
+        final List<ID> loadedIds = new ArrayList<ID>();
+        List<String> batchPaths = fetchPlan.getBatchPaths();
+        for (int i = 0; i < missing.size(); i += chunkSizeParam) {
+            final Criteria criteria = createReadCriteria(persistentClassParam, null, queryReadMode)
+                    .add(Restrictions.in(metadata.getIdentifierPropertyName(), missing.subList(i, Math.min(i + chunkSizeParam, missing.size()))));
+            batchPaths = CriteriaHelper.addFetchJoins(criteria, getSessionFactoryImplementor(), metadata, fetchPlan, true);
+            for (final DomainModel current : (List<DomainModel>) criteria.list()) {
+                found.put(current.getId(), current);
+                loadedIds.add(current.getId());
+            }
+        }
+        if (!fetchPlan.isEmpty()) {
+            final List<String> allPaths = new ArrayList<String>(fetchPlan.getJoinPaths());
+            allPaths.addAll(fetchPlan.getBatchPaths());
+            fetchBatches(persistentClassParam, associatedIds, allPaths, queryReadMode);
+            fetchBatches(persistentClassParam, loadedIds, batchPaths, queryReadMode);
+        }
+        final Map<ID, DomainModel> result = new LinkedHashMap<ID, DomainModel>();
+        for (final ID current : ids) {
+            final DomainModel entity = found.get(current);
+            if (entity != null) {
+                result.put(current, entity);
+            }
+        }
+        return result;
     }
 
     @SuppressWarnings(CompilerWarnings.UNCHECKED)
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.hibernate;
+
+import com.googlecode.jbp.common.repository.IPendingChangesLookup;
+import org.hibernate.Session;
+
+/**
+ * Looks up the pending changes of Hibernate sessions with
+ * {@link PendingChanges}, e.g. for the entity managers of Hibernate
+ * EntityManager, whose delegate is the session.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class HibernatePendingChangesLookup implements IPendingChangesLookup {
+
+    public Boolean exist(final Object persistenceContextParam, final Class<?> persistentClassParam) {
+        return persistenceContextParam instanceof Session
+                ? PendingChanges.exist((Session) persistenceContextParam, persistentClassParam) : null;
+    }
+}
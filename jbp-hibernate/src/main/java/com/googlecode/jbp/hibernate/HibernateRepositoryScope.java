@@ -0,0 +1,112 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.hibernate;
+
+import com.googlecode.jbp.common.repository.IIdentifiable;
+import com.googlecode.jbp.common.repository.IRepository;
+import com.googlecode.jbp.common.repository.IRepositoryScope;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import java.io.Serializable;
+import java.util.function.Function;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Scope which runs work in a transaction of the current Hibernate session.
+ * The session factory must bind the current session to the thread
+ * ({@code hibernate.current_session_context_class=thread}): each thread then
+ * gets a session of its own, which is closed when the transaction ends.  Work
+ * run while a transaction is already active joins it.
+ * <p>
+ * A read-only scope loads every entity of the transactions it begins
+ * read-only, so that no snapshot is kept for dirty checking, and never
+ * flushes the session.  Changes made by its work are not written.
+ * </p>
+ *
+ * @param <ID>          The class of the entity's identifier.
+ * @param <DomainModel> The class of the entity's domain model.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class HibernateRepositoryScope<ID extends Serializable, DomainModel extends IIdentifiable<ID>>
+        implements IRepositoryScope<ID, DomainModel> {
+
+    private final SessionFactory sessionFactory;
+    private final IRepository<ID, DomainModel> repository;
+    private final boolean readOnly;
+
+    /**
+     * Constructor.  The scope reads and writes.
+     *
+     * @param sessionFactoryParam The session factory.  Must not be {@code null}.
+     * @param repositoryParam     The repository passed to the work, which uses
+     *                            the current session of the session factory.
+     *                            Must not be {@code null}.
+     */
+    public HibernateRepositoryScope(final SessionFactory sessionFactoryParam,
+                                    final IRepository<ID, DomainModel> repositoryParam) {
+        this(sessionFactoryParam, repositoryParam, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param sessionFactoryParam The session factory.  Must not be {@code null}.
+     * @param repositoryParam     The repository passed to the work, which uses
+     *                            the current session of the session factory.
+     *                            Must not be {@code null}.
+     * @param readOnlyParam       Whether the transactions begun by the scope
+     *                            are read-only.
+     */
+    public HibernateRepositoryScope(final SessionFactory sessionFactoryParam,
+                                    final IRepository<ID, DomainModel> repositoryParam, final boolean readOnlyParam) {
+        PARAM_REQ.Object.requireNotNull(sessionFactoryParam);
+        PARAM_REQ.Object.requireNotNull(repositoryParam);
+        sessionFactory = sessionFactoryParam;
+        repository = repositoryParam;
+        readOnly = readOnlyParam;
+    }
+
+    public final boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public <R> R execute(final Function<IRepository<ID, DomainModel>, R> workParam) {
+        PARAM_REQ.Object.requireNotNull(workParam);
+        final Session session = sessionFactory.getCurrentSession();
+        if (session.getTransaction().isActive()) {
+            return workParam.apply(repository);
+        }
+        final Transaction transaction = session.beginTransaction();
+        if (readOnly) {
+            session.setDefaultReadOnly(true);
+            session.setFlushMode(FlushMode.MANUAL);
+        }
+        try {
+            final R result = workParam.apply(repository);
+            transaction.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.hibernate;
+
+import com.googlecode.jbp.common.repository.IStatementStatisticsSource;
+import com.googlecode.jbp.common.repository.StatementStatistics;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Statement statistics source reading the statistics of a Hibernate session
+ * factory, which it enables.
+ * <p>
+ * The statistics are a setting of the whole session factory, and gathering
+ * them costs every session of the factory.  {@link #close()} therefore
+ * restores the setting the factory had before this source was created;
+ * sources nested on one factory must be closed in reverse order.
+ * </p>
+ * <p>
+ * Executions are counted by shape: each HQL query string, each
+ * entity fetched by its own select ({@code fetch entity} followed by the
+ * entity name), and each collection initialized by its own select
+ * ({@code fetch collection} followed by the collection role).
+ * </p>
+ * <p>
+ * The counts have these limits:
+ * </p>
+ * <ul>
+ * <li>They are global to the session factory: the difference between two
+ * snapshots includes the statements other sessions executed meanwhile.</li>
+ * <li>Each snapshot walks the statistics of every query, entity and collection
+ * the factory knows, so counting a call walks them twice.</li>
+ * <li>Criteria queries are not listed by {@code Statistics.getQueries()}: they
+ * are only part of the total statement count, and never flagged by shape.</li>
+ * </ul>
+ * <p>
+ * The {@link SessionStatisticsSource} counts the statements of the calling
+ * thread instead, by SQL shape, without these limits.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class HibernateStatisticsSource implements IStatementStatisticsSource, AutoCloseable {
+
+    private final Statistics statistics;
+    private final boolean previouslyEnabled;
+
+    /**
+     * Constructor.  Enables the statistics of the specified session factory
+     * until this source is closed.
+     *
+     * @param sessionFactoryParam The session factory.  Must not be
+     *                            {@code null}.
+     */
+    public HibernateStatisticsSource(final SessionFactory sessionFactoryParam) {
+        PARAM_REQ.Object.requireNotNull(sessionFactoryParam);
+        statistics = sessionFactoryParam.getStatistics();
+        previouslyEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    /**
+     * Restores the statistics setting the session factory had when this
+     * source was created.
+     */
+    public void close() {
+        statistics.setStatisticsEnabled(previouslyEnabled);
+    }
+
+    public StatementStatistics snapshot() {
+        final Map<String, Long> executions = new LinkedHashMap<String, Long>();
+        for (final String current : statistics.getQueries()) {
+            executions.put(current, statistics.getQueryStatistics(current).getExecutionCount());
+        }
+        for (final String current : statistics.getEntityNames()) {
+            executions.put("fetch entity " + current, statistics.getEntityStatistics(current).getFetchCount());
+        }
+        for (final String current : statistics.getCollectionRoleNames()) {
+            executions.put("fetch collection " + current, statistics.getCollectionStatistics(current).getFetchCount());
+        }
+        return new StatementStatistics(statistics.getPrepareStatementCount(), statistics.getEntityLoadCount(),
+                statistics.getCollectionLoadCount(), executions);
+    }
+}
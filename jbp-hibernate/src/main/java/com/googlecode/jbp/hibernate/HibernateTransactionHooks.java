@@ -0,0 +1,64 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.hibernate;
+
+import com.googlecode.jbp.common.repository.ITransactionHooks;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import javax.transaction.Synchronization;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Hooks which run actions once the transaction of the current Hibernate
+ * session completes, through a {@link Synchronization} registered with it.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class HibernateTransactionHooks implements ITransactionHooks {
+
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Constructor.
+     *
+     * @param sessionFactoryParam The session factory, whose current session is
+     *                            the one of the repositories.  Must not be
+     *                            {@code null}.
+     */
+    public HibernateTransactionHooks(final SessionFactory sessionFactoryParam) {
+        PARAM_REQ.Object.requireNotNull(sessionFactoryParam);
+        sessionFactory = sessionFactoryParam;
+    }
+
+    public void afterCompletion(final Runnable actionParam) {
+        PARAM_REQ.Object.requireNotNull(actionParam);
+        final Transaction transaction = sessionFactory.getCurrentSession().getTransaction();
+        if (!transaction.isActive()) {
+            actionParam.run();
+            return;
+        }
+        transaction.registerSynchronization(new Synchronization() {
+            public void beforeCompletion() {
+            }
+
+            public void afterCompletion(final int statusParam) {
+                actionParam.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.hibernate;
+
+import org.hibernate.Session;
+import org.hibernate.collection.PersistentCollection;
+import org.hibernate.engine.CollectionKey;
+import org.hibernate.engine.EntityEntry;
+import org.hibernate.engine.EntityKey;
+import org.hibernate.engine.PersistenceContext;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.engine.Status;
+import org.hibernate.event.EventSource;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Tells whether a session holds changes, not flushed yet, which a query on an
+ * entity class would not see.  Only the tables the class, and its subclasses,
+ * are read from are looked at: queued insertions and deletions, entities
+ * whose state differs from the loaded one, and modified collections.  Nothing
+ * is flushed or copied: the persistence context is walked by key, and only
+ * the entities stored in these tables are dirty-checked.
+ * <p>
+ * A change which only a cascade would make at flush time, such as saving a
+ * new entity referenced by a modified one, is seen through the modified
+ * entity: it is only detected if both are stored in the queried tables.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public final class PendingChanges {
+
+    private PendingChanges() {
+        throw new IllegalStateException("This object must not be instanciated.");
+    }
+
+    /**
+     * Tells whether the specified session holds pending changes to the tables
+     * of the specified entity class or its subclasses.
+     *
+     * @param sessionParam         The session.  Must not be {@code null}.
+     * @param persistentClassParam The queried class.  Must be mapped.
+     * @return {@code true} if a query on the class must be preceded by a flush
+     *         to see every change.
+     */
+    public static boolean exist(final Session sessionParam, final Class<?> persistentClassParam) {
+        PARAM_REQ.Object.requireNotNull(sessionParam);
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        final SessionImplementor session = (SessionImplementor) sessionParam;
+        final SessionFactoryImplementor factory = session.getFactory();
+        final ClassMetadata metadata = factory.getClassMetadata(persistentClassParam);
+        PARAM_REQ.Object.requireNotNull(metadata, "The class must be a mapped entity class.");
+        final Set<Serializable> spaces = new HashSet<Serializable>(Arrays.asList(
+                factory.getEntityPersister(metadata.getEntityName()).getQuerySpaces()));
+        if (((EventSource) session).getActionQueue().areTablesToBeUpdated(spaces)) {
+            return true;
+        }
+        final PersistenceContext context = session.getPersistenceContext();
+        // Whether the tables of an entity or a collection role are queried.
+        final Map<String, Boolean> queried = new HashMap<String, Boolean>();
+        for (final Map.Entry<?, ?> current : ((Map<?, ?>) context.getCollectionsByKey()).entrySet()) {
+            final String role = ((CollectionKey) current.getKey()).getRole();
+            Boolean inSpaces = queried.get(role);
+            if (inSpaces == null) {
+                inSpaces = intersects(factory.getCollectionPersister(role).getCollectionSpaces(), spaces);
+                queried.put(role, inSpaces);
+            }
+            if (inSpaces && ((PersistentCollection) current.getValue()).isDirty()) {
+                return true;
+            }
+        }
+        // The entities are collected before being dirty-checked, since reading
+        // their state may change the persistence context.
+        final List<Object> candidates = new ArrayList<Object>();
+        for (final Map.Entry<?, ?> current : ((Map<?, ?>) context.getEntitiesByKey()).entrySet()) {
+            final String entityName = ((EntityKey) current.getKey()).getEntityName();
+            Boolean inSpaces = queried.get(entityName);
+            if (inSpaces == null) {
+                inSpaces = intersects(factory.getEntityPersister(entityName).getPropertySpaces(), spaces);
+                queried.put(entityName, inSpaces);
+            }
+            if (inSpaces) {
+                candidates.add(current.getValue());
+            }
+        }
+        for (final Object current : candidates) {
+            final EntityEntry entry = context.getEntry(current);
+            if (entry != null && isDirty(session, current, entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDirty(final SessionImplementor sessionParam, final Object entityParam,
+                                   final EntityEntry entryParam) {
+        if (entryParam.getStatus() != Status.MANAGED || !entryParam.requiresDirtyCheck(entityParam)) {
+            return false;
+        }
+        final EntityPersister persister = entryParam.getPersister();
+        final Object[] state = persister.getPropertyValues(entityParam, sessionParam.getEntityMode());
+        return persister.findDirty(state, entryParam.getLoadedState(), entityParam, sessionParam) != null;
+    }
+
+    private static boolean intersects(final Serializable[] tablesParam, final Set<Serializable> spacesParam) {
+        for (final Serializable current : tablesParam) {
+            if (spacesParam.contains(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
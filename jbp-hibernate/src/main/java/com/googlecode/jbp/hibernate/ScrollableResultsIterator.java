@@ -0,0 +1,115 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.hibernate;
+
+import com.googlecode.jbp.common.constants.CompilerWarnings;
+import com.googlecode.jbp.common.repository.ICloseableIterator;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import java.util.NoSuchElementException;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Iterator over Hibernate {@code ScrollableResults}.  Each entity is evicted
+ * from the session when the iterator moves past it, so the session does not
+ * grow while iterating.  Results scrolled with a stateless session are not
+ * evicted, as it keeps no entities.
+ *
+ * @param <T> The type of the iterated entities.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+final class ScrollableResultsIterator<T> implements ICloseableIterator<T> {
+
+    private final Session session;
+    private final ScrollableResults results;
+    private T current;
+    private T next;
+    private boolean advanced = false;
+    private boolean closed = false;
+
+    /**
+     * Constructor for results scrolled with a stateless session.
+     *
+     * @param resultsParam The scrollable results, whose rows contain one entity.
+     *                     Must not be {@code null}.
+     */
+    ScrollableResultsIterator(final ScrollableResults resultsParam) {
+        PARAM_REQ.Object.requireNotNull(resultsParam);
+        session = null;
+        results = resultsParam;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param sessionParam The session the results are read with.  Must not be
+     *                     {@code null}.
+     * @param resultsParam The scrollable results, whose rows contain one entity.
+     *                     Must not be {@code null}.
+     */
+    ScrollableResultsIterator(final Session sessionParam, final ScrollableResults resultsParam) {
+        PARAM_REQ.Object.requireNotNull(sessionParam);
+        PARAM_REQ.Object.requireNotNull(resultsParam);
+        session = sessionParam;
+        results = resultsParam;
+    }
+
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    public boolean hasNext() {
+        if (!advanced && !closed) {
+            if (results.next()) {
+                next = (T) results.get(0);
+            } else {
+                next = null;
+                close();
+            }
+            advanced = true;
+        }
+        return next != null;
+    }
+
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        advanced = false;
+        evictCurrent();
+        current = next;
+        return current;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("Entities cannot be removed while iterating.");
+    }
+
+    public void close() {
+        if (!closed) {
+            closed = true;
+            next = null;
+            evictCurrent();
+            results.close();
+        }
+    }
+
+    private void evictCurrent() {
+        if (current != null && session != null) {
+            session.evict(current);
+        }
+        current = null;
+    }
+}
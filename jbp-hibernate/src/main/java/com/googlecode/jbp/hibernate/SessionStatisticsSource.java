@@ -0,0 +1,108 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.hibernate;
+
+import com.googlecode.jbp.common.repository.IStatementStatisticsSource;
+import com.googlecode.jbp.common.repository.StatementStatistics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Statement statistics source counting the statements of the calling thread,
+ * as reported by the {@link SqlCapturingInterceptor} of the session factory.
+ * <p>
+ * Unlike the statistics of the session factory, the counts of a thread only
+ * include the statements of the session bound to it, even while other
+ * threads use the same factory, and every statement is counted, criteria
+ * queries included.  Executions are counted by shape: the SQL of the
+ * statement, whose parameters are placeholders.  Entities are counted as they
+ * are loaded; the interceptor is not told about collection initializations,
+ * which are only seen as statements, so the collection load count is always
+ * zero.
+ * </p>
+ * <p>
+ * Statements are only counted while a source is open, so the interceptor
+ * costs nothing otherwise.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class SessionStatisticsSource implements IStatementStatisticsSource, AutoCloseable {
+
+    private static final AtomicInteger OPEN_SOURCES = new AtomicInteger();
+    private static final ThreadLocal<Counts> COUNTS = new ThreadLocal<Counts>() {
+        @Override
+        protected Counts initialValue() {
+            return new Counts();
+        }
+    };
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * Constructor.  Starts counting statements until this source is closed.
+     */
+    public SessionStatisticsSource() {
+        OPEN_SOURCES.incrementAndGet();
+    }
+
+    /**
+     * Stops counting statements, unless other sources are still open.
+     */
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            OPEN_SOURCES.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the statistics of the statements the calling thread executed
+     * while sources were open.
+     *
+     * @return The current statistics of the calling thread.
+     */
+    public StatementStatistics snapshot() {
+        final Counts counts = COUNTS.get();
+        return new StatementStatistics(counts.statementCount, counts.entityLoadCount, 0L, counts.executionsByShape);
+    }
+
+    static void recordStatement(final String sqlParam) {
+        if (OPEN_SOURCES.get() > 0) {
+            final Counts counts = COUNTS.get();
+            counts.statementCount++;
+            final Long executions = counts.executionsByShape.get(sqlParam);
+            counts.executionsByShape.put(sqlParam, executions == null ? 1L : executions + 1L);
+        }
+    }
+
+    static void recordEntityLoad() {
+        if (OPEN_SOURCES.get() > 0) {
+            COUNTS.get().entityLoadCount++;
+        }
+    }
+
+    /**
+     * Counts of the statements of a thread.
+     */
+    private static final class Counts {
+        private final Map<String, Long> executionsByShape = new HashMap<String, Long>();
+        private long statementCount = 0L;
+        private long entityLoadCount = 0L;
+    }
+}
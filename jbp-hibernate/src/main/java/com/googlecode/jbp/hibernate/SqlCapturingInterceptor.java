@@ -0,0 +1,56 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.hibernate;
+
+import com.googlecode.jbp.common.repository.OperationTrace;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+/**
+ * Hibernate interceptor which passes the SQL of the prepared statements to
+ * the {@link OperationTrace} of the current thread, so that slow operations
+ * are logged with their statements, and counts the statements and loaded
+ * entities of the current thread for the {@link SessionStatisticsSource}.
+ * <p>
+ * Set it on the configuration of the session factory:
+ * {@code configuration.setInterceptor(new SqlCapturingInterceptor())}, or,
+ * with the Hibernate JPA provider, in the {@code hibernate.ejb.interceptor}
+ * property of the persistence unit.  Statements are only kept while an
+ * operation is traced, and only counted while a statistics source is open.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class SqlCapturingInterceptor extends EmptyInterceptor {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String onPrepareStatement(final String sqlParam) {
+        OperationTrace.recordStatement(sqlParam);
+        SessionStatisticsSource.recordStatement(sqlParam);
+        return sqlParam;
+    }
+
+    @Override
+    public boolean onLoad(final Object entityParam, final Serializable idParam, final Object[] stateParam,
+                          final String[] propertyNamesParam, final Type[] typesParam) {
+        SessionStatisticsSource.recordEntityLoad();
+        return false;
+    }
+}
@@ -0,0 +1,508 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.hibernate;
+
+import com.googlecode.jbp.common.constants.CompilerWarnings;
+import com.googlecode.jbp.common.repository.BatchChunk;
+import com.googlecode.jbp.common.repository.BatchReport;
+import com.googlecode.jbp.common.repository.CountMode;
+import com.googlecode.jbp.common.repository.DeleteMode;
+import com.googlecode.jbp.common.repository.EntityCountCache;
+import com.googlecode.jbp.common.repository.FetchPlan;
+import com.googlecode.jbp.common.repository.FlushPolicy;
+import com.googlecode.jbp.common.repository.ICloseableIterator;
+import com.googlecode.jbp.common.repository.IGenericRepository;
+import com.googlecode.jbp.common.repository.IIdentifiable;
+import com.googlecode.jbp.common.repository.Page;
+import com.googlecode.jbp.common.repository.Projection;
+import com.googlecode.jbp.common.repository.QueryOptions;
+import com.googlecode.jbp.common.repository.ResultHolder;
+import com.googlecode.jbp.common.repository.Slice;
+import org.hibernate.Criteria;
+import org.hibernate.ScrollMode;
+import org.hibernate.StatelessSession;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.metadata.ClassMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Generic Hibernate repository working with a {@code StatelessSession}, for
+ * bulk insert, update, delete and scroll workloads.  Not specific to a given
+ * entity class.
+ * <p>
+ * A stateless session has no persistence context: no first-level cache, no
+ * snapshots and no dirty checking.  Statements are added to the JDBC batch
+ * (see the {@code hibernate.jdbc.batch_size} setting) and the batch is
+ * executed after each chunk of a bulk operation, by {@link #flush()}, before
+ * queries and when the transaction commits.
+ * </p>
+ * <p>
+ * The semantics of the {@code IGenericRepository} operations differ from
+ * those of {@link GenericHibernateRepository}:
+ * </p>
+ * <ul>
+ * <li>Retrieved entities are detached: changing them has no effect unless
+ * they are passed to {@code update}, and retrieving the same row twice
+ * returns two instances.</li>
+ * <li>{@code update} issues an {@code UPDATE} of every column of the passed
+ * instance, without merging and without checking whether it changed.</li>
+ * <li>{@code delete} deletes the passed instance directly, and
+ * {@code delete(id, class)} runs a bulk delete by identifier without loading
+ * the entity.</li>
+ * <li>No operation cascades to associations, and lazy associations of
+ * retrieved entities cannot be initialized.  {@link DeleteMode#CASCADING} is
+ * rejected as an illegal argument.</li>
+ * <li>The second-level cache, interceptors and event listeners are
+ * bypassed.</li>
+ * <li>Flush policies only tell whether the pending JDBC batch is executed
+ * before a query: {@link FlushPolicy#NEVER} leaves it pending, the other
+ * policies execute it.</li>
+ * <li>Read modes are ignored: retrieved entities are detached, and no
+ * snapshot is ever kept.</li>
+ * <li>Fetch plans join the single-valued associations of their paths, batched
+ * ones included.  Collections cannot be loaded and are ignored.</li>
+ * </ul>
+ * <p>
+ * Like the session it works with, an instance must not be shared between
+ * threads.  Opening and closing the session and its transactions is left to
+ * the caller.
+ * </p>
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class StatelessHibernateRepository implements IGenericRepository {
+
+    private static final transient Logger LOGGER = LoggerFactory
+            .getLogger(StatelessHibernateRepository.class);
+
+    private final StatelessSession session;
+    private final EntityCountCache countCache = new EntityCountCache();
+
+    /**
+     * Constructor.
+     *
+     * @param sessionParam The stateless session this repository works with.
+     *                     Must not be {@code null}.
+     */
+    public StatelessHibernateRepository(final StatelessSession sessionParam) {
+        super();
+        PARAM_REQ.Object.requireNotNull(sessionParam);
+        session = sessionParam;
+    }
+
+    protected final StatelessSession getSession() {
+        return session;
+    }
+
+    public final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> DomainModel create(final DomainModel entity) {
+        PARAM_REQ.Object.requireNotNull(entity);
+        getSession().insert(entity);
+        countCache.invalidate(entity.getClass());
+        return entity;
+    }
+
+    public final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> BatchReport create(final Collection<DomainModel> entities) {
+        return create(entities, DEFAULT_BATCH_SIZE);
+    }
+
+    public final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> BatchReport create(final Collection<DomainModel> entities, final int batchSizeParam) {
+        PARAM_REQ.Object.requireNotNull(entities);
+        PARAM_REQ.Number.requireStrictlyPositive(batchSizeParam, "The batch size must be strictly positive.");
+        final List<BatchChunk> chunks = new ArrayList<BatchChunk>();
+        int count = 0;
+        long start = System.nanoTime();
+        for (final DomainModel current : entities) {
+            getSession().insert(current);
+            countCache.invalidate(current.getClass());
+            if (++count == batchSizeParam) {
+                flush();
+                chunks.add(new BatchChunk(count, System.nanoTime() - start));
+                count = 0;
+                start = System.nanoTime();
+            }
+        }
+        if (count > 0) {
+            flush();
+            chunks.add(new BatchChunk(count, System.nanoTime() - start));
+        }
+        return new BatchReport(chunks);
+    }
+
+    public final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void delete(final Collection<DomainModel> entities) {
+        delete(entities, DEFAULT_BATCH_SIZE);
+    }
+
+    public final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> BatchReport delete(final Collection<DomainModel> entities, final int batchSizeParam) {
+        PARAM_REQ.Object.requireNotNull(entities);
+        PARAM_REQ.Number.requireStrictlyPositive(batchSizeParam, "The batch size must be strictly positive.");
+        final List<BatchChunk> chunks = new ArrayList<BatchChunk>();
+        int count = 0;
+        long start = System.nanoTime();
+        for (final DomainModel current : entities) {
+            PARAM_REQ.Object.requireNotNull(current);
+            getSession().delete(current);
+            countCache.invalidate(current.getClass());
+            if (++count == batchSizeParam) {
+                flush();
+                chunks.add(new BatchChunk(count, System.nanoTime() - start));
+                count = 0;
+                start = System.nanoTime();
+            }
+        }
+        if (count > 0) {
+            flush();
+            chunks.add(new BatchChunk(count, System.nanoTime() - start));
+        }
+        return new BatchReport(chunks);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void delete(final DomainModel entity) {
+        PARAM_REQ.Object.requireNotNull(entity);
+        getSession().delete(entity);
+        flush();
+        countCache.invalidate(entity.getClass());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void delete(final ID id, final Class<DomainModel> persistentClassParam) {
+        PARAM_REQ.Object.requireNotNull(id);
+        final ClassMetadata metadata = getClassMetadata(persistentClassParam);
+        flush();
+        getSession().createQuery("delete from " + metadata.getEntityName() + " " + ENTITY_ALIAS
+                + " where " + ENTITY_ALIAS + "." + metadata.getIdentifierPropertyName() + " = :id")
+                .setParameter("id", id)
+                .executeUpdate();
+        countCache.invalidate(persistentClassParam);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteAll(final Class<DomainModel> persistentClassParam) {
+        return deleteAll(persistentClassParam, DeleteMode.BULK);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteAll(final Class<DomainModel> persistentClassParam, final DeleteMode modeParam) {
+        return delete(persistentClassParam, null, Collections.<String, Object>emptyMap(), modeParam);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteAll(final Class<DomainModel> persistentClassParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        PARAM_REQ.Number.requireStrictlyPositive(chunkSizeParam, "The chunk size must be strictly positive.");
+        return deleteAll(persistentClassParam, modeParam);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteWhere(final Class<DomainModel> persistentClassParam, final String conditionParam, final Map<String, ?> parametersParam) {
+        return deleteWhere(persistentClassParam, conditionParam, parametersParam, DeleteMode.BULK);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteWhere(final Class<DomainModel> persistentClassParam, final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam) {
+        PARAM_REQ.String.requireNotBlank(conditionParam, "The condition must not be blank.");
+        return delete(persistentClassParam, conditionParam, parametersParam, modeParam);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteWhere(final Class<DomainModel> persistentClassParam, final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        PARAM_REQ.Number.requireStrictlyPositive(chunkSizeParam, "The chunk size must be strictly positive.");
+        return deleteWhere(persistentClassParam, conditionParam, parametersParam, modeParam);
+    }
+
+    private int delete(final Class<?> persistentClassParam, final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam) {
+        PARAM_REQ.Object.requireNotNull(parametersParam);
+        PARAM_REQ.Object.requireNotNull(modeParam);
+        PARAM_REQ.Logic.requireTrue(modeParam == DeleteMode.BULK, "A stateless session does not cascade deletes.");
+        final ClassMetadata metadata = getClassMetadata(persistentClassParam);
+        flush();
+        countCache.invalidate(persistentClassParam);
+        return CriteriaHelper.setParameters(getSession().createQuery("delete from " + metadata.getEntityName() + " " + ENTITY_ALIAS
+                + (conditionParam == null ? "" : " where " + conditionParam)), parametersParam)
+                .executeUpdate();
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> boolean exists(final DomainModel entity) {
+        PARAM_REQ.Object.requireNotNull(entity);
+        return entity.getId() != null && exists(entity.getClass(), entity.getId());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> boolean exists(final ID id, final Class<DomainModel> persistentClassParam) {
+        PARAM_REQ.Object.requireNotNull(id);
+        return exists(persistentClassParam, id);
+    }
+
+    private boolean exists(final Class<?> persistentClassParam, final Serializable idParam) {
+        flush();
+        return getSession().createCriteria(persistentClassParam)
+                .add(Restrictions.idEq(idParam))
+                .setProjection(Projections.id())
+                .setMaxResults(1)
+                .uniqueResult() != null;
+    }
+
+    /**
+     * Executes the pending JDBC batch.  A stateless session has no persistence
+     * context to flush.
+     */
+    public final void flush() {
+        LOGGER.trace("JDBC batch execution.");
+        ((SessionImplementor) getSession()).getBatcher().executeBatch();
+    }
+
+    private void beforeQuery(final FlushPolicy flushPolicyParam) {
+        PARAM_REQ.Object.requireNotNull(flushPolicyParam);
+        if (flushPolicyParam != FlushPolicy.NEVER) {
+            flush();
+        }
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ICloseableIterator<DomainModel> iterateAll(final Class<DomainModel> persistentClassParam) {
+        return iterateAll(persistentClassParam, DEFAULT_FETCH_SIZE);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ICloseableIterator<DomainModel> iterateAll(final Class<DomainModel> persistentClassParam, final int fetchSizeParam) {
+        return iterateAll(persistentClassParam, fetchSizeParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ICloseableIterator<DomainModel> iterateAll(final Class<DomainModel> persistentClassParam, final int fetchSizeParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        PARAM_REQ.Number.requireStrictlyPositive(fetchSizeParam, "The fetch size must be strictly positive.");
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        beforeQuery(optionsParam.getFlushPolicy(FlushPolicy.ALWAYS));
+        return new ScrollableResultsIterator<DomainModel>(addFetchJoins(getSession().createCriteria(persistentClassParam), persistentClassParam, optionsParam.getFetchPlan())
+                .setFetchSize(fetchSizeParam)
+                .scroll(ScrollMode.FORWARD_ONLY));
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam) {
+        return retrieveAll(persistentClassParam, QueryOptions.newOptions());
+    }
+
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        beforeQuery(optionsParam.getFlushPolicy(FlushPolicy.ALWAYS));
+        return addFetchJoins(getSession().createCriteria(persistentClassParam), persistentClassParam, optionsParam.getFetchPlan()).list();
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam, final Page pageParam) {
+        return retrieveAll(persistentClassParam, pageParam, QueryOptions.newOptions());
+    }
+
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam, final Page pageParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        beforeQuery(optionsParam.getFlushPolicy(FlushPolicy.ALWAYS));
+        return CriteriaHelper.addPage(addFetchJoins(getSession().createCriteria(persistentClassParam), persistentClassParam, optionsParam.getFetchPlan()),
+                getClassMetadata(persistentClassParam), pageParam).list();
+    }
+
+    /**
+     * Joins the single-valued associations of the specified fetch plan, joined
+     * or batched, in the specified criteria.
+     */
+    private Criteria addFetchJoins(final Criteria criteriaParam, final Class<?> persistentClassParam, final FetchPlan fetchPlanParam) {
+        PARAM_REQ.Object.requireNotNull(fetchPlanParam);
+        final FetchPlan joins = FetchPlan.newPlan()
+                .join(fetchPlanParam.getJoinPaths().toArray(new String[0]))
+                .join(fetchPlanParam.getBatchPaths().toArray(new String[0]));
+        CriteriaHelper.addFetchJoins(criteriaParam, ((SessionImplementor) getSession()).getFactory(),
+                getClassMetadata(persistentClassParam), joins, false);
+        return criteriaParam;
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> retrievePage(final Class<DomainModel> persistentClassParam, final Page pageParam) {
+        return retrievePage(persistentClassParam, pageParam, CountMode.EXACT);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> retrievePage(final Class<DomainModel> persistentClassParam, final Page pageParam, final CountMode countModeParam) {
+        return retrievePage(persistentClassParam, pageParam, countModeParam, QueryOptions.newOptions());
+    }
+
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> retrievePage(final Class<DomainModel> persistentClassParam, final Page pageParam, final CountMode countModeParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        PARAM_REQ.Object.requireNotNull(countModeParam);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        beforeQuery(optionsParam.getFlushPolicy(FlushPolicy.ALWAYS));
+        final ClassMetadata metadata = getClassMetadata(persistentClassParam);
+        final Criteria criteria = addFetchJoins(getSession().createCriteria(persistentClassParam), persistentClassParam, optionsParam.getFetchPlan());
+        if (countModeParam == CountMode.ESTIMATED) {
+            return CriteriaHelper.listEstimated(CriteriaHelper.addPage(criteria, metadata, pageParam), pageParam);
+        }
+        final int count;
+        if (countModeParam == CountMode.CACHED) {
+            final Integer cached = countCache.get(persistentClassParam);
+            if (cached == null) {
+                final long generation = countCache.getGeneration();
+                count = CriteriaHelper.count(getSession().createCriteria(persistentClassParam));
+                countCache.put(persistentClassParam, count, generation);
+            } else {
+                count = cached;
+            }
+        } else {
+            count = CriteriaHelper.count(getSession().createCriteria(persistentClassParam));
+        }
+        final List<DomainModel> results = CriteriaHelper.addPage(criteria, metadata, pageParam)
+                .list();
+        return new ResultHolder<ID, DomainModel>(results, count);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam) {
+        return retrieveProjection(persistentClassParam, projectionParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        PARAM_REQ.Object.requireNotNull(projectionParam);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        beforeQuery(optionsParam.getFlushPolicy(FlushPolicy.ALWAYS));
+        return CriteriaHelper.listProjection(getSession().createCriteria(persistentClassParam), getClassMetadata(persistentClassParam), projectionParam, null);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam, final Page pageParam) {
+        return retrieveProjection(persistentClassParam, projectionParam, pageParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam, final Page pageParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        PARAM_REQ.Object.requireNotNull(projectionParam);
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        beforeQuery(optionsParam.getFlushPolicy(FlushPolicy.ALWAYS));
+        return CriteriaHelper.listProjection(getSession().createCriteria(persistentClassParam), getClassMetadata(persistentClassParam), projectionParam, pageParam);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Slice<ID, DomainModel> retrieveSlice(final Class<DomainModel> persistentClassParam, final Page pageParam) {
+        return retrieveSlice(persistentClassParam, pageParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Slice<ID, DomainModel> retrieveSlice(final Class<DomainModel> persistentClassParam, final Page pageParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        beforeQuery(optionsParam.getFlushPolicy(FlushPolicy.ALWAYS));
+        final ClassMetadata metadata = getClassMetadata(persistentClassParam);
+        return CriteriaHelper.listSlice(CriteriaHelper.addPage(addFetchJoins(getSession().createCriteria(persistentClassParam), persistentClassParam, optionsParam.getFetchPlan()),
+                metadata, pageParam), metadata, pageParam);
+    }
+
+    /**
+     * Returns the Hibernate metadata of the specified entity class.
+     *
+     * @param persistentClassParam The entity class.  Must be mapped.
+     * @return The metadata of the class.
+     */
+    protected final ClassMetadata getClassMetadata(final Class<?> persistentClassParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        final ClassMetadata metadata = ((SessionImplementor) getSession()).getFactory().getClassMetadata(persistentClassParam);
+        PARAM_REQ.Object.requireNotNull(metadata, "The class must be a mapped entity class.");
+        return metadata;
+    }
+
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> DomainModel retrieveById(final Class<DomainModel> persistentClassParam, final ID id) {
+        PARAM_REQ.Object.requireNotNull(id);
+        flush();
+        return (DomainModel) getSession().get(persistentClassParam, id);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> DomainModel retrieveById(final Class<DomainModel> persistentClassParam, final ID id, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(id);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        if (optionsParam.getFetchPlan().isEmpty()) {
+            return retrieveById(persistentClassParam, id);
+        }
+        return retrieveMapByIds(persistentClassParam, Collections.singleton(id), DEFAULT_IN_CLAUSE_SIZE, optionsParam.getFetchPlan()).get(id);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids) {
+        return new ArrayList<DomainModel>(retrieveMapByIds(persistentClassParam, ids).values());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids) {
+        return retrieveMapByIds(persistentClassParam, ids, DEFAULT_IN_CLAUSE_SIZE);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids, final int chunkSizeParam) {
+        return retrieveMapByIds(persistentClassParam, ids, chunkSizeParam, FetchPlan.newPlan());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        return retrieveMapByIds(persistentClassParam, ids, DEFAULT_IN_CLAUSE_SIZE, optionsParam.getFetchPlan());
+    }
+
+    @SuppressWarnings(CompilerWarnings.UNCHECKED)
+    private <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids, final int chunkSizeParam, final FetchPlan fetchPlanParam) {
+        PARAM_REQ.Object.requireNotNull(ids);
+        PARAM_REQ.Object.requireNotNull(fetchPlanParam);
+        PARAM_REQ.Number.requireStrictlyPositive(chunkSizeParam, "The chunk size must be strictly positive.");
+        final List<ID> distinct = new ArrayList<ID>(new LinkedHashSet<ID>(ids));
+        for (final ID current : distinct) {
+            PARAM_REQ.Object.requireNotNull(current, "The identifiers must not be null.");
+        }
+        flush();
+        final String idProperty = getClassMetadata(persistentClassParam).getIdentifierPropertyName();
+        final Map<ID, DomainModel> found = new HashMap<ID, DomainModel>();
+        for (int i = 0; i < distinct.size(); i += chunkSizeParam) {
+            final Criteria criteria = addFetchJoins(getSession().createCriteria(persistentClassParam), persistentClassParam, fetchPlanParam)
+                    .add(Restrictions.in(idProperty, distinct.subList(i, Math.min(i + chunkSizeParam, distinct.size()))));
+            for (final DomainModel current : (List<DomainModel>) criteria.list()) {
+                found.put(current.getId(), current);
+            }
+        }
+        final Map<ID, DomainModel> result = new LinkedHashMap<ID, DomainModel>();
+        for (final ID current : ids) {
+            final DomainModel entity = found.get(current);
+            if (entity != null) {
+                result.put(current, entity);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Updates the specified entities, executing the JDBC batch every
+     * {@link #DEFAULT_BATCH_SIZE} entities.
+     */
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void update(final Collection<DomainModel> entities) {
+        PARAM_REQ.Object.requireNotNull(entities);
+        int count = 0;
+        for (final DomainModel current : entities) {
+            PARAM_REQ.Object.requireNotNull(current);
+            getSession().update(current);
+            if (++count % DEFAULT_BATCH_SIZE == 0) {
+                flush();
+            }
+        }
+        flush();
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void update(final DomainModel entity) {
+        PARAM_REQ.Object.requireNotNull(entity);
+        getSession().update(entity);
+    }
+}
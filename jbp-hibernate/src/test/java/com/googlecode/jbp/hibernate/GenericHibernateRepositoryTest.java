@@ -0,0 +1,395 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.hibernate;
+
+import com.googlecode.jbp.common.repository.BatchReport;
+import com.googlecode.jbp.common.repository.CountMode;
+import com.googlecode.jbp.common.repository.DeleteMode;
+import com.googlecode.jbp.common.repository.FetchPlan;
+import com.googlecode.jbp.common.repository.FlushPolicy;
+import com.googlecode.jbp.common.repository.ICloseableIterator;
+import com.googlecode.jbp.common.repository.IIdentifiable;
+import com.googlecode.jbp.common.repository.IPendingChangesLookup;
+import com.googlecode.jbp.common.repository.Page;
+import com.googlecode.jbp.common.repository.Projection;
+import com.googlecode.jbp.common.repository.QueryOptions;
+import com.googlecode.jbp.common.repository.ResultHolder;
+import com.googlecode.jbp.common.repository.Slice;
+import com.googlecode.jbp.common.repository.StatementStatistics;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Tests of {@link GenericHibernateRepository}, against an in-memory H2 data
+ * base.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class GenericHibernateRepositoryTest {
+
+    private SessionFactory sessionFactory;
+    private GenericHibernateRepository repository;
+    private final List<Long> authorIds = new ArrayList<Long>();
+    private final List<Long> bookIds = new ArrayList<Long>();
+
+    @BeforeClass
+    public void setUpSessionFactory() {
+        sessionFactory = newSessionFactory("jbp-hibernate");
+    }
+
+    @AfterClass
+    public void tearDownSessionFactory() {
+        sessionFactory.close();
+    }
+
+    /**
+     * Returns a session factory for the test entities, backed by an in-memory
+     * data base of the specified name.
+     */
+    static SessionFactory newSessionFactory(final String databaseParam) {
+        return new Configuration()
+                .addAnnotatedClass(Author.class)
+                .addAnnotatedClass(Book.class)
+                .setProperty("hibernate.connection.driver_class", "org.h2.Driver")
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:" + databaseParam + ";DB_CLOSE_DELAY=-1")
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.connection.password", "")
+                .setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect")
+                .setProperty("hibernate.hbm2ddl.auto", "create")
+                .setProperty("hibernate.current_session_context_class", "thread")
+                .setInterceptor(new SqlCapturingInterceptor())
+                .buildSessionFactory();
+    }
+
+    /**
+     * Persists three authors, and ten books whose titles repeat every three
+     * books, then begins the transaction of the test.
+     */
+    @BeforeMethod
+    public void setUp() {
+        authorIds.clear();
+        bookIds.clear();
+        final Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        session.createQuery("delete from Book").executeUpdate();
+        session.createQuery("delete from Author").executeUpdate();
+        final List<Author> authors = new ArrayList<Author>();
+        for (int i = 0; i < 3; i++) {
+            final Author author = new Author("author" + i);
+            session.persist(author);
+            authors.add(author);
+            authorIds.add(author.getId());
+        }
+        for (int i = 0; i < 10; i++) {
+            final Book book = new Book("title" + i % 3, (i + 1) * 100, authors.get(i % 3));
+            session.persist(book);
+            bookIds.add(book.getId());
+        }
+        session.getTransaction().commit();
+        sessionFactory.getCurrentSession().beginTransaction();
+        repository = new GenericHibernateRepository(sessionFactory);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        if (sessionFactory.getCurrentSession().getTransaction().isActive()) {
+            sessionFactory.getCurrentSession().getTransaction().rollback();
+        }
+    }
+
+    @Test
+    public void testKeysetByIdentifier() {
+        final List<Book> first = repository.retrieveAll(Book.class, Page.newPage().keyset().maxResults(4));
+        Assert.assertEquals(ids(first), bookIds.subList(0, 4));
+        final List<Book> second = repository.retrieveAll(Book.class, Page.newPage().keyset().after(bookIds.get(3)).maxResults(4));
+        Assert.assertEquals(ids(second), bookIds.subList(4, 8));
+        final List<Book> bounded = repository.retrieveAll(Book.class, Page.newPage().keyset().after(bookIds.get(1)).until(bookIds.get(5)));
+        Assert.assertEquals(ids(bounded), bookIds.subList(2, 6));
+    }
+
+    @Test
+    public void testKeysetByPropertyBreaksTiesWithIdentifier() {
+        final List<Book> expected = repository.retrieveAll(Book.class);
+        Collections.sort(expected, new Comparator<Book>() {
+            public int compare(final Book book1Param, final Book book2Param) {
+                final int byTitle = book1Param.getTitle().compareTo(book2Param.getTitle());
+                return byTitle != 0 ? byTitle : book1Param.getId().compareTo(book2Param.getId());
+            }
+        });
+        final List<Book> walked = new ArrayList<Book>();
+        Slice<Long, Book> slice = repository.retrieveSlice(Book.class, Page.newPage().keyset("title").maxResults(3));
+        walked.addAll(slice.getResults());
+        while (slice.hasNext()) {
+            slice = repository.retrieveSlice(Book.class, slice.getNextPage());
+            walked.addAll(slice.getResults());
+        }
+        Assert.assertEquals(ids(walked), ids(expected));
+    }
+
+    @Test
+    public void testSliceContinuationStopsAtUntilKey() {
+        final Slice<Long, Book> first = repository.retrieveSlice(Book.class, Page.newPage().keyset().until(bookIds.get(6)).maxResults(3));
+        Assert.assertEquals(ids(first.getResults()), bookIds.subList(0, 3));
+        Assert.assertTrue(first.hasNext());
+        final Slice<Long, Book> second = repository.retrieveSlice(Book.class, first.getNextPage());
+        Assert.assertEquals(ids(second.getResults()), bookIds.subList(3, 6));
+        Assert.assertTrue(second.hasNext());
+        final Slice<Long, Book> last = repository.retrieveSlice(Book.class, second.getNextPage());
+        Assert.assertEquals(ids(last.getResults()), bookIds.subList(6, 7));
+        Assert.assertFalse(last.hasNext());
+    }
+
+    @Test
+    public void testIterateAllEvictsIteratedEntities() {
+        final Session session = sessionFactory.getCurrentSession();
+        final ICloseableIterator<Book> iterator = repository.iterateAll(Book.class, 3);
+        Book previous = null;
+        int count = 0;
+        while (iterator.hasNext()) {
+            final Book current = iterator.next();
+            Assert.assertTrue(session.contains(current));
+            if (previous != null) {
+                Assert.assertFalse(session.contains(previous));
+            }
+            previous = current;
+            count++;
+        }
+        Assert.assertEquals(count, 10);
+        Assert.assertFalse(session.contains(previous));
+    }
+
+    @Test
+    public void testIterateAllJoinsSingleValuedAssociations() {
+        final ICloseableIterator<Book> iterator = repository.iterateAll(Book.class, 3,
+                QueryOptions.newOptions().fetchPlan(FetchPlan.newPlan().join("author")));
+        try {
+            while (iterator.hasNext()) {
+                Assert.assertTrue(Hibernate.isInitialized(iterator.next().getAuthor()));
+            }
+        } finally {
+            iterator.close();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testIterateAllRejectsCollections() {
+        repository.iterateAll(Author.class, 3, QueryOptions.newOptions().fetchPlan(FetchPlan.newPlan().batch("books")));
+    }
+
+    @Test
+    public void testCreateInChunks() {
+        final Author author = repository.retrieveById(Author.class, authorIds.get(0));
+        final List<Book> books = new ArrayList<Book>();
+        for (int i = 0; i < 7; i++) {
+            books.add(new Book("created" + i, 10, author));
+        }
+        final BatchReport report = repository.create(books, 3);
+        Assert.assertEquals(report.getCount(), 7);
+        Assert.assertEquals(report.getChunks().size(), 3);
+        Assert.assertEquals(report.getChunks().get(2).getCount(), 1);
+        // Each chunk is flushed, then evicted: the other entities stay managed.
+        Assert.assertFalse(sessionFactory.getCurrentSession().contains(books.get(0)));
+        Assert.assertTrue(sessionFactory.getCurrentSession().contains(author));
+        Assert.assertEquals(repository.retrievePage(Book.class, Page.newPage().maxResults(1)).getResultQuantity(), 17);
+    }
+
+    @Test
+    public void testDeleteInChunks() {
+        final BatchReport report = repository.delete(repository.retrieveAll(Book.class), 4);
+        Assert.assertEquals(report.getCount(), 10);
+        Assert.assertEquals(report.getChunks().size(), 3);
+        Assert.assertTrue(repository.retrieveAll(Book.class).isEmpty());
+    }
+
+    @Test
+    public void testDeleteWhereInBulk() {
+        final Map<String, Object> parameters = Collections.<String, Object>singletonMap("pages", 500);
+        Assert.assertEquals(repository.deleteWhere(Book.class, "e.pages > :pages", parameters), 5);
+        Assert.assertEquals(ids(repository.retrieveAll(Book.class)), bookIds.subList(0, 5));
+    }
+
+    @Test
+    public void testDeleteWhereInChunksKeepsOtherEntitiesManaged() {
+        final Session session = sessionFactory.getCurrentSession();
+        final Book kept = repository.retrieveById(Book.class, bookIds.get(0));
+        final Map<String, Object> parameters = Collections.<String, Object>singletonMap("pages", 500);
+        Assert.assertEquals(repository.deleteWhere(Book.class, "e.pages > :pages", parameters, DeleteMode.CASCADING, 2), 5);
+        Assert.assertTrue(session.contains(kept));
+        Assert.assertEquals(ids(repository.retrieveAll(Book.class)), bookIds.subList(0, 5));
+    }
+
+    @Test
+    public void testExists() {
+        Assert.assertTrue(repository.exists(bookIds.get(0), Book.class));
+        Assert.assertFalse(repository.exists(-1L, Book.class));
+        Assert.assertFalse(repository.exists(new Book("transient", 1, null)));
+        final Book book = repository.retrieveById(Book.class, bookIds.get(1));
+        Assert.assertTrue(repository.exists(book));
+        repository.delete(bookIds.get(1), Book.class);
+        Assert.assertFalse(repository.exists(bookIds.get(1), Book.class));
+    }
+
+    @Test
+    public void testRetrieveMapByIdsKeepsTheOrderOfTheIdentifiers() {
+        final Book associated = repository.retrieveById(Book.class, bookIds.get(2));
+        final List<Long> ids = Arrays.asList(bookIds.get(5), -1L, bookIds.get(2), bookIds.get(0), bookIds.get(5));
+        final Map<Long, Book> books = repository.retrieveMapByIds(Book.class, ids);
+        Assert.assertEquals(new ArrayList<Long>(books.keySet()), Arrays.asList(bookIds.get(5), bookIds.get(2), bookIds.get(0)));
+        Assert.assertSame(books.get(bookIds.get(2)), associated);
+    }
+
+    @Test
+    public void testRetrievePageCounts() {
+        final ResultHolder<Long, Book> exact = repository.retrievePage(Book.class, Page.newPage().firstResult(3).maxResults(4));
+        Assert.assertEquals(ids(exact.getResults()), bookIds.subList(3, 7));
+        Assert.assertEquals(exact.getResultQuantity(), 10);
+        Assert.assertTrue(exact.isExact());
+        final ResultHolder<Long, Book> estimated = repository.retrievePage(Book.class, Page.newPage().maxResults(4), CountMode.ESTIMATED);
+        Assert.assertEquals(estimated.getResults().size(), 4);
+        Assert.assertEquals(estimated.getResultQuantity(), 5);
+        Assert.assertFalse(estimated.isExact());
+        final ResultHolder<Long, Book> last = repository.retrievePage(Book.class, Page.newPage().firstResult(8).maxResults(4), CountMode.ESTIMATED);
+        Assert.assertEquals(last.getResultQuantity(), 10);
+        Assert.assertEquals(repository.retrievePage(Book.class, Page.newPage().maxResults(1), CountMode.CACHED).getResultQuantity(), 10);
+        repository.create(new Book("created", 10, null));
+        Assert.assertEquals(repository.retrievePage(Book.class, Page.newPage().maxResults(1), CountMode.CACHED).getResultQuantity(), 11);
+    }
+
+    @Test
+    public void testProjections() {
+        final List<Object[]> rows = repository.retrieveProjection(Book.class, Projection.attributes("title", "pages"),
+                Page.newPage().keyset().maxResults(2));
+        Assert.assertEquals(rows.size(), 2);
+        Assert.assertEquals(rows.get(0), new Object[]{"title0", 100});
+        Assert.assertEquals(rows.get(1), new Object[]{"title1", 200});
+        final List<String> titles = repository.retrieveProjection(Book.class, Projection.of(String.class, "title"));
+        Assert.assertEquals(titles.size(), 10);
+        Assert.assertTrue(titles.contains("title2"));
+        // Rows are values: nothing is associated with the session.
+        Assert.assertEquals(sessionFactory.getCurrentSession().getStatistics().getEntityCount(), 0);
+    }
+
+    @Test
+    public void testFetchPlans() {
+        final QueryOptions joinAuthor = QueryOptions.newOptions().fetchPlan(FetchPlan.newPlan().join("author"));
+        for (final Book current : repository.retrieveAll(Book.class, Page.newPage().maxResults(5), joinAuthor)) {
+            Assert.assertTrue(Hibernate.isInitialized(current.getAuthor()));
+        }
+        sessionFactory.getCurrentSession().clear();
+        final QueryOptions batchBooks = QueryOptions.newOptions().fetchPlan(FetchPlan.newPlan().join("books"));
+        final ResultHolder<Long, Author> page = repository.retrievePage(Author.class, Page.newPage().maxResults(2), CountMode.EXACT, batchBooks);
+        Assert.assertEquals(page.getResults().size(), 2);
+        Assert.assertEquals(page.getResultQuantity(), 3);
+        for (final Author current : page.getResults()) {
+            Assert.assertTrue(Hibernate.isInitialized(current.getBooks()));
+            Assert.assertEquals(current.getBooks().size(), current.getId().equals(authorIds.get(0)) ? 4 : 3);
+        }
+        sessionFactory.getCurrentSession().clear();
+        final Slice<Long, Author> slice = repository.retrieveSlice(Author.class, Page.newPage().keyset().maxResults(2), batchBooks);
+        for (final Author current : slice.getResults()) {
+            Assert.assertTrue(Hibernate.isInitialized(current.getBooks()));
+        }
+    }
+
+    @Test
+    public void testAutoFlushPolicyFlushesOnlyForPendingChanges() {
+        final GenericHibernateRepository auto = new GenericHibernateRepository(sessionFactory, FlushPolicy.AUTO);
+        auto.retrieveAll(Book.class);
+        Assert.assertEquals(auto.getAvoidedFlushCount(), 1L);
+        final Book book = auto.retrieveById(Book.class, bookIds.get(0));
+        book.setTitle("changed");
+        auto.retrieveAll(Author.class);
+        Assert.assertEquals(auto.getAvoidedFlushCount(), 2L);
+        final List<Object[]> rows = auto.retrieveProjection(Book.class, Projection.attributes("title"), Page.newPage().keyset().maxResults(1));
+        Assert.assertEquals(rows.get(0), new Object[]{"changed"});
+        Assert.assertEquals(auto.getAvoidedFlushCount(), 2L);
+        // Identity columns insert on persist: only the deletion is pending.
+        final Author author = auto.create(new Author("created"));
+        auto.delete(author.getId(), Author.class);
+        Assert.assertEquals(auto.retrievePage(Author.class, Page.newPage().maxResults(1)).getResultQuantity(), 3);
+        Assert.assertEquals(auto.getAvoidedFlushCount(), 2L);
+    }
+
+    @Test
+    public void testPendingChangesLookupIsDiscovered() {
+        final Iterator<IPendingChangesLookup> lookups = ServiceLoader.load(IPendingChangesLookup.class).iterator();
+        Assert.assertTrue(lookups.hasNext());
+        final IPendingChangesLookup lookup = lookups.next();
+        final Session session = sessionFactory.getCurrentSession();
+        Assert.assertEquals(lookup.exist(session, Book.class), Boolean.FALSE);
+        repository.retrieveById(Book.class, bookIds.get(0)).setTitle("changed");
+        Assert.assertEquals(lookup.exist(session, Book.class), Boolean.TRUE);
+        Assert.assertEquals(lookup.exist(session, Author.class), Boolean.FALSE);
+        Assert.assertNull(lookup.exist(new Object(), Book.class));
+    }
+
+    @Test
+    public void testSessionStatisticsCountOnlyTheStatementsOfTheThread() throws Exception {
+        final SessionStatisticsSource source = new SessionStatisticsSource();
+        try {
+            final StatementStatistics before = source.snapshot();
+            for (final Book current : repository.retrieveAll(Book.class)) {
+                Hibernate.initialize(current.getAuthor());
+            }
+            final Thread other = new Thread(new Runnable() {
+                public void run() {
+                    final Session session = sessionFactory.openSession();
+                    try {
+                        session.createQuery("from Author").list();
+                    } finally {
+                        session.close();
+                    }
+                }
+            });
+            other.start();
+            other.join();
+            final StatementStatistics call = source.snapshot().minus(before);
+            Assert.assertEquals(call.getStatementCount(), 4L);
+            Assert.assertEquals(call.getEntityLoadCount(), 13L);
+            // The authors are loaded one by one, with the same statement.
+            final List<Long> executions = new ArrayList<Long>(call.getExecutionsByShape().values());
+            Collections.sort(executions);
+            Assert.assertEquals(executions, Arrays.asList(1L, 3L));
+        } finally {
+            source.close();
+        }
+    }
+
+    private static List<Long> ids(final List<? extends IIdentifiable<Long>> entitiesParam) {
+        final List<Long> ids = new ArrayList<Long>(entitiesParam.size());
+        for (final IIdentifiable<Long> current : entitiesParam) {
+            ids.add(current.getId());
+        }
+        return ids;
+    }
+}
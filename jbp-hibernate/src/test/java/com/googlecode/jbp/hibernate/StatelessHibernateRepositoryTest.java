@@ -0,0 +1,170 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.hibernate;
+
+import com.googlecode.jbp.common.repository.BatchReport;
+import com.googlecode.jbp.common.repository.DeleteMode;
+import com.googlecode.jbp.common.repository.FetchPlan;
+import com.googlecode.jbp.common.repository.ICloseableIterator;
+import com.googlecode.jbp.common.repository.Page;
+import com.googlecode.jbp.common.repository.Projection;
+import com.googlecode.jbp.common.repository.QueryOptions;
+import com.googlecode.jbp.common.repository.Slice;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests of {@link StatelessHibernateRepository}, against an in-memory H2 data
+ * base.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class StatelessHibernateRepositoryTest {
+
+    private SessionFactory sessionFactory;
+    private StatelessSession session;
+    private StatelessHibernateRepository repository;
+    private Author author;
+
+    @BeforeClass
+    public void setUpSessionFactory() {
+        sessionFactory = GenericHibernateRepositoryTest.newSessionFactory("jbp-stateless");
+    }
+
+    @AfterClass
+    public void tearDownSessionFactory() {
+        sessionFactory.close();
+    }
+
+    /**
+     * Persists an author and ten books within the transaction of the test.
+     */
+    @BeforeMethod
+    public void setUp() {
+        session = sessionFactory.openStatelessSession();
+        session.beginTransaction();
+        repository = new StatelessHibernateRepository(session);
+        repository.deleteAll(Book.class);
+        repository.deleteAll(Author.class);
+        author = repository.create(new Author("author"));
+        final List<Book> books = new ArrayList<Book>();
+        for (int i = 0; i < 10; i++) {
+            books.add(new Book("title" + i, (i + 1) * 100, author));
+        }
+        repository.create(books);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        session.getTransaction().rollback();
+        session.close();
+    }
+
+    @Test
+    public void testCreateInChunks() {
+        final List<Book> books = new ArrayList<Book>();
+        for (int i = 0; i < 7; i++) {
+            books.add(new Book("created" + i, 10, author));
+        }
+        final BatchReport report = repository.create(books, 3);
+        Assert.assertEquals(report.getCount(), 7);
+        Assert.assertEquals(report.getChunks().size(), 3);
+        Assert.assertEquals(repository.retrieveAll(Book.class).size(), 17);
+    }
+
+    @Test
+    public void testRetrievedEntitiesAreDetached() {
+        final Long id = repository.retrieveAll(Book.class).get(0).getId();
+        final Book first = repository.retrieveById(Book.class, id);
+        final Book second = repository.retrieveById(Book.class, id);
+        Assert.assertNotSame(first, second);
+        first.setTitle("changed");
+        Assert.assertEquals(repository.retrieveById(Book.class, id).getTitle(), "title0");
+        // A stateless session cannot update an entity referencing an uninitialized proxy.
+        final Book updated = repository.retrieveById(Book.class, id, QueryOptions.newOptions().fetchPlan(FetchPlan.newPlan().join("author")));
+        updated.setTitle("changed");
+        repository.update(updated);
+        Assert.assertEquals(repository.retrieveById(Book.class, id).getTitle(), "changed");
+    }
+
+    @Test
+    public void testDeletes() {
+        final List<Book> books = repository.retrieveAll(Book.class);
+        repository.delete(books.get(0).getId(), Book.class);
+        Assert.assertFalse(repository.exists(books.get(0)));
+        Assert.assertTrue(repository.exists(books.get(1)));
+        Assert.assertEquals(repository.deleteWhere(Book.class, "e.pages > :pages",
+                Collections.<String, Object>singletonMap("pages", 500)), 5);
+        Assert.assertEquals(repository.delete(books.subList(1, 5), 3).getChunks().size(), 2);
+        Assert.assertTrue(repository.retrieveAll(Book.class).isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCascadingDeletesAreRejected() {
+        repository.deleteAll(Book.class, DeleteMode.CASCADING);
+    }
+
+    @Test
+    public void testKeysetSlices() {
+        final List<Book> walked = new ArrayList<Book>();
+        Slice<Long, Book> slice = repository.retrieveSlice(Book.class, Page.newPage().keyset("pages").maxResults(4));
+        walked.addAll(slice.getResults());
+        while (slice.hasNext()) {
+            slice = repository.retrieveSlice(Book.class, slice.getNextPage());
+            walked.addAll(slice.getResults());
+        }
+        Assert.assertEquals(walked.size(), 10);
+        for (int i = 0; i < walked.size(); i++) {
+            Assert.assertEquals(walked.get(i).getPages(), (i + 1) * 100);
+        }
+        Assert.assertEquals(repository.retrievePage(Book.class, Page.newPage().maxResults(3)).getResultQuantity(), 10);
+    }
+
+    @Test
+    public void testFetchPlansJoinSingleValuedAssociations() {
+        final QueryOptions options = QueryOptions.newOptions().fetchPlan(FetchPlan.newPlan().batch("author"));
+        for (final Book current : repository.retrieveAll(Book.class, options)) {
+            Assert.assertTrue(Hibernate.isInitialized(current.getAuthor()));
+            Assert.assertEquals(current.getAuthor().getName(), "author");
+        }
+        final ICloseableIterator<Book> iterator = repository.iterateAll(Book.class, 3, options);
+        int count = 0;
+        while (iterator.hasNext()) {
+            Assert.assertTrue(Hibernate.isInitialized(iterator.next().getAuthor()));
+            count++;
+        }
+        Assert.assertEquals(count, 10);
+    }
+
+    @Test
+    public void testProjections() {
+        final List<Integer> pages = repository.retrieveProjection(Book.class, Projection.of(Integer.class, "pages"),
+                Page.newPage().keyset("pages").after(800));
+        Assert.assertEquals(pages.size(), 2);
+        Assert.assertEquals(pages.get(0), Integer.valueOf(900));
+    }
+}
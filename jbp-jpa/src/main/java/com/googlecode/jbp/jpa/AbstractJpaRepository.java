@@ -16,10 +16,18 @@
 package com.googlecode.jbp.jpa;
 
 
+import com.googlecode.jbp.common.repository.BatchReport;
+import com.googlecode.jbp.common.repository.CountMode;
+import com.googlecode.jbp.common.repository.DeleteMode;
+import com.googlecode.jbp.common.repository.ICloseableIterator;
 import com.googlecode.jbp.common.repository.IGenericRepository;
 import com.googlecode.jbp.common.repository.IIdentifiable;
 import com.googlecode.jbp.common.repository.IRepository;
 import com.googlecode.jbp.common.repository.Page;
+import com.googlecode.jbp.common.repository.Projection;
+import com.googlecode.jbp.common.repository.QueryOptions;
+import com.googlecode.jbp.common.repository.ResultHolder;
+import com.googlecode.jbp.common.repository.Slice;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,6 +37,7 @@ import javax.persistence.criteria.CriteriaQuery;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import static com.googlecode.jbp.common.requirements.ParamRequirements.PARAM_REQ;
 
@@ -78,6 +87,15 @@ public abstract class AbstractJpaRepository<ID extends Serializable, DomainModel
         return genericHibernateRepository.create(entity);
     }
 
+    public final BatchReport create(final Collection<DomainModel> entities) {
+        return create(entities, IGenericRepository.DEFAULT_BATCH_SIZE);
+    }
+
+    public final BatchReport create(final Collection<DomainModel> entities, final int batchSizeParam) {
+        PARAM_REQ.Object.requireAllInstanceOf(entities, getPersistentClass());
+        return genericHibernateRepository.create(entities, batchSizeParam);
+    }
+
     /**
      * Creates a criteria with the persisted entity's class.
      *
@@ -92,6 +110,10 @@ public abstract class AbstractJpaRepository<ID extends Serializable, DomainModel
         genericHibernateRepository.delete(entities);
     }
 
+    public BatchReport delete(final Collection<DomainModel> entities, final int batchSizeParam) {
+        return genericHibernateRepository.delete(entities, batchSizeParam);
+    }
+
     public void delete(final DomainModel entity) {
         PARAM_REQ.Object.requireInstanceOf(entity, getPersistentClass());
         genericHibernateRepository.delete(entity);
@@ -101,8 +123,28 @@ public abstract class AbstractJpaRepository<ID extends Serializable, DomainModel
         genericHibernateRepository.delete(id, getPersistentClass());
     }
 
-    public void deleteAll() {
-        genericHibernateRepository.deleteAll(getPersistentClass());
+    public int deleteAll() {
+        return genericHibernateRepository.deleteAll(getPersistentClass());
+    }
+
+    public int deleteAll(final DeleteMode modeParam) {
+        return genericHibernateRepository.deleteAll(getPersistentClass(), modeParam);
+    }
+
+    public int deleteAll(final DeleteMode modeParam, final int chunkSizeParam) {
+        return genericHibernateRepository.deleteAll(getPersistentClass(), modeParam, chunkSizeParam);
+    }
+
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam) {
+        return genericHibernateRepository.deleteWhere(getPersistentClass(), conditionParam, parametersParam);
+    }
+
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam) {
+        return genericHibernateRepository.deleteWhere(getPersistentClass(), conditionParam, parametersParam, modeParam);
+    }
+
+    public int deleteWhere(final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        return genericHibernateRepository.deleteWhere(getPersistentClass(), conditionParam, parametersParam, modeParam, chunkSizeParam);
     }
 
     public boolean exists(final DomainModel entity) {
@@ -134,10 +176,66 @@ public abstract class AbstractJpaRepository<ID extends Serializable, DomainModel
         return (List<DomainModel>) genericHibernateRepository.retrieveAll(getPersistentClass());
     }
 
+    public List<DomainModel> retrieveAll(final QueryOptions optionsParam) {
+        return (List<DomainModel>) genericHibernateRepository.retrieveAll(getPersistentClass(), optionsParam);
+    }
+
+    public ICloseableIterator<DomainModel> iterateAll() {
+        return (ICloseableIterator<DomainModel>) genericHibernateRepository.iterateAll(getPersistentClass());
+    }
+
+    public ICloseableIterator<DomainModel> iterateAll(final int fetchSizeParam) {
+        return (ICloseableIterator<DomainModel>) genericHibernateRepository.iterateAll(getPersistentClass(), fetchSizeParam);
+    }
+
+    public ICloseableIterator<DomainModel> iterateAll(final int fetchSizeParam, final QueryOptions optionsParam) {
+        return (ICloseableIterator<DomainModel>) genericHibernateRepository.iterateAll(getPersistentClass(), fetchSizeParam, optionsParam);
+    }
+
     public List<DomainModel> retrieveAll(final Page pageParam) {
         return (List<DomainModel>) genericHibernateRepository.retrieveAll(getPersistentClass(), pageParam);
     }
 
+    public List<DomainModel> retrieveAll(final Page pageParam, final QueryOptions optionsParam) {
+        return (List<DomainModel>) genericHibernateRepository.retrieveAll(getPersistentClass(), pageParam, optionsParam);
+    }
+
+    public ResultHolder<ID, DomainModel> retrievePage(final Page pageParam) {
+        return (ResultHolder<ID, DomainModel>) genericHibernateRepository.retrievePage(getPersistentClass(), pageParam);
+    }
+
+    public ResultHolder<ID, DomainModel> retrievePage(final Page pageParam, final CountMode countModeParam) {
+        return (ResultHolder<ID, DomainModel>) genericHibernateRepository.retrievePage(getPersistentClass(), pageParam, countModeParam);
+    }
+
+    public ResultHolder<ID, DomainModel> retrievePage(final Page pageParam, final CountMode countModeParam, final QueryOptions optionsParam) {
+        return (ResultHolder<ID, DomainModel>) genericHibernateRepository.retrievePage(getPersistentClass(), pageParam, countModeParam, optionsParam);
+    }
+
+    public Slice<ID, DomainModel> retrieveSlice(final Page pageParam) {
+        return (Slice<ID, DomainModel>) genericHibernateRepository.retrieveSlice(getPersistentClass(), pageParam);
+    }
+
+    public Slice<ID, DomainModel> retrieveSlice(final Page pageParam, final QueryOptions optionsParam) {
+        return (Slice<ID, DomainModel>) genericHibernateRepository.retrieveSlice(getPersistentClass(), pageParam, optionsParam);
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam) {
+        return (List<R>) genericHibernateRepository.retrieveProjection(getPersistentClass(), projectionParam);
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam, final QueryOptions optionsParam) {
+        return (List<R>) genericHibernateRepository.retrieveProjection(getPersistentClass(), projectionParam, optionsParam);
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam, final Page pageParam) {
+        return (List<R>) genericHibernateRepository.retrieveProjection(getPersistentClass(), projectionParam, pageParam);
+    }
+
+    public <R> List<R> retrieveProjection(final Projection<R> projectionParam, final Page pageParam, final QueryOptions optionsParam) {
+        return (List<R>) genericHibernateRepository.retrieveProjection(getPersistentClass(), projectionParam, pageParam, optionsParam);
+    }
+
     /**
      * Adds the specified paging to the specified criteria.
      *
@@ -158,6 +256,22 @@ public abstract class AbstractJpaRepository<ID extends Serializable, DomainModel
         return genericHibernateRepository.retrieveById(getPersistentClass(), id);
     }
 
+    public DomainModel retrieveById(final ID id, final QueryOptions optionsParam) {
+        return genericHibernateRepository.retrieveById(getPersistentClass(), id, optionsParam);
+    }
+
+    public List<DomainModel> retrieveByIds(final Collection<ID> ids) {
+        return (List<DomainModel>) genericHibernateRepository.retrieveByIds(getPersistentClass(), ids);
+    }
+
+    public Map<ID, DomainModel> retrieveMapByIds(final Collection<ID> ids) {
+        return (Map<ID, DomainModel>) genericHibernateRepository.retrieveMapByIds(getPersistentClass(), ids);
+    }
+
+    public Map<ID, DomainModel> retrieveMapByIds(final Collection<ID> ids, final QueryOptions optionsParam) {
+        return (Map<ID, DomainModel>) genericHibernateRepository.retrieveMapByIds(getPersistentClass(), ids, optionsParam);
+    }
+
     public void update(final Collection<DomainModel> entities) {
         genericHibernateRepository.update(entities);
     }
@@ -16,19 +16,63 @@
 package com.googlecode.jbp.jpa;
 
 import com.googlecode.jbp.common.constants.CompilerWarnings;
+import com.googlecode.jbp.common.repository.BatchChunk;
+import com.googlecode.jbp.common.repository.BatchReport;
+import com.googlecode.jbp.common.repository.CountMode;
+import com.googlecode.jbp.common.repository.DeleteMode;
+import com.googlecode.jbp.common.repository.EntityCountCache;
+import com.googlecode.jbp.common.repository.FetchPlan;
+import com.googlecode.jbp.common.repository.FlushPolicy;
+import com.googlecode.jbp.common.repository.ICloseableIterator;
 import com.googlecode.jbp.common.repository.IGenericRepository;
 import com.googlecode.jbp.common.repository.IIdentifiable;
+import com.googlecode.jbp.common.repository.OperationTrace;
 import com.googlecode.jbp.common.repository.Page;
+import com.googlecode.jbp.common.repository.Projection;
+import com.googlecode.jbp.common.repository.QueryOptions;
+import com.googlecode.jbp.common.repository.ReadMode;
+import com.googlecode.jbp.common.repository.RepositoryBatchChunkEvent;
+import com.googlecode.jbp.common.repository.RepositoryCacheLookupEvent;
+import com.googlecode.jbp.common.repository.RepositoryFlushEvent;
+import com.googlecode.jbp.common.repository.ResultHolder;
+import com.googlecode.jbp.common.repository.Slice;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.persistence.Cache;
 import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Fetch;
+import javax.persistence.criteria.FetchParent;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.SingularAttribute;
 import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.googlecode.jbp.common.requirements.ParamRequirements.PARAM_REQ;
 
@@ -43,18 +87,62 @@ public class GenericJpaRepository implements IGenericRepository {
     private static final transient Logger LOGGER = LoggerFactory
             .getLogger(AbstractJpaRepository.class);
 
+    private static final String LAST_ID_PARAMETER = "jbpLastId";
+
+    /**
+     * The query hint which loads entities read-only with Hibernate.  Other
+     * persistence providers ignore it.
+     */
+    public static final String READ_ONLY_HINT = "org.hibernate.readOnly";
+
     private final EntityManager entityManager;
+    private final EntityCountCache countCache = new EntityCountCache();
+    private final FlushPolicy flushPolicy;
+    private final ReadMode readMode;
+    private final AtomicLong avoidedFlushCount = new AtomicLong();
 
     /**
-     * Constructor.
+     * Constructor.  The entity manager is flushed before every query.
      *
      * @param entityManagerParam Must not be {@code null}.
      */
 
     public GenericJpaRepository(final EntityManager entityManagerParam) {
+        this(entityManagerParam, FlushPolicy.ALWAYS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param entityManagerParam Must not be {@code null}.
+     * @param flushPolicyParam   The way pending changes are flushed before
+     *                           queries, unless a call specifies its own
+     *                           policy.  Must not be {@code null}.
+     */
+    public GenericJpaRepository(final EntityManager entityManagerParam, final FlushPolicy flushPolicyParam) {
+        this(entityManagerParam, flushPolicyParam, ReadMode.READ_WRITE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param entityManagerParam Must not be {@code null}.
+     * @param flushPolicyParam   The way pending changes are flushed before
+     *                           queries, unless a call specifies its own
+     *                           policy.  Must not be {@code null}.
+     * @param readModeParam      The mode retrieved entities are loaded in,
+     *                           unless a call specifies its own mode.  Must
+     *                           not be {@code null}.
+     */
+    public GenericJpaRepository(final EntityManager entityManagerParam, final FlushPolicy flushPolicyParam,
+                                final ReadMode readModeParam) {
         super();
         PARAM_REQ.Object.requireNotNull(entityManagerParam);
+        PARAM_REQ.Object.requireNotNull(flushPolicyParam);
+        PARAM_REQ.Object.requireNotNull(readModeParam);
         entityManager = entityManagerParam;
+        flushPolicy = flushPolicyParam;
+        readMode = readModeParam;
     }
 
     protected final EntityManager getEntityManager() {
@@ -64,28 +152,147 @@ public class GenericJpaRepository implements IGenericRepository {
     public final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> DomainModel create(final DomainModel entity) {
         PARAM_REQ.Object.requireNotNull(entity);
         getEntityManager().persist(entity);
+        countCache.invalidate(entity.getClass());
         return entity;
     }
 
+    public final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> BatchReport create(final Collection<DomainModel> entities) {
+        return create(entities, DEFAULT_BATCH_SIZE);
+    }
+
+    public final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> BatchReport create(final Collection<DomainModel> entities, final int batchSizeParam) {
+        PARAM_REQ.Object.requireNotNull(entities);
+        PARAM_REQ.Number.requireStrictlyPositive(batchSizeParam, "The batch size must be strictly positive.");
+        final List<BatchChunk> chunks = new ArrayList<BatchChunk>();
+        final List<DomainModel> chunk = new ArrayList<DomainModel>(batchSizeParam);
+        Class<?> entityClass = null;
+        int count = 0;
+        long start = System.nanoTime();
+        RepositoryBatchChunkEvent chunkEvent = RepositoryBatchChunkEvent.start();
+        for (final DomainModel current : entities) {
+            getEntityManager().persist(current);
+            chunk.add(current);
+            entityClass = current.getClass();
+            countCache.invalidate(entityClass);
+            if (++count == batchSizeParam) {
+                flushEntityManager();
+                detachChunk(chunk);
+                chunks.add(new BatchChunk(count, System.nanoTime() - start));
+                chunkEvent.record(getClass(), entityClass, "create", count);
+                count = 0;
+                start = System.nanoTime();
+                chunkEvent = RepositoryBatchChunkEvent.start();
+            }
+        }
+        if (count > 0) {
+            flushEntityManager();
+            detachChunk(chunk);
+            chunks.add(new BatchChunk(count, System.nanoTime() - start));
+            chunkEvent.record(getClass(), entityClass, "create", count);
+        }
+        return new BatchReport(chunks);
+    }
+
+    /**
+     * Detaches the specified flushed entities, then empties the list.  Only
+     * these entities are released: the other entities of the persistence context stay
+     * managed.
+     *
+     * @param chunkParam The entities of the chunk.
+     */
+    private void detachChunk(final List<?> chunkParam) {
+        for (final Object current : chunkParam) {
+            getEntityManager().detach(current);
+        }
+        chunkParam.clear();
+    }
+
     protected final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> CriteriaQuery<DomainModel> createCriteria(final Class<DomainModel> persistentClassParam) {
         PARAM_REQ.Object.requireNotNull(persistentClassParam);
         return getEntityManager().getCriteriaBuilder().createQuery(persistentClassParam);
     }
 
     public final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void delete(final Collection<DomainModel> entities) {
+        delete(entities, DEFAULT_BATCH_SIZE);
+    }
+
+    public final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> BatchReport delete(final Collection<DomainModel> entities, final int batchSizeParam) {
         PARAM_REQ.Object.requireNotNull(entities);
+        PARAM_REQ.Number.requireStrictlyPositive(batchSizeParam, "The batch size must be strictly positive.");
+        final List<BatchChunk> chunks = new ArrayList<BatchChunk>();
+        Class<?> entityClass = null;
+        int count = 0;
+        long start = System.nanoTime();
+        RepositoryBatchChunkEvent chunkEvent = RepositoryBatchChunkEvent.start();
         for (final DomainModel current : entities) {
-            delete(current);
+            entityClass = getEntityClass(current);
+            getEntityManager().remove(attachForDelete(current, entityClass));
+            countCache.invalidate(entityClass);
+            if (++count == batchSizeParam) {
+                flushEntityManager();
+                chunks.add(new BatchChunk(count, System.nanoTime() - start));
+                chunkEvent.record(getClass(), entityClass, "delete", count);
+                count = 0;
+                start = System.nanoTime();
+                chunkEvent = RepositoryBatchChunkEvent.start();
+            }
+        }
+        if (count > 0) {
+            flushEntityManager();
+            chunks.add(new BatchChunk(count, System.nanoTime() - start));
+            chunkEvent.record(getClass(), entityClass, "delete", count);
         }
+        return new BatchReport(chunks);
+    }
+
+    /**
+     * Returns the instance to pass to {@code EntityManager.remove} to delete
+     * the specified entity without merging it: the entity itself if it is
+     * managed, else a reference to its identifier.
+     *
+     * @param entityParam      The entity, which may be a detached proxy.
+     * @param entityClassParam The mapped class of the entity.
+     */
+    private Object attachForDelete(final IIdentifiable<?> entityParam, final Class<?> entityClassParam) {
+        PARAM_REQ.Object.requireNotNull(entityParam);
+        PARAM_REQ.Object.requireNotNull(entityParam.getId(), "The entity must have an identifier.");
+        final RepositoryCacheLookupEvent lookup = RepositoryCacheLookupEvent.start();
+        if (lookup.record(getClass(), entityClassParam, RepositoryCacheLookupEvent.SESSION,
+                getEntityManager().contains(entityParam))) {
+            return entityParam;
+        }
+        return getEntityManager().getReference(entityClassParam, entityParam.getId());
+    }
+
+    /**
+     * Returns the mapped class of the specified entity: its own class, or the
+     * closest mapped superclass if it is a proxy generated by the persistence
+     * provider.
+     *
+     * @param entityParam The entity.
+     * @return The mapped class, or the class of the entity if neither it nor
+     *         its superclasses are mapped.
+     */
+    private Class<?> getEntityClass(final Object entityParam) {
+        final Set<EntityType<?>> entities = getEntityManager().getMetamodel().getEntities();
+        for (Class<?> current = entityParam.getClass(); current != null; current = current.getSuperclass()) {
+            for (final EntityType<?> type : entities) {
+                if (type.getJavaType() == current) {
+                    return current;
+                }
+            }
+        }
+        return entityParam.getClass();
     }
 
     public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void delete(final DomainModel entity) {
         PARAM_REQ.Object.requireNotNull(entity);
         final DomainModel merged = (DomainModel) entityManager.merge(
                 entity);
-        getEntityManager().flush();
+        flushEntityManager();
         getEntityManager().remove(merged);
-        getEntityManager().flush();
+        flushEntityManager();
+        countCache.invalidate(entity.getClass());
     }
 
     public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void delete(final ID id, final Class<DomainModel> persistentClassParam) {
@@ -94,33 +301,273 @@ public class GenericJpaRepository implements IGenericRepository {
                 persistentClassParam, id);
         if (entity != null) {
             getEntityManager().remove(entity);
+            countCache.invalidate(persistentClassParam);
         }
     }
 
-    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void deleteAll(final Class<DomainModel> persistentClassParam) {
-        delete(retrieveAll(persistentClassParam));
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteAll(final Class<DomainModel> persistentClassParam) {
+        return deleteAll(persistentClassParam, DeleteMode.BULK);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteAll(final Class<DomainModel> persistentClassParam, final DeleteMode modeParam) {
+        return deleteAll(persistentClassParam, modeParam, DEFAULT_BATCH_SIZE);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteAll(final Class<DomainModel> persistentClassParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        return delete(persistentClassParam, null, Collections.<String, Object>emptyMap(), modeParam, chunkSizeParam);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteWhere(final Class<DomainModel> persistentClassParam, final String conditionParam, final Map<String, ?> parametersParam) {
+        return deleteWhere(persistentClassParam, conditionParam, parametersParam, DeleteMode.BULK);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteWhere(final Class<DomainModel> persistentClassParam, final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam) {
+        return deleteWhere(persistentClassParam, conditionParam, parametersParam, modeParam, DEFAULT_BATCH_SIZE);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int deleteWhere(final Class<DomainModel> persistentClassParam, final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        PARAM_REQ.String.requireNotBlank(conditionParam, "The condition must not be blank.");
+        return delete(persistentClassParam, conditionParam, parametersParam, modeParam, chunkSizeParam);
+    }
+
+    private <ID extends Serializable, DomainModel extends IIdentifiable<ID>> int delete(final Class<DomainModel> persistentClassParam, final String conditionParam, final Map<String, ?> parametersParam, final DeleteMode modeParam, final int chunkSizeParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        PARAM_REQ.Object.requireNotNull(parametersParam);
+        PARAM_REQ.Object.requireNotNull(modeParam);
+        PARAM_REQ.Number.requireStrictlyPositive(chunkSizeParam, "The chunk size must be strictly positive.");
+        countCache.invalidate(persistentClassParam);
+        final String from = " from " + getEntityManager().getMetamodel().entity(persistentClassParam).getName() + " " + ENTITY_ALIAS;
+        if (modeParam == DeleteMode.BULK) {
+            final Query query = getEntityManager().createQuery("delete" + from
+                    + (conditionParam == null ? "" : " where " + conditionParam));
+            return setParameters(query, parametersParam).executeUpdate();
+        }
+        // Chunks are read in identifier order, after the last deleted identifier.
+        final String id = ENTITY_ALIAS + "." + getIdAttributeName(persistentClassParam);
+        final String where = conditionParam == null ? " where " : " where (" + conditionParam + ") and ";
+        final String first = "select " + ENTITY_ALIAS + from
+                + (conditionParam == null ? "" : " where " + conditionParam) + " order by " + id;
+        final String next = "select " + ENTITY_ALIAS + from + where + id + " > :" + LAST_ID_PARAMETER + " order by " + id;
+        final String operation = conditionParam == null ? "deleteAll" : "deleteWhere";
+        int count = 0;
+        ID lastId = null;
+        List<DomainModel> chunk;
+        do {
+            final RepositoryBatchChunkEvent chunkEvent = RepositoryBatchChunkEvent.start();
+            final TypedQuery<DomainModel> query = getEntityManager().createQuery(lastId == null ? first : next, persistentClassParam);
+            setParameters(query, parametersParam);
+            if (lastId != null) {
+                query.setParameter(LAST_ID_PARAMETER, lastId);
+            }
+            chunk = query.setMaxResults(chunkSizeParam).getResultList();
+            for (final DomainModel current : chunk) {
+                getEntityManager().remove(current);
+            }
+            flushEntityManager();
+            chunkEvent.record(getClass(), persistentClassParam, operation, chunk.size());
+            count += chunk.size();
+            if (!chunk.isEmpty()) {
+                lastId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == chunkSizeParam);
+        return count;
+    }
+
+    /**
+     * Sets the specified named parameters on the specified query.
+     *
+     * @param queryParam      The query.
+     * @param parametersParam The parameter values, by parameter name.
+     * @return The specified query.
+     */
+    protected final Query setParameters(final Query queryParam, final Map<String, ?> parametersParam) {
+        PARAM_REQ.Object.requireNotNull(queryParam);
+        PARAM_REQ.Object.requireNotNull(parametersParam);
+        for (final Map.Entry<String, ?> current : parametersParam.entrySet()) {
+            queryParam.setParameter(current.getKey(), current.getValue());
+        }
+        return queryParam;
     }
 
     public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> boolean exists(final DomainModel entity) {
         PARAM_REQ.Object.requireNotNull(entity);
-        return getEntityManager().find(entity.getClass(), entity.getId()) != null;
+        if (entity.getId() == null) {
+            return false;
+        }
+        // A managed instance exists; a removed instance is no longer contained,
+        // and is then looked up like a detached one.
+        final RepositoryCacheLookupEvent lookup = RepositoryCacheLookupEvent.start();
+        final Class<?> entityClass = getEntityClass(entity);
+        return lookup.record(getClass(), entityClass, RepositoryCacheLookupEvent.SESSION, getEntityManager().contains(entity))
+                || exists(entityClass, entity.getId());
     }
 
     public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> boolean exists(final ID id, final Class<DomainModel> persistentClassParam) {
         PARAM_REQ.Object.requireNotNull(id);
-        return getEntityManager().find(persistentClassParam, id) != null;
+        return exists(persistentClassParam, id);
+    }
+
+    /**
+     * Checks for the existence of an entity without loading it: the
+     * second-level cache is looked up first, then the data base is queried for
+     * the identifier only.  JPA 2 looks up the persistence context by instance
+     * only, with {@code contains}, not by identifier, so removals pending in
+     * the persistence context are not visible here: the second-level cache is
+     * only used outside of transactions, and the query flushes them first.
+     */
+    private boolean exists(final Class<?> persistentClassParam, final Serializable idParam) {
+        final Cache cache = getEntityManager().getEntityManagerFactory().getCache();
+        if (cache != null && !isTransactionActive()) {
+            final RepositoryCacheLookupEvent lookup = RepositoryCacheLookupEvent.start();
+            if (lookup.record(getClass(), persistentClassParam, RepositoryCacheLookupEvent.SECOND_LEVEL,
+                    cache.contains(persistentClassParam, idParam))) {
+                return true;
+            }
+        }
+        final CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
+        final CriteriaQuery<Object> cq = builder.createQuery(Object.class);
+        final Path<?> id = cq.from(persistentClassParam).get(getIdAttributeName(persistentClassParam));
+        cq.select(id).where(builder.equal(id, idParam));
+        return !getEntityManager().createQuery(cq).setMaxResults(1).getResultList().isEmpty();
+    }
+
+    /**
+     * Tells if a transaction may be active on the entity manager.  The
+     * transaction of a JTA entity manager is not visible, so one is assumed.
+     *
+     * @return {@code true} if a transaction may be active, {@code false} else.
+     */
+    private boolean isTransactionActive() {
+        try {
+            return getEntityManager().getTransaction().isActive();
+        } catch (final IllegalStateException e) {
+            return true;
+        }
     }
 
     public final void flush() {
         LOGGER.trace("Session flush.");
-        getEntityManager().flush();
+        flushEntityManager();
+    }
+
+    /**
+     * Flushes the entity manager, and reports the duration of the flush to the
+     * operation traced on the current thread, if any, and to the flight
+     * recorder.
+     */
+    private void flushEntityManager() {
+        final RepositoryFlushEvent event = RepositoryFlushEvent.start();
+        if (OperationTrace.isActive()) {
+            final long start = System.nanoTime();
+            getEntityManager().flush();
+            OperationTrace.recordFlush(System.nanoTime() - start);
+        } else {
+            getEntityManager().flush();
+        }
+        event.record(getClass());
+    }
+
+    public final FlushPolicy getFlushPolicy() {
+        return flushPolicy;
+    }
+
+    public final ReadMode getReadMode() {
+        return readMode;
+    }
+
+    /**
+     * Returns the amount of flushes this repository skipped before queries:
+     * with {@link FlushPolicy#NEVER}, and with {@link FlushPolicy#AUTO} when
+     * the persistence context held no pending change to the queried tables.
+     * When the provider cannot tell, {@link FlushPolicy#AUTO} leaves the
+     * decision to its automatic flush mode, and no flush is counted.
+     *
+     * @return The amount of avoided flushes.
+     */
+    public final long getAvoidedFlushCount() {
+        return avoidedFlushCount.get();
+    }
+
+    /**
+     * Applies the specified flush policy before a query on the specified
+     * class: either flushes the entity manager, or returns the flush mode the
+     * query must run in.  With {@link FlushPolicy#AUTO}, the entity manager is
+     * flushed only if its persistence context holds pending changes to the
+     * tables of the class or its subclasses, as told by an
+     * {@code IPendingChangesLookup} of the provider, e.g. the one of
+     * jbp-hibernate; without one, the query runs in auto flush mode.  As JPA has no manual flush mode, queries which must not
+     * flush run in commit flush mode.
+     *
+     * @param persistentClassParam The queried class.
+     * @param flushPolicyParam     The flush policy.  Must not be {@code null}.
+     * @return The flush mode of the query, or {@code null} if the entity
+     *         manager was flushed.
+     */
+    private FlushModeType beforeQuery(final Class<?> persistentClassParam, final FlushPolicy flushPolicyParam) {
+        PARAM_REQ.Object.requireNotNull(flushPolicyParam);
+        boolean flush = flushPolicyParam == FlushPolicy.ALWAYS;
+        if (flushPolicyParam == FlushPolicy.AUTO) {
+            final Boolean pending = ProviderPendingChanges.exist(getEntityManager(), persistentClassParam);
+            if (pending == null) {
+                return FlushModeType.AUTO;
+            }
+            flush = pending;
+        }
+        if (flush) {
+            flush();
+            return null;
+        }
+        avoidedFlushCount.incrementAndGet();
+        return FlushModeType.COMMIT;
+    }
+
+    private static <T> TypedQuery<T> setFlushMode(final TypedQuery<T> queryParam, final FlushModeType flushModeParam) {
+        if (flushModeParam != null) {
+            queryParam.setFlushMode(flushModeParam);
+        }
+        return queryParam;
+    }
+
+    /**
+     * Sets the hint loading the entities of the specified query read-only if
+     * the specified mode requires it.
+     *
+     * @param queryParam    The query.
+     * @param readModeParam The read mode.  Must not be {@code null}.
+     * @return The specified query.
+     */
+    protected static <T> TypedQuery<T> setReadMode(final TypedQuery<T> queryParam, final ReadMode readModeParam) {
+        PARAM_REQ.Object.requireNotNull(readModeParam);
+        if (readModeParam == ReadMode.READ_ONLY) {
+            queryParam.setHint(READ_ONLY_HINT, Boolean.TRUE);
+        }
+        return queryParam;
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ICloseableIterator<DomainModel> iterateAll(final Class<DomainModel> persistentClassParam) {
+        return iterateAll(persistentClassParam, DEFAULT_FETCH_SIZE);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ICloseableIterator<DomainModel> iterateAll(final Class<DomainModel> persistentClassParam, final int fetchSizeParam) {
+        return iterateAll(persistentClassParam, fetchSizeParam, QueryOptions.newOptions());
+    }
+
+    /**
+     * JPA 2 provides no cursor: the entities are read in keyset slices of the
+     * fetch size, ordered by identifier, each with the specified options.
+     */
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ICloseableIterator<DomainModel> iterateAll(final Class<DomainModel> persistentClassParam, final int fetchSizeParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        PARAM_REQ.Number.requireStrictlyPositive(fetchSizeParam, "The fetch size must be strictly positive.");
+        return new SliceIterator<ID, DomainModel>(this, getEntityManager(), persistentClassParam, fetchSizeParam, optionsParam);
     }
 
-    @SuppressWarnings(CompilerWarnings.UNCHECKED)
     public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam) {
-        getEntityManager().flush();
-        final TypedQuery<DomainModel> q = buildQueryForRetrieveAll(persistentClassParam);
-        return q.getResultList();
+        return retrieveAll(persistentClassParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam, final QueryOptions optionsParam) {
+        return fetchAll(persistentClassParam, null, optionsParam);
     }
 
     private <ID extends Serializable, DomainModel extends IIdentifiable<ID>> TypedQuery<DomainModel> buildQueryForRetrieveAll(final Class<DomainModel> persistentClassParam) {
@@ -130,14 +577,468 @@ public class GenericJpaRepository implements IGenericRepository {
         return getEntityManager().createQuery(cq);
     }
 
-    @SuppressWarnings(CompilerWarnings.UNCHECKED)
     public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam, final Page pageParam) {
+        return retrieveAll(persistentClassParam, pageParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveAll(final Class<DomainModel> persistentClassParam, final Page pageParam, final QueryOptions optionsParam) {
         PARAM_REQ.Object.requireNotNull(pageParam);
         PARAM_REQ.Number.requireNotStrictlyNegative(pageParam.getFirstResult());
         PARAM_REQ.Number.requireNotStrictlyNegative(pageParam.getMaxResults());
-        getEntityManager().flush();
-        final TypedQuery<DomainModel> q = buildQueryForRetrieveAll(persistentClassParam);
-        return addPagingToQuery(q, pageParam).getResultList();
+        return fetchAll(persistentClassParam, pageParam, optionsParam);
+    }
+
+    /**
+     * Retrieves the entities of the specified page, or all entities, with the
+     * specified options: the flush policy and read mode which are not set are
+     * the repository's, and the associations of the fetch plan are loaded with
+     * the entities.
+     */
+    private <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> fetchAll(final Class<DomainModel> persistentClassParam, final Page pageParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        final FlushModeType flushMode = beforeQuery(persistentClassParam, optionsParam.getFlushPolicy(flushPolicy));
+        final ReadMode queryReadMode = optionsParam.getReadMode(readMode);
+        final CriteriaQuery<DomainModel> cq = createCriteria(persistentClassParam);
+        final Root<DomainModel> root = cq.from(persistentClassParam);
+        final List<String> batchPaths = addFetchJoins(cq, root, optionsParam.getFetchPlan(), pageParam == null);
+        if (pageParam != null && pageParam.isKeyset()) {
+            addKeyset(cq, root, persistentClassParam, pageParam);
+        }
+        cq.select(root);
+        final TypedQuery<DomainModel> q = setReadMode(setFlushMode(getEntityManager().createQuery(cq), flushMode), queryReadMode);
+        if (pageParam != null) {
+            if (!pageParam.isKeyset()) {
+                addPagingToQuery(q, pageParam);
+            } else if (pageParam.getMaxResults() > 0) {
+                q.setMaxResults(pageParam.getMaxResults());
+            }
+        }
+        final List<DomainModel> results = q.getResultList();
+        fetchBatchesOf(persistentClassParam, results, batchPaths, queryReadMode);
+        return results;
+    }
+
+    /**
+     * Adds the fetch joins of the specified fetch plan to the specified query.
+     * At most one collection is joined, the first one of the plan, as by
+     * {@code CriteriaHelper} of jbp-hibernate.  The query is made distinct
+     * when a collection is joined.
+     *
+     * @param queryParam           The query.
+     * @param rootParam            The root of the query.
+     * @param fetchPlanParam       The fetch plan.  Must not be {@code null}.
+     * @param joinCollectionsParam Whether collections may be joined, which is
+     *                             not the case if the results are paged.
+     * @return The paths of the associations left to batch: the batched ones,
+     *         and the collections which were not joined.
+     */
+    private static List<String> addFetchJoins(final CriteriaQuery<?> queryParam, final Root<?> rootParam,
+                                              final FetchPlan fetchPlanParam, final boolean joinCollectionsParam) {
+        PARAM_REQ.Object.requireNotNull(fetchPlanParam);
+        final List<String> batchPaths = new ArrayList<String>(fetchPlanParam.getBatchPaths());
+        boolean distinct = false;
+        for (final String current : fetchPlanParam.getJoinPaths()) {
+            final boolean collection = isCollectionPath(rootParam.getModel(), current);
+            if (collection && (!joinCollectionsParam || distinct)) {
+                batchPaths.add(current);
+            } else {
+                addFetchJoin(rootParam, current);
+                distinct |= collection;
+            }
+        }
+        if (distinct) {
+            queryParam.distinct(true);
+        }
+        return batchPaths;
+    }
+
+    /**
+     * Fetches the association with the specified path, and every association
+     * the path goes through, by left joins.  The joins already fetched are
+     * reused, as fetching an association twice would join it twice.
+     *
+     * @param rootParam The root of the query.
+     * @param pathParam The path of the association.
+     */
+    private static void addFetchJoin(final Root<?> rootParam, final String pathParam) {
+        FetchParent<?, ?> parent = rootParam;
+        for (final String current : pathParam.split("\\.")) {
+            Fetch<?, ?> fetch = null;
+            for (final Fetch<?, ?> existing : parent.getFetches()) {
+                if (existing.getAttribute().getName().equals(current)) {
+                    fetch = existing;
+                }
+            }
+            parent = fetch == null ? parent.fetch(current, JoinType.LEFT) : fetch;
+        }
+    }
+
+    /**
+     * Tells whether the specified association path goes through a collection.
+     *
+     * @param typeParam The type of the entities the path starts from.
+     * @param pathParam The path.  Must name associations only.
+     * @return {@code true} if the path goes through a collection.
+     */
+    private static boolean isCollectionPath(final ManagedType<?> typeParam, final String pathParam) {
+        ManagedType<?> type = typeParam;
+        for (final String current : pathParam.split("\\.")) {
+            final Attribute<?, ?> attribute = type.getAttribute(current);
+            if (attribute.isCollection()) {
+                return true;
+            }
+            // Attribute.isAssociation() is not reliable for singular attributes with every provider.
+            PARAM_REQ.Logic.requireTrue(attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.MANY_TO_ONE
+                    || attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.ONE_TO_ONE,
+                    "The path " + pathParam + " must name associations only.");
+            type = (ManagedType<?>) ((SingularAttribute<?, ?>) attribute).getType();
+        }
+        return false;
+    }
+
+    /**
+     * Fetches the specified associations of the specified entities, which are
+     * managed.
+     */
+    private <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void fetchBatchesOf(final Class<DomainModel> persistentClassParam, final List<DomainModel> entitiesParam,
+                                                                                                 final List<String> pathsParam, final ReadMode readModeParam) {
+        if (pathsParam.isEmpty()) {
+            return;
+        }
+        final List<ID> ids = new ArrayList<ID>(entitiesParam.size());
+        for (final DomainModel current : entitiesParam) {
+            ids.add(current.getId());
+        }
+        fetchBatches(persistentClassParam, ids, pathsParam, readModeParam);
+    }
+
+    /**
+     * Fetches the specified associations of the entities with the specified
+     * identifiers, which are managed: for each association and chunk of
+     * identifiers, one query fetches the association by a join.
+     *
+     * @param persistentClassParam The class of the entities.
+     * @param idsParam             The identifiers of the entities.
+     * @param pathsParam           The paths of the associations.
+     * @param readModeParam        The read mode of the entities.
+     */
+    private <ID extends Serializable, DomainModel extends IIdentifiable<ID>> void fetchBatches(final Class<DomainModel> persistentClassParam,
+                                                                                               final List<? extends Serializable> idsParam, final List<String> pathsParam,
+                                                                                               final ReadMode readModeParam) {
+        if (idsParam.isEmpty() || pathsParam.isEmpty()) {
+            return;
+        }
+        final String idAttribute = getIdAttributeName(persistentClassParam);
+        for (final String current : pathsParam) {
+            for (int i = 0; i < idsParam.size(); i += DEFAULT_IN_CLAUSE_SIZE) {
+                final CriteriaQuery<DomainModel> cq = createCriteria(persistentClassParam);
+                final Root<DomainModel> root = cq.from(persistentClassParam);
+                addFetchJoin(root, current);
+                cq.select(root).distinct(true)
+                        .where(root.get(idAttribute).in(idsParam.subList(i, Math.min(i + DEFAULT_IN_CLAUSE_SIZE, idsParam.size()))));
+                setReadMode(getEntityManager().createQuery(cq), readModeParam).setFlushMode(FlushModeType.COMMIT).getResultList();
+            }
+        }
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> retrievePage(final Class<DomainModel> persistentClassParam, final Page pageParam) {
+        return retrievePage(persistentClassParam, pageParam, CountMode.EXACT);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> retrievePage(final Class<DomainModel> persistentClassParam, final Page pageParam, final CountMode countModeParam) {
+        return retrievePage(persistentClassParam, pageParam, countModeParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> ResultHolder<ID, DomainModel> retrievePage(final Class<DomainModel> persistentClassParam, final Page pageParam, final CountMode countModeParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        PARAM_REQ.Object.requireNotNull(countModeParam);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        PARAM_REQ.Number.requireNotStrictlyNegative(pageParam.getFirstResult());
+        PARAM_REQ.Number.requireNotStrictlyNegative(pageParam.getMaxResults());
+        final FlushModeType flushMode = beforeQuery(persistentClassParam, optionsParam.getFlushPolicy(flushPolicy));
+        final ReadMode queryReadMode = optionsParam.getReadMode(readMode);
+        final List<String> batchPaths = new ArrayList<String>();
+        final TypedQuery<DomainModel> q = setReadMode(setFlushMode(
+                buildPageQuery(persistentClassParam, pageParam, optionsParam.getFetchPlan(), batchPaths), flushMode), queryReadMode);
+        final ResultHolder<ID, DomainModel> page;
+        if (countModeParam == CountMode.ESTIMATED) {
+            if (pageParam.getMaxResults() == 0) {
+                final List<DomainModel> results = q.getResultList();
+                page = new ResultHolder<ID, DomainModel>(results, estimate(pageParam, results.size()), false);
+            } else {
+                // One more row than requested tells whether there are more results.
+                final List<DomainModel> results = q.setMaxResults(pageParam.getMaxResults() + 1).getResultList();
+                final int estimate = estimate(pageParam, results.size());
+                page = new ResultHolder<ID, DomainModel>(results.size() > pageParam.getMaxResults()
+                        ? new ArrayList<DomainModel>(results.subList(0, pageParam.getMaxResults())) : results, estimate, false);
+            }
+        } else {
+            final int count;
+            if (countModeParam == CountMode.CACHED) {
+                final RepositoryCacheLookupEvent lookup = RepositoryCacheLookupEvent.start();
+                final Integer cached = countCache.get(persistentClassParam);
+                lookup.record(getClass(), persistentClassParam, RepositoryCacheLookupEvent.COUNT, cached != null);
+                if (cached == null) {
+                    final long generation = countCache.getGeneration();
+                    count = count(persistentClassParam, flushMode);
+                    countCache.put(persistentClassParam, count, generation);
+                } else {
+                    count = cached;
+                }
+            } else {
+                count = count(persistentClassParam, flushMode);
+            }
+            page = new ResultHolder<ID, DomainModel>(q.getResultList(), count);
+        }
+        fetchBatchesOf(persistentClassParam, page.getResults(), batchPaths, queryReadMode);
+        return page;
+    }
+
+    /**
+     * Counts the persisted entities of the specified class.
+     */
+    private int count(final Class<?> persistentClassParam, final FlushModeType flushModeParam) {
+        final CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
+        final CriteriaQuery<Long> cq = builder.createQuery(Long.class);
+        cq.select(builder.count(cq.from(persistentClassParam)));
+        final Long count = setFlushMode(getEntityManager().createQuery(cq), flushModeParam).getSingleResult();
+        return count == null ? 0 : count.intValue();
+    }
+
+    /**
+     * Estimates the amount of results from the amount of rows retrieved with
+     * one more row than requested.  In keyset mode, the rows before the page
+     * are unknown and not counted.
+     */
+    private static int estimate(final Page pageParam, final int retrievedParam) {
+        return (pageParam.isKeyset() ? 0 : pageParam.getFirstResult()) + retrievedParam;
+    }
+
+    /**
+     * Builds the query which returns the specified page, keyset or offset,
+     * with the single-valued associations of the specified fetch plan joined.
+     *
+     * @param persistentClassParam The class of the entities to retrieve.
+     * @param pageParam            The paging setting.
+     * @param fetchPlanParam       The fetch plan.
+     * @param batchPathsParam      The list the paths of the associations left
+     *                             to batch are added to.
+     * @return The query.
+     */
+    private <ID extends Serializable, DomainModel extends IIdentifiable<ID>> TypedQuery<DomainModel> buildPageQuery(final Class<DomainModel> persistentClassParam, final Page pageParam,
+                                                                                                            final FetchPlan fetchPlanParam, final List<String> batchPathsParam) {
+        final CriteriaQuery<DomainModel> cq = createCriteria(persistentClassParam);
+        final Root<DomainModel> root = cq.from(persistentClassParam);
+        batchPathsParam.addAll(addFetchJoins(cq, root, fetchPlanParam, false));
+        if (pageParam.isKeyset()) {
+            addKeyset(cq, root, persistentClassParam, pageParam);
+        }
+        cq.select(root);
+        final TypedQuery<DomainModel> q = getEntityManager().createQuery(cq);
+        if (!pageParam.isKeyset()) {
+            addPagingToQuery(q, pageParam);
+        } else if (pageParam.getMaxResults() > 0) {
+            q.setMaxResults(pageParam.getMaxResults());
+        }
+        return q;
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam) {
+        return listProjection(persistentClassParam, projectionParam, null, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam, final QueryOptions optionsParam) {
+        return listProjection(persistentClassParam, projectionParam, null, optionsParam);
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam, final Page pageParam) {
+        return retrieveProjection(persistentClassParam, projectionParam, pageParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>, R> List<R> retrieveProjection(final Class<DomainModel> persistentClassParam, final Projection<R> projectionParam, final Page pageParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        return listProjection(persistentClassParam, projectionParam, pageParam, optionsParam);
+    }
+
+    /**
+     * Lists the rows of the specified projection: only the attributes of the
+     * projection are selected, and their values are converted to rows.
+     *
+     * @param persistentClassParam The class of the entities.
+     * @param projectionParam      The projection.
+     * @param pageParam            The page, or {@code null} to list all rows.
+     * @param optionsParam         The options, of which only the flush policy
+     *                             applies.
+     * @return The rows.
+     */
+    private <R> List<R> listProjection(final Class<?> persistentClassParam, final Projection<R> projectionParam, final Page pageParam,
+                                       final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        PARAM_REQ.Object.requireNotNull(projectionParam);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        final FlushModeType flushMode = beforeQuery(persistentClassParam, optionsParam.getFlushPolicy(flushPolicy));
+        final CriteriaQuery<Object[]> cq = getEntityManager().getCriteriaBuilder().createQuery(Object[].class);
+        final Root<?> root = cq.from(persistentClassParam);
+        final List<Selection<?>> selections = new ArrayList<Selection<?>>();
+        for (final String current : projectionParam.getAttributes()) {
+            Path<?> path = root;
+            for (final String attribute : current.split("\\.")) {
+                path = path.get(attribute);
+            }
+            selections.add(path);
+        }
+        cq.multiselect(selections);
+        if (pageParam != null && pageParam.isKeyset()) {
+            addKeyset(cq, root, persistentClassParam, pageParam);
+        }
+        final TypedQuery<Object[]> q = setFlushMode(getEntityManager().createQuery(cq), flushMode);
+        if (pageParam != null) {
+            if (!pageParam.isKeyset()) {
+                addPagingToQuery(q, pageParam);
+            } else if (pageParam.getMaxResults() > 0) {
+                q.setMaxResults(pageParam.getMaxResults());
+            }
+        }
+        final List<?> rows = q.getResultList();
+        final List<R> results = new ArrayList<R>(rows.size());
+        for (final Object current : rows) {
+            // Some providers return the value of a single selection as is.
+            results.add(projectionParam.toResult(current instanceof Object[] ? (Object[]) current : new Object[]{current}));
+        }
+        return results;
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Slice<ID, DomainModel> retrieveSlice(final Class<DomainModel> persistentClassParam, final Page pageParam) {
+        return retrieveSlice(persistentClassParam, pageParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Slice<ID, DomainModel> retrieveSlice(final Class<DomainModel> persistentClassParam, final Page pageParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        PARAM_REQ.Number.requireStrictlyPositive(pageParam.getMaxResults(), "A slice requires a maximum amount of results.");
+        final FlushModeType flushMode = beforeQuery(persistentClassParam, optionsParam.getFlushPolicy(flushPolicy));
+        final ReadMode queryReadMode = optionsParam.getReadMode(readMode);
+        final List<String> batchPaths = new ArrayList<String>();
+        final TypedQuery<DomainModel> q = setReadMode(setFlushMode(
+                buildPageQuery(persistentClassParam, pageParam, optionsParam.getFetchPlan(), batchPaths), flushMode), queryReadMode);
+        // One more row than requested tells whether there is a next page.
+        final List<DomainModel> results = q.setMaxResults(pageParam.getMaxResults() + 1).getResultList();
+        final Slice<ID, DomainModel> slice;
+        if (results.size() <= pageParam.getMaxResults()) {
+            slice = new Slice<ID, DomainModel>(results, null);
+        } else {
+            final List<DomainModel> pageResults = new ArrayList<DomainModel>(results.subList(0, pageParam.getMaxResults()));
+            final DomainModel last = pageResults.get(pageResults.size() - 1);
+            final Serializable lastKey = pageParam.getKeyProperty() == null ? last.getId()
+                    : getAttributeValue(persistentClassParam, last, pageParam.getKeyProperty());
+            slice = new Slice<ID, DomainModel>(pageResults, pageParam.next(lastKey, last.getId()));
+        }
+        fetchBatchesOf(persistentClassParam, slice.getResults(), batchPaths, queryReadMode);
+        return slice;
+    }
+
+    /**
+     * Builds a query which returns the rows after the specified keyset page's
+     * key, and until its greatest key if any, ordered by key.
+     *
+     * @param persistentClassParam The class of the entities to retrieve.
+     * @param pageParam            The paging setting.  Must be in keyset mode.
+     * @return The query.
+     */
+    protected final <ID extends Serializable, DomainModel extends IIdentifiable<ID>> TypedQuery<DomainModel> buildKeysetQuery(final Class<DomainModel> persistentClassParam, final Page pageParam) {
+        PARAM_REQ.Object.requireNotNull(pageParam);
+        PARAM_REQ.Logic.requireTrue(pageParam.isKeyset(), "The page must be in keyset mode.");
+        final CriteriaQuery<DomainModel> cq = createCriteria(persistentClassParam);
+        final Root<DomainModel> root = cq.from(persistentClassParam);
+        addKeyset(cq, root, persistentClassParam, pageParam);
+        cq.select(root);
+        final TypedQuery<DomainModel> q = getEntityManager().createQuery(cq);
+        if (pageParam.getMaxResults() > 0) {
+            q.setMaxResults(pageParam.getMaxResults());
+        }
+        return q;
+    }
+
+    /**
+     * Adds the restrictions and the order of the specified keyset page to the
+     * specified query.
+     *
+     * @param queryParam           The query.
+     * @param rootParam            The root of the query.
+     * @param persistentClassParam The class of the root entities.
+     * @param pageParam            The paging setting.  Must be in keyset mode.
+     */
+    private void addKeyset(final CriteriaQuery<?> queryParam, final Root<?> rootParam, final Class<?> persistentClassParam, final Page pageParam) {
+        final CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
+        final Path<?> id = rootParam.get(getIdAttributeName(persistentClassParam));
+        final String keyProperty = pageParam.getKeyProperty();
+        final List<Predicate> restrictions = new ArrayList<Predicate>();
+        if (keyProperty == null) {
+            if (pageParam.getAfterKey() != null) {
+                restrictions.add(greaterThan(builder, id, pageParam.getAfterKey()));
+            }
+            if (pageParam.getUntilKey() != null) {
+                restrictions.add(lessThanOrEqualTo(builder, id, pageParam.getUntilKey()));
+            }
+            queryParam.orderBy(builder.asc(id));
+        } else {
+            final Path<?> key = rootParam.get(keyProperty);
+            if (pageParam.getAfterKey() != null && pageParam.getAfterId() != null) {
+                restrictions.add(builder.or(greaterThan(builder, key, pageParam.getAfterKey()),
+                        builder.and(builder.equal(key, pageParam.getAfterKey()),
+                                greaterThan(builder, id, pageParam.getAfterId()))));
+            } else if (pageParam.getAfterKey() != null) {
+                restrictions.add(greaterThan(builder, key, pageParam.getAfterKey()));
+            }
+            if (pageParam.getUntilKey() != null) {
+                restrictions.add(lessThanOrEqualTo(builder, key, pageParam.getUntilKey()));
+            }
+            queryParam.orderBy(builder.asc(key), builder.asc(id));
+        }
+        if (!restrictions.isEmpty()) {
+            queryParam.where(restrictions.toArray(new Predicate[restrictions.size()]));
+        }
+    }
+
+    @SuppressWarnings({CompilerWarnings.UNCHECKED, CompilerWarnings.RAWTYPES})
+    private static Predicate greaterThan(final CriteriaBuilder builderParam, final Path<?> pathParam, final Serializable valueParam) {
+        return builderParam.greaterThan((Expression<Comparable>) pathParam, (Comparable) valueParam);
+    }
+
+    @SuppressWarnings({CompilerWarnings.UNCHECKED, CompilerWarnings.RAWTYPES})
+    private static Predicate lessThanOrEqualTo(final CriteriaBuilder builderParam, final Path<?> pathParam, final Serializable valueParam) {
+        return builderParam.lessThanOrEqualTo((Expression<Comparable>) pathParam, (Comparable) valueParam);
+    }
+
+    /**
+     * Returns the name of the identifier attribute of the specified entity class.
+     *
+     * @param persistentClassParam The entity class.  Must be managed.
+     * @return The name of the identifier attribute.
+     */
+    protected final String getIdAttributeName(final Class<?> persistentClassParam) {
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        final EntityType<?> type = getEntityManager().getMetamodel().entity(persistentClassParam);
+        return type.getId(type.getIdType().getJavaType()).getName();
+    }
+
+    private Serializable getAttributeValue(final Class<?> persistentClassParam, final Object entityParam, final String attributeParam) {
+        final Member member = getEntityManager().getMetamodel().entity(persistentClassParam)
+                .getAttribute(attributeParam).getJavaMember();
+        try {
+            if (member instanceof Field) {
+                ((Field) member).setAccessible(true);
+                return (Serializable) ((Field) member).get(entityParam);
+            }
+            ((Method) member).setAccessible(true);
+            return (Serializable) ((Method) member).invoke(entityParam);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read attribute " + attributeParam + ".", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Cannot read attribute " + attributeParam + ".", e);
+        }
     }
 
     protected final TypedQuery addPagingToQuery(final TypedQuery queryParam, final Page pageParam) {
@@ -149,12 +1050,97 @@ public class GenericJpaRepository implements IGenericRepository {
         return queryParam;
     }
 
-    @SuppressWarnings(CompilerWarnings.UNCHECKED)
     public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> DomainModel retrieveById(final Class<DomainModel> persistentClassParam, final ID id) {
+        return retrieveById(persistentClassParam, id, QueryOptions.newOptions());
+    }
+
+    /**
+     * Retrieves an entity using its identifier, with the read mode and fetch
+     * plan of the specified options; the flush policy does not apply.  As
+     * {@code find} accepts no read-only hint, the entity is queried in
+     * read-only mode, without flushing: an entity already managed is then
+     * returned as is, in its own mode, and {@code null} if it was removed.
+     * An entity persisted but not flushed yet is only in the persistence
+     * context, so when the query finds nothing, the entity is looked up with
+     * {@code find}.  With a fetch plan, the entity is always queried.
+     */
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> DomainModel retrieveById(final Class<DomainModel> persistentClassParam, final ID id, final QueryOptions optionsParam) {
         PARAM_REQ.Object.requireNotNull(id);
-        final DomainModel entity = getEntityManager().find(
-                persistentClassParam, id);
-        return entity;
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        if (!optionsParam.getFetchPlan().isEmpty()) {
+            return retrieveMapByIds(persistentClassParam, Collections.singleton(id), DEFAULT_IN_CLAUSE_SIZE, optionsParam).get(id);
+        }
+        if (optionsParam.getReadMode(readMode) == ReadMode.READ_WRITE) {
+            return getEntityManager().find(persistentClassParam, id);
+        }
+        final CriteriaQuery<DomainModel> cq = createCriteria(persistentClassParam);
+        final Root<DomainModel> root = cq.from(persistentClassParam);
+        cq.select(root).where(getEntityManager().getCriteriaBuilder().equal(root.get(getIdAttributeName(persistentClassParam)), id));
+        final List<DomainModel> results = setReadMode(getEntityManager().createQuery(cq), ReadMode.READ_ONLY)
+                .setFlushMode(FlushModeType.COMMIT).getResultList();
+        if (results.isEmpty()) {
+            return getEntityManager().find(persistentClassParam, id);
+        }
+        // The query returns the managed instance even if it was removed.
+        final DomainModel result = results.get(0);
+        return getEntityManager().contains(result) ? result : null;
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> List<DomainModel> retrieveByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids) {
+        return new ArrayList<DomainModel>(retrieveMapByIds(persistentClassParam, ids).values());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids) {
+        return retrieveMapByIds(persistentClassParam, ids, DEFAULT_IN_CLAUSE_SIZE);
+    }
+
+    /**
+     * JPA 2 provides no way to look up the persistence context without
+     * loading, so all identifiers are queried.
+     */
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids, final int chunkSizeParam) {
+        return retrieveMapByIds(persistentClassParam, ids, chunkSizeParam, QueryOptions.newOptions());
+    }
+
+    public <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids, final QueryOptions optionsParam) {
+        return retrieveMapByIds(persistentClassParam, ids, DEFAULT_IN_CLAUSE_SIZE, optionsParam);
+    }
+
+    /**
+     * Retrieves the entities with the specified identifiers, with the read
+     * mode and fetch plan of the specified options.  The flush policy does not
+     * apply: the queries never flush.
+     */
+    private <ID extends Serializable, DomainModel extends IIdentifiable<ID>> Map<ID, DomainModel> retrieveMapByIds(final Class<DomainModel> persistentClassParam, final Collection<ID> ids, final int chunkSizeParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(ids);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        final FetchPlan fetchPlan = optionsParam.getFetchPlan();
+        final ReadMode queryReadMode = optionsParam.getReadMode(readMode);
+        PARAM_REQ.Number.requireStrictlyPositive(chunkSizeParam, "The chunk size must be strictly positive.");
+        final List<ID> distinct = new ArrayList<ID>(new LinkedHashSet<ID>(ids));
+        PARAM_REQ.Logic.requireFalse(distinct.contains(null), "The identifiers must not be null.");
+        final String idAttribute = getIdAttributeName(persistentClassParam);
+        final Map<ID, DomainModel> found = new HashMap<ID, DomainModel>();
+        List<String> batchPaths = fetchPlan.getBatchPaths();
+        for (int i = 0; i < distinct.size(); i += chunkSizeParam) {
+            final CriteriaQuery<DomainModel> cq = createCriteria(persistentClassParam);
+            final Root<DomainModel> root = cq.from(persistentClassParam);
+            batchPaths = addFetchJoins(cq, root, fetchPlan, true);
+            cq.select(root).where(root.get(idAttribute).in(distinct.subList(i, Math.min(i + chunkSizeParam, distinct.size()))));
+            for (final DomainModel current : setReadMode(getEntityManager().createQuery(cq), queryReadMode)
+                    .setFlushMode(FlushModeType.COMMIT).getResultList()) {
+                found.put(current.getId(), current);
+            }
+        }
+        fetchBatches(persistentClassParam, new ArrayList<ID>(found.keySet()), batchPaths, queryReadMode);
+        final Map<ID, DomainModel> result = new LinkedHashMap<ID, DomainModel>();
+        for (final ID current : ids) {
+            final DomainModel entity = found.get(current);
+            if (entity != null) {
+                result.put(current, entity);
+            }
+        }
+        return result;
     }
 
     @SuppressWarnings(CompilerWarnings.UNCHECKED)
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.jpa;
+
+import com.googlecode.jbp.common.repository.IIdentifiable;
+import com.googlecode.jbp.common.repository.IRepository;
+import com.googlecode.jbp.common.repository.IRepositoryScope;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.FlushModeType;
+import java.io.Serializable;
+import java.util.function.Function;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Scope which runs each work with an entity manager of its own, in a resource
+ * local transaction.  The entity manager is closed once the work is over.
+ * <p>
+ * JPA has no standard way to load every entity of an entity manager
+ * read-only.  A read-only scope therefore only keeps its entity managers from
+ * flushing before queries and rolls their transactions back, so that changes
+ * made by the work are never written.  Repositories created in
+ * {@link com.googlecode.jbp.common.repository.ReadMode#READ_ONLY} mode also
+ * avoid the snapshots.
+ * </p>
+ *
+ * @param <ID>          The class of the entity's identifier.
+ * @param <DomainModel> The class of the entity's domain model.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class JpaRepositoryScope<ID extends Serializable, DomainModel extends IIdentifiable<ID>>
+        implements IRepositoryScope<ID, DomainModel> {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Function<EntityManager, IRepository<ID, DomainModel>> repositoryFactory;
+    private final boolean readOnly;
+
+    /**
+     * Constructor.  The scope reads and writes.
+     *
+     * @param entityManagerFactoryParam The entity manager factory.  Must not be
+     *                                  {@code null}.
+     * @param repositoryFactoryParam    Creates the repository passed to the
+     *                                  work, using the entity manager opened
+     *                                  for it.  Must not be {@code null}.
+     */
+    public JpaRepositoryScope(final EntityManagerFactory entityManagerFactoryParam,
+                              final Function<EntityManager, IRepository<ID, DomainModel>> repositoryFactoryParam) {
+        this(entityManagerFactoryParam, repositoryFactoryParam, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param entityManagerFactoryParam The entity manager factory.  Must not be
+     *                                  {@code null}.
+     * @param repositoryFactoryParam    Creates the repository passed to the
+     *                                  work, using the entity manager opened
+     *                                  for it.  Must not be {@code null}.
+     * @param readOnlyParam             Whether the transactions of the scope
+     *                                  are read-only.
+     */
+    public JpaRepositoryScope(final EntityManagerFactory entityManagerFactoryParam,
+                              final Function<EntityManager, IRepository<ID, DomainModel>> repositoryFactoryParam,
+                              final boolean readOnlyParam) {
+        PARAM_REQ.Object.requireNotNull(entityManagerFactoryParam);
+        PARAM_REQ.Object.requireNotNull(repositoryFactoryParam);
+        entityManagerFactory = entityManagerFactoryParam;
+        repositoryFactory = repositoryFactoryParam;
+        readOnly = readOnlyParam;
+    }
+
+    public final boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public <R> R execute(final Function<IRepository<ID, DomainModel>, R> workParam) {
+        PARAM_REQ.Object.requireNotNull(workParam);
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        if (readOnly) {
+            entityManager.setFlushMode(FlushModeType.COMMIT);
+        }
+        try {
+            final EntityTransaction transaction = entityManager.getTransaction();
+            transaction.begin();
+            try {
+                final R result = workParam.apply(repositoryFactory.apply(entityManager));
+                if (readOnly) {
+                    transaction.rollback();
+                } else {
+                    transaction.commit();
+                }
+                return result;
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.jpa;
+
+import com.googlecode.jbp.common.repository.IPendingChangesLookup;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Looks up the pending changes of the persistence context of an entity
+ * manager, which JPA provides no way to do.  The lookup is delegated to the
+ * {@link IPendingChangesLookup} implementations available on the class path,
+ * e.g. the one of jbp-hibernate when the provider is Hibernate.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+final class ProviderPendingChanges {
+
+    private static final List<IPendingChangesLookup> LOOKUPS = loadLookups();
+
+    private ProviderPendingChanges() {
+        throw new IllegalStateException("This object must not be instanciated.");
+    }
+
+    /**
+     * Tells whether the persistence context of the specified entity manager
+     * holds pending changes to the tables of the specified entity class or its
+     * subclasses.
+     *
+     * @param entityManagerParam   The entity manager.
+     * @param persistentClassParam The queried class.
+     * @return {@code true} or {@code false}, or {@code null} if no available
+     *         lookup can tell.
+     */
+    static Boolean exist(final EntityManager entityManagerParam, final Class<?> persistentClassParam) {
+        if (LOOKUPS.isEmpty()) {
+            return null;
+        }
+        final Object delegate = entityManagerParam.getDelegate();
+        for (final IPendingChangesLookup current : LOOKUPS) {
+            final Boolean pending = current.exist(delegate, persistentClassParam);
+            if (pending != null) {
+                return pending;
+            }
+        }
+        return null;
+    }
+
+    private static List<IPendingChangesLookup> loadLookups() {
+        final List<IPendingChangesLookup> lookups = new ArrayList<IPendingChangesLookup>();
+        for (final IPendingChangesLookup current : ServiceLoader.load(IPendingChangesLookup.class,
+                ProviderPendingChanges.class.getClassLoader())) {
+            lookups.add(current);
+        }
+        return Collections.unmodifiableList(lookups);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.jpa;
+
+import com.googlecode.jbp.common.repository.ICloseableIterator;
+import com.googlecode.jbp.common.repository.IGenericRepository;
+import com.googlecode.jbp.common.repository.IIdentifiable;
+import com.googlecode.jbp.common.repository.Page;
+import com.googlecode.jbp.common.repository.QueryOptions;
+
+import javax.persistence.EntityManager;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static com.googlecode.jbp.common.requirements.Reqs.PARAM_REQ;
+
+/**
+ * Iterator which reads entities in keyset slices, as JPA 2 provides no cursor.
+ * Each entity is detached from the entity manager when the iterator moves past
+ * it, so the persistence context does not grow while iterating.
+ *
+ * @param <ID>          The class of the identifier.
+ * @param <DomainModel> The class of the iterated entities.
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+final class SliceIterator<ID extends Serializable, DomainModel extends IIdentifiable<ID>> implements ICloseableIterator<DomainModel> {
+
+    private final IGenericRepository repository;
+    private final EntityManager entityManager;
+    private final Class<DomainModel> persistentClass;
+    private final QueryOptions options;
+    private Page nextPage;
+    private Iterator<DomainModel> slice;
+    private DomainModel current;
+    private boolean closed = false;
+
+    /**
+     * Constructor.
+     *
+     * @param repositoryParam      The repository the slices are retrieved with.
+     * @param entityManagerParam   The entity manager of the repository.
+     * @param persistentClassParam The class of the iterated entities.
+     * @param fetchSizeParam       The amount of entities per slice.
+     * @param optionsParam         The options each slice is retrieved with.
+     */
+    SliceIterator(final IGenericRepository repositoryParam, final EntityManager entityManagerParam,
+                  final Class<DomainModel> persistentClassParam, final int fetchSizeParam, final QueryOptions optionsParam) {
+        PARAM_REQ.Object.requireNotNull(repositoryParam);
+        PARAM_REQ.Object.requireNotNull(entityManagerParam);
+        PARAM_REQ.Object.requireNotNull(persistentClassParam);
+        PARAM_REQ.Object.requireNotNull(optionsParam);
+        repository = repositoryParam;
+        entityManager = entityManagerParam;
+        persistentClass = persistentClassParam;
+        options = optionsParam;
+        nextPage = Page.newPage().keyset().maxResults(fetchSizeParam);
+    }
+
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if ((slice == null || !slice.hasNext()) && nextPage != null) {
+            final List<DomainModel> results = repository.retrieveAll(persistentClass, nextPage, options);
+            slice = results.iterator();
+            // A partial slice is the last one.
+            nextPage = results.size() < nextPage.getMaxResults() ? null
+                    : nextPage.next(results.get(results.size() - 1).getId(), null);
+        }
+        if (slice == null || !slice.hasNext()) {
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    public DomainModel next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        detachCurrent();
+        current = slice.next();
+        return current;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("Entities cannot be removed while iterating.");
+    }
+
+    public void close() {
+        if (!closed) {
+            closed = true;
+            detachCurrent();
+            while (slice != null && slice.hasNext()) {
+                entityManager.detach(slice.next());
+            }
+            slice = null;
+            nextPage = null;
+        }
+    }
+
+    private void detachCurrent() {
+        if (current != null) {
+            entityManager.detach(current);
+            current = null;
+        }
+    }
+}
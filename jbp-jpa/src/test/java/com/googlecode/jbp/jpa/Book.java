@@ -0,0 +1,75 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.jpa;
+
+import com.googlecode.jbp.common.repository.IIdentifiable;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+
+/**
+ * Entity used by the repository tests, with a lazy association to its author.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+@Entity
+public class Book implements IIdentifiable<Long> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    private String title;
+
+    private int pages;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Author author;
+
+    protected Book() {
+    }
+
+    public Book(final String titleParam, final int pagesParam, final Author authorParam) {
+        title = titleParam;
+        pages = pagesParam;
+        author = authorParam;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(final String titleParam) {
+        title = titleParam;
+    }
+
+    public int getPages() {
+        return pages;
+    }
+
+    public Author getAuthor() {
+        return author;
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2011 Yannick LOTH.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.jbp.jpa;
+
+import com.googlecode.jbp.common.repository.BatchReport;
+import com.googlecode.jbp.common.repository.CountMode;
+import com.googlecode.jbp.common.repository.DeleteMode;
+import com.googlecode.jbp.common.repository.FetchPlan;
+import com.googlecode.jbp.common.repository.FlushPolicy;
+import com.googlecode.jbp.common.repository.ICloseableIterator;
+import com.googlecode.jbp.common.repository.IIdentifiable;
+import com.googlecode.jbp.common.repository.Page;
+import com.googlecode.jbp.common.repository.Projection;
+import com.googlecode.jbp.common.repository.QueryOptions;
+import com.googlecode.jbp.common.repository.ReadMode;
+import com.googlecode.jbp.common.repository.ResultHolder;
+import com.googlecode.jbp.common.repository.Slice;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.persistence.PersistenceUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests of {@link GenericJpaRepository}, with Hibernate as persistence
+ * provider and an in-memory H2 data base.
+ *
+ * @author Yannick LOTH   - yannick AT littlej.biz -
+ */
+public class GenericJpaRepositoryTest {
+
+    private final PersistenceUtil persistenceUtil = Persistence.getPersistenceUtil();
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private GenericJpaRepository repository;
+    private final List<Long> authorIds = new ArrayList<Long>();
+    private final List<Long> bookIds = new ArrayList<Long>();
+
+    @BeforeClass
+    public void setUpEntityManagerFactory() {
+        entityManagerFactory = Persistence.createEntityManagerFactory("jbp-jpa");
+    }
+
+    @AfterClass
+    public void tearDownEntityManagerFactory() {
+        entityManagerFactory.close();
+    }
+
+    /**
+     * Persists three authors, and ten books whose titles repeat every three
+     * books, then begins the transaction of the test with an empty persistence
+     * context.
+     */
+    @BeforeMethod
+    public void setUp() {
+        authorIds.clear();
+        bookIds.clear();
+        entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        entityManager.createQuery("delete from Book").executeUpdate();
+        entityManager.createQuery("delete from Author").executeUpdate();
+        final List<Author> authors = new ArrayList<Author>();
+        for (int i = 0; i < 3; i++) {
+            final Author author = new Author("author" + i);
+            entityManager.persist(author);
+            authors.add(author);
+            authorIds.add(author.getId());
+        }
+        for (int i = 0; i < 10; i++) {
+            final Book book = new Book("title" + i % 3, (i + 1) * 100, authors.get(i % 3));
+            entityManager.persist(book);
+            bookIds.add(book.getId());
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+        entityManager.getTransaction().begin();
+        repository = new GenericJpaRepository(entityManager);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        if (entityManager.getTransaction().isActive()) {
+            entityManager.getTransaction().rollback();
+        }
+        entityManager.close();
+    }
+
+    @Test
+    public void testKeysetQueryRestrictsAndOrdersByKey() {
+        final List<Book> bounded = repository.buildKeysetQuery(Book.class,
+                Page.newPage().keyset().after(bookIds.get(1)).until(bookIds.get(5))).getResultList();
+        Assert.assertEquals(ids(bounded), bookIds.subList(2, 6));
+        final List<Book> byTitle = repository.buildKeysetQuery(Book.class,
+                Page.newPage().keyset("title").after("title0", bookIds.get(3)).maxResults(3)).getResultList();
+        Assert.assertEquals(ids(byTitle), Arrays.asList(bookIds.get(6), bookIds.get(9), bookIds.get(1)));
+    }
+
+    @Test
+    public void testKeysetByPropertyBreaksTiesWithIdentifier() {
+        final List<Book> walked = new ArrayList<Book>();
+        Slice<Long, Book> slice = repository.retrieveSlice(Book.class, Page.newPage().keyset("title").maxResults(3));
+        walked.addAll(slice.getResults());
+        while (slice.hasNext()) {
+            slice = repository.retrieveSlice(Book.class, slice.getNextPage());
+            walked.addAll(slice.getResults());
+        }
+        final List<Long> expected = new ArrayList<Long>();
+        for (int title = 0; title < 3; title++) {
+            for (int i = title; i < 10; i += 3) {
+                expected.add(bookIds.get(i));
+            }
+        }
+        Assert.assertEquals(ids(walked), expected);
+    }
+
+    @Test
+    public void testSliceContinuationStopsAtUntilKey() {
+        final Slice<Long, Book> first = repository.retrieveSlice(Book.class, Page.newPage().keyset().until(bookIds.get(6)).maxResults(3));
+        Assert.assertEquals(ids(first.getResults()), bookIds.subList(0, 3));
+        final Slice<Long, Book> second = repository.retrieveSlice(Book.class, first.getNextPage());
+        Assert.assertEquals(ids(second.getResults()), bookIds.subList(3, 6));
+        final Slice<Long, Book> last = repository.retrieveSlice(Book.class, second.getNextPage());
+        Assert.assertEquals(ids(last.getResults()), bookIds.subList(6, 7));
+        Assert.assertFalse(last.hasNext());
+    }
+
+    @Test
+    public void testIterateAllDetachesIteratedEntities() {
+        final ICloseableIterator<Book> iterator = repository.iterateAll(Book.class, 3);
+        final List<Book> iterated = new ArrayList<Book>();
+        while (iterator.hasNext()) {
+            final Book current = iterator.next();
+            Assert.assertTrue(entityManager.contains(current));
+            if (!iterated.isEmpty()) {
+                Assert.assertFalse(entityManager.contains(iterated.get(iterated.size() - 1)));
+            }
+            iterated.add(current);
+        }
+        Assert.assertEquals(ids(iterated), bookIds);
+        Assert.assertFalse(entityManager.contains(iterated.get(iterated.size() - 1)));
+    }
+
+    @Test
+    public void testCreateInChunks() {
+        final Author author = repository.retrieveById(Author.class, authorIds.get(0));
+        final List<Book> books = new ArrayList<Book>();
+        for (int i = 0; i < 7; i++) {
+            books.add(new Book("created" + i, 10, author));
+        }
+        final BatchReport report = repository.create(books, 3);
+        Assert.assertEquals(report.getCount(), 7);
+        Assert.assertEquals(report.getChunks().size(), 3);
+        // Each chunk is flushed, then detached: the other entities stay managed.
+        Assert.assertFalse(entityManager.contains(books.get(6)));
+        Assert.assertTrue(entityManager.contains(author));
+        Assert.assertEquals(repository.retrievePage(Book.class, Page.newPage().maxResults(1)).getResultQuantity(), 17);
+    }
+
+    @Test
+    public void testDeleteInChunks() {
+        final BatchReport report = repository.delete(repository.retrieveAll(Book.class), 4);
+        Assert.assertEquals(report.getCount(), 10);
+        Assert.assertEquals(report.getChunks().size(), 3);
+        Assert.assertTrue(repository.retrieveAll(Book.class).isEmpty());
+    }
+
+    @Test
+    public void testDeleteWhereInBulk() {
+        final Map<String, Object> parameters = Collections.<String, Object>singletonMap("pages", 500);
+        Assert.assertEquals(repository.deleteWhere(Book.class, "e.pages > :pages", parameters), 5);
+        Assert.assertEquals(ids(repository.retrieveAll(Book.class)), bookIds.subList(0, 5));
+    }
+
+    @Test
+    public void testDeleteWhereInChunksKeepsOtherEntitiesManaged() {
+        final Book kept = repository.retrieveById(Book.class, bookIds.get(0));
+        final Map<String, Object> parameters = Collections.<String, Object>singletonMap("pages", 500);
+        Assert.assertEquals(repository.deleteWhere(Book.class, "e.pages > :pages", parameters, DeleteMode.CASCADING, 2), 5);
+        Assert.assertTrue(entityManager.contains(kept));
+        Assert.assertEquals(ids(repository.retrieveAll(Book.class)), bookIds.subList(0, 5));
+    }
+
+    @Test
+    public void testExists() {
+        Assert.assertTrue(repository.exists(bookIds.get(0), Book.class));
+        Assert.assertFalse(repository.exists(-1L, Book.class));
+        Assert.assertFalse(repository.exists(new Book("transient", 1, null)));
+        final Book book = repository.retrieveById(Book.class, bookIds.get(1));
+        Assert.assertTrue(repository.exists(book));
+        repository.delete(book);
+        Assert.assertFalse(repository.exists(book));
+        Assert.assertFalse(repository.exists(bookIds.get(1), Book.class));
+    }
+
+    @Test
+    public void testReadOnlyRetrievalReturnsTheManagedInstance() {
+        final QueryOptions readOnly = QueryOptions.newOptions().readMode(ReadMode.READ_ONLY);
+        final Book book = repository.retrieveById(Book.class, bookIds.get(0));
+        Assert.assertSame(repository.retrieveById(Book.class, bookIds.get(0), readOnly), book);
+        repository.delete(book);
+        Assert.assertNull(repository.retrieveById(Book.class, bookIds.get(0), readOnly));
+        Assert.assertNull(repository.retrieveById(Book.class, -1L, readOnly));
+    }
+
+    @Test
+    public void testRetrieveMapByIdsKeepsTheOrderOfTheIdentifiers() {
+        final List<Long> ids = Arrays.asList(bookIds.get(5), -1L, bookIds.get(2), bookIds.get(0), bookIds.get(5));
+        final Map<Long, Book> books = repository.retrieveMapByIds(Book.class, ids);
+        Assert.assertEquals(new ArrayList<Long>(books.keySet()), Arrays.asList(bookIds.get(5), bookIds.get(2), bookIds.get(0)));
+        Assert.assertEquals(books.get(bookIds.get(2)).getTitle(), "title2");
+    }
+
+    @Test
+    public void testRetrievePageCounts() {
+        final ResultHolder<Long, Book> exact = repository.retrievePage(Book.class, Page.newPage().keyset().after(bookIds.get(2)).maxResults(4));
+        Assert.assertEquals(ids(exact.getResults()), bookIds.subList(3, 7));
+        Assert.assertEquals(exact.getResultQuantity(), 10);
+        Assert.assertTrue(exact.isExact());
+        final ResultHolder<Long, Book> estimated = repository.retrievePage(Book.class, Page.newPage().maxResults(4), CountMode.ESTIMATED);
+        Assert.assertEquals(estimated.getResults().size(), 4);
+        Assert.assertEquals(estimated.getResultQuantity(), 5);
+        Assert.assertFalse(estimated.isExact());
+        final ResultHolder<Long, Book> last = repository.retrievePage(Book.class, Page.newPage().firstResult(8).maxResults(4), CountMode.ESTIMATED);
+        Assert.assertEquals(last.getResultQuantity(), 10);
+        Assert.assertEquals(repository.retrievePage(Book.class, Page.newPage().maxResults(1), CountMode.CACHED).getResultQuantity(), 10);
+        repository.create(new Book("created", 10, null));
+        Assert.assertEquals(repository.retrievePage(Book.class, Page.newPage().maxResults(1), CountMode.CACHED).getResultQuantity(), 11);
+    }
+
+    @Test
+    public void testProjections() {
+        final List<Object[]> rows = repository.retrieveProjection(Book.class, Projection.attributes("title", "pages"),
+                Page.newPage().keyset().maxResults(2));
+        Assert.assertEquals(rows.size(), 2);
+        Assert.assertEquals(rows.get(0), new Object[]{"title0", 100});
+        Assert.assertEquals(rows.get(1), new Object[]{"title1", 200});
+        final List<Integer> pages = repository.retrieveProjection(Book.class, Projection.of(Integer.class, "pages"));
+        Assert.assertEquals(pages.size(), 10);
+        Assert.assertTrue(pages.contains(1000));
+    }
+
+    @Test
+    public void testFetchPlans() {
+        final QueryOptions joinAuthor = QueryOptions.newOptions().fetchPlan(FetchPlan.newPlan().join("author"));
+        for (final Book current : repository.retrieveAll(Book.class, Page.newPage().maxResults(5), joinAuthor)) {
+            Assert.assertTrue(persistenceUtil.isLoaded(current.getAuthor()));
+        }
+        entityManager.clear();
+        final QueryOptions joinBooks = QueryOptions.newOptions().fetchPlan(FetchPlan.newPlan().join("books"));
+        final ResultHolder<Long, Author> page = repository.retrievePage(Author.class, Page.newPage().maxResults(2), CountMode.EXACT, joinBooks);
+        Assert.assertEquals(page.getResults().size(), 2);
+        Assert.assertEquals(page.getResultQuantity(), 3);
+        for (final Author current : page.getResults()) {
+            Assert.assertTrue(persistenceUtil.isLoaded(current.getBooks()));
+            Assert.assertEquals(current.getBooks().size(), current.getId().equals(authorIds.get(0)) ? 4 : 3);
+        }
+        entityManager.clear();
+        final Slice<Long, Author> slice = repository.retrieveSlice(Author.class, Page.newPage().keyset().maxResults(2), joinBooks);
+        for (final Author current : slice.getResults()) {
+            Assert.assertTrue(persistenceUtil.isLoaded(current.getBooks()));
+        }
+    }
+
+    @Test
+    public void testAutoFlushPolicyWithoutLookupRunsInAutoFlushMode() {
+        // No pending changes lookup is on the class path of this module.
+        final GenericJpaRepository auto = new GenericJpaRepository(entityManager, FlushPolicy.AUTO);
+        final Book book = auto.retrieveById(Book.class, bookIds.get(0));
+        book.setTitle("changed");
+        final List<String> titles = auto.retrieveProjection(Book.class, Projection.of(String.class, "title"), Page.newPage().keyset().maxResults(1));
+        Assert.assertEquals(titles.get(0), "changed");
+        final Author author = auto.create(new Author("created"));
+        auto.delete(author.getId(), Author.class);
+        Assert.assertEquals(auto.retrievePage(Author.class, Page.newPage().maxResults(1)).getResultQuantity(), 3);
+        Assert.assertEquals(auto.getAvoidedFlushCount(), 0L);
+    }
+
+    private static List<Long> ids(final List<? extends IIdentifiable<Long>> entitiesParam) {
+        final List<Long> ids = new ArrayList<Long>(entitiesParam.size());
+        for (final IIdentifiable<Long> current : entitiesParam) {
+            ids.add(current.getId());
+        }
+        return ids;
+    }
+}